@@ -22,7 +22,10 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericEnumSymbol;
 import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
@@ -147,6 +150,235 @@ public class Conversions {
     }
   }
 
+  /**
+   * Converts decimals with a precision of at most 18 digits to and from their
+   * unscaled value as a {@link Long}, e.g. <tt>12.3400</tt> in a
+   * <tt>decimal(18,4)</tt> is represented as <tt>123400L</tt>. Unlike
+   * {@link DecimalConversion} no {@link BigDecimal}, {@link BigInteger} or
+   * intermediate arrays are created.
+   * <p>
+   * {@link org.apache.avro.generic.GenericDatumWriter} and
+   * {@link org.apache.avro.io.FastReaderBuilder} encode and decode values of this
+   * conversion directly with {@link #writeUnscaled(long, Schema, Encoder)} and
+   * {@link #readUnscaled(Schema, Decoder)}. Generated specific records use it
+   * when the class is passed to the compiler as a custom conversion.
+   * <p>
+   * This conversion registers for the logical type name <tt>decimal</tt>, like
+   * {@link DecimalConversion}. The two cannot be used together in one
+   * {@link org.apache.avro.generic.GenericData} model, as the one added last
+   * replaces the other for all decimals, so a model using this conversion cannot
+   * hold decimals wider than {@link #MAX_PRECISION} digits.
+   */
+  public static class UnscaledDecimalConversion extends Conversion<Long> {
+    /** The largest precision an unscaled long can always hold. */
+    public static final int MAX_PRECISION = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_PRECISION + 1];
+
+    static {
+      POWERS_OF_TEN[0] = 1L;
+      for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+        POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+      }
+    }
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[Long.BYTES]);
+    private static final ThreadLocal<ByteBuffer> SCRATCH_BUFFER = ThreadLocal
+        .withInitial(() -> ByteBuffer.allocate(Long.BYTES));
+
+    @Override
+    public Class<Long> getConvertedType() {
+      return Long.class;
+    }
+
+    @Override
+    public Schema getRecommendedSchema() {
+      throw new UnsupportedOperationException("No recommended schema for decimal (scale is required)");
+    }
+
+    @Override
+    public String getLogicalTypeName() {
+      return "decimal";
+    }
+
+    @Override
+    public Long fromBytes(ByteBuffer value, Schema schema, LogicalType type) {
+      checkPrecision(type);
+      return getUnscaled(value);
+    }
+
+    @Override
+    public ByteBuffer toBytes(Long value, Schema schema, LogicalType type) {
+      byte[] bytes = new byte[Long.BYTES];
+      int length = putUnscaled(validate(type, value), bytes);
+      return ByteBuffer.wrap(bytes, 0, length);
+    }
+
+    @Override
+    public Long fromFixed(GenericFixed value, Schema schema, LogicalType type) {
+      checkPrecision(type);
+      byte[] bytes = value.bytes();
+      return getUnscaled(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public GenericFixed toFixed(Long value, Schema schema, LogicalType type) {
+      byte[] bytes = new byte[schema.getFixedSize()];
+      putUnscaled(validate(type, value), bytes, 0, bytes.length);
+      return new GenericData.Fixed(schema, bytes);
+    }
+
+    /**
+     * Reads the unscaled value of a decimal of the given bytes or fixed schema
+     * without allocating.
+     */
+    public static long readUnscaled(Schema schema, Decoder in) throws IOException {
+      checkPrecision(schema.getLogicalType());
+      if (schema.getType() == Schema.Type.FIXED) {
+        int size = schema.getFixedSize();
+        byte[] bytes = scratch(size);
+        in.readFixed(bytes, 0, size);
+        return getUnscaled(bytes, 0, size);
+      }
+      // valid values take at most 8 bytes, so the scratch buffer is reused
+      return getUnscaled(in.readBytes(SCRATCH_BUFFER.get()));
+    }
+
+    /**
+     * Writes the unscaled value of a decimal with the given bytes or fixed schema
+     * without allocating.
+     *
+     * @throws AvroTypeException if the value exceeds the precision of the schema.
+     */
+    public static void writeUnscaled(long unscaled, Schema schema, Encoder out) throws IOException {
+      validate(schema.getLogicalType(), unscaled);
+      if (schema.getType() == Schema.Type.FIXED) {
+        int size = schema.getFixedSize();
+        byte[] bytes = scratch(size);
+        putUnscaled(unscaled, bytes, 0, size);
+        out.writeFixed(bytes, 0, size);
+      } else {
+        byte[] bytes = SCRATCH.get();
+        out.writeBytes(bytes, 0, putUnscaled(unscaled, bytes));
+      }
+    }
+
+    /**
+     * Returns the value of the two's-complement big-endian bytes remaining in the
+     * buffer, leaving its position unchanged.
+     */
+    public static long getUnscaled(ByteBuffer value) {
+      if (value.hasArray()) {
+        return getUnscaled(value.array(), value.arrayOffset() + value.position(), value.remaining());
+      }
+      int start = value.position();
+      int end = value.limit();
+      if (start == end) {
+        return 0L;
+      }
+      start = skipSignExtension(value.get(start), value, start, end);
+      long result = value.get(start);
+      for (int i = start + 1; i < end; i++) {
+        result = (result << 8) | (value.get(i) & 0xFF);
+      }
+      return result;
+    }
+
+    /** Returns the value of the given two's-complement big-endian bytes. */
+    public static long getUnscaled(byte[] bytes, int start, int length) {
+      if (length == 0) {
+        return 0L;
+      }
+      int end = start + length;
+      byte sign = bytes[start];
+      while (end - start > Long.BYTES) {
+        // leading bytes of wide fixed types only repeat the sign
+        if (bytes[start] != (sign < 0 ? (byte) 0xFF : 0) || (bytes[start + 1] ^ sign) < 0) {
+          throw new AvroTypeException("Decimal value does not fit in a long");
+        }
+        start++;
+      }
+      long result = bytes[start];
+      for (int i = start + 1; i < end; i++) {
+        result = (result << 8) | (bytes[i] & 0xFF);
+      }
+      return result;
+    }
+
+    /**
+     * Writes the shortest two's-complement big-endian representation of the value,
+     * as created by {@link BigInteger#toByteArray()}, to the start of the given
+     * array of at least 8 bytes.
+     *
+     * @return the number of bytes written.
+     */
+    public static int putUnscaled(long unscaled, byte[] bytes) {
+      // number of redundant sign bits, one of which is kept
+      int signBits = unscaled < 0 ? Long.numberOfLeadingZeros(~unscaled) : Long.numberOfLeadingZeros(unscaled);
+      int length = Long.BYTES - (signBits - 1) / 8;
+      for (int i = length - 1; i >= 0; i--) {
+        bytes[i] = (byte) unscaled;
+        unscaled >>= 8;
+      }
+      return length;
+    }
+
+    /**
+     * Writes the value sign-extended to exactly <tt>length</tt> bytes.
+     */
+    public static void putUnscaled(long unscaled, byte[] bytes, int start, int length) {
+      for (int i = start + length - 1; i >= start; i--) {
+        bytes[i] = (byte) unscaled;
+        unscaled >>= 8;
+      }
+    }
+
+    /** Returns whether the given decimal type can be represented as a long. */
+    public static boolean supports(LogicalType type) {
+      return type instanceof LogicalTypes.Decimal && ((LogicalTypes.Decimal) type).getPrecision() <= MAX_PRECISION;
+    }
+
+    /** Returns 10<sup>exponent</sup> for exponents 0 to 18. */
+    public static long powerOfTen(int exponent) {
+      return POWERS_OF_TEN[exponent];
+    }
+
+    private static int skipSignExtension(byte sign, ByteBuffer value, int start, int end) {
+      while (end - start > Long.BYTES) {
+        if (value.get(start) != (sign < 0 ? (byte) 0xFF : 0) || (value.get(start + 1) ^ sign) < 0) {
+          throw new AvroTypeException("Decimal value does not fit in a long");
+        }
+        start++;
+      }
+      return start;
+    }
+
+    private static byte[] scratch(int size) {
+      byte[] bytes = SCRATCH.get();
+      if (bytes.length < size) {
+        bytes = new byte[size];
+        SCRATCH.set(bytes);
+      }
+      return bytes;
+    }
+
+    private static void checkPrecision(LogicalType type) {
+      if (!supports(type)) {
+        throw new AvroTypeException("Cannot represent " + type + " as an unscaled long");
+      }
+    }
+
+    private static long validate(LogicalType type, long unscaled) {
+      checkPrecision(type);
+      int precision = ((LogicalTypes.Decimal) type).getPrecision();
+      if (unscaled <= -POWERS_OF_TEN[precision] || unscaled >= POWERS_OF_TEN[precision]) {
+        throw new AvroTypeException(
+            "Cannot encode unscaled decimal " + unscaled + " with more than max precision " + precision);
+      }
+      return unscaled;
+    }
+  }
+
   /**
    * Convert a underlying representation of a logical type (such as a ByteBuffer)
    * to a higher level object (such as a BigDecimal).
@@ -196,6 +196,9 @@ public abstract class JsonProperties {
 
   private Set<String> reserved;
 
+  // set on schemas shared through a SchemaCache
+  private boolean readOnly = false;
+
   JsonProperties(Set<String> reserved) {
     this.reserved = reserved;
   }
@@ -277,6 +280,7 @@ public abstract class JsonProperties {
    * @param value The value for the property to add
    */
   private void addProp(String name, JsonNode value) {
+    checkWritable();
     if (reserved.contains(name))
       throw new AvroRuntimeException("Can't set reserved property: " + name);
 
@@ -289,6 +293,16 @@ public abstract class JsonProperties {
     }
   }
 
+  /** Rejects all further changes. */
+  void setReadOnly() {
+    this.readOnly = true;
+  }
+
+  void checkWritable() {
+    if (readOnly)
+      throw new AvroRuntimeException("Can't modify a schema shared by a SchemaCache");
+  }
+
   /**
    * Adds all the props from the specified json properties.
    *
@@ -26,6 +26,7 @@ import org.apache.avro.logicaltypes.AvroByte;
 import org.apache.avro.logicaltypes.AvroCLOB;
 import org.apache.avro.logicaltypes.AvroDate;
 import org.apache.avro.logicaltypes.AvroDecimal;
+import org.apache.avro.logicaltypes.LogicalTypeWithLength;
 import org.apache.avro.logicaltypes.AvroLocalTimestampMicros;
 import org.apache.avro.logicaltypes.AvroLocalTimestampMillis;
 import org.apache.avro.logicaltypes.AvroNCLOB;
@@ -103,13 +104,13 @@ public class LogicalTypes {
         logicalType = AvroDate.create();
         break;
       case AvroDecimal.TYPENAME:
-        logicalType = new AvroDecimal(schema);
+        logicalType = AvroDecimal.create(schema);
         break;
       case AvroNCLOB.TYPENAME:
         logicalType = AvroNCLOB.create();
         break;
       case AvroNVarchar.TYPENAME:
-        logicalType = new AvroNVarchar(schema);
+        logicalType = AvroNVarchar.create(LogicalTypeWithLength.getLengthProperty(schema));
         break;
       case AvroShort.TYPENAME:
         logicalType = AvroShort.create();
@@ -139,7 +140,7 @@ public class LogicalTypes {
         logicalType = AvroUUID.create();
         break;
       case AvroVarchar.TYPENAME:
-        logicalType = new AvroVarchar(schema);
+        logicalType = AvroVarchar.create(LogicalTypeWithLength.getLengthProperty(schema));
         break;
       case AvroLocalTimestampMicros.TYPENAME:
         logicalType = AvroLocalTimestampMicros.create();
@@ -187,7 +188,7 @@ public class LogicalTypes {
 
   /** Create a Decimal LogicalType with the given precision and scale */
   public static AvroDecimal decimal(int precision, int scale) {
-    return new AvroDecimal(precision, scale);
+    return AvroDecimal.create(precision, scale);
   }
 
   private static final LogicalType UUID_TYPE = AvroUUID.create();
@@ -243,8 +244,8 @@ public class LogicalTypes {
     private static final String PRECISION_PROP = "precision";
     private static final String SCALE_PROP = "scale";
 
-    private int precision;
-    private int scale;
+    private final int precision;
+    private final int scale;
 
     protected Decimal(int precision, int scale) {
       super(DECIMAL);
@@ -254,30 +255,28 @@ public class LogicalTypes {
 
     protected Decimal(Schema schema) {
       super(DECIMAL);
+      this.precision = getPrecisionProperty(schema);
+      this.scale = getScaleProperty(schema);
+    }
+
+    /** Returns the precision property of a decimal schema. */
+    protected static int getPrecisionProperty(Schema schema) {
       if (!hasProperty(schema, PRECISION_PROP)) {
         throw new IllegalArgumentException("Invalid decimal: missing precision");
       }
+      return getInt(schema, PRECISION_PROP);
+    }
 
-      this.precision = getInt(schema, PRECISION_PROP);
-
-      if (hasProperty(schema, SCALE_PROP)) {
-        this.scale = getInt(schema, SCALE_PROP);
-      } else {
-        this.scale = 0;
-      }
+    /** Returns the scale property of a decimal schema, 0 if it is missing. */
+    protected static int getScaleProperty(Schema schema) {
+      return hasProperty(schema, SCALE_PROP) ? getInt(schema, SCALE_PROP) : 0;
     }
 
     protected Decimal(String text) {
       super(DECIMAL);
       String[] parts = text.split("[\\(\\)\\,]");
-      this.precision = 28;
-      this.scale = 7;
-      if (parts.length > 1) {
-        this.precision = Integer.parseInt(parts[1]);
-      }
-      if (parts.length > 2) {
-        this.scale = Integer.parseInt(parts[2]);
-      }
+      this.precision = parts.length > 1 ? Integer.parseInt(parts[1]) : 28;
+      this.scale = parts.length > 2 ? Integer.parseInt(parts[2]) : 7;
     }
 
     @Override
@@ -330,11 +329,11 @@ public class LogicalTypes {
       }
     }
 
-    private boolean hasProperty(Schema schema, String name) {
+    private static boolean hasProperty(Schema schema, String name) {
       return (schema.getObjectProp(name) != null);
     }
 
-    private int getInt(Schema schema, String name) {
+    private static int getInt(Schema schema, String name) {
       Object obj = schema.getObjectProp(name);
       if (obj instanceof Integer) {
         return (Integer) obj;
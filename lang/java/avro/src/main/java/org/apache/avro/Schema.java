@@ -151,6 +151,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
   private final Type type;
   private LogicalType logicalType = null;
+  private transient AvroDatatype backingDataType;
 
   Schema(Type type) {
     super(type == Type.ENUM ? ENUM_RESERVED : SCHEMA_RESERVED);
@@ -208,6 +209,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
   }
 
   void setLogicalType(LogicalType logicalType) {
+    checkWritable();
     this.logicalType = logicalType;
   }
 
@@ -222,9 +224,14 @@ public abstract class Schema extends JsonProperties implements Serializable {
   public AvroDatatype getDataType() {
     if (logicalType != null && logicalType instanceof AvroDatatype) {
       return (AvroDatatype) logicalType;
-    } else {
-      return getBackingDataType(this);
     }
+    // enum and fixed data types are created per schema, so keep them
+    AvroDatatype result = backingDataType;
+    if (result == null) {
+      result = getBackingDataType(this);
+      backingDataType = result;
+    }
+    return result;
   }
 
   /**
@@ -721,6 +728,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
     }
 
     public void addAlias(String alias) {
+      checkWritable();
       if (aliases == null)
         this.aliases = new LinkedHashSet<>();
       aliases.add(alias);
@@ -865,6 +873,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
     @Override
     public void addAlias(String name, String space) {
+      checkWritable();
       if (aliases == null)
         this.aliases = new LinkedHashSet<>();
       if (space == null)
@@ -1423,6 +1432,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
     private Names names = new Names();
     private boolean validate = true;
     private boolean validateDefaults = true;
+    private SchemaCache cache;
 
     /**
      * Adds the provided types to the set of defined, named types known to this
@@ -1464,6 +1474,23 @@ public abstract class Schema extends JsonProperties implements Serializable {
       return this.validateDefaults;
     }
 
+    /**
+     * Set the cache used when parsing schemas from strings, or null (the default)
+     * to always run the parser. The cache is only consulted while the parser does
+     * not know any named types yet. Schemas served from the cache are shared by all
+     * parsers using it, so they are read-only: adding properties, aliases or
+     * logical types to them throws an {@link AvroRuntimeException}.
+     */
+    public Parser setCache(SchemaCache cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    /** Returns the cache used when parsing schemas from strings, or null. */
+    public SchemaCache getCache() {
+      return this.cache;
+    }
+
     /**
      * Parse a schema from the provided file. If named, the schema is added to the
      * names known to this parser.
@@ -1493,6 +1520,9 @@ public abstract class Schema extends JsonProperties implements Serializable {
      * names known to this parser.
      */
     public Schema parse(String s) {
+      if (cache != null && names.isEmpty()) {
+        return parseCached(s);
+      }
       try {
         return parse(FACTORY.createParser(s));
       } catch (IOException e) {
@@ -1500,6 +1530,58 @@ public abstract class Schema extends JsonProperties implements Serializable {
       }
     }
 
+    private Schema parseCached(String s) {
+      SchemaCache.Entry entry = cache.get(s, validate, validateDefaults);
+      if (entry == null) {
+        Schema schema;
+        try {
+          schema = parse(FACTORY.createParser(s));
+        } catch (IOException e) {
+          throw new SchemaParseException(e);
+        }
+        // cached schemas are shared, so they may no longer be modified
+        Set<Schema> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        setReadOnly(schema, seen);
+        Map<String, Schema> types = new LinkedHashMap<>();
+        for (Schema type : names.values()) {
+          setReadOnly(type, seen);
+          types.put(type.getFullName(), type);
+        }
+        entry = cache.put(s, validate, validateDefaults, schema, types);
+        if (entry.schema == schema)
+          return schema;
+        names.clear(); // an equal schema was cached before, use its types
+      }
+      for (Schema type : entry.types.values())
+        names.add(type);
+      return entry.schema;
+    }
+
+    private static void setReadOnly(Schema s, Set<Schema> seen) {
+      if (!seen.add(s))
+        return;
+      s.setReadOnly();
+      switch (s.getType()) {
+      case RECORD:
+        for (Field f : s.getFields()) {
+          f.setReadOnly();
+          setReadOnly(f.schema(), seen);
+        }
+        break;
+      case ARRAY:
+        setReadOnly(s.getElementType(), seen);
+        break;
+      case MAP:
+        setReadOnly(s.getValueType(), seen);
+        break;
+      case UNION:
+        for (Schema branch : s.getTypes())
+          setReadOnly(branch, seen);
+        break;
+      default:
+      }
+    }
+
     private Schema parse(JsonParser parser) throws IOException {
       boolean saved = validateNames.get();
       boolean savedValidateDefaults = VALIDATE_DEFAULTS.get();
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of schemas parsed by {@link Schema.Parser} from
+ * JSON text. Parsing the same text again returns the already built schema
+ * instead of running the JSON parser and all validation.
+ * <p>
+ * Lookups are done by the exact JSON text. Texts that are seen for the first
+ * time are parsed and then matched against the cached schemas by their
+ * {@link SchemaNormalization#parsingFingerprint64 parsing fingerprint}, so that
+ * differently formatted texts of the same schema share one cached schema.
+ * Callers therefore share schema instances, which also lets identity-keyed
+ * caches of datum readers and writers hit.
+ * <p>
+ * A cache is only used by the parsers it is explicitly
+ * {@link Schema.Parser#setCache(SchemaCache) set on}, and by the data file
+ * readers it is passed to. The cached schemas are read-only, so that no caller
+ * can change them for the others.
+ */
+public class SchemaCache {
+
+  private final int maxSize;
+  private final ConcurrentHashMap<TextKey, Entry> byText = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Long, Entry> byFingerprint = new ConcurrentHashMap<>();
+  private final Queue<TextKey> insertionOrder = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param maxSize The maximum number of JSON texts to keep schemas for.
+   */
+  public SchemaCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Invalid cache size: " + maxSize + " (must be positive)");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the entry parsed from the given text with the same validation
+   * settings, or null.
+   */
+  Entry get(String json, boolean validate, boolean validateDefaults) {
+    Entry entry = byText.get(new TextKey(json, validate, validateDefaults));
+    if (entry != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return entry;
+  }
+
+  /**
+   * Adds a freshly parsed, read-only schema. An existing entry is reused if an
+   * identical schema was parsed from another text.
+   *
+   * @return the entry the text now maps to
+   */
+  Entry put(String json, boolean validate, boolean validateDefaults, Schema schema, Map<String, Schema> types) {
+    Entry entry = new Entry(schema, types, SchemaNormalization.parsingFingerprint64(schema));
+    Entry existing = byFingerprint.putIfAbsent(entry.fingerprint, entry);
+    // the fingerprint ignores docs, aliases and properties, so compare them too
+    if (existing != null && existing.schema.toString().equals(schema.toString())) {
+      entry = existing;
+    }
+
+    TextKey key = new TextKey(json, validate, validateDefaults);
+    Entry previous = byText.putIfAbsent(key, entry);
+    if (previous != null) {
+      return previous;
+    }
+    insertionOrder.add(key);
+    if (size.incrementAndGet() > maxSize) {
+      evict();
+    }
+    return entry;
+  }
+
+  private void evict() {
+    while (size.get() > maxSize) {
+      TextKey eldest = insertionOrder.poll();
+      if (eldest == null) {
+        return;
+      }
+      Entry entry = byText.remove(eldest);
+      if (entry != null) {
+        size.decrementAndGet();
+        byFingerprint.remove(entry.fingerprint, entry);
+      }
+    }
+  }
+
+  /** Removes all schemas, statistics are kept. */
+  public void clear() {
+    TextKey key;
+    while ((key = insertionOrder.poll()) != null) {
+      if (byText.remove(key) != null) {
+        size.decrementAndGet();
+      }
+    }
+    byFingerprint.clear();
+  }
+
+  /** Return the number of cached JSON texts. */
+  public int size() {
+    return byText.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Return the number of parses served from the cache. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Return the number of parses that had to run the parser. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "SchemaCache{size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() + ", misses="
+        + getMissCount() + "}";
+  }
+
+  /** A parsed schema and the named types it defines. */
+  static final class Entry {
+    final Schema schema;
+    final Map<String, Schema> types;
+    final long fingerprint;
+
+    private Entry(Schema schema, Map<String, Schema> types, long fingerprint) {
+      this.schema = schema;
+      this.types = types;
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  private static final class TextKey {
+    private final String json;
+    private final boolean validate;
+    private final boolean validateDefaults;
+
+    private TextKey(String json, boolean validate, boolean validateDefaults) {
+      this.json = json;
+      this.validate = validate;
+      this.validateDefaults = validateDefaults;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TextKey)) {
+        return false;
+      }
+      TextKey that = (TextKey) o;
+      return validate == that.validate && validateDefaults == that.validateDefaults && json.equals(that.json);
+    }
+
+    @Override
+    public int hashCode() {
+      return json.hashCode() * 4 + (validate ? 2 : 0) + (validateDefaults ? 1 : 0);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.io.File;
 import java.util.Arrays;
 
 import org.apache.avro.InvalidAvroMagicException;
+import org.apache.avro.SchemaCache;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.avro.io.DatumReader;
@@ -131,9 +132,34 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
     this(sin, reader, false);
   }
 
+  /**
+   * Construct a reader for a file that parses the schema in its header with the
+   * given cache. The schema is then shared with the other readers of the cache
+   * and read-only, see {@link SchemaCache}.
+   */
+  public DataFileReader(File file, DatumReader<D> reader, SchemaCache schemaCache) throws IOException {
+    this(new SeekableFileInput(file), reader, true, schemaCache);
+  }
+
+  /**
+   * Construct a reader for a file that parses the schema in its header with the
+   * given cache. Please close resource files yourself.
+   *
+   * @see #DataFileReader(File, DatumReader, SchemaCache)
+   */
+  public DataFileReader(SeekableInput sin, DatumReader<D> reader, SchemaCache schemaCache) throws IOException {
+    this(sin, reader, false, schemaCache);
+  }
+
   /** Construct a reader for a file. Please close resource files yourself. */
   protected DataFileReader(SeekableInput sin, DatumReader<D> reader, boolean closeOnError) throws IOException {
+    this(sin, reader, closeOnError, null);
+  }
+
+  private DataFileReader(SeekableInput sin, DatumReader<D> reader, boolean closeOnError, SchemaCache schemaCache)
+      throws IOException {
     super(reader);
+    this.schemaCache = schemaCache;
     try {
       this.sin = new SeekableInputStream(sin);
       initialize(this.sin);
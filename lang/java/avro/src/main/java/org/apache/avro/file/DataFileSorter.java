@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+/**
+ * Sorts the data in a data file, using temporary files where it does not fit in
+ * memory. Data is ordered as by {@link BinaryData#compare}, that is, as
+ * specified by its schema, and data that compares equal retains its input
+ * order.
+ * <p/>
+ * Input data is never decoded. Its binary-encoded records are gathered into
+ * runs of up to {@link #setMemory(long) the memory limit} divided by one more
+ * than {@link #setThreads(int) the thread count}. Each run is sorted on a pool
+ * thread while the next is read, and unless the whole input fits in a single
+ * run, written to an uncompressed temporary data file. The runs are then
+ * merged, at most {@link #setMergeFactor(int) the merge factor} at a time, into
+ * the output.
+ */
+public class DataFileSorter {
+  /** The default memory limit, 64MB. */
+  public static final long DEFAULT_MEMORY = 64L << 20;
+  /** The default number of runs merged at once. */
+  public static final int DEFAULT_MERGE_FACTOR = 64;
+
+  // memory per record in a run, beyond its data: its start and two indexes
+  private static final int RECORD_OVERHEAD = 12;
+
+  private long memory = DEFAULT_MEMORY;
+  private int threads = 1;
+  private int mergeFactor = DEFAULT_MERGE_FACTOR;
+  private File tempDir;
+  private CodecFactory codec;
+  private int syncInterval = DataFileConstants.DEFAULT_SYNC_INTERVAL;
+
+  /** Set how much memory runs may use in total. */
+  public DataFileSorter setMemory(long memory) {
+    if (memory < 1)
+      throw new IllegalArgumentException("Memory must be positive: " + memory);
+    this.memory = memory;
+    return this;
+  }
+
+  /** Set how many runs may be sorted at once. */
+  public DataFileSorter setThreads(int threads) {
+    if (threads < 1)
+      throw new IllegalArgumentException("Threads must be positive: " + threads);
+    this.threads = threads;
+    return this;
+  }
+
+  /** Set how many runs are merged at once, bounding the files open. */
+  public DataFileSorter setMergeFactor(int mergeFactor) {
+    if (mergeFactor < 2)
+      throw new IllegalArgumentException("Merge factor must be at least 2: " + mergeFactor);
+    this.mergeFactor = mergeFactor;
+    return this;
+  }
+
+  /**
+   * Set the directory for temporary files. By default the system's temporary
+   * directory is used.
+   */
+  public DataFileSorter setTempDir(File tempDir) {
+    this.tempDir = tempDir;
+    return this;
+  }
+
+  /**
+   * Set the output's codec. By default the input's codec is used.
+   */
+  public DataFileSorter setCodec(CodecFactory codec) {
+    this.codec = codec;
+    return this;
+  }
+
+  /** Set the output's sync interval. */
+  public DataFileSorter setSyncInterval(int syncInterval) {
+    this.syncInterval = syncInterval;
+    return this;
+  }
+
+  /**
+   * Sort a data file. Its schema and non-reserved metadata are copied to the
+   * output. Neither stream is closed.
+   *
+   * @return the number of records sorted
+   */
+  public long sort(InputStream in, OutputStream out) throws IOException {
+    DataFileStream<Object> reader = new DataFileStream<>(in, new GenericDatumReader<>());
+    Schema schema = reader.getSchema();
+
+    DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema));
+    for (String key : reader.getMetaKeys())
+      if (!DataFileWriter.isReservedMeta(key))
+        writer.setMeta(key, reader.getMeta(key));
+    String inputCodec = reader.getMetaString(DataFileConstants.CODEC);
+    writer.setCodec(codec != null ? codec
+        : CodecFactory.fromString(inputCodec != null ? inputCodec : DataFileConstants.NULL_CODEC));
+    writer.setSyncInterval(syncInterval);
+
+    // every temporary file, registered as soon as it is created
+    List<File> temps = Collections.synchronizedList(new ArrayList<>());
+    ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "DataFileSorter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      long count = 0;
+      // one run more than threads, so that one is read while the others sort
+      int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(memory / (threads + 1), 1));
+      BlockingQueue<Run> free = new ArrayBlockingQueue<>(threads + 1);
+      for (int i = 0; i <= threads; i++)
+        free.add(new Run(schema, capacity));
+      List<Future<File>> spills = new ArrayList<>();
+
+      Run run = free.take();
+      BinaryDecoder decoder = null;
+      byte[] copy = new byte[0];
+      while (reader.hasNext()) {
+        long records = reader.getBlockCount();
+        ByteBuffer block = reader.nextBlock();
+        byte[] bytes;
+        int start, end;
+        if (block.hasArray()) {
+          bytes = block.array();
+          start = block.arrayOffset() + block.position();
+        } else {
+          if (copy.length < block.remaining())
+            copy = new byte[block.remaining()];
+          block.duplicate().get(copy, 0, block.remaining());
+          bytes = copy;
+          start = 0;
+        }
+        end = start + block.remaining();
+        decoder = DecoderFactory.get().binaryDecoder(bytes, start, end - start, decoder);
+        for (long i = 0; i < records; i++) {
+          GenericDatumReader.skip(schema, decoder);
+          int next = end - decoder.inputStream().available();
+          if (!run.add(bytes, start, next - start)) { // full
+            spills.add(pool.submit(spill(run, free, temps)));
+            run = free.take();
+            run.add(bytes, start, next - start); // an empty run takes any record
+          }
+          start = next;
+          count++;
+        }
+      }
+
+      if (spills.isEmpty()) { // it all fits in memory
+        run.sort();
+        writer.create(schema, out);
+        run.writeTo(writer);
+      } else {
+        if (run.count > 0)
+          spills.add(pool.submit(spill(run, free, temps)));
+        List<File> runs = new ArrayList<>(); // in input order
+        for (Future<File> spill : spills)
+          runs.add(spill.get());
+        writer.create(schema, out);
+        merge(schema, runs, temps, writer);
+      }
+      writer.flush();
+      return count;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AvroRuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      throw new AvroRuntimeException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+      awaitTermination(pool);
+      synchronized (temps) {
+        for (File temp : temps)
+          temp.delete();
+      }
+    }
+  }
+
+  /** Wait for the spills still running, so that their files can be deleted. */
+  private static void awaitTermination(ExecutorService pool) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (pool.awaitTermination(1, TimeUnit.MINUTES))
+          break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /** Sort a data file into another. */
+  public long sort(File in, File out) throws IOException {
+    try (InputStream input = new FileInputStream(in); OutputStream output = new FileOutputStream(out)) {
+      return sort(input, output);
+    }
+  }
+
+  private Callable<File> spill(Run run, BlockingQueue<Run> free, List<File> temps) {
+    return () -> {
+      try {
+        run.sort();
+        File file = File.createTempFile("sort", ".avro", tempDir);
+        temps.add(file);
+        try (DataFileWriter<Object> writer = newRunWriter(run.schema, file)) {
+          run.writeTo(writer);
+        }
+        return file;
+      } finally {
+        run.clear();
+        free.add(run);
+      }
+    };
+  }
+
+  private DataFileWriter<Object> newRunWriter(Schema schema, File file) throws IOException {
+    DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema));
+    writer.setSyncInterval(DataFileConstants.DEFAULT_SYNC_INTERVAL * 4);
+    return writer.create(schema, new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+  }
+
+  /**
+   * Merge runs into the output, first merging consecutive groups of them into
+   * fewer if needed, so that runs remain in input order.
+   */
+  private void merge(Schema schema, List<File> runs, List<File> temps, DataFileWriter<Object> out) throws IOException {
+    List<File> pending = new ArrayList<>(runs);
+    while (pending.size() > mergeFactor) {
+      List<File> merged = new ArrayList<>();
+      for (int i = 0; i < pending.size(); i += mergeFactor) {
+        List<File> group = pending.subList(i, Math.min(i + mergeFactor, pending.size()));
+        if (group.size() == 1) {
+          merged.add(group.get(0));
+          continue;
+        }
+        File file = File.createTempFile("sort", ".avro", tempDir);
+        temps.add(file);
+        try (DataFileWriter<Object> writer = newRunWriter(schema, file)) {
+          mergeOnce(schema, group, writer);
+        }
+        for (File run : group)
+          run.delete();
+        merged.add(file);
+      }
+      pending = merged;
+    }
+    mergeOnce(schema, pending, out);
+  }
+
+  private static void mergeOnce(Schema schema, List<File> runs, DataFileWriter<Object> out) throws IOException {
+    PriorityQueue<Cursor> heap = new PriorityQueue<>(runs.size(), (a, b) -> {
+      int c = BinaryData.compare(a.bytes, a.start, b.bytes, b.start, schema);
+      return c != 0 ? c : Integer.compare(a.index, b.index); // keep input order
+    });
+    List<Cursor> cursors = new ArrayList<>(runs.size());
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        Cursor cursor = new Cursor(schema, runs.get(i), i);
+        cursors.add(cursor);
+        if (cursor.next())
+          heap.add(cursor);
+      }
+      ByteBuffer record = null;
+      while (!heap.isEmpty()) {
+        Cursor cursor = heap.poll();
+        if (record == null || record.array() != cursor.bytes)
+          record = ByteBuffer.wrap(cursor.bytes);
+        ((Buffer) record).limit(cursor.end).position(cursor.start);
+        out.appendEncoded(record);
+        if (cursor.next())
+          heap.add(cursor);
+      }
+    } finally {
+      for (Cursor cursor : cursors)
+        cursor.close();
+    }
+  }
+
+  /** Reads the binary-encoded records of a run in turn. */
+  private static class Cursor {
+    private final Schema schema;
+    private final int index;
+    private final DataFileStream<Object> reader;
+    private BinaryDecoder decoder;
+    private long remaining;
+    private byte[] bytes;
+    private int start, end, limit;
+
+    Cursor(Schema schema, File file, int index) throws IOException {
+      this.schema = schema;
+      this.index = index;
+      this.reader = new DataFileStream<>(new BufferedInputStream(new FileInputStream(file), 1 << 16),
+          new GenericDatumReader<>());
+    }
+
+    /** Advance to the next record, returning false at the end of the run. */
+    boolean next() throws IOException {
+      while (remaining == 0) {
+        if (!reader.hasNext())
+          return false;
+        remaining = reader.getBlockCount();
+        ByteBuffer block = reader.nextBlock(); // runs are uncompressed, so have arrays
+        bytes = block.array();
+        end = block.arrayOffset() + block.position();
+        limit = end + block.remaining();
+        decoder = DecoderFactory.get().binaryDecoder(bytes, end, limit - end, decoder);
+      }
+      start = end;
+      GenericDatumReader.skip(schema, decoder);
+      end = limit - decoder.inputStream().available();
+      remaining--;
+      return true;
+    }
+
+    void close() throws IOException {
+      reader.close();
+    }
+  }
+
+  /** Binary-encoded records held in memory. */
+  private static class Run {
+    private final Schema schema;
+    private byte[] bytes;
+    private int size;
+    private int[] starts = new int[1024];
+    private int[] order = new int[0];
+    private int[] temp = new int[0];
+    private int count;
+    private final long capacity;
+
+    Run(Schema schema, int capacity) {
+      this.schema = schema;
+      this.capacity = capacity;
+      this.bytes = new byte[Math.min(capacity, 1 << 16)];
+    }
+
+    /** Add a record, returning false if the run is full. */
+    boolean add(byte[] record, int offset, int length) {
+      if (count > 0 && size + length + (long) (count + 1) * RECORD_OVERHEAD > capacity)
+        return false;
+      if (size + length > bytes.length)
+        grow(length);
+      if (count + 1 >= starts.length)
+        starts = Arrays.copyOf(starts, starts.length * 2);
+      System.arraycopy(record, offset, bytes, size, length);
+      starts[count++] = size;
+      size += length;
+      starts[count] = size;
+      return true;
+    }
+
+    /** Make room for a record of the given length. */
+    private void grow(int length) {
+      long needed = (long) size + length;
+      if (needed > Integer.MAX_VALUE - 8)
+        throw new AvroRuntimeException("Record too large to sort: " + length);
+      if (needed > bytes.length)
+        bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, bytes.length * 2L)));
+    }
+
+    void clear() {
+      size = 0;
+      count = 0;
+    }
+
+    void sort() {
+      if (order.length < count) {
+        order = new int[count];
+        temp = new int[count];
+      }
+      for (int i = 0; i < count; i++)
+        order[i] = i;
+      sort(order, temp, 0, count);
+    }
+
+    /** A stable merge sort of the indexes in [lo, hi). */
+    private void sort(int[] a, int[] t, int lo, int hi) {
+      if (hi - lo < 8) { // insertion sort
+        for (int i = lo + 1; i < hi; i++)
+          for (int j = i; j > lo && compare(a[j - 1], a[j]) > 0; j--) {
+            int swap = a[j];
+            a[j] = a[j - 1];
+            a[j - 1] = swap;
+          }
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      sort(a, t, lo, mid);
+      sort(a, t, mid, hi);
+      if (compare(a[mid - 1], a[mid]) <= 0)
+        return; // already in order
+      System.arraycopy(a, lo, t, lo, hi - lo);
+      for (int i = lo, j = mid, k = lo; k < hi; k++)
+        a[k] = (j >= hi || (i < mid && compare(t[i], t[j]) <= 0)) ? t[i++] : t[j++];
+    }
+
+    private int compare(int i, int j) {
+      return BinaryData.compare(bytes, starts[i], bytes, starts[j], schema);
+    }
+
+    void writeTo(DataFileWriter<Object> writer) throws IOException {
+      ByteBuffer record = ByteBuffer.wrap(bytes);
+      for (int i = 0; i < count; i++) {
+        int r = order[i];
+        ((Buffer) record).limit(starts[r + 1]).position(starts[r]);
+        writer.appendEncoded(record);
+      }
+    }
+  }
+}
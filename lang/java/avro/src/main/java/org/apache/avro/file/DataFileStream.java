@@ -35,6 +35,7 @@ import java.util.NoSuchElementException;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.InvalidAvroMagicException;
 import org.apache.avro.Schema;
+import org.apache.avro.SchemaCache;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.BinaryDecoder;
@@ -66,6 +67,8 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   private long blockSize;
   private boolean availableBlock = false;
   private Header header;
+  // used to parse the schema of the header, or null
+  SchemaCache schemaCache;
 
   /** Decoder on raw input stream. (Used for metadata.) */
   BinaryDecoder vin;
@@ -90,6 +93,17 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     initialize(in);
   }
 
+  /**
+   * Construct a reader for an input stream that parses the schema in its header
+   * with the given cache. The schema is then shared with the other readers of the
+   * cache and read-only, see {@link SchemaCache}.
+   */
+  public DataFileStream(InputStream in, DatumReader<D> reader, SchemaCache schemaCache) throws IOException {
+    this.reader = reader;
+    this.schemaCache = schemaCache;
+    initialize(in);
+  }
+
   /**
    * create an uninitialized DataFileStream
    */
@@ -127,7 +141,7 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
 
     // finalize the header
     header.metaKeyList = Collections.unmodifiableList(header.metaKeyList);
-    header.schema = new Schema.Parser().setValidate(false).setValidateDefaults(false)
+    header.schema = new Schema.Parser().setValidate(false).setValidateDefaults(false).setCache(schemaCache)
         .parse(getMetaString(DataFileConstants.SCHEMA));
     this.codec = resolveCodec();
     reader.setSchema(header.schema);
@@ -38,7 +38,9 @@ import java.util.UUID;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileStream.DataBlock;
+import org.apache.avro.generic.EncodedSizeCalculator;
 import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.EncoderFactory;
@@ -78,6 +80,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
 
   private boolean flushOnEveryBlock = true;
 
+  private boolean exactBlockSize = false;
+  private EncodedSizeCalculator sizeCalculator;
+
   /** Construct a writer, not yet open. */
   public DataFileWriter(DatumWriter<D> dout) {
     this.dout = dout;
@@ -129,6 +134,25 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     return this;
   }
 
+  /**
+   * Whether to start a new block before a datum that would make the current block
+   * exceed the sync interval, instead of after the datum that did. The size of
+   * each datum is then computed with an {@link EncodedSizeCalculator} before it
+   * is appended, so the datum writer must be a {@link GenericDatumWriter}. Blocks
+   * only exceed the sync interval if they hold a single datum that is larger.
+   * Defaults to false.
+   *
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setExactBlockSize(boolean exactBlockSize) {
+    if (exactBlockSize && !(dout instanceof GenericDatumWriter)) {
+      throw new AvroRuntimeException("Exact block sizes need a GenericDatumWriter: " + dout);
+    }
+    this.exactBlockSize = exactBlockSize;
+    this.sizeCalculator = exactBlockSize ? new EncodedSizeCalculator(((GenericDatumWriter<?>) dout).getData()) : null;
+    return this;
+  }
+
   /** Open a new file for data matching a schema with a random sync. */
   public DataFileWriter<D> create(Schema schema, File file) throws IOException {
     SyncableFileOutputStream sfos = new SyncableFileOutputStream(file);
@@ -310,6 +334,18 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public void append(D datum) throws IOException {
     assertOpen();
     int usedBuffer = bufferInUse();
+    if (exactBlockSize && blockCount > 0) {
+      long size;
+      try {
+        size = sizeCalculator.sizeOf(schema, datum);
+      } catch (RuntimeException e) {
+        throw new AppendWriteException(e);
+      }
+      if (usedBuffer + size > syncInterval) {
+        writeBlock();
+        usedBuffer = 0;
+      }
+    }
     try {
       dout.write(datum, bufOut);
     } catch (IOException | RuntimeException e) {
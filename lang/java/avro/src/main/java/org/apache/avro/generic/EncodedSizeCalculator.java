@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Computes the number of bytes a datum takes in the Avro binary encoding
+ * without encoding it, using the same data model as a
+ * {@link GenericDatumWriter}.
+ * <p>
+ * {@link #sizeOf(Schema, Object)} returns the exact size.
+ * {@link #upperBound(Schema, Object)} is cheaper for {@link String} values,
+ * whose UTF-8 length is bounded by three bytes per char instead of being
+ * computed.
+ * <p>
+ * The sizes are those of {@link org.apache.avro.io.BinaryEncoder}s that write
+ * arrays and maps as a single block, i.e. all but the
+ * {@link org.apache.avro.io.EncoderFactory#blockingBinaryEncoder blocking} one.
+ * Data of the reflect model is sized as
+ * {@link org.apache.avro.reflect.ReflectDatumWriter} writes it, except for
+ * fields with an {@link org.apache.avro.reflect.AvroEncode custom encoding}.
+ * Calculators are thread-safe.
+ */
+public class EncodedSizeCalculator {
+
+  private final GenericData data;
+
+  public EncodedSizeCalculator() {
+    this(GenericData.get());
+  }
+
+  /** Creates a calculator for data of the given data model. */
+  public EncodedSizeCalculator(GenericData data) {
+    this.data = data;
+  }
+
+  public GenericData getData() {
+    return data;
+  }
+
+  /** Returns the exact encoded size of a datum. */
+  public long sizeOf(Schema schema, Object datum) {
+    return size(schema, datum, true);
+  }
+
+  /**
+   * Returns an upper bound of the encoded size of a datum, which is exact unless
+   * the datum contains {@link String}s with non-ASCII characters.
+   */
+  public long upperBound(Schema schema, Object datum) {
+    return size(schema, datum, false);
+  }
+
+  /** Returns the encoded size of an int. */
+  public static int sizeOfInt(int n) {
+    return sizeOfLong(n);
+  }
+
+  /** Returns the encoded size of a long. */
+  public static int sizeOfLong(long n) {
+    n = (n << 1) ^ (n >> 63); // move sign to low-order bit
+    // every byte holds seven bits
+    return (64 - Long.numberOfLeadingZeros(n | 1) + 6) / 7;
+  }
+
+  /** Returns the number of bytes of the UTF-8 encoding of a string. */
+  public static int utf8Length(CharSequence s) {
+    if (s instanceof Utf8) {
+      return ((Utf8) s).getByteLength();
+    }
+    int length = s.length();
+    int bytes = length;
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes += 1;
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+          bytes += 2; // four bytes for two chars
+          i++;
+        } else if (!Character.isSurrogate(c)) {
+          bytes += 2;
+        } // unpaired surrogates are replaced with one byte
+      }
+    }
+    return bytes;
+  }
+
+  private long size(Schema schema, Object datum, boolean exact) {
+    LogicalType logicalType = schema.getLogicalType();
+    if (datum != null && logicalType != null) {
+      Conversion<?> conversion = data.getConversionByClass(datum.getClass(), logicalType);
+      if (conversion != null) {
+        datum = Conversions.convertToRawType(datum, schema, logicalType, conversion);
+      }
+    }
+    switch (schema.getType()) {
+    case RECORD:
+      Object state = data.getRecordState(datum, schema);
+      long size = 0;
+      for (Field f : schema.getFields()) {
+        size += size(f.schema(), data.getField(datum, f.name(), f.pos(), state), exact);
+      }
+      return size;
+    case ENUM:
+      // the specific and reflect writers write a Java enum's ordinal
+      return sizeOfInt(datum instanceof Enum ? ((Enum<?>) datum).ordinal() : schema.getEnumOrdinal(datum.toString()));
+    case ARRAY:
+      return arraySize(schema.getElementType(), datum, exact);
+    case MAP:
+      return mapSize(schema.getValueType(), (Map<?, ?>) datum, exact);
+    case UNION:
+      int index = data.resolveUnion(schema, datum);
+      return sizeOfInt(index) + size(schema.getTypes().get(index), datum, exact);
+    case FIXED:
+      return schema.getFixedSize();
+    case STRING:
+      return stringSize(datum, exact);
+    case BYTES:
+      // the reflect data model also uses byte arrays
+      int length = datum instanceof byte[] ? ((byte[]) datum).length : ((ByteBuffer) datum).remaining();
+      return sizeOfInt(length) + length;
+    case INT:
+      // the reflect data model also uses chars
+      return sizeOfInt(datum instanceof Character ? (Character) datum : ((Number) datum).intValue());
+    case LONG:
+      return sizeOfLong(((Number) datum).longValue());
+    case FLOAT:
+      return 4;
+    case DOUBLE:
+      return 8;
+    case BOOLEAN:
+      return 1;
+    case NULL:
+      return 0;
+    default:
+      throw new AvroTypeException("Not a " + schema + ": " + datum);
+    }
+  }
+
+  private static long stringSize(Object datum, boolean exact) {
+    CharSequence s = datum instanceof CharSequence ? (CharSequence) datum : datum.toString();
+    int length = exact || s instanceof Utf8 ? utf8Length(s) : 3 * s.length();
+    return sizeOfInt(length) + length;
+  }
+
+  private long arraySize(Schema elementType, Object datum, boolean exact) {
+    long size = 1; // the end marker
+    if (datum instanceof Map) {
+      // the reflect data model writes maps with non-string keys as arrays of
+      // key/value records
+      Map<?, ?> map = (Map<?, ?>) datum;
+      if (!map.isEmpty()) {
+        size += sizeOfLong(map.size());
+      }
+      Schema keyType = elementType.getFields().get(0).schema();
+      Schema valueType = elementType.getFields().get(1).schema();
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        size += size(keyType, entry.getKey(), exact) + size(valueType, entry.getValue(), exact);
+      }
+    } else if (datum instanceof Collection) {
+      Collection<?> elements = (Collection<?>) datum;
+      if (!elements.isEmpty()) {
+        size += sizeOfLong(elements.size());
+      }
+      for (Object element : elements) {
+        size += size(elementType, element, exact);
+      }
+    } else {
+      // arrays of the reflect data model
+      int length = Array.getLength(datum);
+      if (length > 0) {
+        size += sizeOfInt(length);
+      }
+      for (int i = 0; i < length; i++) {
+        size += size(elementType, Array.get(datum, i), exact);
+      }
+    }
+    return size;
+  }
+
+  private long mapSize(Schema valueType, Map<?, ?> map, boolean exact) {
+    long size = 1; // the end marker
+    if (!map.isEmpty()) {
+      size += sizeOfLong(map.size());
+    }
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      size += stringSize(entry.getKey(), exact) + size(valueType, entry.getValue(), exact);
+    }
+    return size;
+  }
+}
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+
+/**
+ * Extracts the values of fields, given by their paths, from binary-encoded
+ * records without decoding the rest of the record.
+ * <p>
+ * A path is a sequence of field names separated by dots, e.g.
+ * <tt>customer.id</tt>. Each name but the last must select a record, or a union
+ * with exactly one record branch that has the next field, as with optional
+ * records. If a datum holds another branch of such a union, the fields below it
+ * are absent and extracted as null.
+ * <p>
+ * All paths are compiled into one plan that reads the fields in encoding order,
+ * skipping over the fields no path selects with the {@link Decoder} skip
+ * methods, and stops after the last selected field. Instead of the values, the
+ * byte ranges of the fields can be extracted, e.g. to compare or hash them.
+ * <p>
+ * FieldExtractors must be compiled with the writer's schema. They are
+ * thread-safe: each thread reads values with its own datum readers.
+ */
+public class FieldExtractor {
+
+  private static final ThreadLocal<BinaryDecoder> ARRAY_DECODER = new ThreadLocal<>();
+  private static final ThreadLocal<BinaryDecoder> BUFFER_DECODER = new ThreadLocal<>();
+
+  private final Schema schema;
+  private final String[] paths;
+  private final RecordPlan plan;
+
+  /**
+   * Compiles the given paths into an extractor for records of the given schema.
+   */
+  public static FieldExtractor compile(Schema schema, String... paths) {
+    return compile(schema, GenericData.get(), paths);
+  }
+
+  /**
+   * Compiles the given paths into an extractor for records of the given schema
+   * that creates values with the given data model.
+   */
+  public static FieldExtractor compile(Schema schema, GenericData data, String... paths) {
+    return new FieldExtractor(schema, data, paths);
+  }
+
+  private FieldExtractor(Schema schema, GenericData data, String[] paths) {
+    if (schema.getType() != Type.RECORD) {
+      throw new AvroRuntimeException("Not a record: " + schema);
+    }
+    if (paths.length == 0) {
+      throw new AvroRuntimeException("No field paths given");
+    }
+    this.schema = schema;
+    this.paths = paths.clone();
+    PlanBuilder root = new PlanBuilder(schema);
+    for (int i = 0; i < paths.length; i++) {
+      root.add(paths[i], paths[i].split("\\.", -1), 0, i);
+    }
+    this.plan = root.build(data);
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /** Returns the paths, in the order in which their values are returned. */
+  public String[] getPaths() {
+    return paths.clone();
+  }
+
+  /** Returns the values of the paths in the given encoded record. */
+  public Object[] extract(byte[] bytes) throws IOException {
+    return extract(bytes, 0, bytes.length);
+  }
+
+  /** Returns the values of the paths in the given encoded record. */
+  public Object[] extract(byte[] bytes, int offset, int length) throws IOException {
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, offset, length, ARRAY_DECODER.get());
+    ARRAY_DECODER.set(in);
+    Object[] values = new Object[paths.length];
+    plan.extract(in, values, null, 0, false);
+    return values;
+  }
+
+  /**
+   * Returns the values of the paths in the record encoded in the remaining bytes
+   * of the given buffer. The position of the buffer is not changed.
+   */
+  public Object[] extract(ByteBuffer buffer) throws IOException {
+    BinaryDecoder in = DecoderFactory.get().byteBufferBinaryDecoder(buffer, BUFFER_DECODER.get());
+    BUFFER_DECODER.set(in);
+    Object[] values = new Object[paths.length];
+    plan.extract(in, values, null, 0, false);
+    return values;
+  }
+
+  /**
+   * Returns the values of the paths in the next record of the given decoder. The
+   * whole record is consumed, so the decoder can read the datum that follows.
+   */
+  public Object[] extract(Decoder in) throws IOException {
+    Object[] values = new Object[paths.length];
+    plan.extract(in, values, null, 0, true);
+    return values;
+  }
+
+  /**
+   * Returns the byte ranges of the paths in the given encoded record. For the
+   * path at index <tt>i</tt>, element <tt>2 * i</tt> of the result is the index
+   * in <tt>bytes</tt> of the first byte of its encoded value and element
+   * <tt>2 * i + 1</tt> the index after the last byte. Both are -1 for absent
+   * fields.
+   */
+  public int[] extractRanges(byte[] bytes, int offset, int length) throws IOException {
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, offset, length, ARRAY_DECODER.get());
+    ARRAY_DECODER.set(in);
+    return extractRanges(in, offset + length);
+  }
+
+  /**
+   * Returns the byte ranges of the paths in the record encoded in the remaining
+   * bytes of the given buffer, as absolute indexes in the buffer. See
+   * {@link #extractRanges(byte[], int, int)}. The position of the buffer is not
+   * changed.
+   */
+  public int[] extractRanges(ByteBuffer buffer) throws IOException {
+    BinaryDecoder in = DecoderFactory.get().byteBufferBinaryDecoder(buffer, BUFFER_DECODER.get());
+    BUFFER_DECODER.set(in);
+    return extractRanges(in, buffer.limit());
+  }
+
+  private int[] extractRanges(BinaryDecoder in, int limit) throws IOException {
+    int[] ranges = new int[2 * paths.length];
+    Arrays.fill(ranges, -1);
+    plan.extract(in, null, ranges, limit, false);
+    return ranges;
+  }
+
+  /** The fields of one record schema up to the last one any path selects. */
+  private static final class RecordPlan {
+    private final Schema[] schemas;
+    // null for fields that are skipped
+    private final FieldPlan[] fields;
+    // the fields after the last selected one
+    private final Schema[] rest;
+
+    private RecordPlan(Schema[] schemas, FieldPlan[] fields, Schema[] rest) {
+      this.schemas = schemas;
+      this.fields = fields;
+      this.rest = rest;
+    }
+
+    private void extract(Decoder in, Object[] values, int[] ranges, int limit, boolean skipRest) throws IOException {
+      for (int i = 0; i < fields.length; i++) {
+        FieldPlan field = fields[i];
+        if (field == null) {
+          GenericDatumReader.skip(schemas[i], in);
+        } else if (field.record == null) {
+          field.extract(in, values, ranges, limit);
+        } else {
+          Schema recordSchema = schemas[i];
+          if (field.branch >= 0) {
+            int branch = in.readIndex();
+            if (branch != field.branch) {
+              GenericDatumReader.skip(recordSchema.getTypes().get(branch), in);
+              continue;
+            }
+          }
+          field.record.extract(in, values, ranges, limit, skipRest || i < fields.length - 1);
+        }
+      }
+      if (skipRest) {
+        for (Schema s : rest) {
+          GenericDatumReader.skip(s, in);
+        }
+      }
+    }
+  }
+
+  /** A selected field, either the target of some paths or a step of others. */
+  private static final class FieldPlan {
+    private final Schema schema;
+    private final int[] targets;
+    // datum readers are not thread-safe, so each thread has its own
+    private final ThreadLocal<DatumReader<Object>> readers;
+    private final RecordPlan record;
+    // the union branch of the record the paths continue in, or -1
+    private final int branch;
+
+    private FieldPlan(Schema schema, int[] targets, ThreadLocal<DatumReader<Object>> readers, RecordPlan record,
+        int branch) {
+      this.schema = schema;
+      this.targets = targets;
+      this.readers = readers;
+      this.record = record;
+      this.branch = branch;
+    }
+
+    private void extract(Decoder in, Object[] values, int[] ranges, int limit) throws IOException {
+      if (values != null) {
+        Object value = readers.get().read(null, in);
+        for (int target : targets) {
+          values[target] = value;
+        }
+      } else {
+        int start = limit - ((BinaryDecoder) in).inputStream().available();
+        GenericDatumReader.skip(schema, in);
+        int end = limit - ((BinaryDecoder) in).inputStream().available();
+        for (int target : targets) {
+          ranges[2 * target] = start;
+          ranges[2 * target + 1] = end;
+        }
+      }
+    }
+  }
+
+  /** Collects the paths that go through one record schema. */
+  private static final class PlanBuilder {
+    private final Schema schema;
+    private final PlanBuilder[] children;
+    private final List<Integer>[] targets;
+    private final int[] branches;
+
+    @SuppressWarnings("unchecked")
+    private PlanBuilder(Schema schema) {
+      this.schema = schema;
+      int size = schema.getFields().size();
+      this.children = new PlanBuilder[size];
+      this.targets = new List[size];
+      this.branches = new int[size];
+    }
+
+    private void add(String path, String[] names, int depth, int index) {
+      Field field = schema.getField(names[depth]);
+      if (field == null) {
+        throw new AvroRuntimeException(
+            "Not a valid field path: " + path + ", " + schema.getFullName() + " has no field " + names[depth]);
+      }
+      int pos = field.pos();
+      if (depth == names.length - 1) {
+        if (children[pos] != null) {
+          throw new AvroRuntimeException("Overlapping field paths: " + path);
+        }
+        if (targets[pos] == null) {
+          targets[pos] = new ArrayList<>();
+        }
+        targets[pos].add(index);
+        return;
+      }
+      if (targets[pos] != null) {
+        throw new AvroRuntimeException("Overlapping field paths: " + path);
+      }
+      if (children[pos] == null) {
+        Schema fieldSchema = field.schema();
+        branches[pos] = -1;
+        if (fieldSchema.getType() == Type.UNION) {
+          branches[pos] = recordBranch(fieldSchema, names[depth + 1]);
+          if (branches[pos] < 0) {
+            throw new AvroRuntimeException("Not a valid field path: " + path + ", " + field.name()
+                + " has no single record branch with field " + names[depth + 1]);
+          }
+          fieldSchema = fieldSchema.getTypes().get(branches[pos]);
+        } else if (fieldSchema.getType() != Type.RECORD) {
+          throw new AvroRuntimeException("Not a valid field path: " + path + ", " + field.name() + " is not a record");
+        }
+        children[pos] = new PlanBuilder(fieldSchema);
+      }
+      children[pos].add(path, names, depth + 1, index);
+    }
+
+    private static int recordBranch(Schema union, String name) {
+      int found = -1;
+      List<Schema> types = union.getTypes();
+      for (int i = 0; i < types.size(); i++) {
+        if (types.get(i).getType() == Type.RECORD && types.get(i).getField(name) != null) {
+          if (found >= 0) {
+            return -1;
+          }
+          found = i;
+        }
+      }
+      return found;
+    }
+
+    private RecordPlan build(GenericData data) {
+      int last = -1;
+      for (int i = 0; i < children.length; i++) {
+        if (children[i] != null || targets[i] != null) {
+          last = i;
+        }
+      }
+      List<Field> schemaFields = schema.getFields();
+      Schema[] schemas = new Schema[last + 1];
+      FieldPlan[] fields = new FieldPlan[last + 1];
+      for (int i = 0; i <= last; i++) {
+        schemas[i] = schemaFields.get(i).schema();
+        if (targets[i] != null) {
+          int[] indexes = targets[i].stream().mapToInt(Integer::intValue).toArray();
+          Schema fieldSchema = schemas[i];
+          ThreadLocal<DatumReader<Object>> readers = ThreadLocal
+              .withInitial(() -> new GenericDatumReader<>(fieldSchema, fieldSchema, data));
+          fields[i] = new FieldPlan(fieldSchema, indexes, readers, null, -1);
+        } else if (children[i] != null) {
+          fields[i] = new FieldPlan(schemas[i], null, null, children[i].build(data), branches[i]);
+        }
+      }
+      Schema[] rest = new Schema[schemaFields.size() - last - 1];
+      for (int i = 0; i < rest.length; i++) {
+        rest[i] = schemaFields.get(last + 1 + i).schema();
+      }
+      return new RecordPlan(schemas, fields, rest);
+    }
+  }
+}
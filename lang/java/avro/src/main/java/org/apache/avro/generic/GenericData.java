@@ -53,7 +53,10 @@ import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.RecordCodecCompiler;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
+import org.apache.avro.util.WeakIdentityHashMap;
 import org.apache.avro.util.internal.Accessor;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -199,6 +202,76 @@ public class GenericData {
     return this.fastReaderBuilder;
   }
 
+  public static final String COMPILED_CODEC_PROP = "org.apache.avro.compiledcodec";
+  private boolean compiledCodecEnabled = "true".equalsIgnoreCase(System.getProperty(COMPILED_CODEC_PROP));
+  private RecordCodecCompiler recordCodecCompiler = null;
+
+  /**
+   * Enables readers and writers compiled per record schema, see
+   * {@link RecordCodecCompiler}. Takes precedence over the fast reader.
+   */
+  public GenericData setCompiledCodecEnabled(boolean flag) {
+    this.compiledCodecEnabled = flag;
+    return this;
+  }
+
+  public boolean isCompiledCodecEnabled() {
+    return compiledCodecEnabled && RecordCodecCompiler.isSupportedData(this);
+  }
+
+  public RecordCodecCompiler getRecordCodecCompiler() {
+    if (recordCodecCompiler == null) {
+      recordCodecCompiler = new RecordCodecCompiler(this);
+    }
+    return this.recordCodecCompiler;
+  }
+
+  /**
+   * Property of a string schema giving the number of distinct values to intern
+   * when reading it, see {@link StringInterner}. A value of 0 disables interning
+   * for the schema.
+   */
+  public static final String STRING_INTERN_PROP = "avro.java.string.intern";
+  private int stringInternCapacity = 0;
+  private final Map<Schema, StringInterner> stringInterners = Collections.synchronizedMap(new WeakIdentityHashMap<>());
+
+  /**
+   * Interns the values of all string schemas that do not have the
+   * {@link #STRING_INTERN_PROP} property when reading them, keeping up to the
+   * given number of distinct values per schema. Disabled with 0, the default.
+   */
+  public GenericData setStringInternCapacity(int capacity) {
+    this.stringInternCapacity = capacity;
+    return this;
+  }
+
+  public int getStringInternCapacity() {
+    return stringInternCapacity;
+  }
+
+  /**
+   * Returns the interner shared by all readers of the given string schema, or
+   * null if its values are not interned.
+   */
+  public StringInterner getStringInterner(Schema schema) {
+    int capacity = stringInternCapacity;
+    Object prop = schema.getObjectProp(STRING_INTERN_PROP);
+    if (prop instanceof Number) {
+      capacity = ((Number) prop).intValue();
+    } else if (prop != null) {
+      try {
+        capacity = Integer.parseInt(prop.toString());
+      } catch (NumberFormatException e) {
+        throw new AvroRuntimeException("Invalid " + STRING_INTERN_PROP + ": " + prop);
+      }
+    }
+    if (capacity <= 0) {
+      return null;
+    }
+    final int size = capacity;
+    return stringInterners.computeIfAbsent(schema, s -> new StringInterner(size));
+  }
+
   /**
    * Default implementation of {@link GenericRecord}. Note that this
    * implementation does not fill in default values for fields if they are not
@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
@@ -34,8 +35,9 @@ import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.Decoder;
-import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.ResolverCache;
 import org.apache.avro.io.ResolvingDecoder;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.WeakIdentityHashMap;
 
@@ -45,6 +47,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   private Schema actual;
   private Schema expected;
   private DatumReader<D> fastDatumReader = null;
+  private DatumReader<D> compiledDatumReader = null;
 
   private ResolvingDecoder creatorResolver = null;
   private final Thread creator;
@@ -92,6 +95,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     }
     creatorResolver = null;
     fastDatumReader = null;
+    compiledDatumReader = null;
   }
 
   /** Get the reader's schema. */
@@ -103,15 +107,48 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   public void setExpected(Schema reader) {
     this.expected = reader;
     creatorResolver = null;
+    compiledDatumReader = null;
   }
 
   private static final ThreadLocal<Map<Schema, Map<Schema, ResolvingDecoder>>> RESOLVER_CACHE = ThreadLocal
       .withInitial(WeakIdentityHashMap::new);
 
+  /** The number of float or double array items read at a time. */
+  private static final int BULK_ITEMS = 256;
+
+  /**
+   * Whether float and double array items can be read in bulk, i.e. the reader
+   * class does not override the hook that reads them one by one.
+   */
+  private static final ClassValue<Boolean> BULK_FLOATING_POINT = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return !overrides(type, GenericDatumReader.class, "readWithoutConversion", Object.class, Schema.class,
+          ResolvingDecoder.class);
+    }
+  };
+
+  /**
+   * Returns whether a subclass of base, up to and excluding base, declares the
+   * named method.
+   */
+  static boolean overrides(Class<?> type, Class<?> base, String name, Class<?>... parameterTypes) {
+    for (Class<?> c = type; c != base && c != null; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod(name, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // look further up
+      }
+    }
+    return false;
+  }
+
   /**
    * Gets a resolving decoder for use by this GenericDatumReader. Unstable API.
-   * Currently uses a thread local cache to prevent constructing the resolvers too
-   * often, because that is very expensive.
+   * Currently uses a thread local cache of decoders, whose resolving grammars are
+   * shared by all threads through the {@link ResolverCache}, because generating
+   * them is very expensive.
    */
   protected final ResolvingDecoder getResolver(Schema actual, Schema expected) throws IOException {
     Thread currThread = Thread.currentThread();
@@ -127,7 +164,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     }
     resolver = cache.get(expected);
     if (resolver == null) {
-      resolver = DecoderFactory.get().resolvingDecoder(Schema.applyAliases(actual, expected), expected, null);
+      resolver = ResolverCache.get().newResolvingDecoder(actual, expected, null);
       cache.put(expected, resolver);
     }
 
@@ -141,6 +178,13 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   @Override
   @SuppressWarnings("unchecked")
   public D read(D reuse, Decoder in) throws IOException {
+    if (data.isCompiledCodecEnabled() && getClass() == GenericDatumReader.class) {
+      if (this.compiledDatumReader == null) {
+        this.compiledDatumReader = data.getRecordCodecCompiler().createDatumReader(actual, expected);
+      }
+      return compiledDatumReader.read(reuse, in);
+    }
+
     if (data.isFastReaderEnabled()) {
       if (this.fastDatumReader == null) {
         this.fastDatumReader = data.getFastReaderBuilder().createDatumReader(actual, expected);
@@ -293,6 +337,9 @@ public class GenericDatumReader<D> implements DatumReader<D> {
             addToArray(array, base + i,
                 readWithConversion(peekArray(array), expectedType, logicalType, conversion, in));
           }
+        } else if ((expectedType.getType() == Schema.Type.FLOAT || expectedType.getType() == Schema.Type.DOUBLE)
+            && BULK_FLOATING_POINT.get(getClass())) {
+          addFloatingPointItems(array, base, l, expectedType.getType(), in);
         } else {
           for (long i = 0; i < l; i++) {
             addToArray(array, base + i, readWithoutConversion(peekArray(array), expectedType, in));
@@ -306,6 +353,34 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     }
   }
 
+  /**
+   * Reads a block of float or double array items in bulk, a chunk at a time, and
+   * adds them to the array.
+   */
+  private void addFloatingPointItems(Object array, long base, long l, Schema.Type type, ResolvingDecoder in)
+      throws IOException {
+    int chunk = (int) Math.min(l, BULK_ITEMS);
+    if (type == Schema.Type.FLOAT) {
+      float[] values = new float[chunk];
+      for (long i = 0; i < l; i += chunk) {
+        int n = (int) Math.min(l - i, chunk);
+        in.readFloats(values, 0, n);
+        for (int j = 0; j < n; j++) {
+          addToArray(array, base + i + j, values[j]);
+        }
+      }
+    } else {
+      double[] values = new double[chunk];
+      for (long i = 0; i < l; i += chunk) {
+        int n = (int) Math.min(l - i, chunk);
+        in.readDoubles(values, 0, n);
+        for (int j = 0; j < n; j++) {
+          addToArray(array, base + i + j, values[j]);
+        }
+      }
+    }
+  }
+
   private Object pruneArray(Object object) {
     if (object instanceof GenericArray<?>) {
       ((GenericArray<?>) object).prune();
@@ -453,10 +528,12 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   protected Object readString(Object old, Schema expected, Decoder in) throws IOException {
     Class stringClass = getStringClass(expected);
     if (stringClass == String.class) {
-      return in.readString();
+      StringInterner interner = getStringInterner(expected);
+      return interner != null ? interner.readString(in) : in.readString();
     }
     if (stringClass == CharSequence.class) {
-      return readString(old, in);
+      StringInterner interner = getStringInterner(expected);
+      return interner != null ? interner.readUtf8(in) : readString(old, in);
     }
     return newInstanceFromString(stringClass, in.readString());
   }
@@ -508,6 +585,21 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     return c;
   }
 
+  // readers may be shared by threads, as the interners are
+  private final Map<Schema, StringInterner> stringInternerCache = Collections
+      .synchronizedMap(new WeakIdentityHashMap<>());
+
+  private StringInterner getStringInterner(Schema s) {
+    synchronized (stringInternerCache) {
+      StringInterner interner = stringInternerCache.get(s);
+      if (interner == null && !stringInternerCache.containsKey(s)) {
+        interner = data.getStringInterner(s);
+        stringInternerCache.put(s, interner);
+      }
+      return interner;
+    }
+  }
+
   private final Map<Class, Constructor> stringCtorCache = new HashMap<>();
 
   @SuppressWarnings("unchecked")
@@ -38,8 +38,26 @@ import org.apache.avro.io.Encoder;
 
 /** {@link DatumWriter} for generic Java objects. */
 public class GenericDatumWriter<D> implements DatumWriter<D> {
+  /** The number of float or double array items written at a time. */
+  private static final int BULK_ITEMS = 256;
+
+  /**
+   * Whether float and double array items can be written in bulk, i.e. the writer
+   * class does not override the hooks that write them one by one.
+   */
+  private static final ClassValue<Boolean> BULK_FLOATING_POINT = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return !GenericDatumReader.overrides(type, GenericDatumWriter.class, "write", Schema.class, Object.class,
+          Encoder.class)
+          && !GenericDatumReader.overrides(type, GenericDatumWriter.class, "writeWithoutConversion", Schema.class,
+              Object.class, Encoder.class);
+    }
+  };
+
   private final GenericData data;
   private Schema root;
+  private DatumWriter<D> compiledDatumWriter = null;
 
   public GenericDatumWriter() {
     this(GenericData.get());
@@ -66,10 +84,19 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
 
   public void setSchema(Schema root) {
     this.root = root;
+    this.compiledDatumWriter = null;
   }
 
   public void write(D datum, Encoder out) throws IOException {
     Objects.requireNonNull(out, "Encoder cannot be null");
+    if (data.isCompiledCodecEnabled() && getClass() == GenericDatumWriter.class && root.getType() == Schema.Type.RECORD
+        && root.getLogicalType() == null && datum instanceof IndexedRecord) {
+      if (compiledDatumWriter == null) {
+        compiledDatumWriter = data.getRecordCodecCompiler().createDatumWriter(root);
+      }
+      compiledDatumWriter.write(datum, out);
+      return;
+    }
     write(root, datum, out);
   }
 
@@ -78,12 +105,25 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
     LogicalType logicalType = schema.getLogicalType();
     if (datum != null && logicalType != null) {
       Conversion<?> conversion = getData().getConversionByClass(datum.getClass(), logicalType);
-      writeWithoutConversion(schema, convert(schema, logicalType, conversion, datum), out);
+      writeWithConversion(schema, logicalType, conversion, datum, out);
     } else {
       writeWithoutConversion(schema, datum, out);
     }
   }
 
+  /**
+   * Called to write a datum that may need to be converted first. Unscaled
+   * decimals are written directly without creating their raw representation.
+   */
+  protected void writeWithConversion(Schema schema, LogicalType logicalType, Conversion<?> conversion, Object datum,
+      Encoder out) throws IOException {
+    if (conversion instanceof Conversions.UnscaledDecimalConversion && datum instanceof Long) {
+      Conversions.UnscaledDecimalConversion.writeUnscaled((Long) datum, schema, out);
+    } else {
+      writeWithoutConversion(schema, convert(schema, logicalType, conversion, datum), out);
+    }
+  }
+
   /**
    * Convert a high level representation of a logical type (such as a BigDecimal)
    * to the its underlying representation object (such as a ByteBuffer).
@@ -252,10 +292,17 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
     long actualSize = 0;
     out.writeArrayStart();
     out.setItemCount(size);
-    for (Iterator<? extends Object> it = getArrayElements(datum); it.hasNext();) {
-      out.startItem();
-      write(element, it.next(), out);
-      actualSize++;
+    Iterator<? extends Object> it = getArrayElements(datum);
+    if (element.getLogicalType() == null
+        && (element.getType() == Schema.Type.FLOAT || element.getType() == Schema.Type.DOUBLE)
+        && BULK_FLOATING_POINT.get(getClass())) {
+      actualSize = writeFloatingPointItems(element.getType(), size, it, out);
+    } else {
+      while (it.hasNext()) {
+        out.startItem();
+        write(element, it.next(), out);
+        actualSize++;
+      }
     }
     out.writeArrayEnd();
     if (actualSize != size) {
@@ -264,6 +311,38 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
     }
   }
 
+  /**
+   * Unboxes float or double array items a chunk at a time and writes them in
+   * bulk. Returns the number of items written.
+   */
+  private long writeFloatingPointItems(Schema.Type type, long size, Iterator<? extends Object> it, Encoder out)
+      throws IOException {
+    int chunk = (int) Math.max(1, Math.min(size, BULK_ITEMS));
+    long count = 0;
+    if (type == Schema.Type.FLOAT) {
+      float[] values = new float[chunk];
+      while (it.hasNext()) {
+        int n = 0;
+        while (n < chunk && it.hasNext()) {
+          values[n++] = ((Number) it.next()).floatValue();
+        }
+        out.writeFloats(values, 0, n);
+        count += n;
+      }
+    } else {
+      double[] values = new double[chunk];
+      while (it.hasNext()) {
+        int n = 0;
+        while (n < chunk && it.hasNext()) {
+          values[n++] = ((Number) it.next()).doubleValue();
+        }
+        out.writeDoubles(values, 0, n);
+        count += n;
+      }
+    }
+    return count;
+  }
+
   /**
    * Called to find the index for a datum within a union. By default calls
    * {@link GenericData#resolveUnion(Schema,Object)}.
@@ -0,0 +1,502 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.EOFException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.InvalidNumberEncodingException;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.util.Utf8;
+
+/**
+ * A read-mostly {@link GenericRecord} over a binary-encoded record that decodes
+ * fields only when they are accessed.
+ * <p>
+ * The start of every field is found by skipping the fields before it, and is
+ * remembered, so accessing a few fields of a wide record costs about as much as
+ * decoding just the fields up to the last one accessed. Decoded values are
+ * kept, and {@link #put(int, Object)} replaces them.
+ * <p>
+ * Bytes values are slices of the source buffer and nested records are views
+ * over it as well, so the source must not be modified while a view is in use.
+ * Strings, fixed values, arrays and maps are decoded on access. Logical type
+ * conversions of the given {@link GenericData} are applied.
+ * <p>
+ * Views must be created with the writer's schema. They are not thread-safe.
+ * <p>
+ * To view many records of one schema, create them with a {@link Factory}, which
+ * computes the field layout of the schema once for all its views.
+ */
+public class GenericRecordView implements GenericRecord {
+
+  private static final Object NOT_DECODED = new Object();
+
+  private final Layout layout;
+  private final GenericData data;
+  private final ByteBuffer buffer;
+  // offsets[i] is the start of field i, for all i < known
+  private final int[] offsets;
+  private int known;
+  private final Object[] values;
+
+  /**
+   * Creates a view of a record of the given schema encoded in the given bytes.
+   */
+  public static GenericRecordView of(Schema schema, byte[] bytes) {
+    return of(schema, ByteBuffer.wrap(bytes), GenericData.get());
+  }
+
+  /**
+   * Creates a view of a record of the given schema encoded in the remaining bytes
+   * of the given buffer, which may be direct. The position of the buffer is not
+   * changed.
+   */
+  public static GenericRecordView of(Schema schema, ByteBuffer buffer) {
+    return of(schema, buffer, GenericData.get());
+  }
+
+  /**
+   * Creates a view of a record of the given schema encoded in the remaining bytes
+   * of the given buffer, using the conversions of the given data model.
+   */
+  public static GenericRecordView of(Schema schema, ByteBuffer buffer, GenericData data) {
+    return new Factory(schema, data).view(buffer);
+  }
+
+  /**
+   * Creates views of records of one schema. The layout of the schema and of the
+   * records nested in it is computed once and shared by the views, for as long as
+   * the caller keeps the factory. Factories are thread-safe.
+   */
+  public static final class Factory {
+    private final Layout layout;
+    private final GenericData data;
+
+    public Factory(Schema schema) {
+      this(schema, GenericData.get());
+    }
+
+    /**
+     * @param schema The writer's schema of the records.
+     * @param data   The data model whose conversions are applied.
+     */
+    public Factory(Schema schema, GenericData data) {
+      Map<Schema, Layout> layouts = new IdentityHashMap<>();
+      this.layout = new Layout(schema, layouts);
+      layouts.put(schema, layout);
+      this.data = data;
+    }
+
+    public Schema getSchema() {
+      return layout.schema;
+    }
+
+    /** Creates a view of a record encoded in the given bytes. */
+    public GenericRecordView view(byte[] bytes) {
+      return view(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Creates a view of a record encoded in the remaining bytes of the given
+     * buffer, which may be direct. The position of the buffer is not changed.
+     */
+    public GenericRecordView view(ByteBuffer buffer) {
+      ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      return new GenericRecordView(layout, data, view, buffer.position());
+    }
+  }
+
+  private GenericRecordView(Layout layout, GenericData data, ByteBuffer buffer, int start) {
+    this.layout = layout;
+    this.data = data;
+    this.buffer = buffer;
+    this.offsets = new int[layout.fields.length + 1];
+    this.offsets[0] = start;
+    this.known = 1;
+    this.values = new Object[layout.fields.length];
+    Arrays.fill(values, NOT_DECODED);
+  }
+
+  @Override
+  public Schema getSchema() {
+    return layout.schema;
+  }
+
+  @Override
+  public Object get(int i) {
+    Object value = values[i];
+    if (value == NOT_DECODED) {
+      Cursor cursor = new Cursor(buffer, offsetOf(i));
+      value = cursor.read(layout.fields[i], layout, data);
+      values[i] = value;
+    }
+    return value;
+  }
+
+  @Override
+  public Object get(String key) {
+    return get(position(key));
+  }
+
+  @Override
+  public void put(int i, Object v) {
+    values[i] = v;
+  }
+
+  @Override
+  public void put(String key, Object v) {
+    put(position(key), v);
+  }
+
+  /**
+   * Returns the number of bytes the encoded record takes in the source. All
+   * fields are skipped over to find it.
+   */
+  public int getEncodedSize() {
+    return offsetOf(layout.fields.length) - offsets[0];
+  }
+
+  private int position(String key) {
+    Field field = layout.schema.getField(key);
+    if (field == null) {
+      throw new AvroRuntimeException("Not a valid schema field: " + key);
+    }
+    return field.pos();
+  }
+
+  private int offsetOf(int i) {
+    if (i >= known) {
+      Cursor cursor = new Cursor(buffer, offsets[known - 1]);
+      for (; known <= i; known++) {
+        int size = layout.fixedSizes[known - 1];
+        if (size >= 0) {
+          cursor.pos += size;
+        } else {
+          cursor.skip(layout.fields[known - 1]);
+        }
+        offsets[known] = cursor.pos;
+      }
+    }
+    return offsets[i];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this)
+      return true;
+    if (!(o instanceof GenericRecordView))
+      return false;
+    GenericRecordView that = (GenericRecordView) o;
+    if (!layout.schema.equals(that.layout.schema))
+      return false;
+    return data.compare(this, that, layout.schema, true) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return data.hashCode(this, layout.schema);
+  }
+
+  @Override
+  public String toString() {
+    return data.toString(this);
+  }
+
+  /** What is known about a record schema independently of any datum. */
+  private static final class Layout {
+    private final Schema schema;
+    private final Schema[] fields;
+    // the encoded size of each field, or -1 if it varies
+    private final int[] fixedSizes;
+    // the layouts of all records reachable from the factory's schema
+    private final Map<Schema, Layout> layouts;
+
+    private Layout(Schema schema, Map<Schema, Layout> layouts) {
+      if (schema.getType() != Type.RECORD) {
+        throw new AvroRuntimeException("Not a record: " + schema);
+      }
+      this.schema = schema;
+      this.layouts = layouts;
+      List<Field> schemaFields = schema.getFields();
+      this.fields = new Schema[schemaFields.size()];
+      this.fixedSizes = new int[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+        fields[i] = schemaFields.get(i).schema();
+        fixedSizes[i] = fixedSize(fields[i]);
+      }
+    }
+
+    /** Returns the layout of a record nested in this one. */
+    private Layout nested(Schema record) {
+      synchronized (layouts) {
+        return layouts.computeIfAbsent(record, s -> new Layout(s, layouts));
+      }
+    }
+
+    private static int fixedSize(Schema schema) {
+      switch (schema.getType()) {
+      case NULL:
+        return 0;
+      case BOOLEAN:
+        return 1;
+      case FLOAT:
+        return 4;
+      case DOUBLE:
+        return 8;
+      case FIXED:
+        return schema.getFixedSize();
+      default:
+        return -1;
+      }
+    }
+  }
+
+  /** Reads and skips encoded values in the shared buffer. */
+  private static final class Cursor {
+    private final ByteBuffer buffer;
+    private int pos;
+
+    private Cursor(ByteBuffer buffer, int pos) {
+      this.buffer = buffer;
+      this.pos = pos;
+    }
+
+    private int nextByte() {
+      if (pos >= buffer.limit()) {
+        throw new AvroRuntimeException(new EOFException());
+      }
+      return buffer.get(pos++) & 0xFF;
+    }
+
+    private int readInt() {
+      long n = readLong();
+      if (n != (int) n) {
+        throw new AvroRuntimeException(new InvalidNumberEncodingException("Invalid int encoding"));
+      }
+      return (int) n;
+    }
+
+    private long readLong() {
+      long n = 0;
+      int shift = 0;
+      do {
+        int b = nextByte();
+        n |= (b & 0x7FL) << shift;
+        if ((b & 0x80) == 0) {
+          return (n >>> 1) ^ -(n & 1); // back to two's-complement
+        }
+        shift += 7;
+      } while (shift < 64);
+      throw new AvroRuntimeException(new InvalidNumberEncodingException("Invalid long encoding"));
+    }
+
+    private int readLength() {
+      long length = readLong();
+      if (length < 0 || length > buffer.limit() - pos) {
+        throw new AvroRuntimeException("Malformed data. Invalid length: " + length);
+      }
+      return (int) length;
+    }
+
+    private ByteBuffer slice(int length) {
+      ByteBuffer view = buffer.duplicate();
+      ((Buffer) view).limit(pos + length);
+      ((Buffer) view).position(pos);
+      pos += length;
+      return view.slice();
+    }
+
+    private byte[] copy(int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer view = buffer.duplicate();
+      ((Buffer) view).position(pos);
+      view.get(bytes);
+      pos += length;
+      return bytes;
+    }
+
+    private void skipBytes(int length) {
+      pos += length;
+    }
+
+    private void skip(Schema schema) {
+      switch (schema.getType()) {
+      case NULL:
+        break;
+      case BOOLEAN:
+        pos += 1;
+        break;
+      case INT:
+      case LONG:
+      case ENUM:
+        readLong();
+        break;
+      case FLOAT:
+        pos += 4;
+        break;
+      case DOUBLE:
+        pos += 8;
+        break;
+      case STRING:
+      case BYTES:
+        skipBytes(readLength());
+        break;
+      case FIXED:
+        pos += schema.getFixedSize();
+        break;
+      case RECORD:
+        for (Field field : schema.getFields()) {
+          skip(field.schema());
+        }
+        break;
+      case UNION:
+        skip(schema.getTypes().get(readInt()));
+        break;
+      case ARRAY:
+        skipBlocks(schema.getElementType(), false);
+        break;
+      case MAP:
+        skipBlocks(schema.getValueType(), true);
+        break;
+      default:
+        throw new AvroRuntimeException("Unknown type: " + schema);
+      }
+    }
+
+    private void skipBlocks(Schema itemSchema, boolean isMap) {
+      for (long count = readLong(); count != 0; count = readLong()) {
+        if (count < 0) {
+          // blocks with a negative count are followed by their size in bytes
+          skipBytes(readLength());
+          continue;
+        }
+        for (long i = 0; i < count; i++) {
+          if (isMap) {
+            skipBytes(readLength());
+          }
+          skip(itemSchema);
+        }
+      }
+    }
+
+    private Object read(Schema schema, Layout layout, GenericData data) {
+      Object value = readWithoutConversion(schema, layout, data);
+      LogicalType logicalType = schema.getLogicalType();
+      if (logicalType != null && value != null) {
+        Conversion<?> conversion = data.getConversionFor(logicalType);
+        if (conversion != null) {
+          return Conversions.convertToLogicalType(value, schema, logicalType, conversion);
+        }
+      }
+      return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readWithoutConversion(Schema schema, Layout layout, GenericData data) {
+      switch (schema.getType()) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return nextByte() == 1;
+      case INT:
+        return readInt();
+      case LONG:
+        return readLong();
+      case FLOAT:
+        checkAvailable(4);
+        float f = buffer.getFloat(pos);
+        pos += 4;
+        return f;
+      case DOUBLE:
+        checkAvailable(8);
+        double d = buffer.getDouble(pos);
+        pos += 8;
+        return d;
+      case STRING:
+        return readString(schema);
+      case BYTES:
+        return slice(readLength());
+      case FIXED:
+        checkAvailable(schema.getFixedSize());
+        return data.createFixed(null, copy(schema.getFixedSize()), schema);
+      case ENUM:
+        return data.createEnum(schema.getEnumSymbols().get(readInt()), schema);
+      case RECORD:
+        GenericRecordView record = new GenericRecordView(layout.nested(schema), data, buffer, pos);
+        pos += record.getEncodedSize();
+        return record;
+      case UNION:
+        return read(schema.getTypes().get(readInt()), layout, data);
+      case ARRAY:
+        Object array = data.newArray(null, 0, schema);
+        for (long count = readItemCount(); count != 0; count = readItemCount()) {
+          for (long i = 0; i < count; i++) {
+            ((Collection<Object>) array).add(read(schema.getElementType(), layout, data));
+          }
+        }
+        return array;
+      case MAP:
+        Map<Object, Object> map = (Map<Object, Object>) data.newMap(null, 0);
+        for (long count = readItemCount(); count != 0; count = readItemCount()) {
+          for (long i = 0; i < count; i++) {
+            // the string type of the keys is given by the map schema
+            Object key = readString(schema);
+            map.put(key, read(schema.getValueType(), layout, data));
+          }
+        }
+        return map;
+      default:
+        throw new AvroRuntimeException("Unknown type: " + schema);
+      }
+    }
+
+    private Object readString(Schema schema) {
+      Utf8 utf8 = new Utf8(copy(readLength()));
+      return GenericData.STRING_TYPE_STRING.equals(schema.getProp(GenericData.STRING_PROP)) ? utf8.toString() : utf8;
+    }
+
+    private long readItemCount() {
+      long count = readLong();
+      if (count < 0) {
+        readLong(); // the block size
+        count = -count;
+      }
+      return count;
+    }
+
+    private void checkAvailable(int length) {
+      if (length > buffer.limit() - pos) {
+        throw new AvroRuntimeException(new EOFException());
+      }
+    }
+  }
+}
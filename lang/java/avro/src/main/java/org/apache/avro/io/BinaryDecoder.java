@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.apache.avro.AvroRuntimeException;
@@ -82,6 +83,10 @@ public class BinaryDecoder extends Decoder {
     return pos;
   }
 
+  int getMaxBytesLength() {
+    return maxBytesLength;
+  }
+
   int getLimit() {
     return limit;
   }
@@ -237,6 +242,58 @@ public class BinaryDecoder extends Decoder {
     return (l >>> 1) ^ -(l & 1); // back to two's-complement
   }
 
+  @Override
+  public void readInts(int[] dst, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      // decode the items that are certain to be in the buffer without
+      // refilling or bounds checks, then let readInt() refill it
+      int p = pos;
+      int last = limit - 5;
+      while (off < end && p <= last) {
+        int b = buf[p++];
+        int v = b & 0x7f;
+        for (int shift = 7; b < 0; shift += 7) {
+          if (shift == 35) {
+            throw new InvalidNumberEncodingException("Invalid int encoding");
+          }
+          b = buf[p++];
+          v ^= (b & 0x7f) << shift;
+        }
+        dst[off++] = (v >>> 1) ^ -(v & 1); // back to two's-complement
+      }
+      pos = p;
+      if (off < end) {
+        dst[off++] = readInt();
+      }
+    }
+  }
+
+  @Override
+  public void readLongs(long[] dst, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      int p = pos;
+      int last = limit - 10;
+      while (off < end && p <= last) {
+        int b = buf[p++];
+        long v = b & 0x7f;
+        for (int shift = 7; b < 0; shift += 7) {
+          if (shift == 70) {
+            throw new InvalidNumberEncodingException("Invalid long encoding");
+          }
+          b = buf[p++];
+          v ^= (b & 0x7fL) << shift;
+        }
+        dst[off++] = (v >>> 1) ^ -(v & 1); // back to two's-complement
+      }
+      pos = p;
+      if (off < end) {
+        dst[off++] = readLong();
+      }
+    }
+  }
+
   // splitting readLong up makes it faster because of the JVM does more
   // optimizations on small methods
   private long innerLongDecode(long l) throws IOException {
@@ -298,6 +355,38 @@ public class BinaryDecoder extends Decoder {
     return Double.longBitsToDouble((((long) n1) & 0xffffffffL) | (((long) n2) << 32));
   }
 
+  @Override
+  public void readFloats(float[] dst, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      // copy whatever is buffered through a little-endian view, then let
+      // readFloat() refill the buffer
+      int run = Math.min(end - off, (limit - pos) >> 2);
+      if (run > 0) {
+        ByteBuffer.wrap(buf, pos, run << 2).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(dst, off, run);
+        pos += run << 2;
+        off += run;
+      } else {
+        dst[off++] = readFloat();
+      }
+    }
+  }
+
+  @Override
+  public void readDoubles(double[] dst, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      int run = Math.min(end - off, (limit - pos) >> 3);
+      if (run > 0) {
+        ByteBuffer.wrap(buf, pos, run << 3).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(dst, off, run);
+        pos += run << 3;
+        off += run;
+      } else {
+        dst[off++] = readDouble();
+      }
+    }
+  }
+
   @Override
   public Utf8 readString(Utf8 old) throws IOException {
     long length = readLong();
@@ -265,6 +265,39 @@ public class BlockingBinaryEncoder extends BufferedBinaryEncoder {
     pos += BinaryData.encodeLong(n, buf, pos);
   }
 
+  @Override
+  public void writeInts(int[] src, int off, int n) throws IOException {
+    // blocks are cut between items, so each one must be started
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeInt(src[off]);
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeLong(src[off]);
+    }
+  }
+
+  @Override
+  public void writeFloats(float[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeFloat(src[off]);
+    }
+  }
+
+  @Override
+  public void writeDoubles(double[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeDouble(src[off]);
+    }
+  }
+
   @Override
   public void writeFloat(float f) throws IOException {
     ensureBounds(4);
@@ -20,6 +20,7 @@ package org.apache.avro.io;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.util.Objects;
@@ -137,6 +138,37 @@ public class BufferedBinaryEncoder extends BinaryEncoder {
     pos += BinaryData.encodeLong(n, buf, pos);
   }
 
+  @Override
+  public void writeInts(int[] src, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      // encode as many items as are certain to fit without bounds checks
+      int run = Math.min(end - off, (buf.length - pos) / 5);
+      if (run == 0) {
+        flushBuffer();
+        continue;
+      }
+      for (int stop = off + run; off < stop; off++) {
+        pos += BinaryData.encodeInt(src[off], buf, pos);
+      }
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] src, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      int run = Math.min(end - off, (buf.length - pos) / 10);
+      if (run == 0) {
+        flushBuffer();
+        continue;
+      }
+      for (int stop = off + run; off < stop; off++) {
+        pos += BinaryData.encodeLong(src[off], buf, pos);
+      }
+    }
+  }
+
   @Override
   public void writeFloat(float f) throws IOException {
     ensureBounds(4);
@@ -149,6 +181,36 @@ public class BufferedBinaryEncoder extends BinaryEncoder {
     pos += BinaryData.encodeDouble(d, buf, pos);
   }
 
+  @Override
+  public void writeFloats(float[] src, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      int run = Math.min(end - off, (buf.length - pos) >> 2);
+      if (run == 0) {
+        flushBuffer();
+        continue;
+      }
+      ByteBuffer.wrap(buf, pos, run << 2).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(src, off, run);
+      pos += run << 2;
+      off += run;
+    }
+  }
+
+  @Override
+  public void writeDoubles(double[] src, int off, int n) throws IOException {
+    int end = off + n;
+    while (off < end) {
+      int run = Math.min(end - off, (buf.length - pos) >> 3);
+      if (run == 0) {
+        flushBuffer();
+        continue;
+      }
+      ByteBuffer.wrap(buf, pos, run << 3).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(src, off, run);
+      pos += run << 3;
+      off += run;
+    }
+  }
+
   @Override
   public void writeFixed(byte[] bytes, int start, int len) throws IOException {
     if (len > bulkLimit) {
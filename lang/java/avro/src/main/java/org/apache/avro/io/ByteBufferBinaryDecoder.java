@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.InvalidNumberEncodingException;
+import org.apache.avro.util.Utf8;
+
+/**
+ * A {@link BinaryDecoder} that reads directly from a heap or direct
+ * {@link ByteBuffer}, without copying its content to a byte array first.
+ * <p/>
+ * Floats and doubles are read with the little-endian accessors of the buffer.
+ * {@link #readBytes(ByteBuffer)} always returns a slice of the source buffer
+ * and never writes to the buffer passed in for reuse, so the returned bytes are
+ * only valid as long as the source buffer is not modified.
+ * <p/>
+ * The position of the source buffer is not changed.
+ *
+ * @see DecoderFactory#byteBufferBinaryDecoder(ByteBuffer, BinaryDecoder)
+ */
+class ByteBufferBinaryDecoder extends BinaryDecoder {
+  // a private view of the source, its position is only used for bulk reads
+  private ByteBuffer in;
+  private int pos;
+  private int limit;
+  private final Utf8 scratchUtf8 = new Utf8();
+
+  ByteBufferBinaryDecoder(ByteBuffer in) {
+    super();
+    configure(in);
+  }
+
+  ByteBufferBinaryDecoder configure(ByteBuffer in) {
+    this.in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    this.pos = in.position();
+    this.limit = in.limit();
+    return this;
+  }
+
+  private int nextByte() throws EOFException {
+    if (pos >= limit) {
+      throw new EOFException();
+    }
+    return in.get(pos++) & 0xFF;
+  }
+
+  private void ensureAvailable(long length) throws EOFException {
+    if (length > limit - pos) {
+      throw new EOFException();
+    }
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return nextByte() == 1;
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    int n = 0;
+    int shift = 0;
+    do {
+      int b = nextByte();
+      n |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (n >>> 1) ^ -(n & 1); // back to two's-complement
+      }
+      shift += 7;
+    } while (shift < 32);
+    throw new InvalidNumberEncodingException("Invalid int encoding");
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    long n = 0;
+    int shift = 0;
+    do {
+      int b = nextByte();
+      n |= (b & 0x7FL) << shift;
+      if ((b & 0x80) == 0) {
+        return (n >>> 1) ^ -(n & 1); // back to two's-complement
+      }
+      shift += 7;
+    } while (shift < 64);
+    throw new InvalidNumberEncodingException("Invalid long encoding");
+  }
+
+  @Override
+  public void readInts(int[] dst, int off, int n) throws IOException {
+    if (!in.hasArray()) {
+      super.readInts(dst, off, n);
+      return;
+    }
+    byte[] array = in.array();
+    int base = in.arrayOffset();
+    int end = off + n;
+    // items that are certain to end before the limit are decoded without checks
+    int last = limit - 5;
+    while (off < end && pos <= last) {
+      int p = base + pos;
+      int b = array[p++];
+      int v = b & 0x7f;
+      for (int shift = 7; b < 0; shift += 7) {
+        if (shift == 35) {
+          throw new InvalidNumberEncodingException("Invalid int encoding");
+        }
+        b = array[p++];
+        v ^= (b & 0x7f) << shift;
+      }
+      pos = p - base;
+      dst[off++] = (v >>> 1) ^ -(v & 1); // back to two's-complement
+    }
+    while (off < end) {
+      dst[off++] = readInt();
+    }
+  }
+
+  @Override
+  public void readLongs(long[] dst, int off, int n) throws IOException {
+    if (!in.hasArray()) {
+      super.readLongs(dst, off, n);
+      return;
+    }
+    byte[] array = in.array();
+    int base = in.arrayOffset();
+    int end = off + n;
+    int last = limit - 10;
+    while (off < end && pos <= last) {
+      int p = base + pos;
+      int b = array[p++];
+      long v = b & 0x7f;
+      for (int shift = 7; b < 0; shift += 7) {
+        if (shift == 70) {
+          throw new InvalidNumberEncodingException("Invalid long encoding");
+        }
+        b = array[p++];
+        v ^= (b & 0x7fL) << shift;
+      }
+      pos = p - base;
+      dst[off++] = (v >>> 1) ^ -(v & 1); // back to two's-complement
+    }
+    while (off < end) {
+      dst[off++] = readLong();
+    }
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    ensureAvailable(4);
+    float f = in.getFloat(pos);
+    pos += 4;
+    return f;
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    ensureAvailable(8);
+    double d = in.getDouble(pos);
+    pos += 8;
+    return d;
+  }
+
+  @Override
+  public void readFloats(float[] dst, int off, int n) throws IOException {
+    ensureAvailable(4L * n);
+    // the view is little-endian, as is the encoding
+    ((Buffer) in).position(pos);
+    in.asFloatBuffer().get(dst, off, n);
+    pos += n << 2;
+  }
+
+  @Override
+  public void readDoubles(double[] dst, int off, int n) throws IOException {
+    ensureAvailable(8L * n);
+    ((Buffer) in).position(pos);
+    in.asDoubleBuffer().get(dst, off, n);
+    pos += n << 3;
+  }
+
+  private int readLength(long length) throws IOException {
+    if (length > MAX_ARRAY_SIZE) {
+      throw new UnsupportedOperationException("Cannot read arrays longer than " + MAX_ARRAY_SIZE + " bytes");
+    }
+    if (length < 0L) {
+      throw new AvroRuntimeException("Malformed data. Length is negative: " + length);
+    }
+    ensureAvailable(length);
+    return (int) length;
+  }
+
+  @Override
+  public Utf8 readString(Utf8 old) throws IOException {
+    int length = readLength(readLong());
+    Utf8 result = (old != null ? old : new Utf8());
+    result.setByteLength(length);
+    doReadBytes(result.getBytes(), 0, length);
+    return result;
+  }
+
+  @Override
+  public String readString() throws IOException {
+    if (in.hasArray()) {
+      int length = readLength(readLong());
+      String result = new String(in.array(), in.arrayOffset() + pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      return result;
+    }
+    return readString(scratchUtf8).toString();
+  }
+
+  @Override
+  public ByteBuffer readBytes(ByteBuffer old) throws IOException {
+    int length = readLength(readInt());
+    if (length > getMaxBytesLength()) {
+      throw new AvroRuntimeException("Bytes length " + length + " exceeds maximum allowed");
+    }
+    // A slice shares the content of the source, so nothing is copied. The old
+    // buffer is never written to, as it may be a slice handed out earlier.
+    ByteBuffer view = in.duplicate();
+    ((Buffer) view).limit(pos + length);
+    ((Buffer) view).position(pos);
+    pos += length;
+    return view.slice();
+  }
+
+  @Override
+  protected void doSkipBytes(long length) throws IOException {
+    if (length < 0)
+      throw new AvroRuntimeException("Malformed data. Length is negative: " + length);
+    ensureAvailable(length);
+    pos += (int) length;
+  }
+
+  @Override
+  protected void doReadBytes(byte[] bytes, int start, int length) throws IOException {
+    if (length < 0)
+      throw new AvroRuntimeException("Malformed data. Length is negative: " + length);
+    ensureAvailable(length);
+    ((Buffer) in).position(pos);
+    in.get(bytes, start, length);
+    pos += length;
+  }
+
+  @Override
+  public boolean isEnd() throws IOException {
+    return pos >= limit;
+  }
+
+  /**
+   * Returns an InputStream over the bytes not yet read. Reading from it advances
+   * this decoder.
+   */
+  @Override
+  public InputStream inputStream() {
+    return new InputStream() {
+      @Override
+      public int read() throws IOException {
+        return pos < limit ? in.get(pos++) & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+          return 0;
+        } else if (pos >= limit) {
+          return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        doReadBytes(b, off, n);
+        return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        int skipped = (int) Math.max(0, Math.min(n, limit - pos));
+        pos += skipped;
+        return skipped;
+      }
+
+      @Override
+      public int available() throws IOException {
+        return limit - pos;
+      }
+    };
+  }
+}
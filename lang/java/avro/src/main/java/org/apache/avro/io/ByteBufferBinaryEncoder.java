@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * An {@link Encoder} for Avro's binary encoding that writes directly into a
+ * heap or direct {@link ByteBuffer}.
+ * <p/>
+ * Data is written at the position of the buffer, which is advanced by every
+ * write, so after writing the buffer can be flipped and passed on. A
+ * {@link java.nio.BufferOverflowException} is thrown when the buffer has not
+ * enough space left.
+ * <p/>
+ * To construct, use
+ * {@link EncoderFactory#byteBufferBinaryEncoder(ByteBuffer, BinaryEncoder)}
+ * <p/>
+ * ByteBufferBinaryEncoder is not thread-safe
+ *
+ * @see BinaryEncoder
+ * @see EncoderFactory
+ */
+public class ByteBufferBinaryEncoder extends BinaryEncoder {
+  private ByteBuffer out;
+  private boolean littleEndian;
+  // the buffer is used for writing varints
+  private final byte[] buf = new byte[10];
+
+  ByteBufferBinaryEncoder(ByteBuffer out) {
+    configure(out);
+  }
+
+  ByteBufferBinaryEncoder configure(ByteBuffer out) {
+    Objects.requireNonNull(out, "ByteBuffer cannot be null");
+    this.out = out;
+    this.littleEndian = out.order() == ByteOrder.LITTLE_ENDIAN;
+    return this;
+  }
+
+  /** Returns the buffer this encoder writes to. */
+  public ByteBuffer getBuffer() {
+    return out;
+  }
+
+  @Override
+  public void flush() throws IOException {
+  }
+
+  @Override
+  public void writeBoolean(boolean b) throws IOException {
+    out.put(b ? (byte) 1 : (byte) 0);
+  }
+
+  @Override
+  public void writeInt(int n) throws IOException {
+    int val = (n << 1) ^ (n >> 31);
+    if ((val & ~0x7F) == 0) {
+      out.put((byte) val);
+      return;
+    }
+    int len = BinaryData.encodeInt(n, buf, 0);
+    out.put(buf, 0, len);
+  }
+
+  @Override
+  public void writeLong(long n) throws IOException {
+    long val = (n << 1) ^ (n >> 63);
+    if ((val & ~0x7FL) == 0) {
+      out.put((byte) val);
+      return;
+    }
+    int len = BinaryData.encodeLong(n, buf, 0);
+    out.put(buf, 0, len);
+  }
+
+  @Override
+  public void writeInts(int[] src, int off, int n) throws IOException {
+    int end = off + n;
+    if (out.hasArray()) {
+      // encode straight into the backing array while items are certain to fit
+      byte[] array = out.array();
+      int base = out.arrayOffset();
+      int p = out.position();
+      int last = out.limit() - 5;
+      while (off < end && p <= last) {
+        p += BinaryData.encodeInt(src[off++], array, base + p);
+      }
+      ((Buffer) out).position(p);
+    }
+    while (off < end) {
+      writeInt(src[off++]);
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] src, int off, int n) throws IOException {
+    int end = off + n;
+    if (out.hasArray()) {
+      byte[] array = out.array();
+      int base = out.arrayOffset();
+      int p = out.position();
+      int last = out.limit() - 10;
+      while (off < end && p <= last) {
+        p += BinaryData.encodeLong(src[off++], array, base + p);
+      }
+      ((Buffer) out).position(p);
+    }
+    while (off < end) {
+      writeLong(src[off++]);
+    }
+  }
+
+  @Override
+  public void writeFloat(float f) throws IOException {
+    int bits = Float.floatToRawIntBits(f);
+    out.putInt(littleEndian ? bits : Integer.reverseBytes(bits));
+  }
+
+  @Override
+  public void writeDouble(double d) throws IOException {
+    long bits = Double.doubleToRawLongBits(d);
+    out.putLong(littleEndian ? bits : Long.reverseBytes(bits));
+  }
+
+  @Override
+  public void writeFloats(float[] src, int off, int n) throws IOException {
+    if (n > out.remaining() >> 2) {
+      throw new BufferOverflowException();
+    }
+    littleEndianView().asFloatBuffer().put(src, off, n);
+    ((Buffer) out).position(out.position() + (n << 2));
+  }
+
+  @Override
+  public void writeDoubles(double[] src, int off, int n) throws IOException {
+    if (n > out.remaining() >> 3) {
+      throw new BufferOverflowException();
+    }
+    littleEndianView().asDoubleBuffer().put(src, off, n);
+    ((Buffer) out).position(out.position() + (n << 3));
+  }
+
+  private ByteBuffer littleEndianView() {
+    return littleEndian ? out : out.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Override
+  public void writeFixed(byte[] bytes, int start, int len) throws IOException {
+    out.put(bytes, start, len);
+  }
+
+  @Override
+  public void writeFixed(ByteBuffer bytes) throws IOException {
+    out.put(bytes.duplicate());
+  }
+
+  @Override
+  protected void writeZero() throws IOException {
+    out.put((byte) 0);
+  }
+
+  @Override
+  public int bytesBuffered() {
+    return 0;
+  }
+}
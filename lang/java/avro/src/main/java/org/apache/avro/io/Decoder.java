@@ -76,6 +76,35 @@ public abstract class Decoder {
    */
   public abstract long readLong() throws IOException;
 
+  /**
+   * Reads <tt>n</tt> consecutive integers, such as the items of an array block,
+   * into <tt>dst</tt> starting at <tt>off</tt>. Equivalent to calling
+   * {@link #readInt()} <tt>n</tt> times, which is what this implementation does;
+   * subclasses may decode a run of items in a tighter loop.
+   *
+   * @throws AvroTypeException If this is a stateful reader and int is not the
+   *                           type of the next values to be read
+   */
+  public void readInts(int[] dst, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      dst[off] = readInt();
+    }
+  }
+
+  /**
+   * Reads <tt>n</tt> consecutive longs into <tt>dst</tt> starting at
+   * <tt>off</tt>. Equivalent to calling {@link #readLong()} <tt>n</tt> times.
+   *
+   * @see #readInts(int[], int, int)
+   * @throws AvroTypeException If this is a stateful reader and long is not the
+   *                           type of the next values to be read
+   */
+  public void readLongs(long[] dst, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      dst[off] = readLong();
+    }
+  }
+
   /**
    * Reads a float written by {@link Encoder#writeFloat}.
    * 
@@ -92,6 +121,34 @@ public abstract class Decoder {
    */
   public abstract double readDouble() throws IOException;
 
+  /**
+   * Reads <tt>n</tt> consecutive floats into <tt>dst</tt> starting at
+   * <tt>off</tt>. Equivalent to calling {@link #readFloat()} <tt>n</tt> times.
+   *
+   * @see #readInts(int[], int, int)
+   * @throws AvroTypeException If this is a stateful reader and float is not the
+   *                           type of the next values to be read
+   */
+  public void readFloats(float[] dst, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      dst[off] = readFloat();
+    }
+  }
+
+  /**
+   * Reads <tt>n</tt> consecutive doubles into <tt>dst</tt> starting at
+   * <tt>off</tt>. Equivalent to calling {@link #readDouble()} <tt>n</tt> times.
+   *
+   * @see #readInts(int[], int, int)
+   * @throws AvroTypeException If this is a stateful reader and double is not the
+   *                           type of the next values to be read
+   */
+  public void readDoubles(double[] dst, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      dst[off] = readDouble();
+    }
+  }
+
   /**
    * Reads a char-string written by {@link Encoder#writeString}.
    * 
@@ -19,6 +19,7 @@ package org.apache.avro.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.avro.Schema;
 
@@ -177,6 +178,32 @@ public class DecoderFactory {
     }
   }
 
+  /**
+   * Creates or reinitializes a {@link BinaryDecoder} that reads the remaining
+   * bytes of a heap or direct {@link ByteBuffer} in place, without copying them
+   * to a byte array. The position of the buffer is not changed.
+   * <p/>
+   * {@link Decoder#readBytes(ByteBuffer)} returns slices of <i>in</i> when it is
+   * passed null, so the bytes read are only valid as long as the content of
+   * <i>in</i> is not modified.
+   *
+   * @param in    The ByteBuffer to read from
+   * @param reuse The BinaryDecoder to <i>attempt</i> to reuse. If null, a new
+   *              instance is returned.
+   * @return A BinaryDecoder that uses <i>in</i> as its source of data. If
+   *         <i>reuse</i> is null, this will be a new instance. If <i>reuse</i> is
+   *         not null, then it may be reinitialized if compatible, otherwise a new
+   *         instance will be returned.
+   * @see ByteBufferBinaryDecoder
+   */
+  public BinaryDecoder byteBufferBinaryDecoder(ByteBuffer in, BinaryDecoder reuse) {
+    if (null == reuse || !reuse.getClass().equals(ByteBufferBinaryDecoder.class)) {
+      return new ByteBufferBinaryDecoder(in);
+    } else {
+      return ((ByteBufferBinaryDecoder) reuse).configure(in);
+    }
+  }
+
   /**
    * @deprecated use {@link #binaryDecoder(byte[], int, int, BinaryDecoder)}
    *             instead
@@ -78,6 +78,38 @@ public abstract class Encoder implements Flushable {
    */
   public abstract void writeLong(long n) throws IOException;
 
+  /**
+   * Writes <tt>n</tt> integers from <tt>src</tt>, starting at <tt>off</tt>, as
+   * items of the current array. Equivalent to calling {@link #startItem()}
+   * followed by {@link #writeInt(int)} for each of them, which is what this
+   * implementation does; subclasses may encode a run of items in a tighter loop.
+   *
+   * @throws AvroTypeException If this is a stateful writer and array items of
+   *                           type int are not expected
+   */
+  public void writeInts(int[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeInt(src[off]);
+    }
+  }
+
+  /**
+   * Writes <tt>n</tt> longs from <tt>src</tt>, starting at <tt>off</tt>, as items
+   * of the current array. Equivalent to calling {@link #startItem()} followed by
+   * {@link #writeLong(long)} for each of them.
+   *
+   * @see #writeInts(int[], int, int)
+   * @throws AvroTypeException If this is a stateful writer and array items of
+   *                           type long are not expected
+   */
+  public void writeLongs(long[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeLong(src[off]);
+    }
+  }
+
   /**
    * Write a float.
    * 
@@ -95,6 +127,38 @@ public abstract class Encoder implements Flushable {
    */
   public abstract void writeDouble(double d) throws IOException;
 
+  /**
+   * Writes <tt>n</tt> floats from <tt>src</tt>, starting at <tt>off</tt>, as
+   * items of the current array. Equivalent to calling {@link #startItem()}
+   * followed by {@link #writeFloat(float)} for each of them.
+   *
+   * @see #writeInts(int[], int, int)
+   * @throws AvroTypeException If this is a stateful writer and array items of
+   *                           type float are not expected
+   */
+  public void writeFloats(float[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeFloat(src[off]);
+    }
+  }
+
+  /**
+   * Writes <tt>n</tt> doubles from <tt>src</tt>, starting at <tt>off</tt>, as
+   * items of the current array. Equivalent to calling {@link #startItem()}
+   * followed by {@link #writeDouble(double)} for each of them.
+   *
+   * @see #writeInts(int[], int, int)
+   * @throws AvroTypeException If this is a stateful writer and array items of
+   *                           type double are not expected
+   */
+  public void writeDoubles(double[] src, int off, int n) throws IOException {
+    for (int end = off + n; off < end; off++) {
+      startItem();
+      writeDouble(src[off]);
+    }
+  }
+
   /**
    * Write a Unicode character string.
    * 
@@ -19,6 +19,7 @@ package org.apache.avro.io;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
@@ -216,6 +217,30 @@ public class EncoderFactory {
     }
   }
 
+  /**
+   * Creates or reinitializes a {@link BinaryEncoder} that writes into a heap or
+   * direct {@link ByteBuffer}, starting at its position and advancing it. A
+   * {@link java.nio.BufferOverflowException} is thrown when the buffer is full.
+   * <p/>
+   * {@link BinaryEncoder} instances returned by this method are not thread-safe.
+   *
+   * @param out   The ByteBuffer to write to. Cannot be null.
+   * @param reuse The BinaryEncoder to <i>attempt</i> to reuse. If null, a new
+   *              instance is returned.
+   * @return A BinaryEncoder that uses <i>out</i> as its data output. If
+   *         <i>reuse</i> is null, this will be a new instance. If <i>reuse</i> is
+   *         not null, then the returned instance may be a new instance or
+   *         <i>reuse</i> reconfigured to use <i>out</i>.
+   * @see ByteBufferBinaryEncoder
+   */
+  public BinaryEncoder byteBufferBinaryEncoder(ByteBuffer out, BinaryEncoder reuse) {
+    if (null == reuse || !reuse.getClass().equals(ByteBufferBinaryEncoder.class)) {
+      return new ByteBufferBinaryEncoder(out);
+    } else {
+      return ((ByteBufferBinaryEncoder) reuse).configure(out);
+    }
+  }
+
   /**
    * Creates or reinitializes a {@link BinaryEncoder} with the OutputStream
    * provided as the destination for written data. If <i>reuse</i> is provided, an
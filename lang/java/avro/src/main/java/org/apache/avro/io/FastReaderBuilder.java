@@ -29,6 +29,7 @@ import java.util.function.IntFunction;
 import org.apache.avro.AvroTypeException;
 import org.apache.avro.Conversion;
 import org.apache.avro.Conversions;
+import org.apache.avro.LogicalType;
 import org.apache.avro.Resolver;
 import org.apache.avro.Resolver.Action;
 import org.apache.avro.Resolver.Container;
@@ -52,12 +53,22 @@ import org.apache.avro.io.parsing.ResolvingGrammarGenerator;
 import org.apache.avro.reflect.ReflectionUtil;
 import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.WeakIdentityHashMap;
 import org.apache.avro.util.internal.Accessor;
 
 public class FastReaderBuilder {
 
+  /** The number of primitive array items decoded at a time. */
+  private static final int BULK_ITEMS = 256;
+
+  /**
+   * The per-thread scratch arrays of the primitive array readers, as the readers
+   * are shared by all threads using the builder.
+   */
+  private static final ThreadLocal<BulkScratch> BULK_SCRATCH = ThreadLocal.withInitial(BulkScratch::new);
+
   /**
    * Generic/SpecificData instance that contains basic functionalities like
    * instantiation of objects
@@ -121,7 +132,11 @@ public class FastReaderBuilder {
     return getReaderFor(resolvedAction, null);
   }
 
-  private FieldReader getReaderFor(Action action, Conversion<?> explicitConversion) throws IOException {
+  FieldReader getReaderFor(Action action, Conversion<?> explicitConversion) throws IOException {
+    if (action.type == Action.Type.DO_NOTHING && isUnscaledDecimal(action.reader, explicitConversion)) {
+      Schema schema = action.reader;
+      return (old, decoder) -> Conversions.UnscaledDecimalConversion.readUnscaled(schema, decoder);
+    }
     final FieldReader baseReader = getNonConvertedReader(action);
     return applyConversions(action.reader, baseReader, explicitConversion);
   }
@@ -189,7 +204,7 @@ public class FastReaderBuilder {
     }
   }
 
-  private ExecutionStep getDefaultingStep(Schema.Field field) throws IOException {
+  ExecutionStep getDefaultingStep(Schema.Field field) throws IOException {
     Object defaultValue = data.getDefaultValue(field);
 
     if (isObjectImmutable(defaultValue)) {
@@ -247,6 +262,14 @@ public class FastReaderBuilder {
         k -> new RecordReader());
   }
 
+  private boolean isUnscaledDecimal(Schema readerSchema, Conversion<?> explicitConversion) {
+    LogicalType logicalType = readerSchema.getLogicalType();
+    Conversion<?> conversion = explicitConversion != null || logicalType == null ? explicitConversion
+        : data.getConversionFor(logicalType);
+    return conversion instanceof Conversions.UnscaledDecimalConversion
+        && Conversions.UnscaledDecimalConversion.supports(logicalType);
+  }
+
   private FieldReader applyConversions(Schema readerSchema, FieldReader reader, Conversion<?> explicitConversion) {
     Conversion<?> conversion = explicitConversion;
 
@@ -375,8 +398,14 @@ public class FastReaderBuilder {
 
   private FieldReader createSimpleStringReader(Schema readerSchema) {
     String stringProperty = readerSchema.getProp(GenericData.STRING_PROP);
+    StringInterner interner = data.getStringInterner(readerSchema);
     if (GenericData.StringType.String.name().equals(stringProperty)) {
+      if (interner != null) {
+        return (old, decoder) -> interner.readString(decoder);
+      }
       return (old, decoder) -> decoder.readString();
+    } else if (interner != null) {
+      return (old, decoder) -> interner.readUtf8(decoder);
     } else {
       return (old, decoder) -> decoder.readString(old instanceof Utf8 ? (Utf8) old : null);
     }
@@ -455,7 +484,20 @@ public class FastReaderBuilder {
 
   @SuppressWarnings("unchecked")
   private FieldReader createArrayReader(Schema readerSchema, Container action) throws IOException {
-    FieldReader elementReader = getReaderFor(action.elementAction, null);
+    Action elementAction = action.elementAction;
+    if (elementAction.type == Action.Type.DO_NOTHING && (elementAction.reader.getLogicalType() == null
+        || data.getConversionFor(elementAction.reader.getLogicalType()) == null)) {
+      switch (elementAction.reader.getType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return createPrimitiveArrayReader(readerSchema, elementAction.reader.getType());
+      default:
+        break;
+      }
+    }
+    FieldReader elementReader = getReaderFor(elementAction, null);
 
     return reusingReader((reuse, decoder) -> {
       if (reuse instanceof GenericArray) {
@@ -486,6 +528,82 @@ public class FastReaderBuilder {
     });
   }
 
+  /**
+   * Creates a reader for arrays of int, long, float or double items without a
+   * conversion, which decodes the items in bulk into a scratch array and then
+   * boxes them.
+   */
+  @SuppressWarnings("unchecked")
+  private FieldReader createPrimitiveArrayReader(Schema readerSchema, Schema.Type type) {
+    return reusingReader((reuse, decoder) -> {
+      long l = decoder.readArrayStart();
+      List<Object> array = (reuse instanceof List) ? (List<Object>) reuse
+          : new GenericData.Array<>((int) l, readerSchema);
+      array.clear();
+      BulkScratch scratch = BULK_SCRATCH.get();
+      while (l > 0) {
+        while (l > 0) {
+          int n = (int) Math.min(l, BULK_ITEMS);
+          scratch.read(type, decoder, array, n);
+          l -= n;
+        }
+        l = decoder.arrayNext();
+      }
+      return array;
+    });
+  }
+
+  private static final class BulkScratch {
+    private int[] ints;
+    private long[] longs;
+    private float[] floats;
+    private double[] doubles;
+
+    /** Reads n items of the given type and adds them to the array. */
+    private void read(Schema.Type type, Decoder decoder, List<Object> array, int n) throws IOException {
+      switch (type) {
+      case INT:
+        if (ints == null) {
+          ints = new int[BULK_ITEMS];
+        }
+        decoder.readInts(ints, 0, n);
+        for (int i = 0; i < n; i++) {
+          array.add(ints[i]);
+        }
+        break;
+      case LONG:
+        if (longs == null) {
+          longs = new long[BULK_ITEMS];
+        }
+        decoder.readLongs(longs, 0, n);
+        for (int i = 0; i < n; i++) {
+          array.add(longs[i]);
+        }
+        break;
+      case FLOAT:
+        if (floats == null) {
+          floats = new float[BULK_ITEMS];
+        }
+        decoder.readFloats(floats, 0, n);
+        for (int i = 0; i < n; i++) {
+          array.add(floats[i]);
+        }
+        break;
+      case DOUBLE:
+        if (doubles == null) {
+          doubles = new double[BULK_ITEMS];
+        }
+        decoder.readDoubles(doubles, 0, n);
+        for (int i = 0; i < n; i++) {
+          array.add(doubles[i]);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Not a primitive array item type: " + type);
+      }
+    }
+  }
+
   private FieldReader createEnumReader(EnumAdjust action) {
     return reusingReader((reuse, decoder) -> {
       int index = decoder.readEnum();
@@ -0,0 +1,632 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Resolver;
+import org.apache.avro.Resolver.Action;
+import org.apache.avro.Resolver.Container;
+import org.apache.avro.Resolver.EnumAdjust;
+import org.apache.avro.Resolver.ReaderUnion;
+import org.apache.avro.Resolver.RecordAdjust;
+import org.apache.avro.Resolver.Skip;
+import org.apache.avro.Resolver.WriterUnion;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.parsing.ResolvingGrammarGenerator;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.Utf8;
+import org.apache.avro.util.internal.Accessor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A {@link DatumReader} for Avro's JSON data encoding that reads the fields of
+ * a record in the order they appear in the document.
+ * <p>
+ * {@link JsonDecoder} has to return the fields in the order of the schema, so
+ * it copies fields that arrive early into token buffers and replays them later.
+ * This reader instead looks up every field name in a hash table precomputed for
+ * the record schema and stores the value straight into its slot of the record,
+ * so documents with arbitrarily ordered fields are read in a single pass
+ * without buffering. Fields that are not part of the reader's schema are
+ * skipped. As with {@link JsonDecoder}, every field of the writer's schema must
+ * be present in the document.
+ * <p>
+ * Schema resolution uses the same {@link Resolver} actions as the
+ * {@link FastReaderBuilder} and the {@link ResolvingDecoder}, so the datums
+ * read are the same as those of a
+ * {@link org.apache.avro.generic.GenericDatumReader} over a
+ * {@link JsonDecoder}. In particular the defaults of reader fields that the
+ * writer does not have are encoded and read back like the
+ * {@link ResolvingDecoder} does, which applies logical type conversions and
+ * string types.
+ * <p>
+ * When reading from a {@link JsonDecoder} the decoder must not be used for
+ * anything else, as this reader consumes the underlying JSON tokens directly.
+ * <p>
+ * JsonDatumReader is not thread-safe.
+ */
+public class JsonDatumReader<D> implements DatumReader<D> {
+
+  private final GenericData data;
+  private Schema actual;
+  private Schema expected;
+  private ValueReader root;
+
+  public JsonDatumReader() {
+    this(null, null, GenericData.get());
+  }
+
+  /** Construct where the writer's and reader's schemas are the same. */
+  public JsonDatumReader(Schema schema) {
+    this(schema, schema, GenericData.get());
+  }
+
+  /** Construct given writer's and reader's schema. */
+  public JsonDatumReader(Schema writer, Schema reader) {
+    this(writer, reader, GenericData.get());
+  }
+
+  public JsonDatumReader(Schema writer, Schema reader, GenericData data) {
+    this.actual = writer;
+    this.expected = reader;
+    this.data = data;
+  }
+
+  /** Return the {@link GenericData} implementation. */
+  public GenericData getData() {
+    return data;
+  }
+
+  /** Return the writer's schema. */
+  public Schema getSchema() {
+    return actual;
+  }
+
+  @Override
+  public void setSchema(Schema writer) {
+    this.actual = writer;
+    if (expected == null) {
+      expected = actual;
+    }
+    root = null;
+  }
+
+  /** Get the reader's schema. */
+  public Schema getExpected() {
+    return expected;
+  }
+
+  /** Set the reader's schema. */
+  public void setExpected(Schema reader) {
+    this.expected = reader;
+    root = null;
+  }
+
+  /**
+   * Reads a datum from the given decoder, which must be a {@link JsonDecoder}
+   * positioned at the start of a value.
+   */
+  @Override
+  public D read(D reuse, Decoder in) throws IOException {
+    if (!(in instanceof JsonDecoder)) {
+      throw new IllegalArgumentException("Not a JsonDecoder: " + in);
+    }
+    return read(reuse, ((JsonDecoder) in).getJsonParser());
+  }
+
+  /**
+   * Reads a datum from the value at the current token of the given parser and
+   * advances the parser to the token following that value.
+   */
+  @SuppressWarnings("unchecked")
+  public D read(D reuse, JsonParser in) throws IOException {
+    if (in.currentToken() == null) {
+      in.nextToken();
+    }
+    if (in.currentToken() == null) {
+      throw new AvroTypeException("Unexpected end of input");
+    }
+    D result = (D) getRoot().read(reuse, in);
+    in.nextToken();
+    return result;
+  }
+
+  private ValueReader getRoot() {
+    if (root == null) {
+      Action action = Resolver.resolve(Schema.applyAliases(actual, expected), expected, data);
+      root = new Compiler().compile(action);
+    }
+    return root;
+  }
+
+  /**
+   * Reads the value starting at the current token and leaves the parser on the
+   * last token of that value.
+   */
+  private interface ValueReader {
+    Object read(Object reuse, JsonParser in) throws IOException;
+  }
+
+  private final class Compiler {
+    private final Map<Action, RecordReader> records = new IdentityHashMap<>();
+
+    private ValueReader compile(Action action) {
+      return compile(action, null);
+    }
+
+    private ValueReader compile(Action action, Conversion<?> explicitConversion) {
+      ValueReader reader = compileBase(action);
+      Schema schema = action.reader;
+      LogicalType logicalType = schema == null ? null : schema.getLogicalType();
+      Conversion<?> conversion = explicitConversion;
+      if (conversion == null && logicalType != null) {
+        conversion = data.getConversionFor(logicalType);
+      }
+      if (conversion == null) {
+        return reader;
+      }
+      Conversion<?> finalConversion = conversion;
+      return (reuse, in) -> Conversions.convertToLogicalType(reader.read(reuse, in), schema, schema.getLogicalType(),
+          finalConversion);
+    }
+
+    private ValueReader compileBase(Action action) {
+      switch (action.type) {
+      case DO_NOTHING:
+        return primitive(action.reader);
+      case PROMOTE:
+        return promote(action.writer, action.reader);
+      case ENUM:
+        return enumeration((EnumAdjust) action);
+      case CONTAINER:
+        return action.reader.getType() == Schema.Type.ARRAY ? array((Container) action) : map((Container) action);
+      case RECORD:
+        return record((RecordAdjust) action);
+      case WRITER_UNION:
+        return union((WriterUnion) action);
+      case READER_UNION:
+        return compile(((ReaderUnion) action).actualAction);
+      case ERROR:
+        return (reuse, in) -> {
+          throw new AvroTypeException(action.toString());
+        };
+      default:
+        throw new IllegalStateException("Unexpected action " + action);
+      }
+    }
+
+    private ValueReader primitive(Schema schema) {
+      switch (schema.getType()) {
+      case NULL:
+        return (reuse, in) -> {
+          expect(in, JsonToken.VALUE_NULL, "null");
+          return null;
+        };
+      case BOOLEAN:
+        return (reuse, in) -> {
+          JsonToken t = in.currentToken();
+          if (t != JsonToken.VALUE_TRUE && t != JsonToken.VALUE_FALSE) {
+            throw error(in, "boolean");
+          }
+          return t == JsonToken.VALUE_TRUE;
+        };
+      case INT:
+        return (reuse, in) -> {
+          expectNumber(in, "int");
+          return in.getIntValue();
+        };
+      case LONG:
+        return (reuse, in) -> {
+          expectNumber(in, "long");
+          return in.getLongValue();
+        };
+      case FLOAT:
+        return (reuse, in) -> {
+          expectNumber(in, "float");
+          return in.getFloatValue();
+        };
+      case DOUBLE:
+        return (reuse, in) -> {
+          expectNumber(in, "double");
+          return in.getDoubleValue();
+        };
+      case STRING:
+        if (isJavaString(schema)) {
+          return (reuse, in) -> {
+            expect(in, JsonToken.VALUE_STRING, "string");
+            return in.getText();
+          };
+        }
+        return (reuse, in) -> {
+          expect(in, JsonToken.VALUE_STRING, "string");
+          return reuse instanceof Utf8 ? ((Utf8) reuse).set(in.getText()) : new Utf8(in.getText());
+        };
+      case BYTES:
+        return (reuse, in) -> {
+          expect(in, JsonToken.VALUE_STRING, "bytes");
+          return ByteBuffer.wrap(readBytes(in));
+        };
+      case FIXED:
+        return (reuse, in) -> {
+          expect(in, JsonToken.VALUE_STRING, "fixed");
+          byte[] bytes = readBytes(in);
+          if (bytes.length != schema.getFixedSize()) {
+            throw new AvroTypeException("Expected fixed length " + schema.getFixedSize() + ", but got" + bytes.length);
+          }
+          GenericFixed fixed = (GenericFixed) data.createFixed(reuse, schema);
+          System.arraycopy(bytes, 0, fixed.bytes(), 0, bytes.length);
+          return fixed;
+        };
+      default:
+        throw new IllegalStateException("Unexpected type " + schema);
+      }
+    }
+
+    private ValueReader promote(Schema writer, Schema reader) {
+      switch (reader.getType()) {
+      case LONG:
+        return (reuse, in) -> {
+          expectNumber(in, "int");
+          return (long) in.getIntValue();
+        };
+      case FLOAT:
+        return (reuse, in) -> {
+          expectNumber(in, writer.getName());
+          return writer.getType() == Schema.Type.INT ? (float) in.getIntValue() : (float) in.getLongValue();
+        };
+      case DOUBLE:
+        return (reuse, in) -> {
+          expectNumber(in, writer.getName());
+          switch (writer.getType()) {
+          case INT:
+            return (double) in.getIntValue();
+          case LONG:
+            return (double) in.getLongValue();
+          default:
+            return (double) in.getFloatValue();
+          }
+        };
+      case BYTES:
+        return (reuse, in) -> {
+          expect(in, JsonToken.VALUE_STRING, "string");
+          return ByteBuffer.wrap(in.getText().getBytes(StandardCharsets.UTF_8));
+        };
+      case STRING:
+        boolean javaString = isJavaString(reader);
+        return (reuse, in) -> {
+          expect(in, JsonToken.VALUE_STRING, "bytes");
+          byte[] bytes = readBytes(in);
+          return javaString ? new String(bytes, StandardCharsets.UTF_8) : new Utf8(bytes);
+        };
+      default:
+        throw new IllegalStateException(
+            "No promotion possible for type " + writer.getType() + " to " + reader.getType());
+      }
+    }
+
+    private ValueReader enumeration(EnumAdjust action) {
+      List<String> symbols = action.writer.getEnumSymbols();
+      return (reuse, in) -> {
+        expect(in, JsonToken.VALUE_STRING, "enum");
+        String symbol = in.getText();
+        int index = symbols.indexOf(symbol);
+        if (index < 0) {
+          throw new AvroTypeException("Unknown symbol in enum " + symbol);
+        }
+        Object value = action.values[index];
+        if (value == null) {
+          throw new AvroTypeException("No match for " + symbol);
+        }
+        return value;
+      };
+    }
+
+    private ValueReader array(Container action) {
+      ValueReader elementReader = compile(action.elementAction);
+      Schema schema = action.reader;
+      return (reuse, in) -> {
+        expect(in, JsonToken.START_ARRAY, "array-start");
+        Object array = data.newArray(reuse, 0, schema);
+        @SuppressWarnings("unchecked")
+        Collection<Object> elements = (Collection<Object>) array;
+        GenericData.Array<Object> reusable = array instanceof GenericData.Array ? (GenericData.Array<Object>) array
+            : null;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+          elements.add(elementReader.read(reusable != null ? reusable.peek() : null, in));
+        }
+        return array;
+      };
+    }
+
+    private ValueReader map(Container action) {
+      ValueReader valueReader = compile(action.elementAction);
+      boolean javaStringKeys = isJavaString(action.reader);
+      return (reuse, in) -> {
+        expect(in, JsonToken.START_OBJECT, "map-start");
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> map = (Map<Object, Object>) data.newMap(reuse, 0);
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+          String key = in.getCurrentName();
+          in.nextToken();
+          map.put(javaStringKeys ? key : new Utf8(key), valueReader.read(null, in));
+        }
+        return map;
+      };
+    }
+
+    private ValueReader union(WriterUnion action) {
+      Schema writer = action.writer;
+      ValueReader[] branches = new ValueReader[action.actions.length];
+      for (int i = 0; i < branches.length; i++) {
+        branches[i] = compile(action.actions[i]);
+      }
+      Integer nullIndex = writer.getIndexNamed(Schema.Type.NULL.getName());
+      return (reuse, in) -> {
+        if (in.currentToken() == JsonToken.VALUE_NULL) {
+          if (nullIndex == null) {
+            throw new AvroTypeException("Unknown union branch null");
+          }
+          return branches[nullIndex].read(null, in);
+        }
+        if (in.currentToken() != JsonToken.START_OBJECT || in.nextToken() != JsonToken.FIELD_NAME) {
+          throw error(in, "start-union");
+        }
+        String label = in.getCurrentName();
+        Integer index = writer.getIndexNamed(label);
+        if (index == null) {
+          throw new AvroTypeException("Unknown union branch " + label);
+        }
+        in.nextToken();
+        Object value = branches[index].read(null, in);
+        if (in.nextToken() != JsonToken.END_OBJECT) {
+          throw error(in, "end-union");
+        }
+        return value;
+      };
+    }
+
+    private ValueReader record(RecordAdjust action) {
+      RecordReader reader = records.get(action);
+      if (reader == null) {
+        // register before compiling the fields to terminate on recursive schemas
+        reader = new RecordReader(action);
+        records.put(action, reader);
+        reader.initialize(this);
+      }
+      return reader;
+    }
+  }
+
+  /**
+   * Reads a JSON object into a record, dispatching on the field names through an
+   * open addressing table built once per record schema.
+   */
+  private final class RecordReader implements ValueReader {
+    private final RecordAdjust action;
+    private String[] names;
+    private int[] slots;
+    private int mask;
+    private BinaryDecoder decoder;
+    private int[] positions;
+    private ValueReader[] readers;
+    private DatumReader<Object>[] defaultReaders;
+    private byte[][] defaults;
+
+    private RecordReader(RecordAdjust action) {
+      this.action = action;
+    }
+
+    private void initialize(Compiler compiler) {
+      Object testInstance = action.instanceSupplier.newInstance(null, action.reader);
+      SpecificRecordBase specific = testInstance instanceof SpecificRecordBase ? (SpecificRecordBase) testInstance
+          : null;
+
+      int count = action.fieldActions.length;
+      positions = new int[count];
+      readers = new ValueReader[count];
+      Field[] fields = new Field[count];
+      int fieldCounter = 0;
+      int keyCount = 0;
+      for (int i = 0; i < count; i++) {
+        Action fieldAction = action.fieldActions[i];
+        if (fieldAction instanceof Skip) {
+          positions[i] = -1;
+          keyCount++;
+        } else {
+          Field field = action.readerOrder[fieldCounter++];
+          positions[i] = field.pos();
+          fields[i] = field;
+          readers[i] = compiler.compile(fieldAction, specific == null ? null : specific.getConversion(field.pos()));
+          keyCount += 1 + field.aliases().size();
+        }
+      }
+
+      int capacity = Integer.highestOneBit(Math.max(keyCount, 1) * 2 - 1) << 1;
+      names = new String[capacity];
+      slots = new int[capacity];
+      mask = capacity - 1;
+      for (int i = 0; i < count; i++) {
+        add(action.writer.getFields().get(i).name(), i);
+        if (fields[i] != null) {
+          for (String alias : fields[i].aliases()) {
+            add(alias, i);
+          }
+        }
+      }
+
+      int defaultCount = action.readerOrder.length - action.firstDefault;
+      @SuppressWarnings("unchecked")
+      DatumReader<Object>[] defaultReaders = new DatumReader[defaultCount];
+      this.defaultReaders = defaultReaders;
+      defaults = new byte[defaultCount][];
+      for (int i = 0; i < defaultCount; i++) {
+        Field field = action.readerOrder[action.firstDefault + i];
+        if (field.hasDefaultValue()) {
+          @SuppressWarnings("unchecked")
+          DatumReader<Object> reader = (DatumReader<Object>) data.createDatumReader(field.schema());
+          defaultReaders[i] = reader;
+          defaults[i] = encodeDefault(field);
+        }
+      }
+    }
+
+    private byte[] encodeDefault(Field field) {
+      try {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Encoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        ResolvingGrammarGenerator.encode(encoder, field.schema(), Accessor.defaultValue(field));
+        encoder.flush();
+        return out.toByteArray();
+      } catch (IOException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+
+    private void add(String name, int index) {
+      int slot = name.hashCode() & mask;
+      while (names[slot] != null) {
+        if (names[slot].equals(name)) {
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      names[slot] = name;
+      slots[slot] = index;
+    }
+
+    private int find(String name) {
+      int slot = name.hashCode() & mask;
+      String candidate;
+      while ((candidate = names[slot]) != null) {
+        // Jackson interns field names by default, so this is mostly an identity check
+        if (candidate == name || candidate.equals(name)) {
+          return slots[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    @Override
+    public Object read(Object reuse, JsonParser in) throws IOException {
+      expect(in, JsonToken.START_OBJECT, "record-start");
+      IndexedRecord record = (IndexedRecord) action.instanceSupplier.newInstance(reuse, action.reader);
+      int count = positions.length;
+      long seen = 0L;
+      boolean[] seenOverflow = count > 64 ? new boolean[count] : null;
+      while (in.nextToken() == JsonToken.FIELD_NAME) {
+        int index = find(in.getCurrentName());
+        in.nextToken();
+        if (index < 0) {
+          in.skipChildren();
+          continue;
+        }
+        if (seenOverflow == null) {
+          seen |= 1L << index;
+        } else {
+          seenOverflow[index] = true;
+        }
+        int pos = positions[index];
+        if (pos < 0) {
+          in.skipChildren();
+          continue;
+        }
+        record.put(pos, readers[index].read(record.get(pos), in));
+      }
+      if (in.currentToken() != JsonToken.END_OBJECT) {
+        throw error(in, "record-end");
+      }
+
+      for (int i = 0; i < count; i++) {
+        boolean present = seenOverflow == null ? (seen & (1L << i)) != 0 : seenOverflow[i];
+        if (!present) {
+          throw new AvroTypeException("Expected field name not found: " + action.writer.getFields().get(i).name());
+        }
+      }
+      for (int i = 0; i < defaults.length; i++) {
+        Field field = action.readerOrder[action.firstDefault + i];
+        if (defaults[i] == null) {
+          throw new AvroTypeException("Expected field name not found: " + field.name());
+        }
+        int pos = field.pos();
+        decoder = DecoderFactory.get().binaryDecoder(defaults[i], decoder);
+        record.put(pos, defaultReaders[i].read(record.get(pos), decoder));
+      }
+      return record;
+    }
+  }
+
+  private static boolean isJavaString(Schema schema) {
+    return GenericData.StringType.String.name().equals(schema.getProp(GenericData.STRING_PROP));
+  }
+
+  /**
+   * Returns the ISO-8859-1 characters of the current string token as bytes.
+   *
+   * @throws AvroTypeException if a character is not in ISO-8859-1
+   */
+  private static byte[] readBytes(JsonParser in) throws IOException {
+    char[] chars = in.getTextCharacters();
+    int offset = in.getTextOffset();
+    byte[] bytes = new byte[in.getTextLength()];
+    for (int i = 0; i < bytes.length; i++) {
+      char c = chars[offset + i];
+      if (c > 0xff) {
+        throw new AvroTypeException("Invalid character in bytes: \\u" + Integer.toHexString(c));
+      }
+      bytes[i] = (byte) c;
+    }
+    return bytes;
+  }
+
+  private static void expect(JsonParser in, JsonToken token, String type) {
+    if (in.currentToken() != token) {
+      throw error(in, type);
+    }
+  }
+
+  private static void expectNumber(JsonParser in, String type) {
+    JsonToken t = in.currentToken();
+    if (t == null || !t.isNumeric()) {
+      throw error(in, type);
+    }
+  }
+
+  private static AvroTypeException error(JsonParser in, String type) {
+    return new AvroTypeException("Expected " + type + ". Got " + in.currentToken());
+  }
+}
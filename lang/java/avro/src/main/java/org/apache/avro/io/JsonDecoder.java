@@ -21,7 +21,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -50,6 +50,7 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
   private static JsonFactory jsonFactory = new JsonFactory();
   Stack<ReorderBuffer> reorderBuffers = new Stack<>();
   ReorderBuffer currentReorderBuffer;
+  private byte[] utf8Buffer = new byte[64];
 
   private static class ReorderBuffer {
     public Map<String, TokenBuffer> savedFields = new HashMap<>();
@@ -120,11 +121,16 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
     parser.reset();
     reorderBuffers.clear();
     currentReorderBuffer = null;
-    this.in = new JsonFactory().createParser(in);
+    this.in = jsonFactory.createParser(in);
     this.in.nextToken();
     return this;
   }
 
+  /** The parser positioned at the next value, used by {@link JsonDatumReader}. */
+  JsonParser getJsonParser() {
+    return in;
+  }
+
   private void advance(Symbol symbol) throws IOException {
     this.parser.processTrailingImplicitActions();
     if (in.getCurrentToken() == null && this.parser.depth() == 1)
@@ -204,11 +210,33 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
 
   @Override
   public Utf8 readString(Utf8 old) throws IOException {
-    return new Utf8(readString());
+    advanceString();
+    // encode the parser's character buffer, without creating a String
+    int length = in.getTextLength();
+    if (utf8Buffer.length < length * 3) {
+      utf8Buffer = new byte[Math.max(length * 3, utf8Buffer.length * 2)];
+    }
+    int byteLength = encodeUtf8(in.getTextCharacters(), in.getTextOffset(), length, utf8Buffer);
+    Utf8 result;
+    if (old != null) {
+      result = old.setByteLength(byteLength);
+      System.arraycopy(utf8Buffer, 0, result.getBytes(), 0, byteLength);
+    } else {
+      result = new Utf8(Arrays.copyOf(utf8Buffer, byteLength));
+    }
+    in.nextToken();
+    return result;
   }
 
   @Override
   public String readString() throws IOException {
+    advanceString();
+    String result = in.getText();
+    in.nextToken();
+    return result;
+  }
+
+  private void advanceString() throws IOException {
     advance(Symbol.STRING);
     if (parser.topSymbol() == Symbol.MAP_KEY_MARKER) {
       parser.advance(Symbol.MAP_KEY_MARKER);
@@ -220,9 +248,34 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
         throw error("string");
       }
     }
-    String result = in.getText();
-    in.nextToken();
-    return result;
+  }
+
+  private static int encodeUtf8(char[] chars, int offset, int length, byte[] out) {
+    int pos = 0;
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      char c = chars[i];
+      if (c < 0x80) {
+        out[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        out[pos++] = (byte) (0xc0 | (c >> 6));
+        out[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+        int cp = Character.toCodePoint(c, chars[++i]);
+        out[pos++] = (byte) (0xf0 | (cp >> 18));
+        out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        out[pos++] = (byte) (0x80 | (cp & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        // unpaired surrogate, replaced like String.getBytes does
+        out[pos++] = (byte) '?';
+      } else {
+        out[pos++] = (byte) (0xe0 | (c >> 12));
+        out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        out[pos++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    return pos;
   }
 
   @Override
@@ -245,17 +298,38 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
   public ByteBuffer readBytes(ByteBuffer old) throws IOException {
     advance(Symbol.BYTES);
     if (in.getCurrentToken() == JsonToken.VALUE_STRING) {
-      byte[] result = readByteArray();
+      int length = in.getTextLength();
+      ByteBuffer result;
+      if (old != null && old.hasArray() && length <= old.capacity()) {
+        result = old;
+        result.clear();
+      } else {
+        result = ByteBuffer.allocate(length);
+      }
+      readByteArray(result.array(), result.arrayOffset(), length);
+      result.limit(length);
       in.nextToken();
-      return ByteBuffer.wrap(result);
+      return result;
     } else {
       throw error("bytes");
     }
   }
 
-  private byte[] readByteArray() throws IOException {
-    byte[] result = in.getText().getBytes(StandardCharsets.ISO_8859_1);
-    return result;
+  /**
+   * Copies the ISO-8859-1 characters of the current string token as bytes.
+   *
+   * @throws AvroTypeException if a character is not in ISO-8859-1
+   */
+  private void readByteArray(byte[] bytes, int start, int length) throws IOException {
+    char[] chars = in.getTextCharacters();
+    int offset = in.getTextOffset();
+    for (int i = 0; i < length; i++) {
+      char c = chars[offset + i];
+      if (c > 0xff) {
+        throw new AvroTypeException("Invalid character in bytes: \\u" + Integer.toHexString(c));
+      }
+      bytes[start + i] = (byte) c;
+    }
   }
 
   @Override
@@ -281,12 +355,12 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
   public void readFixed(byte[] bytes, int start, int len) throws IOException {
     checkFixed(len);
     if (in.getCurrentToken() == JsonToken.VALUE_STRING) {
-      byte[] result = readByteArray();
-      in.nextToken();
-      if (result.length != len) {
-        throw new AvroTypeException("Expected fixed length " + len + ", but got" + result.length);
+      int length = in.getTextLength();
+      if (length != len) {
+        throw new AvroTypeException("Expected fixed length " + len + ", but got" + length);
       }
-      System.arraycopy(result, 0, bytes, start, len);
+      readByteArray(bytes, start, len);
+      in.nextToken();
     } else {
       throw error("fixed");
     }
@@ -300,10 +374,10 @@ public class JsonDecoder extends ParsingDecoder implements Parser.ActionHandler
 
   private void doSkipFixed(int length) throws IOException {
     if (in.getCurrentToken() == JsonToken.VALUE_STRING) {
-      byte[] result = readByteArray();
+      int actual = in.getTextLength();
       in.nextToken();
-      if (result.length != length) {
-        throw new AvroTypeException("Expected fixed length " + length + ", but got" + result.length);
+      if (actual != length) {
+        throw new AvroTypeException("Expected fixed length " + length + ", but got" + actual);
       }
     } else {
       throw error("fixed");
@@ -20,7 +20,6 @@ package org.apache.avro.io;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.BitSet;
 import java.util.Objects;
 
@@ -33,6 +32,7 @@ import org.apache.avro.util.Utf8;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
 
@@ -48,9 +48,13 @@ import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
  */
 public class JsonEncoder extends ParsingEncoder implements Parser.ActionHandler {
   private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+  // Shared so generators recycle their buffers per thread instead of
+  // allocating new symbol tables and buffers for every encoder.
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
   final Parser parser;
   private JsonGenerator out;
   private boolean includeNamespace = true;
+  private char[] latin1Buffer = new char[64];
 
   /**
    * Has anything been written into the collections?
@@ -82,7 +86,7 @@ public class JsonEncoder extends ParsingEncoder implements Parser.ActionHandler
   // with pretty option use default pretty printer with root line separator.
   private static JsonGenerator getJsonGenerator(OutputStream out, boolean pretty) throws IOException {
     Objects.requireNonNull(out, "OutputStream cannot be null");
-    JsonGenerator g = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+    JsonGenerator g = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
     if (pretty) {
       DefaultPrettyPrinter pp = new DefaultPrettyPrinter() {
         @Override
@@ -186,7 +190,68 @@ public class JsonEncoder extends ParsingEncoder implements Parser.ActionHandler
 
   @Override
   public void writeString(Utf8 utf8) throws IOException {
-    writeString(utf8.toString());
+    if (!(out instanceof UTF8JsonGenerator) || !isValidUtf8(utf8.getBytes(), utf8.getByteLength())) {
+      // Utf8.toString() replaces malformed input, which is what gets written
+      writeString(utf8.toString());
+      return;
+    }
+    parser.advance(Symbol.STRING);
+    if (parser.topSymbol() == Symbol.MAP_KEY_MARKER) {
+      parser.advance(Symbol.MAP_KEY_MARKER);
+      out.writeFieldName(utf8.toString());
+    } else {
+      // the generator writes UTF-8 itself, so the encoded bytes are copied as is
+      out.writeUTF8String(utf8.getBytes(), 0, utf8.getByteLength());
+    }
+  }
+
+  /**
+   * Returns true if the bytes are well-formed UTF-8, i.e. if the standard UTF-8
+   * decoder would not replace any of them.
+   */
+  static boolean isValidUtf8(byte[] bytes, int length) {
+    int i = 0;
+    while (i < length) {
+      int b = bytes[i++] & 0xff;
+      if (b < 0x80) {
+        continue;
+      }
+      int continuations;
+      int min = 0x80;
+      int max = 0xbf;
+      if (b >= 0xc2 && b <= 0xdf) {
+        continuations = 1;
+      } else if (b >= 0xe0 && b <= 0xef) {
+        continuations = 2;
+        if (b == 0xe0) {
+          min = 0xa0; // overlong
+        } else if (b == 0xed) {
+          max = 0x9f; // surrogates
+        }
+      } else if (b >= 0xf0 && b <= 0xf4) {
+        continuations = 3;
+        if (b == 0xf0) {
+          min = 0x90; // overlong
+        } else if (b == 0xf4) {
+          max = 0x8f; // above U+10FFFF
+        }
+      } else {
+        return false;
+      }
+      if (i + continuations > length) {
+        return false;
+      }
+      int next = bytes[i++] & 0xff;
+      if (next < min || next > max) {
+        return false;
+      }
+      for (int j = 1; j < continuations; j++) {
+        if ((bytes[i++] & 0xc0) != 0x80) {
+          return false;
+        }
+      }
+    }
+    return true;
   }
 
   @Override
@@ -218,7 +283,15 @@ public class JsonEncoder extends ParsingEncoder implements Parser.ActionHandler
   }
 
   private void writeByteArray(byte[] bytes, int start, int len) throws IOException {
-    out.writeString(new String(bytes, start, len, StandardCharsets.ISO_8859_1));
+    // bytes are written as ISO-8859-1 characters, without an intermediate String
+    if (latin1Buffer.length < len) {
+      latin1Buffer = new char[Math.max(len, latin1Buffer.length * 2)];
+    }
+    char[] chars = latin1Buffer;
+    for (int i = 0; i < len; i++) {
+      chars[i] = (char) (bytes[start + i] & 0xff);
+    }
+    out.writeString(chars, 0, len);
   }
 
   @Override
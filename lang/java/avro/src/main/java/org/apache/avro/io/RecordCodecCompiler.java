@@ -0,0 +1,754 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.JsonProperties;
+import org.apache.avro.Resolver;
+import org.apache.avro.Resolver.Action;
+import org.apache.avro.Resolver.ReaderUnion;
+import org.apache.avro.Resolver.RecordAdjust;
+import org.apache.avro.Resolver.WriterUnion;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericData.InstanceSupplier;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.FastReaderBuilder.ExecutionStep;
+import org.apache.avro.io.FastReaderBuilder.FieldReader;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.util.Utf8;
+import org.apache.avro.util.WeakIdentityHashMap;
+
+/**
+ * Compiles record schemas into flat per-field programs that are executed by a
+ * single switch-dispatched loop, instead of walking a tree of readers
+ * ({@link FastReaderBuilder}) or dispatching recursively on {@link Schema.Type}
+ * ({@link GenericDatumWriter}).
+ * <p>
+ * Every field of a record becomes one instruction: primitive fields, nullable
+ * primitives, promotions, skips and nested records are decoded and encoded
+ * inline, without any virtual call per field. Fields that need more elaborate
+ * handling (arrays, maps, enums, logical type conversions, general unions) are
+ * delegated to the {@link FastReaderBuilder} and {@link GenericDatumWriter}
+ * implementations.
+ * <p>
+ * Compiled readers are cached per (reader, writer) schema pair and compiled
+ * writers per schema, for as long as they are in use, so one instance should be
+ * shared, which is what {@link GenericData#getRecordCodecCompiler()} does.
+ * Compilation holds a single lock per instance, so that recursive schemas
+ * compiled from several threads cannot deadlock, and codecs are only handed out
+ * once compiled.
+ */
+public class RecordCodecCompiler {
+
+  // instruction set shared by readers and writers
+  private static final int NOP = 0;
+  private static final int NULL = 1;
+  private static final int BOOLEAN = 2;
+  private static final int INT = 3;
+  private static final int LONG = 4;
+  private static final int FLOAT = 5;
+  private static final int DOUBLE = 6;
+  private static final int STRING = 7;
+  private static final int JAVA_STRING = 8;
+  private static final int BYTES = 9;
+  private static final int FIXED = 10;
+  private static final int INT_TO_LONG = 11;
+  private static final int INT_TO_FLOAT = 12;
+  private static final int INT_TO_DOUBLE = 13;
+  private static final int LONG_TO_FLOAT = 14;
+  private static final int LONG_TO_DOUBLE = 15;
+  private static final int FLOAT_TO_DOUBLE = 16;
+  private static final int RECORD = 17;
+  private static final int UNION = 18;
+  private static final int DELEGATE = 19;
+  private static final int DEFAULT = 20;
+  private static final int SKIP_INT = 21;
+  private static final int SKIP_LONG = 22;
+  private static final int SKIP_FLOAT = 23;
+  private static final int SKIP_DOUBLE = 24;
+  private static final int SKIP_BOOLEAN = 25;
+  private static final int SKIP_STRING = 26;
+  private static final int SKIP = 27;
+
+  private final GenericData data;
+
+  /**
+   * first schema is reader schema, second is writer schema; guarded by this.
+   * Codecs refer to their schemas, so they are held weakly for the schemas to be
+   * collected, and kept by the datum readers and writers that use them.
+   */
+  private final Map<Schema, Map<Schema, WeakReference<CompiledReader>>> readerCache = new WeakIdentityHashMap<>();
+
+  /** guarded by this */
+  private final Map<Schema, WeakReference<CompiledWriter>> writerCache = new WeakIdentityHashMap<>();
+
+  /**
+   * Removes the codecs registered by the compilation in progress if it fails;
+   * guarded by this.
+   */
+  private final List<Runnable> rollback = new ArrayList<>();
+  private int compileDepth = 0;
+
+  public RecordCodecCompiler(GenericData data) {
+    this.data = data;
+  }
+
+  /**
+   * Compiled codecs read and write {@link IndexedRecord} instances directly, so
+   * only the plain generic data model is supported.
+   */
+  public static boolean isSupportedData(GenericData data) {
+    return data.getClass() == GenericData.class;
+  }
+
+  public <D> DatumReader<D> createDatumReader(Schema schema) throws IOException {
+    return createDatumReader(schema, schema);
+  }
+
+  /**
+   * Returns a reader for the given schema pair. Record schemas are compiled,
+   * anything else is served by the {@link FastReaderBuilder} of the data model.
+   */
+  @SuppressWarnings("unchecked")
+  public <D> DatumReader<D> createDatumReader(Schema writerSchema, Schema readerSchema) throws IOException {
+    Action action = Resolver.resolve(writerSchema, readerSchema, data);
+    if (action instanceof RecordAdjust) {
+      return (DatumReader<D>) getCompiledReader((RecordAdjust) action);
+    }
+    return data.getFastReaderBuilder().createDatumReader(writerSchema, readerSchema);
+  }
+
+  /**
+   * Returns a writer for the given schema. Record schemas are compiled, anything
+   * else is served by a {@link GenericDatumWriter}.
+   */
+  @SuppressWarnings("unchecked")
+  public <D> DatumWriter<D> createDatumWriter(Schema schema) {
+    if (schema.getType() == Schema.Type.RECORD) {
+      return (DatumWriter<D>) getCompiledWriter(schema);
+    }
+    return new GenericDatumWriter<>(schema, data);
+  }
+
+  private synchronized CompiledReader getCompiledReader(RecordAdjust action) throws IOException {
+    Map<Schema, WeakReference<CompiledReader>> readers = readerCache.computeIfAbsent(action.reader,
+        k -> new WeakIdentityHashMap<>());
+    WeakReference<CompiledReader> cached = readers.get(action.writer);
+    CompiledReader reader = cached != null ? cached.get() : null;
+    if (reader == null) {
+      // like the record readers of the FastReaderBuilder, readers are registered
+      // before they are compiled to support recursive schemas
+      CompiledReader compiled = new CompiledReader(action.writer);
+      WeakReference<CompiledReader> ref = new WeakReference<>(compiled);
+      readers.put(action.writer, ref);
+      rollback.add(() -> readers.remove(action.writer, ref));
+      compile(() -> compileReader(compiled, action));
+      reader = compiled;
+    }
+    return reader;
+  }
+
+  private interface Compilation {
+    void run() throws IOException;
+  }
+
+  /**
+   * Runs a compilation. If the outermost compilation fails, every codec it
+   * registered is removed again, since codecs that did compile may refer to ones
+   * that did not.
+   */
+  private void compile(Compilation compilation) throws IOException {
+    compileDepth++;
+    boolean success = false;
+    try {
+      compilation.run();
+      success = true;
+    } finally {
+      if (--compileDepth == 0) {
+        if (!success) {
+          rollback.forEach(Runnable::run);
+        }
+        rollback.clear();
+      }
+    }
+  }
+
+  private void compileReader(CompiledReader reader, RecordAdjust action) throws IOException {
+    int size = action.fieldActions.length + action.readerOrder.length - action.firstDefault;
+    int[] ops = new int[size];
+    int[] positions = new int[size];
+    Object[] operands = new Object[size];
+
+    int i = 0;
+    int fieldCounter = 0;
+    for (; i < action.fieldActions.length; i++) {
+      Action fieldAction = action.fieldActions[i];
+      if (fieldAction.type == Action.Type.SKIP) {
+        ops[i] = skipOp(fieldAction.writer);
+        operands[i] = fieldAction.writer;
+        continue;
+      }
+      Field readerField = action.readerOrder[fieldCounter++];
+      positions[i] = readerField.pos();
+      int op = readOp(fieldAction);
+      if (op >= 0) {
+        ops[i] = op;
+        operands[i] = leafAction(fieldAction).reader;
+      } else if (fieldAction.type == Action.Type.RECORD && fieldAction.conversion == null) {
+        ops[i] = RECORD;
+        operands[i] = getCompiledReader((RecordAdjust) fieldAction);
+      } else if (fieldAction.type == Action.Type.WRITER_UNION && fieldAction.conversion == null
+          && (operands[i] = unionOps((WriterUnion) fieldAction)) != null) {
+        ops[i] = UNION;
+      } else {
+        ops[i] = DELEGATE;
+        operands[i] = data.getFastReaderBuilder().getReaderFor(fieldAction, null);
+      }
+    }
+
+    FastReaderBuilder fastReaderBuilder = data.getFastReaderBuilder();
+    for (; i < size; i++) {
+      Field readerField = action.readerOrder[fieldCounter++];
+      ops[i] = DEFAULT;
+      positions[i] = readerField.pos();
+      operands[i] = fastReaderBuilder.getDefaultingStep(readerField);
+    }
+
+    reader.finishCompilation(ops, positions, operands, action.reader, action.instanceSupplier, data);
+  }
+
+  private static Action leafAction(Action action) {
+    return action.type == Action.Type.READER_UNION ? leafAction(((ReaderUnion) action).actualAction) : action;
+  }
+
+  /**
+   * Returns the instruction reading a value of the given action without any
+   * operand but the reader schema, or -1 if there is none.
+   */
+  private int readOp(Action action) {
+    if (action.type == Action.Type.READER_UNION) {
+      return readOp(((ReaderUnion) action).actualAction);
+    }
+    if (action.conversion != null) {
+      return -1;
+    }
+    if (action.type == Action.Type.DO_NOTHING) {
+      switch (action.reader.getType()) {
+      case NULL:
+        return NULL;
+      case BOOLEAN:
+        return BOOLEAN;
+      case INT:
+        return INT;
+      case LONG:
+        return LONG;
+      case FLOAT:
+        return FLOAT;
+      case DOUBLE:
+        return DOUBLE;
+      case BYTES:
+        return BYTES;
+      case FIXED:
+        return FIXED;
+      case STRING:
+        if (action.reader.getProp(SpecificData.CLASS_PROP) != null || data.getStringInterner(action.reader) != null) {
+          return -1;
+        }
+        return GenericData.StringType.String.name().equals(action.reader.getProp(GenericData.STRING_PROP)) ? JAVA_STRING
+            : STRING;
+      default:
+        return -1;
+      }
+    }
+    if (action.type == Action.Type.PROMOTE) {
+      Schema.Type writerType = action.writer.getType();
+      switch (action.reader.getType()) {
+      case LONG:
+        return INT_TO_LONG;
+      case FLOAT:
+        return writerType == Schema.Type.INT ? INT_TO_FLOAT : LONG_TO_FLOAT;
+      case DOUBLE:
+        return writerType == Schema.Type.INT ? INT_TO_DOUBLE
+            : writerType == Schema.Type.LONG ? LONG_TO_DOUBLE : FLOAT_TO_DOUBLE;
+      default:
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the instructions for each branch of the writer's union, or null if
+   * one of the branches cannot be read without an operand.
+   */
+  private int[] unionOps(WriterUnion action) {
+    int[] branches = new int[action.actions.length];
+    for (int i = 0; i < branches.length; i++) {
+      int op = readOp(action.actions[i]);
+      if (op < 0 || op == FIXED) {
+        return null;
+      }
+      branches[i] = op;
+    }
+    return branches;
+  }
+
+  private static int skipOp(Schema writer) {
+    switch (writer.getType()) {
+    case NULL:
+      return NOP;
+    case BOOLEAN:
+      return SKIP_BOOLEAN;
+    case INT:
+      return SKIP_INT;
+    case LONG:
+      return SKIP_LONG;
+    case FLOAT:
+      return SKIP_FLOAT;
+    case DOUBLE:
+      return SKIP_DOUBLE;
+    case STRING:
+    case BYTES:
+      return SKIP_STRING;
+    default:
+      return SKIP;
+    }
+  }
+
+  private synchronized CompiledWriter getCompiledWriter(Schema schema) {
+    WeakReference<CompiledWriter> cached = writerCache.get(schema);
+    CompiledWriter writer = cached != null ? cached.get() : null;
+    if (writer == null) {
+      CompiledWriter compiled = new CompiledWriter(schema);
+      WeakReference<CompiledWriter> ref = new WeakReference<>(compiled);
+      writerCache.put(schema, ref);
+      rollback.add(() -> writerCache.remove(schema, ref));
+      try {
+        compile(() -> compileWriter(compiled, schema));
+      } catch (IOException e) {
+        throw new AssertionError(e); // writers are compiled without I/O
+      }
+      writer = compiled;
+    }
+    return writer;
+  }
+
+  private void compileWriter(CompiledWriter writer, Schema schema) {
+    List<Field> fields = schema.getFields();
+    int size = fields.size();
+    int[] ops = new int[size];
+    Object[] operands = new Object[size];
+    Field[] recordFields = fields.toArray(new Field[size]);
+
+    for (int i = 0; i < size; i++) {
+      Field field = fields.get(i);
+      Schema fieldSchema = field.schema();
+      int op = writeOp(fieldSchema);
+      if (op >= 0) {
+        ops[i] = op;
+        operands[i] = fieldSchema;
+      } else if (fieldSchema.getType() == Schema.Type.RECORD && !hasConversion(fieldSchema)) {
+        ops[i] = RECORD;
+        operands[i] = getCompiledWriter(fieldSchema);
+      } else if (fieldSchema.getType() == Schema.Type.UNION && (operands[i] = nullableBranch(fieldSchema)) != null) {
+        ops[i] = UNION;
+      } else {
+        ops[i] = DELEGATE;
+        operands[i] = new GenericDatumWriter<>(fieldSchema, data);
+      }
+    }
+
+    writer.finishCompilation(ops, operands, recordFields);
+  }
+
+  private boolean hasConversion(Schema schema) {
+    return schema.getLogicalType() != null && data.getConversionFor(schema.getLogicalType()) != null;
+  }
+
+  /**
+   * Returns the instruction writing a value of the given schema without any
+   * operand but the schema itself, or -1 if there is none.
+   */
+  private int writeOp(Schema schema) {
+    if (hasConversion(schema)) {
+      return -1;
+    }
+    switch (schema.getType()) {
+    case NULL:
+      return NULL;
+    case BOOLEAN:
+      return BOOLEAN;
+    case INT:
+      return INT;
+    case LONG:
+      return LONG;
+    case FLOAT:
+      return FLOAT;
+    case DOUBLE:
+      return DOUBLE;
+    case STRING:
+      return STRING;
+    case BYTES:
+      return BYTES;
+    case FIXED:
+      return FIXED;
+    default:
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the branch information for a union of null and a single primitive
+   * type, or null for any other union.
+   */
+  private NullableBranch nullableBranch(Schema union) {
+    List<Schema> types = union.getTypes();
+    if (types.size() != 2) {
+      return null;
+    }
+    int nullIndex = types.get(0).getType() == Schema.Type.NULL ? 0 : 1;
+    int valueIndex = 1 - nullIndex;
+    if (types.get(nullIndex).getType() != Schema.Type.NULL) {
+      return null;
+    }
+    Schema valueSchema = types.get(valueIndex);
+    int op = writeOp(valueSchema);
+    Class<?> type = valueClass(op);
+    if (type == null) {
+      return null;
+    }
+    return new NullableBranch(union, nullIndex, valueIndex, op, type);
+  }
+
+  /** The class {@link GenericData#resolveUnion} expects for an instruction. */
+  private static Class<?> valueClass(int op) {
+    switch (op) {
+    case BOOLEAN:
+      return Boolean.class;
+    case INT:
+      return Integer.class;
+    case LONG:
+      return Long.class;
+    case FLOAT:
+      return Float.class;
+    case DOUBLE:
+      return Double.class;
+    case STRING:
+      return CharSequence.class;
+    case BYTES:
+      return ByteBuffer.class;
+    default:
+      return null;
+    }
+  }
+
+  private static final class NullableBranch {
+    private final Schema union;
+    private final int nullIndex;
+    private final int valueIndex;
+    private final int op;
+    private final Class<?> type;
+
+    private NullableBranch(Schema union, int nullIndex, int valueIndex, int op, Class<?> type) {
+      this.union = union;
+      this.nullIndex = nullIndex;
+      this.valueIndex = valueIndex;
+      this.op = op;
+      this.type = type;
+    }
+  }
+
+  /**
+   * Reader executing the compiled program of one (reader, writer) record schema
+   * pair. The i-th instruction handles the i-th field of the writer, followed by
+   * the reader fields that are filled with their default values.
+   */
+  public static class CompiledReader implements DatumReader<Object> {
+    private final Schema writerSchema;
+    private int[] ops;
+    private int[] positions;
+    private Object[] operands;
+    private Schema schema;
+    private InstanceSupplier supplier;
+    private GenericData data;
+
+    private CompiledReader(Schema writerSchema) {
+      this.writerSchema = writerSchema;
+    }
+
+    private void finishCompilation(int[] ops, int[] positions, Object[] operands, Schema schema,
+        InstanceSupplier supplier, GenericData data) {
+      this.data = data;
+      this.positions = positions;
+      this.operands = operands;
+      this.schema = schema;
+      this.supplier = supplier;
+      this.ops = ops;
+    }
+
+    /**
+     * Compiled readers are shared per schema pair, so the writer's schema cannot be
+     * changed. Setting the schema the reader was compiled for does nothing.
+     */
+    @Override
+    public void setSchema(Schema writer) {
+      if (!writerSchema.equals(writer)) {
+        throw new UnsupportedOperationException(
+            "A compiled reader reads data written with " + writerSchema.getFullName()
+                + " as compiled; use RecordCodecCompiler.createDatumReader for another writer schema");
+      }
+    }
+
+    @Override
+    public Object read(Object reuse, Decoder in) throws IOException {
+      final int[] ops = this.ops;
+      final int[] positions = this.positions;
+      final Object[] operands = this.operands;
+      IndexedRecord record = (IndexedRecord) supplier.newInstance(reuse, schema);
+
+      for (int i = 0; i < ops.length; i++) {
+        int pos = positions[i];
+        int op = ops[i];
+        if (op == UNION) {
+          op = ((int[]) operands[i])[in.readIndex()];
+        }
+        switch (op) {
+        case NOP:
+          break;
+        case NULL:
+          in.readNull();
+          record.put(pos, null);
+          break;
+        case BOOLEAN:
+          record.put(pos, in.readBoolean());
+          break;
+        case INT:
+          record.put(pos, in.readInt());
+          break;
+        case LONG:
+          record.put(pos, in.readLong());
+          break;
+        case FLOAT:
+          record.put(pos, in.readFloat());
+          break;
+        case DOUBLE:
+          record.put(pos, in.readDouble());
+          break;
+        case STRING: {
+          Object old = record.get(pos);
+          record.put(pos, in.readString(old instanceof Utf8 ? (Utf8) old : null));
+          break;
+        }
+        case JAVA_STRING:
+          record.put(pos, in.readString());
+          break;
+        case BYTES: {
+          Object old = record.get(pos);
+          record.put(pos, in.readBytes(old instanceof ByteBuffer ? (ByteBuffer) old : null));
+          break;
+        }
+        case FIXED: {
+          Schema fixedSchema = (Schema) operands[i];
+          GenericFixed fixed = (GenericFixed) data.createFixed(record.get(pos), fixedSchema);
+          in.readFixed(fixed.bytes(), 0, fixedSchema.getFixedSize());
+          record.put(pos, fixed);
+          break;
+        }
+        case INT_TO_LONG:
+          record.put(pos, (long) in.readInt());
+          break;
+        case INT_TO_FLOAT:
+          record.put(pos, (float) in.readInt());
+          break;
+        case INT_TO_DOUBLE:
+          record.put(pos, (double) in.readInt());
+          break;
+        case LONG_TO_FLOAT:
+          record.put(pos, (float) in.readLong());
+          break;
+        case LONG_TO_DOUBLE:
+          record.put(pos, (double) in.readLong());
+          break;
+        case FLOAT_TO_DOUBLE:
+          record.put(pos, (double) in.readFloat());
+          break;
+        case RECORD:
+          record.put(pos, ((CompiledReader) operands[i]).read(record.get(pos), in));
+          break;
+        case DELEGATE: {
+          FieldReader reader = (FieldReader) operands[i];
+          record.put(pos, reader.read(reader.canReuse() ? record.get(pos) : null, in));
+          break;
+        }
+        case DEFAULT:
+          ((ExecutionStep) operands[i]).execute(record, in);
+          break;
+        case SKIP_BOOLEAN:
+          in.readBoolean();
+          break;
+        case SKIP_INT:
+          in.readInt();
+          break;
+        case SKIP_LONG:
+          in.readLong();
+          break;
+        case SKIP_FLOAT:
+          in.readFloat();
+          break;
+        case SKIP_DOUBLE:
+          in.readDouble();
+          break;
+        case SKIP_STRING:
+          in.skipString();
+          break;
+        case SKIP:
+          GenericDatumReader.skip((Schema) operands[i], in);
+          break;
+        default:
+          throw new IllegalStateException("Unknown instruction " + op);
+        }
+      }
+      return record;
+    }
+  }
+
+  /**
+   * Writer executing the compiled program of one record schema, one instruction
+   * per field.
+   */
+  public static class CompiledWriter implements DatumWriter<Object> {
+    private final Schema schema;
+    private int[] ops;
+    private Object[] operands;
+    private Field[] fields;
+
+    private CompiledWriter(Schema schema) {
+      this.schema = schema;
+    }
+
+    private void finishCompilation(int[] ops, Object[] operands, Field[] fields) {
+      this.operands = operands;
+      this.fields = fields;
+      this.ops = ops;
+    }
+
+    /**
+     * Compiled writers are shared per schema, so the schema cannot be changed.
+     * Setting the schema the writer was compiled for does nothing.
+     */
+    @Override
+    public void setSchema(Schema schema) {
+      if (!this.schema.equals(schema)) {
+        throw new UnsupportedOperationException("A compiled writer writes " + this.schema.getFullName()
+            + " as compiled; use RecordCodecCompiler.createDatumWriter for another schema");
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(Object datum, Encoder out) throws IOException {
+      final int[] ops = this.ops;
+      final Object[] operands = this.operands;
+      IndexedRecord record = (IndexedRecord) datum;
+
+      int i = 0;
+      Object value = null;
+      try {
+        for (; i < ops.length; i++) {
+          value = record.get(i);
+          int op = ops[i];
+          if (op == UNION) {
+            NullableBranch branch = (NullableBranch) operands[i];
+            if (value == null || value == JsonProperties.NULL_VALUE) {
+              out.writeIndex(branch.nullIndex);
+              continue;
+            }
+            if (!branch.type.isInstance(value)) {
+              throw new UnresolvedUnionException(branch.union, value);
+            }
+            out.writeIndex(branch.valueIndex);
+            op = branch.op;
+          }
+          switch (op) {
+          case NULL:
+            out.writeNull();
+            break;
+          case BOOLEAN:
+            out.writeBoolean((Boolean) value);
+            break;
+          case INT:
+            out.writeInt(((Number) value).intValue());
+            break;
+          case LONG:
+            out.writeLong(((Number) value).longValue());
+            break;
+          case FLOAT:
+            out.writeFloat(((Number) value).floatValue());
+            break;
+          case DOUBLE:
+            out.writeDouble(((Number) value).doubleValue());
+            break;
+          case STRING:
+            out.writeString((CharSequence) value);
+            break;
+          case BYTES:
+            out.writeBytes((ByteBuffer) value);
+            break;
+          case FIXED:
+            out.writeFixed(((GenericFixed) value).bytes(), 0, ((Schema) operands[i]).getFixedSize());
+            break;
+          case RECORD:
+            ((CompiledWriter) operands[i]).write(value, out);
+            break;
+          case DELEGATE:
+            ((DatumWriter<Object>) operands[i]).write(value, out);
+            break;
+          default:
+            throw new IllegalStateException("Unknown instruction " + op);
+          }
+        }
+      } catch (UnresolvedUnionException uue) { // recreate it with the right field info
+        UnresolvedUnionException unresolvedUnionException = new UnresolvedUnionException(fields[i].schema(), fields[i],
+            value);
+        unresolvedUnionException.addSuppressed(uue);
+        throw unresolvedUnionException;
+      } catch (NullPointerException e) {
+        throw addMessage(new NullPointerException(e.getMessage() + " in field " + fields[i].name()), e);
+      } catch (ClassCastException e) {
+        throw addMessage(new ClassCastException(e.getMessage() + " in field " + fields[i].name()), e);
+      } catch (AvroTypeException e) {
+        throw addMessage(new AvroTypeException(e.getMessage() + " in field " + fields[i].name()), e);
+      }
+    }
+
+    private static <T extends RuntimeException> T addMessage(T result, RuntimeException e) {
+      result.initCause(e.getCause() == null ? e : e.getCause());
+      return result;
+    }
+  }
+}
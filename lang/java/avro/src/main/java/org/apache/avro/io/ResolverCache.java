@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.avro.Schema;
+
+/**
+ * A bounded cache of the immutable resolvers returned by
+ * {@link ResolvingDecoder#resolve(Schema, Schema)}, shared by all threads.
+ * Generating the resolving grammar for a schema pair is expensive, while
+ * creating a {@link ResolvingDecoder} over an existing grammar only allocates
+ * the parser state.
+ * <p>
+ * Entries are keyed by the identity of the writer's and the reader's schema.
+ * When the cache is full the oldest entries are evicted first.
+ */
+public class ResolverCache {
+
+  /** System property to configure the size of the shared instance. */
+  public static final String MAX_SIZE_PROP = "org.apache.avro.resolvercache.size";
+  private static final int DEFAULT_MAX_SIZE = 1024;
+
+  private static final ResolverCache INSTANCE = new ResolverCache(Integer.getInteger(MAX_SIZE_PROP, DEFAULT_MAX_SIZE));
+
+  private final int maxSize;
+  private final ConcurrentHashMap<SchemaPair, Object> resolvers = new ConcurrentHashMap<>();
+  private final Queue<SchemaPair> insertionOrder = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /** Return the instance shared by all generic readers. */
+  public static ResolverCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * @param maxSize The maximum number of schema pairs to keep resolvers for.
+   */
+  public ResolverCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Invalid cache size: " + maxSize + " (must be positive)");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the resolver for the given schemas, generating it on a miss. Aliases
+   * of the reader are applied to the writer before resolution.
+   *
+   * @param writer The writer's schema. Cannot be null.
+   * @param reader The reader's schema. Cannot be null.
+   * @return The opaque resolver, see {@link ResolvingDecoder#resolve}.
+   */
+  public Object getResolver(Schema writer, Schema reader) throws IOException {
+    Objects.requireNonNull(writer, "Writer schema cannot be null");
+    Objects.requireNonNull(reader, "Reader schema cannot be null");
+    SchemaPair key = new SchemaPair(writer, reader);
+    Object resolver = resolvers.get(key);
+    if (resolver != null) {
+      hits.increment();
+      return resolver;
+    }
+    misses.increment();
+    resolver = ResolvingDecoder.resolve(Schema.applyAliases(writer, reader), reader);
+    Object previous = resolvers.putIfAbsent(key, resolver);
+    if (previous != null) {
+      return previous;
+    }
+    insertionOrder.add(key);
+    if (size.incrementAndGet() > maxSize) {
+      evict();
+    }
+    return resolver;
+  }
+
+  /**
+   * Returns a new {@link ResolvingDecoder} over the cached resolver of the given
+   * schemas.
+   */
+  public ResolvingDecoder newResolvingDecoder(Schema writer, Schema reader, Decoder in) throws IOException {
+    return new ResolvingDecoder(getResolver(writer, reader), in);
+  }
+
+  private void evict() {
+    while (size.get() > maxSize) {
+      SchemaPair eldest = insertionOrder.poll();
+      if (eldest == null) {
+        return;
+      }
+      if (resolvers.remove(eldest) != null) {
+        size.decrementAndGet();
+        evictions.increment();
+      }
+    }
+  }
+
+  /** Removes all resolvers, statistics are kept. */
+  public void clear() {
+    SchemaPair key;
+    while ((key = insertionOrder.poll()) != null) {
+      if (resolvers.remove(key) != null) {
+        size.decrementAndGet();
+      }
+    }
+  }
+
+  /** Return the number of cached resolvers. */
+  public int size() {
+    return resolvers.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Return the number of lookups that found a cached resolver. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Return the number of lookups that had to generate a resolver. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Return the number of resolvers removed to keep the cache bounded. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "ResolverCache{size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() + ", misses="
+        + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+  }
+
+  private static final class SchemaPair {
+    private final Schema writer;
+    private final Schema reader;
+    private final int hashCode;
+
+    private SchemaPair(Schema writer, Schema reader) {
+      this.writer = writer;
+      this.reader = reader;
+      this.hashCode = 31 * System.identityHashCode(writer) + System.identityHashCode(reader);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof SchemaPair)) {
+        return false;
+      }
+      SchemaPair that = (SchemaPair) o;
+      return this.writer == that.writer && this.reader == that.reader;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
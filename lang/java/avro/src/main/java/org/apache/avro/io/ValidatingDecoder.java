@@ -88,6 +88,52 @@ public class ValidatingDecoder extends ParsingDecoder implements Parser.ActionHa
     return in.readLong();
   }
 
+  @Override
+  public void readInts(int[] dst, int off, int n) throws IOException {
+    if (isRepeating(Symbol.INT)) {
+      in.readInts(dst, off, n);
+    } else {
+      super.readInts(dst, off, n);
+    }
+  }
+
+  @Override
+  public void readLongs(long[] dst, int off, int n) throws IOException {
+    if (isRepeating(Symbol.LONG)) {
+      in.readLongs(dst, off, n);
+    } else {
+      super.readLongs(dst, off, n);
+    }
+  }
+
+  @Override
+  public void readFloats(float[] dst, int off, int n) throws IOException {
+    if (isRepeating(Symbol.FLOAT)) {
+      in.readFloats(dst, off, n);
+    } else {
+      super.readFloats(dst, off, n);
+    }
+  }
+
+  @Override
+  public void readDoubles(double[] dst, int off, int n) throws IOException {
+    if (isRepeating(Symbol.DOUBLE)) {
+      in.readDoubles(dst, off, n);
+    } else {
+      super.readDoubles(dst, off, n);
+    }
+  }
+
+  /**
+   * Returns whether the parser is at the items of an array whose items are just
+   * the given terminal. Advancing over such items leaves the parser unchanged, so
+   * they can be read from the underlying decoder in bulk.
+   */
+  private boolean isRepeating(Symbol terminal) {
+    Symbol top = parser.topSymbol();
+    return top.kind == Symbol.Kind.REPEATER && top.production.length == 2 && top.production[1] == terminal;
+  }
+
   @Override
   public float readFloat() throws IOException {
     parser.advance(Symbol.FLOAT);
@@ -18,11 +18,15 @@
 package org.apache.avro.logicaltypes;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.avro.AvroTypeException;
 import org.apache.avro.Conversions.DecimalConversion;
+import org.apache.avro.Conversions.UnscaledDecimalConversion;
 import org.apache.avro.LogicalTypes;
 import org.apache.avro.LogicalTypes.Decimal;
 import org.apache.avro.Schema;
@@ -31,8 +35,15 @@ import org.apache.avro.generic.GenericFixed;
 
 public class AvroDecimal extends Decimal implements AvroPrimitive {
   private static final DecimalConversion DECIMAL_CONVERTER = new DecimalConversion();
+  private static final UnscaledDecimalConversion UNSCALED_CONVERTER = new UnscaledDecimalConversion();
   public static final String NAME = "DECIMAL";
   public static final String TYPENAME = LogicalTypes.DECIMAL;
+  private static final ConcurrentMap<Long, AvroDecimal> INSTANCES = new ConcurrentHashMap<>();
+  /**
+   * The largest precision for which instances are shared, the maximum of most SQL
+   * databases. Larger decimals are created on demand.
+   */
+  private static final int MAX_SHARED_PRECISION = 38;
 
   public AvroDecimal(String text) {
     super(text);
@@ -42,8 +53,26 @@ public class AvroDecimal extends Decimal implements AvroPrimitive {
     super(precision, scale);
   }
 
+  /**
+   * Returns the shared instance for the given precision and scale, or a new one
+   * if the precision is above 38.
+   */
   public static AvroDecimal create(int precision, int scale) {
-    return new AvroDecimal(precision, scale);
+    if (precision <= 0 || precision > MAX_SHARED_PRECISION || scale < 0 || scale > precision) {
+      return new AvroDecimal(precision, scale);
+    }
+    long key = ((long) precision << 32) | (scale & 0xFFFFFFFFL);
+    return INSTANCES.computeIfAbsent(key, k -> new AvroDecimal(precision, scale));
+  }
+
+  /**
+   * Returns the shared instance for the precision and scale properties of the
+   * given schema.
+   *
+   * @throws IllegalArgumentException if the properties are missing or invalid.
+   */
+  public static AvroDecimal create(Schema schema) {
+    return create(getPrecisionProperty(schema), getScaleProperty(schema));
   }
 
   public AvroDecimal(Schema schema) {
@@ -75,6 +104,18 @@ public class AvroDecimal extends Decimal implements AvroPrimitive {
       } else if (value instanceof BigDecimal) {
         ByteBuffer buffer = DECIMAL_CONVERTER.toBytes((BigDecimal) value, null, this);
         return buffer;
+      } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        long n = ((Number) value).longValue();
+        if (isUnscaledLongSupported() && getScale() <= getPrecision()) {
+          // values that are too large fall through to BigDecimal, which reports them
+          long limit = UnscaledDecimalConversion.powerOfTen(getPrecision() - getScale());
+          if (n > -limit && n < limit) {
+            return convertUnscaledToRawType(n * UnscaledDecimalConversion.powerOfTen(getScale()));
+          }
+        }
+        return convertToRawType(BigDecimal.valueOf(n));
+      } else if (value instanceof BigInteger) {
+        return convertToRawType(new BigDecimal((BigInteger) value));
       } else if (value instanceof Number) {
         Number n = (Number) value;
         v = BigDecimal.valueOf(Double.valueOf(n.toString())).setScale(getScale(), RoundingMode.HALF_DOWN);
@@ -107,6 +148,9 @@ public class AvroDecimal extends Decimal implements AvroPrimitive {
     if (value == null) {
       return null;
     } else if (value instanceof ByteBuffer) {
+      if (isUnscaledLongSupported()) {
+        return BigDecimal.valueOf(UnscaledDecimalConversion.getUnscaled((ByteBuffer) value), getScale());
+      }
       return DECIMAL_CONVERTER.fromBytes((ByteBuffer) value, null, this);
     } else if (value instanceof GenericFixed) {
       return DECIMAL_CONVERTER.fromFixed((GenericFixed) value, null, this);
@@ -115,6 +159,55 @@ public class AvroDecimal extends Decimal implements AvroPrimitive {
         "Cannot convert a value of type \"" + value.getClass().getSimpleName() + "\" into a BigDecimal");
   }
 
+  /**
+   * Returns whether values of this decimal can be handled as unscaled longs with
+   * {@link #convertToUnscaledLong(Object)} and
+   * {@link #convertUnscaledToRawType(long)}, i.e. whether its precision is at
+   * most 18.
+   */
+  public boolean isUnscaledLongSupported() {
+    return getPrecision() <= UnscaledDecimalConversion.MAX_PRECISION;
+  }
+
+  /**
+   * Converts a raw or logical value to the unscaled long of this decimal, e.g.
+   * <tt>12.34</tt> to <tt>1234L</tt> for a scale of 2. Integral numbers are taken
+   * as whole values, so <tt>5</tt> becomes <tt>500L</tt>.
+   *
+   * @throws AvroTypeException if the precision is larger than 18 or the value
+   *                           cannot be represented without rounding.
+   */
+  public long convertToUnscaledLong(Object value) {
+    if (!isUnscaledLongSupported()) {
+      throw new AvroTypeException("Cannot represent " + this + " as an unscaled long");
+    }
+    if (value instanceof ByteBuffer) {
+      return UnscaledDecimalConversion.getUnscaled((ByteBuffer) value);
+    } else if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      return UnscaledDecimalConversion.getUnscaled(bytes, 0, bytes.length);
+    } else if (value instanceof GenericFixed) {
+      byte[] bytes = ((GenericFixed) value).bytes();
+      return UnscaledDecimalConversion.getUnscaled(bytes, 0, bytes.length);
+    }
+    return UnscaledDecimalConversion.getUnscaled(convertToRawType(value));
+  }
+
+  /**
+   * Converts the unscaled long of this decimal to its raw representation.
+   *
+   * @throws AvroTypeException if the precision is larger than 18 or the value
+   *                           exceeds it.
+   */
+  public ByteBuffer convertUnscaledToRawType(long unscaled) {
+    return UNSCALED_CONVERTER.toBytes(unscaled, null, this);
+  }
+
+  /** Converts the unscaled long of this decimal to a {@link BigDecimal}. */
+  public BigDecimal convertUnscaledToLogicalType(long unscaled) {
+    return BigDecimal.valueOf(unscaled, getScale());
+  }
+
   @Override
   public Class<?> getConvertedType() {
     return BigDecimal.class;
@@ -17,6 +17,9 @@
  */
 package org.apache.avro.logicaltypes;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Type;
 
@@ -28,15 +31,23 @@ import org.apache.avro.Schema.Type;
 public class AvroNVarchar extends LogicalTypeWithLength {
   public static final String NAME = "NVARCHAR";
   public static final String TYPENAME = NAME;
+  private static final ConcurrentMap<Integer, AvroNVarchar> INSTANCES = new ConcurrentHashMap<>();
   private final Schema schema;
 
   private AvroNVarchar(int length) {
     super(TYPENAME, length);
-    this.schema = addToSchema(Schema.create(Type.STRING));
+    this.schema = null;
   }
 
+  /**
+   * Returns the shared instance for the given length, or a new one if the length
+   * is above {@link #MAX_SHARED_LENGTH}.
+   */
   public static AvroNVarchar create(int length) {
-    return new AvroNVarchar(length);
+    if (length <= 0 || length > MAX_SHARED_LENGTH) {
+      return new AvroNVarchar(length);
+    }
+    return INSTANCES.computeIfAbsent(length, AvroNVarchar::new);
   }
 
   public AvroNVarchar(String text) {
@@ -77,7 +88,8 @@ public class AvroNVarchar extends LogicalTypeWithLength {
 
   @Override
   public Schema getRecommendedSchema() {
-    return schema;
+    // instances created from a length are shared, so each caller gets its own
+    return schema != null ? schema : addToSchema(Schema.create(Type.STRING));
   }
 
   @Override
@@ -17,6 +17,9 @@
  */
 package org.apache.avro.logicaltypes;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Type;
 
@@ -28,11 +31,12 @@ import org.apache.avro.Schema.Type;
 public class AvroVarchar extends LogicalTypeWithLength {
   public static final String NAME = "VARCHAR";
   public static final String TYPENAME = NAME;
+  private static final ConcurrentMap<Integer, AvroVarchar> INSTANCES = new ConcurrentHashMap<>();
   private final Schema schema;
 
   private AvroVarchar(int length) {
     super(TYPENAME, length);
-    schema = addToSchema(Schema.create(Type.STRING));
+    this.schema = null;
   }
 
   public AvroVarchar(String text) {
@@ -44,8 +48,15 @@ public class AvroVarchar extends LogicalTypeWithLength {
     this.schema = schema;
   }
 
+  /**
+   * Returns the shared instance for the given length, or a new one if the length
+   * is above {@link #MAX_SHARED_LENGTH}.
+   */
   public static AvroVarchar create(int length) {
-    return new AvroVarchar(length);
+    if (length <= 0 || length > MAX_SHARED_LENGTH) {
+      return new AvroVarchar(length);
+    }
+    return INSTANCES.computeIfAbsent(length, AvroVarchar::new);
   }
 
   @Override
@@ -77,7 +88,8 @@ public class AvroVarchar extends LogicalTypeWithLength {
 
   @Override
   public Schema getRecommendedSchema() {
-    return schema;
+    // instances created from a length are shared, so each caller gets its own
+    return schema != null ? schema : addToSchema(Schema.create(Type.STRING));
   }
 
   @Override
@@ -23,7 +23,13 @@ import org.apache.avro.Schema;
 public abstract class LogicalTypeWithLength extends LogicalType implements AvroPrimitive {
   public static final String LENGTH_PROP = "length";
 
-  private int length;
+  /**
+   * The largest length for which subclasses share instances. Lengths come from
+   * user schemas, so instances of longer types are created on demand instead.
+   */
+  protected static final int MAX_SHARED_LENGTH = 4000;
+
+  private final int length;
 
   public LogicalTypeWithLength(String name, int length) {
     super(name);
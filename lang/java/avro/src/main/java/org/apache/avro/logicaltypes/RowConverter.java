@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.logicaltypes;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.data.TimeConversions.DateConversion;
+import org.apache.avro.data.TimeConversions.TimestampMicrosConversion;
+import org.apache.avro.data.TimeConversions.TimestampMillisConversion;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+
+/**
+ * Fills {@link GenericData.Record}s of one record schema from rows of arbitrary
+ * Java values, e.g. the columns of a JDBC result set, using the
+ * {@link AvroDatatype} of every field.
+ * <p>
+ * Calling {@link AvroDatatype#convertToRawType(Object)} tests the input against
+ * every supported class each time. A RowConverter instead picks a converter for
+ * the class of the first value it sees in a field and applies it directly as
+ * long as the following values have the same class. When the class changes the
+ * field is specialized again for the new class.
+ * <p>
+ * Nested records can be passed as {@link IndexedRecord}s or as
+ * <tt>Object[]</tt> rows of their own.
+ * <p>
+ * RowConverters are thread-safe. The specializations live in the instance, so
+ * callers should keep one instance per schema for as long as they convert rows
+ * of it; there is deliberately no global cache that would keep schemas alive.
+ */
+public class RowConverter {
+
+  private static final DateConversion DATE_CONVERSION = new DateConversion();
+  private static final TimestampMillisConversion TIMESTAMP_MILLIS_CONVERSION = new TimestampMillisConversion();
+  private static final TimestampMicrosConversion TIMESTAMP_MICROS_CONVERSION = new TimestampMicrosConversion();
+
+  private final Schema schema;
+  private final FieldConverter[] fields;
+
+  /**
+   * @param schema The record schema of the records to create.
+   */
+  public RowConverter(Schema schema) {
+    if (schema.getType() != Type.RECORD) {
+      throw new AvroRuntimeException("Not a record: " + schema);
+    }
+    this.schema = schema;
+    List<Field> schemaFields = schema.getFields();
+    this.fields = new FieldConverter[schemaFields.size()];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = new FieldConverter(schemaFields.get(i));
+    }
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Creates a new record from the given row.
+   *
+   * @param row The values of the fields in schema order.
+   */
+  public GenericData.Record convert(Object[] row) {
+    return convert(row, null);
+  }
+
+  /**
+   * Fills a record from the given row.
+   *
+   * @param row   The values of the fields in schema order.
+   * @param reuse A record of this schema to fill, or null to create a new one.
+   */
+  public GenericData.Record convert(Object[] row, GenericData.Record reuse) {
+    if (row.length != fields.length) {
+      throw new AvroTypeException(
+          "Row has " + row.length + " values but record " + schema.getFullName() + " has " + fields.length + " fields");
+    }
+    GenericData.Record record = reuse != null ? reuse : new GenericData.Record(schema);
+    for (int i = 0; i < fields.length; i++) {
+      record.put(i, fields[i].convert(row[i]));
+    }
+    return record;
+  }
+
+  /** Converts a single value to the representation of a schema's data type. */
+  private interface ValueConverter {
+    Object convert(Object value);
+  }
+
+  /** A converter valid for values of exactly one class. */
+  private static final class Specialization {
+    private final Class<?> type;
+    private final ValueConverter converter;
+
+    private Specialization(Class<?> type, ValueConverter converter) {
+      this.type = type;
+      this.converter = converter;
+    }
+  }
+
+  private static final class FieldConverter {
+    private final Field field;
+    private final Schema schema;
+    private final AvroDatatype datatype;
+    // replaced as a whole, so racing threads at worst specialize twice
+    private volatile Specialization specialization;
+    // created on the first nested row, as recursive schemas nest without end
+    private volatile RowConverter nested;
+
+    private FieldConverter(Field field) {
+      this.field = field;
+      this.schema = AvroType.getBaseSchema(field.schema());
+      this.datatype = field.getDataType();
+    }
+
+    private Object convert(Object value) {
+      if (value == null) {
+        return null;
+      }
+      try {
+        Specialization current = specialization;
+        if (current == null || current.type != value.getClass()) {
+          current = new Specialization(value.getClass(), specialize(value));
+          specialization = current;
+        }
+        return current.converter.convert(value);
+      } catch (AvroTypeException e) {
+        throw new AvroTypeException("Cannot convert field " + field.name() + ": " + e.getMessage(), e);
+      }
+    }
+
+    private ValueConverter specialize(Object sample) {
+      if (schema.getType() == Type.RECORD && sample instanceof Object[]) {
+        RowConverter converter = nested;
+        if (converter == null) {
+          converter = new RowConverter(schema);
+          nested = converter;
+        }
+        RowConverter finalConverter = converter;
+        return value -> finalConverter.convert((Object[]) value);
+      }
+      if (datatype == null) {
+        return value -> value;
+      }
+      // values that already have the raw type are passed through
+      if (datatype.convertToRawType(sample) == sample) {
+        return value -> value;
+      }
+
+      if (sample instanceof Number) {
+        if (datatype instanceof AvroInt) {
+          return value -> ((Number) value).intValue();
+        } else if (datatype instanceof AvroLong || datatype instanceof AvroTimestampMillis
+            || datatype instanceof AvroTimestampMicros) {
+          return value -> ((Number) value).longValue();
+        } else if (datatype instanceof AvroFloat) {
+          return value -> ((Number) value).floatValue();
+        } else if (datatype instanceof AvroDouble) {
+          return value -> ((Number) value).doubleValue();
+        }
+      } else if (datatype instanceof AvroTimestampMillis) {
+        LogicalType logicalType = (LogicalType) datatype;
+        if (sample instanceof Instant) {
+          return value -> TIMESTAMP_MILLIS_CONVERSION.toLong((Instant) value, null, logicalType);
+        } else if (sample instanceof Date) {
+          return value -> TIMESTAMP_MILLIS_CONVERSION.toLong(((Date) value).toInstant(), null, logicalType);
+        }
+      } else if (datatype instanceof AvroTimestampMicros) {
+        LogicalType logicalType = (LogicalType) datatype;
+        if (sample instanceof Instant) {
+          return value -> TIMESTAMP_MICROS_CONVERSION.toLong((Instant) value, null, logicalType);
+        } else if (sample instanceof Date) {
+          return value -> TIMESTAMP_MICROS_CONVERSION.toLong(((Date) value).toInstant(), null, logicalType);
+        }
+      } else if (datatype instanceof AvroDate && sample instanceof LocalDate) {
+        LogicalType logicalType = (LogicalType) datatype;
+        return value -> DATE_CONVERSION.toInt((LocalDate) value, null, logicalType);
+      }
+
+      // no shortcut for this class, use the full conversion
+      return datatype::convertToRawType;
+    }
+  }
+}
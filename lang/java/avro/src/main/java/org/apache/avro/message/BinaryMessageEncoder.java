@@ -75,7 +75,25 @@ public class BinaryMessageEncoder<D> implements MessageEncoder<D> {
    * @param shouldCopy whether to copy buffers before returning encoded results
    */
   public BinaryMessageEncoder(GenericData model, Schema schema, boolean shouldCopy) {
-    this.writeCodec = new V1MessageEncoder<>(model, schema, shouldCopy);
+    this(model, schema, shouldCopy, false);
+  }
+
+  /**
+   * Creates a new {@link BinaryMessageEncoder} that uses the given
+   * {@link GenericData data model} to deconstruct datum instances described by
+   * the {@link Schema schema}, and computes the size of each datum before
+   * encoding it if {@code presize} is true.
+   *
+   * @param model      the {@link GenericData data model} for datum instances
+   * @param schema     the {@link Schema} for datum instances
+   * @param shouldCopy whether to copy buffers before returning encoded results
+   * @param presize    whether to compute the size of each datum before encoding
+   *                   it
+   * @see RawMessageEncoder#RawMessageEncoder(GenericData, Schema, boolean,
+   *      boolean)
+   */
+  public BinaryMessageEncoder(GenericData model, Schema schema, boolean shouldCopy, boolean presize) {
+    this.writeCodec = new V1MessageEncoder<>(model, schema, shouldCopy, presize);
   }
 
   @Override
@@ -95,17 +113,8 @@ public class BinaryMessageEncoder<D> implements MessageEncoder<D> {
    * the extra bytes.
    */
   private static class V1MessageEncoder<D> extends RawMessageEncoder<D> {
-    private final byte[] headerBytes;
-
-    V1MessageEncoder(GenericData model, Schema schema, boolean shouldCopy) {
-      super(model, schema, shouldCopy);
-      this.headerBytes = getWriteHeader(schema);
-    }
-
-    @Override
-    public void encode(D datum, OutputStream stream) throws IOException {
-      stream.write(headerBytes);
-      super.encode(datum, stream);
+    V1MessageEncoder(GenericData model, Schema schema, boolean shouldCopy, boolean presize) {
+      super(model, schema, shouldCopy, presize, getWriteHeader(schema));
     }
 
     private static byte[] getWriteHeader(Schema schema) {
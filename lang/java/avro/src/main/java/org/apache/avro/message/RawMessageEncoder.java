@@ -19,15 +19,21 @@
 
 package org.apache.avro.message;
 
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.EncodedSizeCalculator;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.EncoderFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * A {@link MessageEncoder} that encodes only a datum's bytes, without
@@ -42,7 +48,13 @@ public class RawMessageEncoder<D> implements MessageEncoder<D> {
   private static final ThreadLocal<BinaryEncoder> ENCODER = new ThreadLocal<>();
 
   private final boolean copyOutputBytes;
+  private final Schema schema;
+  private final byte[] header;
   private final DatumWriter<D> writer;
+  // null unless buffers are presized
+  private final EncodedSizeCalculator sizeCalculator;
+  // whether copied buffers are written without going through a stream
+  private final boolean writeDirectly;
 
   /**
    * Creates a new {@link RawMessageEncoder} that uses the given
@@ -79,15 +91,71 @@ public class RawMessageEncoder<D> implements MessageEncoder<D> {
    * @param shouldCopy whether to copy buffers before returning encoded results
    */
   public RawMessageEncoder(GenericData model, Schema schema, boolean shouldCopy) {
+    this(model, schema, shouldCopy, false);
+  }
+
+  /**
+   * Creates a new {@link RawMessageEncoder} that uses the given
+   * {@link GenericData data model} to deconstruct datum instances described by
+   * the {@link Schema schema}.
+   * <p>
+   * If {@code presize} is true, then the size of each datum is computed with an
+   * {@link EncodedSizeCalculator} before it is encoded. Copied buffers are then
+   * allocated with the exact size and written directly, and thread-local buffers
+   * are grown to the size before writing, instead of while writing. This walks
+   * every datum twice, so it only pays off for large data. Invalid data may then
+   * be reported by the calculator instead of the writer.
+   *
+   * @param model      the {@link GenericData data model} for datum instances
+   * @param schema     the {@link Schema} for datum instances
+   * @param shouldCopy whether to copy buffers before returning encoded results
+   * @param presize    whether to compute the size of each datum before encoding
+   *                   it
+   */
+  public RawMessageEncoder(GenericData model, Schema schema, boolean shouldCopy, boolean presize) {
+    this(model, schema, shouldCopy, presize, new byte[0]);
+  }
+
+  /**
+   * Creates an encoder that writes the given header before every datum.
+   */
+  RawMessageEncoder(GenericData model, Schema schema, boolean shouldCopy, boolean presize, byte[] header) {
     Schema writeSchema = schema;
     this.copyOutputBytes = shouldCopy;
+    this.schema = writeSchema;
+    this.header = header;
     this.writer = model.createDatumWriter(writeSchema);
+    if (presize && !(writer instanceof GenericDatumWriter)) {
+      throw new AvroRuntimeException("Presized buffers need a GenericDatumWriter: " + writer);
+    }
+    this.sizeCalculator = presize ? new EncodedSizeCalculator(model) : null;
+    // subclasses that change what is written to streams must see every datum
+    this.writeDirectly = presize && !overridesStreamEncoding(getClass());
+  }
+
+  private static boolean overridesStreamEncoding(Class<?> c) {
+    try {
+      return c.getMethod("encode", Object.class, OutputStream.class).getDeclaringClass() != RawMessageEncoder.class;
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
   }
 
   @Override
   public ByteBuffer encode(D datum) throws IOException {
+    long size = sizeOf(datum);
+    if (copyOutputBytes && writeDirectly && size >= 0) {
+      ByteBuffer result = encodeExactly(datum, (int) size);
+      if (result != null) {
+        return result;
+      }
+    }
+
     BufferOutputStream temp = TEMP.get();
     temp.reset();
+    if (size >= 0) {
+      temp.reserve((int) size);
+    }
 
     encode(datum, temp);
 
@@ -100,16 +168,53 @@ public class RawMessageEncoder<D> implements MessageEncoder<D> {
 
   @Override
   public void encode(D datum, OutputStream stream) throws IOException {
+    stream.write(header);
     BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(stream, ENCODER.get());
     ENCODER.set(encoder);
     writer.write(datum, encoder);
     encoder.flush();
   }
 
+  /** Returns the encoded size of a datum, or -1 if it is not known. */
+  private long sizeOf(D datum) {
+    if (sizeCalculator == null) {
+      return -1;
+    }
+    long size = header.length + sizeCalculator.sizeOf(schema, datum);
+    return size <= Integer.MAX_VALUE - 8 ? size : -1;
+  }
+
+  /**
+   * Encodes a datum into a new array of the given size, or returns null if the
+   * datum does not have that size.
+   */
+  private ByteBuffer encodeExactly(D datum, int size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[size]);
+    buffer.put(header);
+    // not reused, since it would keep the returned array reachable
+    BinaryEncoder encoder = EncoderFactory.get().byteBufferBinaryEncoder(buffer, null);
+    try {
+      writer.write(datum, encoder);
+    } catch (BufferOverflowException e) {
+      return null;
+    }
+    if (buffer.hasRemaining()) {
+      return ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+    ((Buffer) buffer).flip();
+    return buffer;
+  }
+
   private static class BufferOutputStream extends ByteArrayOutputStream {
     BufferOutputStream() {
     }
 
+    void reserve(int size) {
+      if (buf.length - count < size) {
+        buf = Arrays.copyOf(buf, count + size);
+      }
+    }
+
     ByteBuffer toBufferWithoutCopy() {
       return ByteBuffer.wrap(buf, 0, count);
     }
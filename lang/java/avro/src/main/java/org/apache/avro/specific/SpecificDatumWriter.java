@@ -91,12 +91,12 @@ public class SpecificDatumWriter<T> extends GenericDatumWriter<T> {
       LogicalType logicalType = fieldSchema.getLogicalType();
 
       Object value = getData().getField(datum, f.name(), f.pos());
-      if (conversion != null && logicalType != null) {
-        value = convert(fieldSchema, logicalType, conversion, value);
+      if (conversion != null && logicalType != null && value != null) {
+        writeWithConversion(fieldSchema, logicalType, conversion, value, out);
+      } else {
+        writeWithoutConversion(fieldSchema, value, out);
       }
 
-      writeWithoutConversion(fieldSchema, value, out);
-
     } else {
       super.writeField(datum, f, out, state);
     }
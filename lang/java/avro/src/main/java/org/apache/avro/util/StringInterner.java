@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.avro.io.Decoder;
+
+/**
+ * A bounded cache of decoded strings for string fields with few distinct
+ * values, such as country codes or status names.
+ * <p>
+ * Strings are read into a scratch buffer and looked up by their UTF-8 bytes in
+ * a small open-addressing table, so a value seen before is returned without
+ * allocating anything. When all slots a value may occupy are taken, the value
+ * replaces the entry in its first slot, so fields with more distinct values
+ * than the capacity still work, only with fewer hits. Long strings are never
+ * cached.
+ * <p>
+ * The returned {@link Utf8} instances are shared and must not be modified. If
+ * one is modified anyway, e.g. by a reader that reuses it for another value,
+ * the interner hands out a fresh instance from then on, as it matches values
+ * against its own copy of the bytes. An interner is thread-safe.
+ *
+ * @see org.apache.avro.generic.GenericData#getStringInterner(org.apache.avro.Schema)
+ */
+public class StringInterner {
+
+  /** Strings with more bytes than this are not cached. */
+  public static final int MAX_LENGTH = 128;
+
+  private static final int MAX_CAPACITY = 1 << 16;
+  private static final int PROBES = 4;
+
+  private static final ThreadLocal<Utf8> SCRATCH = ThreadLocal.withInitial(Utf8::new);
+
+  // entries only change their Utf8 as a whole, so racing threads at worst
+  // replace each other's
+  private final Entry[] table;
+  private final int mask;
+
+  /**
+   * @param capacity The number of distinct values the interner should be able to
+   *                 hold.
+   */
+  public StringInterner(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    // keep the table at most half full
+    int size = Integer.highestOneBit(Math.min(capacity, MAX_CAPACITY / 2) * 2 - 1) << 1;
+    this.table = new Entry[size];
+    this.mask = size - 1;
+  }
+
+  /** Reads a string and returns the shared {@link Utf8} instance for it. */
+  public Utf8 readUtf8(Decoder in) throws IOException {
+    Utf8 scratch = in.readString(SCRATCH.get());
+    if (scratch.getByteLength() > MAX_LENGTH) {
+      return new Utf8(scratch);
+    }
+    Entry entry = lookup(scratch.getBytes(), scratch.getByteLength());
+    Utf8 utf8 = entry.utf8;
+    if (!entry.matches(utf8.getBytes(), utf8.getByteLength())) {
+      // the shared instance was modified, replace it
+      utf8 = new Utf8(Arrays.copyOf(entry.bytes, entry.bytes.length));
+      entry.utf8 = utf8;
+    }
+    return utf8;
+  }
+
+  /** Reads a string and returns the shared {@link String} instance for it. */
+  public String readString(Decoder in) throws IOException {
+    Utf8 scratch = in.readString(SCRATCH.get());
+    if (scratch.getByteLength() > MAX_LENGTH) {
+      return scratch.toString();
+    }
+    return lookup(scratch.getBytes(), scratch.getByteLength()).string;
+  }
+
+  private Entry lookup(byte[] bytes, int length) {
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = hash * 31 + bytes[i];
+    }
+    int home = (hash ^ (hash >>> 16)) & mask;
+    for (int probe = 0; probe < PROBES; probe++) {
+      int slot = (home + probe) & mask;
+      Entry entry = table[slot];
+      if (entry == null) {
+        return table[slot] = new Entry(hash, bytes, length);
+      }
+      if (entry.hash == hash && entry.matches(bytes, length)) {
+        return entry;
+      }
+    }
+    // evict the entry in the first slot
+    return table[home] = new Entry(hash, bytes, length);
+  }
+
+  private static final class Entry {
+    private final int hash;
+    // the key, never handed out
+    private final byte[] bytes;
+    private volatile Utf8 utf8;
+    private final String string;
+
+    private Entry(int hash, byte[] bytes, int length) {
+      this.hash = hash;
+      this.bytes = Arrays.copyOf(bytes, length);
+      this.utf8 = new Utf8(Arrays.copyOf(bytes, length));
+      this.string = new String(this.bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean matches(byte[] other, int length) {
+      if (bytes.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (bytes[i] != other[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -21,6 +21,9 @@ package org.apache.avro;
 import java.util.Arrays;
 import java.util.concurrent.Callable;
 
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.logicaltypes.AvroNVarchar;
+import org.apache.avro.logicaltypes.AvroVarchar;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -40,6 +43,63 @@ public class TestLogicalType {
     Assert.assertEquals("Should have correct scale", 2, decimal.getScale());
   }
 
+  @Test
+  public void testParameterizedTypesAreShared() {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+        + "{\"name\":\"a\",\"type\":{\"type\":\"string\",\"logicalType\":\"VARCHAR\",\"length\":10}},"
+        + "{\"name\":\"b\",\"type\":{\"type\":\"string\",\"logicalType\":\"VARCHAR\",\"length\":10}},"
+        + "{\"name\":\"c\",\"type\":{\"type\":\"string\",\"logicalType\":\"NVARCHAR\",\"length\":10}},"
+        + "{\"name\":\"d\",\"type\":{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":18,\"scale\":4}}]}");
+    LogicalType varchar = schema.getField("a").schema().getLogicalType();
+    Assert.assertSame(varchar, schema.getField("b").schema().getLogicalType());
+    Assert.assertSame(varchar, AvroVarchar.create(10));
+    Assert.assertNotSame(varchar, schema.getField("c").schema().getLogicalType());
+    Assert.assertSame(AvroNVarchar.create(10), schema.getField("c").schema().getLogicalType());
+    Assert.assertSame(LogicalTypes.decimal(18, 4), schema.getField("d").schema().getLogicalType());
+    Assert.assertNotSame(LogicalTypes.decimal(18, 4), LogicalTypes.decimal(18, 2));
+  }
+
+  @Test
+  public void testConversionWithComputedName() {
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new Conversions.DecimalConversion() {
+      @Override
+      public String getLogicalTypeName() {
+        return new String("decimal");
+      }
+    });
+    Assert.assertNotNull(data.getConversionFor(LogicalTypes.decimal(9, 2)));
+  }
+
+  @Test
+  public void testLogicalTypeWithComputedName() {
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new Conversions.DecimalConversion());
+    LogicalType computed = new LogicalTypes.Decimal(9, 2) {
+      @Override
+      public String getName() {
+        return new StringBuilder("dec").append("imal").toString();
+      }
+    };
+    Assert.assertNotNull(data.getConversionFor(computed));
+  }
+
+  @Test
+  public void testOnlySmallTypesAreShared() {
+    Assert.assertNotSame(AvroVarchar.create(100000), AvroVarchar.create(100000));
+    Assert.assertNotSame(AvroNVarchar.create(100000), AvroNVarchar.create(100000));
+    Assert.assertNotSame(LogicalTypes.decimal(100, 2), LogicalTypes.decimal(100, 2));
+    Assert.assertEquals(AvroVarchar.create(100000), AvroVarchar.create(100000));
+  }
+
+  @Test
+  public void testSharedRecommendedSchemaIsFresh() {
+    Schema schema = AvroVarchar.create(10).getRecommendedSchema();
+    schema.addProp("extra", "x");
+    Assert.assertNull(AvroVarchar.create(10).getRecommendedSchema().getProp("extra"));
+    Assert.assertEquals(AvroVarchar.create(10), AvroVarchar.create(10).getRecommendedSchema().getLogicalType());
+  }
+
   @Test
   public void testInvalidLogicalTypeIgnored() {
     final Schema schema = Schema.createFixed("aFixed", null, null, 2);
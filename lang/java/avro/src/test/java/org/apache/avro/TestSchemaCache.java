@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+
+import org.junit.Test;
+
+public class TestSchemaCache {
+
+  private static final String RECORD = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"int\"},{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"X\"]}}]}";
+
+  @Test
+  public void testSameTextReturnsEqualSchema() {
+    SchemaCache cache = new SchemaCache(10);
+    Schema first = new Schema.Parser().setCache(cache).parse(RECORD);
+    Schema second = new Schema.Parser().setCache(cache).parse(RECORD);
+    assertSame(first, second);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testNamedTypesAreRegisteredOnHit() {
+    SchemaCache cache = new SchemaCache(10);
+    new Schema.Parser().setCache(cache).parse(RECORD);
+    Schema.Parser parser = new Schema.Parser().setCache(cache);
+    parser.parse(RECORD);
+    assertNotNull(parser.getTypes().get("E"));
+    // later parses may refer to the types defined by the cached schema
+    Schema array = parser.parse("{\"type\":\"array\",\"items\":\"E\"}");
+    assertSame(parser.getTypes().get("E"), array.getElementType());
+  }
+
+  @Test
+  public void testCachedSchemasAreReadOnly() {
+    String json = "{\"type\":\"record\",\"name\":\"n.Node\",\"fields\":["
+        + "{\"name\":\"d\",\"type\":{\"type\":\"int\",\"logicalType\":\"date\"}},"
+        + "{\"name\":\"next\",\"type\":[\"null\",\"Node\"],\"default\":null}]}";
+    SchemaCache cache = new SchemaCache(10);
+    Schema schema = new Schema.Parser().setCache(cache).parse(json);
+    Schema date = schema.getField("d").schema();
+    assertReadOnly(() -> schema.addProp("added", "value"));
+    assertReadOnly(() -> schema.addAlias("Old"));
+    assertReadOnly(() -> schema.getField("next").addProp("added", "value"));
+    assertReadOnly(() -> schema.getField("next").addAlias("previous"));
+    assertReadOnly(() -> date.addProp("added", 1));
+    assertReadOnly(() -> LogicalTypes.timeMillis().addToSchema(date));
+    assertEquals(LogicalTypes.date(), date.getLogicalType());
+    assertNull(schema.getProp("added"));
+
+    // schemas parsed without a cache stay writable
+    new Schema.Parser().parse(json).addProp("added", "value");
+  }
+
+  private static void assertReadOnly(Runnable change) {
+    try {
+      change.run();
+      fail("Expected an AvroRuntimeException");
+    } catch (AvroRuntimeException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("SchemaCache"));
+    }
+  }
+
+  @Test
+  public void testEquivalentTextsShareCachedSchema() {
+    SchemaCache cache = new SchemaCache(10);
+    Schema first = new Schema.Parser().setCache(cache).parse(RECORD);
+    Schema.Parser parser = new Schema.Parser().setCache(cache);
+    Schema second = parser.parse(RECORD.replace(",", " , "));
+    assertSame(first, second);
+    assertSame(first.getField("e").schema(), parser.getTypes().get("E"));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void testDifferentPropertiesAreNotShared() {
+    SchemaCache cache = new SchemaCache(10);
+    Schema first = new Schema.Parser().setCache(cache).parse(RECORD);
+    Schema second = new Schema.Parser().setCache(cache)
+        .parse(RECORD.replace("\"name\":\"R\",", "\"name\":\"R\",\"doc\":\"d\","));
+    assertNotSame(first, second);
+    assertEquals("d", second.getDoc());
+  }
+
+  @Test
+  public void testBounded() {
+    SchemaCache cache = new SchemaCache(2);
+    Schema.Parser parser = new Schema.Parser().setCache(cache);
+    Schema first = parser.parse("\"int\"");
+    new Schema.Parser().setCache(cache).parse("\"long\"");
+    new Schema.Parser().setCache(cache).parse("\"string\"");
+    assertEquals(2, cache.size());
+    assertEquals(first, new Schema.Parser().setCache(cache).parse("\"int\""));
+    assertEquals(4, cache.getMissCount());
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertEquals(null, new Schema.Parser().getCache());
+  }
+
+  @Test
+  public void testDataFileHeaders() throws IOException {
+    Schema schema = new Schema.Parser().parse(RECORD);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema))) {
+      writer.create(schema, out);
+    }
+    SchemaCache cache = new SchemaCache(10);
+    try (
+        DataFileStream<Object> first = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+            new GenericDatumReader<>(), cache);
+        DataFileStream<Object> second = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+            new GenericDatumReader<>(), cache)) {
+      assertEquals(schema, first.getSchema());
+      assertSame(first.getSchema(), second.getSchema());
+      assertEquals(1, cache.getHitCount());
+    }
+  }
+}
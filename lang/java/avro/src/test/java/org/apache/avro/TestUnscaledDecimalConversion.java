@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.avro.Conversions.UnscaledDecimalConversion;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.logicaltypes.AvroDecimal;
+import org.junit.Test;
+
+public class TestUnscaledDecimalConversion {
+
+  private static final long[] VALUES = { 0L, 1L, -1L, 127L, 128L, -128L, -129L, 255L, 32767L, -32768L,
+      123456789012345678L, -999999999999999999L, 999999999999999999L };
+
+  private static final Schema RECORD = SchemaBuilder.record("Amounts").fields().name("amount")
+      .type(LogicalTypes.decimal(18, 4).addToSchema(Schema.create(Schema.Type.BYTES))).noDefault().name("fixed")
+      .type(LogicalTypes.decimal(18, 4).addToSchema(Schema.createFixed("F", null, null, 12))).noDefault().endRecord();
+
+  @Test
+  public void testBytesMatchBigInteger() {
+    byte[] scratch = new byte[8];
+    for (long value : VALUES) {
+      byte[] expected = BigInteger.valueOf(value).toByteArray();
+      int length = UnscaledDecimalConversion.putUnscaled(value, scratch);
+      assertArrayEquals(expected, Arrays.copyOf(scratch, length));
+      assertEquals(value, UnscaledDecimalConversion.getUnscaled(expected, 0, expected.length));
+      assertEquals(value, UnscaledDecimalConversion.getUnscaled(ByteBuffer.wrap(expected)));
+    }
+  }
+
+  @Test
+  public void testSignExtendedFixed() {
+    byte[] bytes = new byte[12];
+    for (long value : VALUES) {
+      UnscaledDecimalConversion.putUnscaled(value, bytes, 0, bytes.length);
+      assertEquals(BigInteger.valueOf(value), new BigInteger(bytes));
+      assertEquals(value, UnscaledDecimalConversion.getUnscaled(bytes, 0, bytes.length));
+    }
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testTooWideForLong() {
+    byte[] bytes = BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(4).toByteArray();
+    UnscaledDecimalConversion.getUnscaled(bytes, 0, bytes.length);
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testPrecisionExceeded() {
+    new UnscaledDecimalConversion().toBytes(100000L, null, LogicalTypes.decimal(5, 2));
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testPrecisionUnsupported() {
+    new UnscaledDecimalConversion().toBytes(1L, null, LogicalTypes.decimal(19, 2));
+  }
+
+  @Test
+  public void testRoundTripMatchesDecimalConversion() throws IOException {
+    GenericData unscaled = new GenericData();
+    unscaled.addLogicalTypeConversion(new UnscaledDecimalConversion());
+    GenericData decimal = new GenericData();
+    decimal.addLogicalTypeConversion(new Conversions.DecimalConversion());
+
+    GenericRecord record = new GenericData.Record(RECORD);
+    record.put("amount", 123456789012345678L);
+    record.put("fixed", -12345L);
+    byte[] encoded = write(unscaled, record);
+
+    GenericRecord expected = new GenericData.Record(RECORD);
+    expected.put("amount", new BigDecimal("12345678901234.5678"));
+    expected.put("fixed", new BigDecimal("-1.2345"));
+    assertArrayEquals(write(decimal, expected), encoded);
+
+    for (boolean fast : new boolean[] { false, true }) {
+      unscaled.setFastReaderEnabled(fast);
+      decimal.setFastReaderEnabled(fast);
+      assertEquals(record, read(unscaled, encoded));
+      assertEquals(expected, read(decimal, encoded));
+    }
+  }
+
+  @Test
+  public void testAvroDecimalUnscaledAccessors() {
+    AvroDecimal type = AvroDecimal.create(18, 4);
+    ByteBuffer raw = type.convertUnscaledToRawType(123400L);
+    assertEquals(new BigDecimal("12.3400"), type.convertToLogicalType(raw));
+    assertEquals(123400L, type.convertToUnscaledLong(raw));
+    assertEquals(123400L, type.convertToUnscaledLong(new BigDecimal("12.34")));
+    assertEquals(50000L, type.convertToUnscaledLong(5));
+    assertEquals(type.convertToRawType(new BigDecimal("-7")), type.convertToRawType(-7L));
+    assertEquals(new BigDecimal("123456789.0123"), type.convertUnscaledToLogicalType(1234567890123L));
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testAvroDecimalLongOutOfRange() {
+    AvroDecimal.create(6, 4).convertToRawType(100L);
+  }
+
+  private static byte[] write(GenericData data, GenericRecord record) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(RECORD, data).write(record, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static GenericRecord read(GenericData data, byte[] encoded) throws IOException {
+    return new GenericDatumReader<GenericRecord>(RECORD, RECORD, data).read(null,
+        DecoderFactory.get().binaryDecoder(encoded, null));
+  }
+}
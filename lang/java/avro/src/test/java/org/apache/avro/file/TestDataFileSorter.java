@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDataFileSorter {
+  private static final int COUNT = 20000;
+
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[" + "{\"name\":\"key\",\"type\":\"int\"},"
+          + "{\"name\":\"name\",\"type\":\"string\"}," + "{\"name\":\"seq\",\"type\":\"long\",\"order\":\"ignore\"}]}");
+
+  private static final Schema DESCENDING = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"key\",\"type\":\"int\",\"order\":\"descending\"},"
+      + "{\"name\":\"name\",\"type\":\"string\",\"order\":\"ignore\"},"
+      + "{\"name\":\"seq\",\"type\":\"long\",\"order\":\"ignore\"}]}");
+
+  @Rule
+  public TemporaryFolder dir = new TemporaryFolder();
+
+  private static byte[] write(Schema schema, CodecFactory codec) throws IOException {
+    Random random = new Random(42);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+      writer.setCodec(codec);
+      writer.setMeta("user", "value");
+      writer.create(schema, out);
+      for (int i = 0; i < COUNT; i++) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("key", random.nextInt(1000) - 500);
+        record.put("name", new Utf8(Integer.toString(random.nextInt(10))));
+        record.put("seq", (long) i);
+        writer.append(record);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static List<GenericRecord> read(byte[] bytes) throws IOException {
+    List<GenericRecord> records = new ArrayList<>();
+    try (DataFileStream<GenericRecord> reader = new DataFileStream<>(new ByteArrayInputStream(bytes),
+        new GenericDatumReader<>())) {
+      assertEquals("value", reader.getMetaString("user"));
+      for (GenericRecord record : reader)
+        records.add(record);
+    }
+    return records;
+  }
+
+  private void check(Schema schema, DataFileSorter sorter, CodecFactory codec) throws IOException {
+    byte[] input = write(schema, codec);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertEquals(COUNT, sorter.setTempDir(dir.getRoot()).sort(new ByteArrayInputStream(input), output));
+
+    // a stable sort of the input gives the same records in the same order
+    List<GenericRecord> expected = read(input);
+    expected.sort((a, b) -> GenericData.get().compare(a, b, schema));
+    assertEquals(expected, read(output.toByteArray()));
+    assertEquals(0, dir.getRoot().list().length); // temporary files are deleted
+  }
+
+  @Test
+  public void testInMemory() throws IOException {
+    check(SCHEMA, new DataFileSorter(), CodecFactory.nullCodec());
+  }
+
+  @Test
+  public void testRuns() throws IOException {
+    check(SCHEMA, new DataFileSorter().setMemory(16 * 1024), CodecFactory.deflateCodec(1));
+  }
+
+  @Test
+  public void testMergePasses() throws IOException {
+    check(SCHEMA, new DataFileSorter().setMemory(8 * 1024).setThreads(4).setMergeFactor(3), CodecFactory.nullCodec());
+  }
+
+  @Test
+  public void testDescending() throws IOException {
+    check(DESCENDING, new DataFileSorter().setMemory(32 * 1024).setThreads(2).setMergeFactor(4),
+        CodecFactory.snappyCodec());
+  }
+
+  @Test
+  public void testOutputCodec() throws IOException {
+    byte[] input = write(SCHEMA, CodecFactory.nullCodec());
+    File output = dir.newFile("sorted.avro");
+    try (FileOutputStream out = new FileOutputStream(output)) {
+      new DataFileSorter().setMemory(16 * 1024).setTempDir(dir.getRoot()).setCodec(CodecFactory.deflateCodec(9))
+          .sort(new ByteArrayInputStream(input), out);
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(output, new GenericDatumReader<>())) {
+      assertEquals("deflate", reader.getMetaString(DataFileConstants.CODEC));
+      long count = 0;
+      GenericRecord previous = null;
+      for (GenericRecord record : reader) {
+        assertTrue(previous == null || GenericData.get().compare(previous, record, SCHEMA) <= 0);
+        previous = record;
+        count++;
+      }
+      assertEquals(COUNT, count);
+    }
+  }
+
+  @Test
+  public void testFailedInputDeletesRuns() throws IOException {
+    byte[] input = write(SCHEMA, CodecFactory.nullCodec());
+    // fail after several runs have been spilled
+    InputStream failing = new FilterInputStream(new ByteArrayInputStream(input)) {
+      private int read;
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (read > input.length / 2)
+          throw new IOException("failing");
+        int n = super.read(b, off, Math.min(len, 1024));
+        read += Math.max(n, 0);
+        return n;
+      }
+    };
+    try {
+      new DataFileSorter().setMemory(16 * 1024).setThreads(2).setTempDir(dir.getRoot()).sort(failing,
+          new ByteArrayOutputStream());
+      fail("Expected an AvroRuntimeException");
+    } catch (AvroRuntimeException e) { // as thrown by DataFileStream.hasNext
+      assertEquals("failing", e.getCause().getMessage());
+    }
+    assertEquals(0, dir.getRoot().list().length);
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    ByteArrayOutputStream input = new ByteArrayOutputStream();
+    new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(SCHEMA)).setMeta("user", "value").create(SCHEMA, input)
+        .close();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertEquals(0, new DataFileSorter().sort(new ByteArrayInputStream(input.toByteArray()), output));
+    assertEquals(0, read(output.toByteArray()).size());
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.avro.Conversions;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.message.RawMessageEncoder;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.util.RandomData;
+import org.junit.Test;
+
+public class TestEncodedSizeCalculator {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"b\",\"type\":\"boolean\"},{\"name\":\"i\",\"type\":\"int\"},{\"name\":\"l\",\"type\":\"long\"},"
+      + "{\"name\":\"f\",\"type\":\"float\"},{\"name\":\"d\",\"type\":\"double\"},{\"name\":\"s\",\"type\":\"string\"},"
+      + "{\"name\":\"y\",\"type\":\"bytes\"},{\"name\":\"x\",\"type\":{\"type\":\"fixed\",\"name\":\"X\",\"size\":3}},"
+      + "{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"A\",\"B\",\"C\"]}},"
+      + "{\"name\":\"n\",\"type\":[\"null\",{\"type\":\"record\",\"name\":\"N\",\"fields\":["
+      + "{\"name\":\"k\",\"type\":\"string\"},{\"name\":\"v\",\"type\":\"long\"}]}]},"
+      + "{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":\"N\"}},"
+      + "{\"name\":\"m\",\"type\":{\"type\":\"map\",\"values\":[\"null\",\"double\"]}}]}");
+
+  private static byte[] encode(Schema schema, Object datum, GenericData data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema, data).write(datum, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testVarintSizes() throws IOException {
+    long[] values = { 0, 1, -1, 63, -64, 64, -65, 8191, 8192, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE,
+        Long.MIN_VALUE };
+    for (long value : values) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+      encoder.writeLong(value);
+      encoder.flush();
+      assertEquals(out.size(), EncodedSizeCalculator.sizeOfLong(value));
+    }
+  }
+
+  @Test
+  public void testUtf8Length() {
+    String[] strings = { "", "abc", "\u00e9t\u00e9", "\u20ac", "\ud83d\ude00", "a\ud83dz", "\ude00" };
+    for (String s : strings) {
+      assertEquals(s, s.getBytes(StandardCharsets.UTF_8).length, EncodedSizeCalculator.utf8Length(s));
+    }
+  }
+
+  @Test
+  public void testMatchesEncoding() throws IOException {
+    EncodedSizeCalculator calculator = new EncodedSizeCalculator();
+    for (boolean utf8 : new boolean[] { true, false }) {
+      for (Object datum : new RandomData(SCHEMA, 100, 23L, utf8)) {
+        long size = encode(SCHEMA, datum, GenericData.get()).length;
+        assertEquals(size, calculator.sizeOf(SCHEMA, datum));
+        assertTrue(calculator.upperBound(SCHEMA, datum) >= size);
+      }
+    }
+  }
+
+  @Test
+  public void testConversions() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"D\",\"fields\":["
+        + "{\"name\":\"amount\",\"type\":{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":20,\"scale\":2}}]}");
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new Conversions.DecimalConversion());
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("amount", new BigDecimal("123456789012345.67"));
+    assertEquals(encode(schema, record, data).length, new EncodedSizeCalculator(data).sizeOf(schema, record));
+  }
+
+  @Test
+  public void testRawMessageEncoder() throws IOException {
+    RawMessageEncoder<Object> copying = new RawMessageEncoder<>(GenericData.get(), SCHEMA, true, true);
+    RawMessageEncoder<Object> reusing = new RawMessageEncoder<>(GenericData.get(), SCHEMA, false, true);
+    for (Object datum : new RandomData(SCHEMA, 20, 5L, false)) {
+      ByteBuffer expected = ByteBuffer.wrap(encode(SCHEMA, datum, GenericData.get()));
+      ByteBuffer encoded = copying.encode(datum);
+      assertEquals(expected, encoded);
+      assertEquals(expected.remaining(), encoded.array().length);
+      assertEquals(expected, reusing.encode(datum));
+    }
+  }
+
+  @Test
+  public void testExactBlockSize() throws IOException {
+    int syncInterval = 2000;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+      writer.setSyncInterval(syncInterval).setExactBlockSize(true).create(SCHEMA, out);
+      for (Object datum : new RandomData(SCHEMA, 500, 9L)) {
+        writer.append(datum);
+      }
+    }
+
+    int blocks = 0;
+    long records = 0;
+    try (DataFileStream<Object> reader = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+        new GenericDatumReader<>())) {
+      while (reader.hasNext()) {
+        ByteBuffer block = reader.nextBlock();
+        if (reader.getBlockCount() > 1) {
+          assertTrue(block.remaining() <= syncInterval);
+        }
+        blocks++;
+        records += reader.getBlockCount();
+      }
+    }
+    assertEquals(500, records);
+    assertTrue(blocks > 1);
+  }
+
+  private enum Label {
+    LOW, HIGH;
+
+    @Override
+    public String toString() {
+      return name().toLowerCase();
+    }
+  }
+
+  @Test
+  public void testJavaEnumUsesOrdinal() throws IOException {
+    Schema schema = Schema.createEnum("Label", null, null, Arrays.asList("LOW", "HIGH"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new SpecificDatumWriter<>(schema).write(Label.HIGH, encoder);
+    encoder.flush();
+    assertEquals(out.size(), new EncodedSizeCalculator(SpecificData.get()).sizeOf(schema, Label.HIGH));
+  }
+
+  private static class Reflected {
+    char c;
+    short s;
+    byte b;
+    char[] chars;
+    Map<Integer, String> names;
+  }
+
+  @Test
+  public void testReflectExactBlockSize() throws IOException {
+    Schema schema = ReflectData.get().getSchema(Reflected.class);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Reflected> writer = new DataFileWriter<>(new ReflectDatumWriter<>(schema))) {
+      writer.setSyncInterval(100).setExactBlockSize(true).create(schema, out);
+      for (int i = 0; i < 50; i++) {
+        Reflected datum = new Reflected();
+        datum.c = (char) ('a' + i);
+        datum.s = (short) (i * 1000);
+        datum.b = (byte) i;
+        datum.chars = new char[] { '\u00e9', (char) i };
+        datum.names = new HashMap<>();
+        for (int j = 0; j < i % 4; j++) {
+          datum.names.put(j * 100, "n" + j);
+        }
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(encoded, null);
+        new ReflectDatumWriter<>(schema).write(datum, encoder);
+        encoder.flush();
+        assertEquals(encoded.size(), new EncodedSizeCalculator(ReflectData.get()).sizeOf(schema, datum));
+        writer.append(datum);
+      }
+    }
+  }
+}
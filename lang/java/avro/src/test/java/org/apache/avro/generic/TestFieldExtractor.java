@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.RandomData;
+import org.junit.Test;
+
+public class TestFieldExtractor {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Order\",\"fields\":["
+      + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}},"
+      + "{\"name\":\"customer\",\"type\":[\"null\",{\"type\":\"record\",\"name\":\"Customer\",\"fields\":["
+      + "{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"id\",\"type\":\"long\"},"
+      + "{\"name\":\"address\",\"type\":{\"type\":\"record\",\"name\":\"Address\",\"fields\":["
+      + "{\"name\":\"city\",\"type\":\"string\"},{\"name\":\"zip\",\"type\":\"int\"}]}}]}]},"
+      + "{\"name\":\"attributes\",\"type\":{\"type\":\"map\",\"values\":\"double\"}},"
+      + "{\"name\":\"amount\",\"type\":\"double\"},{\"name\":\"note\",\"type\":[\"null\",\"string\"]}]}");
+
+  private static final String[] PATHS = { "amount", "customer.id", "customer.address.city", "note", "customer.id" };
+
+  private static byte[] encode(Object datum) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(SCHEMA).write(datum, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static Object get(GenericRecord record, String path) {
+    Object value = record;
+    for (String name : path.split("\\.")) {
+      if (value == null) {
+        return null;
+      }
+      value = ((GenericRecord) value).get(name);
+    }
+    return value;
+  }
+
+  @Test
+  public void testValuesMatchFullDecode() throws IOException {
+    FieldExtractor extractor = FieldExtractor.compile(SCHEMA, PATHS);
+    int absent = 0;
+    for (Object datum : new RandomData(SCHEMA, 200, 11L, true)) {
+      GenericRecord record = (GenericRecord) datum;
+      byte[] bytes = encode(record);
+      Object[] expected = new Object[PATHS.length];
+      for (int i = 0; i < PATHS.length; i++) {
+        expected[i] = get(record, PATHS[i]);
+      }
+      if (record.get("customer") == null) {
+        absent++;
+      }
+      assertArrayEquals(expected, extractor.extract(bytes));
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+      buffer.put(bytes).flip();
+      assertArrayEquals(expected, extractor.extract(buffer));
+      assertEquals(0, buffer.position());
+    }
+    assertTrue(absent > 0);
+  }
+
+  @Test
+  public void testConcurrentExtraction() throws Exception {
+    FieldExtractor extractor = FieldExtractor.compile(SCHEMA, PATHS);
+    List<Object> data = new ArrayList<>();
+    new RandomData(SCHEMA, 200, 7L, true).forEach(data::add);
+    List<byte[]> encoded = new ArrayList<>();
+    for (Object datum : data) {
+      encoded.add(encode(datum));
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(pool.submit(() -> {
+          for (int i = 0; i < data.size(); i++) {
+            Object[] values = extractor.extract(encoded.get(i));
+            for (int j = 0; j < PATHS.length; j++) {
+              assertEquals(get((GenericRecord) data.get(i), PATHS[j]), values[j]);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testDecoderIsLeftAfterRecord() throws IOException {
+    FieldExtractor extractor = FieldExtractor.compile(SCHEMA, "customer.address.zip");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    RandomData data = new RandomData(SCHEMA, 20, 3L, true);
+    for (Object datum : data) {
+      out.write(encode(datum));
+    }
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(out.toByteArray(), null);
+    for (Object datum : data) {
+      assertEquals(get((GenericRecord) datum, "customer.address.zip"), extractor.extract(in)[0]);
+    }
+    assertTrue(in.isEnd());
+  }
+
+  @Test
+  public void testRanges() throws IOException {
+    FieldExtractor extractor = FieldExtractor.compile(SCHEMA, PATHS);
+    for (Object datum : new RandomData(SCHEMA, 50, 7L, true)) {
+      GenericRecord record = (GenericRecord) datum;
+      byte[] bytes = encode(record);
+      byte[] padded = new byte[bytes.length + 5];
+      System.arraycopy(bytes, 0, padded, 3, bytes.length);
+      int[] ranges = extractor.extractRanges(padded, 3, bytes.length);
+      for (int i = 0; i < PATHS.length; i++) {
+        if (PATHS[i].startsWith("customer") && record.get("customer") == null) {
+          assertEquals(-1, ranges[2 * i]);
+          assertEquals(-1, ranges[2 * i + 1]);
+          continue;
+        }
+        byte[] field = Arrays.copyOfRange(padded, ranges[2 * i], ranges[2 * i + 1]);
+        Object value = new GenericDatumReader<>(schemaOf(SCHEMA, PATHS[i])).read(null,
+            DecoderFactory.get().binaryDecoder(field, null));
+        assertEquals(get(record, PATHS[i]), value);
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(padded, 3, bytes.length);
+      assertArrayEquals(ranges, extractor.extractRanges(buffer));
+    }
+  }
+
+  private static Schema schemaOf(Schema schema, String path) {
+    for (String name : path.split("\\.")) {
+      if (schema.getType() == Schema.Type.UNION) {
+        schema = schema.getTypes().get(1);
+      }
+      schema = schema.getField(name).schema();
+    }
+    return schema;
+  }
+
+  @Test
+  public void testNullBranch() throws IOException {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("tags", new GenericData.Array<>(0, SCHEMA.getField("tags").schema()));
+    record.put("attributes", new java.util.HashMap<>());
+    record.put("amount", 1.5);
+    Object[] values = FieldExtractor.compile(SCHEMA, "customer.name", "amount").extract(encode(record));
+    assertNull(values[0]);
+    assertEquals(1.5, values[1]);
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testUnknownField() {
+    FieldExtractor.compile(SCHEMA, "customer.email");
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testNotARecord() {
+    FieldExtractor.compile(SCHEMA, "amount.value");
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testOverlappingPaths() {
+    FieldExtractor.compile(SCHEMA, "customer.address", "customer.address.zip");
+  }
+}
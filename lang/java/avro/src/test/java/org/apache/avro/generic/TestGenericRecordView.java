@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Conversions;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.RandomData;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestGenericRecordView {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"b\",\"type\":\"boolean\"},{\"name\":\"i\",\"type\":\"int\"},{\"name\":\"l\",\"type\":\"long\"},"
+      + "{\"name\":\"f\",\"type\":\"float\"},{\"name\":\"d\",\"type\":\"double\"},{\"name\":\"s\",\"type\":\"string\"},"
+      + "{\"name\":\"y\",\"type\":\"bytes\"},{\"name\":\"x\",\"type\":{\"type\":\"fixed\",\"name\":\"X\",\"size\":3}},"
+      + "{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"A\",\"B\",\"C\"]}},"
+      + "{\"name\":\"n\",\"type\":[\"null\",{\"type\":\"record\",\"name\":\"N\",\"fields\":["
+      + "{\"name\":\"k\",\"type\":\"string\"},{\"name\":\"v\",\"type\":\"long\"}]}]},"
+      + "{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":\"N\"}},"
+      + "{\"name\":\"m\",\"type\":{\"type\":\"map\",\"values\":[\"null\",\"double\"]}},"
+      + "{\"name\":\"z\",\"type\":\"int\"}]}");
+
+  private static byte[] encode(Schema schema, Object datum, GenericData data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema, data).write(datum, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testMatchesDatumReader() throws IOException {
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+    for (Object datum : new RandomData(SCHEMA, 100, 17L, true)) {
+      byte[] bytes = encode(SCHEMA, datum, GenericData.get());
+      GenericRecord expected = reader.read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+      GenericRecordView view = GenericRecordView.of(SCHEMA, bytes);
+      assertEquals(0, GenericData.get().compare(expected, view, SCHEMA, true));
+      assertEquals(GenericData.get().hashCode(expected, SCHEMA), view.hashCode());
+      assertEquals(bytes.length, view.getEncodedSize());
+      assertEquals(view, GenericRecordView.of(SCHEMA, bytes));
+    }
+  }
+
+  @Test
+  public void testFactory() throws IOException {
+    GenericRecordView.Factory factory = new GenericRecordView.Factory(SCHEMA);
+    assertEquals(SCHEMA, factory.getSchema());
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+    for (Object datum : new RandomData(SCHEMA, 50, 5L, true)) {
+      byte[] bytes = encode(SCHEMA, datum, GenericData.get());
+      GenericRecord expected = reader.read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+      GenericRecordView view = factory.view(bytes);
+      assertEquals(0, GenericData.get().compare(expected, view, SCHEMA, true));
+      assertEquals(view, factory.view(ByteBuffer.wrap(bytes)));
+    }
+  }
+
+  @Test
+  public void testRecursiveSchema() throws IOException {
+    Schema node = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Node\",\"fields\":["
+        + "{\"name\":\"value\",\"type\":\"int\"},{\"name\":\"next\",\"type\":[\"null\",\"Node\"]}]}");
+    GenericRecord tail = new GenericData.Record(node);
+    tail.put("value", 2);
+    GenericRecord head = new GenericData.Record(node);
+    head.put("value", 1);
+    head.put("next", tail);
+    GenericRecordView view = new GenericRecordView.Factory(node).view(encode(node, head, GenericData.get()));
+    GenericRecord next = (GenericRecord) view.get("next");
+    assertEquals(2, next.get("value"));
+    assertEquals(null, next.get("next"));
+    assertEquals(head, GenericData.get().deepCopy(node, view));
+  }
+
+  @Test
+  public void testFieldsInAnyOrder() throws IOException {
+    for (Object datum : new RandomData(SCHEMA, 20, 3L, true)) {
+      GenericRecord record = (GenericRecord) datum;
+      byte[] bytes = encode(SCHEMA, record, GenericData.get());
+      GenericRecordView view = GenericRecordView.of(SCHEMA, bytes);
+      assertEquals(record.get("z"), view.get("z"));
+      assertEquals(record.get("i"), view.get("i"));
+      assertEquals(0, GenericData.get().compare(record.get("n"), view.get("n"), SCHEMA.getField("n").schema()));
+    }
+  }
+
+  @Test
+  public void testSharedSource() throws IOException {
+    GenericRecord nested = new GenericData.Record(SCHEMA.getField("n").schema().getTypes().get(1));
+    nested.put("k", new Utf8("key"));
+    nested.put("v", 7L);
+    GenericRecord record = (GenericRecord) new RandomData(SCHEMA, 1, 5L, true).iterator().next();
+    record.put("n", nested);
+    record.put("y", ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+    byte[] bytes = encode(SCHEMA, record, GenericData.get());
+
+    // the record starts after some unrelated bytes
+    ByteBuffer source = ByteBuffer.allocateDirect(bytes.length + 2);
+    source.put(new byte[] { 9, 9 }).put(bytes).flip();
+    source.position(2);
+    GenericRecordView view = GenericRecordView.of(SCHEMA, source);
+    assertEquals(2, source.position());
+
+    Object n = view.get("n");
+    assertTrue(n instanceof GenericRecordView);
+    assertEquals(7L, ((GenericRecord) n).get("v"));
+    assertEquals(new Utf8("key"), ((GenericRecord) n).get("k"));
+
+    ByteBuffer y = (ByteBuffer) view.get("y");
+    assertEquals(3, y.remaining());
+    assertEquals(1, y.get(0));
+
+    view.put("i", 42);
+    assertEquals(42, view.get("i"));
+    assertEquals(record.get("z"), view.get("z"));
+  }
+
+  @Test
+  public void testConversions() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"D\",\"fields\":["
+        + "{\"name\":\"amount\",\"type\":{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":9,\"scale\":2}}]}");
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new Conversions.DecimalConversion());
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("amount", new BigDecimal("123.45"));
+    byte[] bytes = encode(schema, record, data);
+    assertEquals(new BigDecimal("123.45"), GenericRecordView.of(schema, ByteBuffer.wrap(bytes), data).get("amount"));
+  }
+
+  /** Treats strings as case-insensitive, to tell its comparisons apart. */
+  private static class CaseInsensitiveData extends GenericData {
+    @Override
+    protected int compare(Object o1, Object o2, Schema s, boolean equals) {
+      return s.getType() == Schema.Type.STRING ? o1.toString().compareToIgnoreCase(o2.toString())
+          : super.compare(o1, o2, s, equals);
+    }
+
+    @Override
+    public int hashCode(Object o, Schema s) {
+      return s.getType() == Schema.Type.STRING ? o.toString().toLowerCase().hashCode() : super.hashCode(o, s);
+    }
+  }
+
+  @Test
+  public void testUsesOwnGenericData() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"C\",\"fields\":["
+        + "{\"name\":\"s\",\"type\":\"string\"},{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":\"int\"}},"
+        + "{\"name\":\"m\",\"type\":{\"type\":\"map\",\"values\":\"int\",\"avro.java.string\":\"String\"}}]}");
+    GenericData data = new CaseInsensitiveData();
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("s", "abc");
+    record.put("a", Collections.singletonList(1));
+    record.put("m", Collections.singletonMap("k", 1));
+    GenericRecordView lower = GenericRecordView.of(schema, ByteBuffer.wrap(encode(schema, record, data)), data);
+    record.put("s", "ABC");
+    GenericRecordView upper = GenericRecordView.of(schema, ByteBuffer.wrap(encode(schema, record, data)), data);
+    assertEquals(lower, upper);
+    assertEquals(lower.hashCode(), upper.hashCode());
+    assertEquals(String.class, ((Map<?, ?>) lower.get("m")).keySet().iterator().next().getClass());
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testInvalidFieldName() {
+    GenericRecordView.of(SCHEMA, new byte[0]).get("nope");
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testTruncated() throws IOException {
+    GenericRecord record = (GenericRecord) new RandomData(SCHEMA, 1, 5L, true).iterator().next();
+    byte[] bytes = encode(SCHEMA, record, GenericData.get());
+    GenericRecordView.of(SCHEMA, ByteBuffer.wrap(bytes, 0, bytes.length - 1)).get("z");
+  }
+}
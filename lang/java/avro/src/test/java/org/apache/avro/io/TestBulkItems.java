@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.InvalidNumberEncodingException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.reflect.ReflectDatumReader;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests the bulk reads and writes of int, long, float and double items. */
+@RunWith(Enclosed.class)
+public class TestBulkItems {
+
+  private static final int COUNT = 1000;
+
+  private static Schema arrayOf(Schema.Type type) {
+    return Schema.createArray(Schema.create(type));
+  }
+
+  /** Returns COUNT random values of the type, in a primitive array. */
+  private static Object randomValues(Schema.Type type) {
+    Random random = new Random(17);
+    switch (type) {
+    case INT:
+      int[] ints = new int[COUNT];
+      for (int i = 0; i < COUNT; i++) {
+        // mix all varint lengths
+        ints[i] = random.nextInt() >> random.nextInt(32);
+      }
+      ints[0] = Integer.MIN_VALUE;
+      ints[1] = Integer.MAX_VALUE;
+      return ints;
+    case LONG:
+      long[] longs = new long[COUNT];
+      for (int i = 0; i < COUNT; i++) {
+        longs[i] = random.nextLong() >> random.nextInt(64);
+      }
+      longs[0] = Long.MIN_VALUE;
+      longs[1] = Long.MAX_VALUE;
+      return longs;
+    case FLOAT:
+      float[] floats = new float[COUNT];
+      for (int i = 0; i < COUNT; i++) {
+        floats[i] = random.nextFloat() * random.nextInt();
+      }
+      floats[0] = Float.NaN;
+      floats[1] = Float.NEGATIVE_INFINITY;
+      floats[2] = -0.0f;
+      return floats;
+    default:
+      double[] doubles = new double[COUNT];
+      for (int i = 0; i < COUNT; i++) {
+        doubles[i] = random.nextGaussian() * random.nextLong();
+      }
+      doubles[0] = Double.NaN;
+      doubles[1] = Double.MIN_VALUE;
+      doubles[2] = -0.0;
+      return doubles;
+    }
+  }
+
+  private interface Writer {
+    void write(Encoder out) throws IOException;
+  }
+
+  /** Returns what every binary encoder writes. */
+  private static List<byte[]> encodeAll(Writer writer) throws IOException {
+    List<byte[]> encoded = new ArrayList<>();
+    EncoderFactory small = new EncoderFactory().configureBufferSize(36).configureBlockSize(64);
+    for (int kind = 0; kind < 3; kind++) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      BinaryEncoder out;
+      if (kind == 0) {
+        out = small.binaryEncoder(bytes, null);
+      } else if (kind == 1) {
+        out = small.directBinaryEncoder(bytes, null);
+      } else {
+        out = small.blockingBinaryEncoder(bytes, null);
+      }
+      writer.write(out);
+      out.flush();
+      encoded.add(bytes.toByteArray());
+    }
+    // either byte order of the target buffer
+    for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+      ByteBuffer buffer = ByteBuffer.allocate(16 * COUNT).order(order);
+      writer.write(EncoderFactory.get().byteBufferBinaryEncoder(buffer, null));
+      ((Buffer) buffer).flip();
+      encoded.add(Arrays.copyOf(buffer.array(), buffer.limit()));
+    }
+    return encoded;
+  }
+
+  private static List<Decoder> decoders(byte[] bytes, Schema schema) throws IOException {
+    List<Decoder> decoders = new ArrayList<>();
+    DecoderFactory small = new DecoderFactory().configureDecoderBufferSize(37);
+    decoders.add(DecoderFactory.get().binaryDecoder(bytes, null));
+    decoders.add(small.binaryDecoder(new ByteArrayInputStream(bytes), null));
+    decoders.add(DecoderFactory.get().directBinaryDecoder(new ByteArrayInputStream(bytes), null));
+    decoders.add(DecoderFactory.get().byteBufferBinaryDecoder(ByteBuffer.wrap(bytes), null));
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes);
+    ((Buffer) direct).flip();
+    decoders.add(DecoderFactory.get().byteBufferBinaryDecoder(direct, null));
+    decoders.add(DecoderFactory.get().validatingDecoder(schema, DecoderFactory.get().binaryDecoder(bytes, null)));
+    decoders.add(DecoderFactory.get().resolvingDecoder(schema, schema,
+        small.binaryDecoder(new ByteArrayInputStream(bytes), null)));
+    return decoders;
+  }
+
+  @RunWith(Parameterized.class)
+  public static class TestTypes {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+      return Arrays.asList(
+          new Object[][] { { Schema.Type.INT }, { Schema.Type.LONG }, { Schema.Type.FLOAT }, { Schema.Type.DOUBLE } });
+    }
+
+    private final Schema.Type type;
+    private final Schema schema;
+    private final Object values;
+
+    public TestTypes(Schema.Type type) {
+      this.type = type;
+      this.schema = arrayOf(type);
+      this.values = randomValues(type);
+    }
+
+    private void writeItem(Encoder out, Object value) throws IOException {
+      switch (type) {
+      case INT:
+        out.writeInt((Integer) value);
+        break;
+      case LONG:
+        out.writeLong((Long) value);
+        break;
+      case FLOAT:
+        out.writeFloat((Float) value);
+        break;
+      default:
+        out.writeDouble((Double) value);
+      }
+    }
+
+    private void writeItems(Encoder out, int start, int length) throws IOException {
+      switch (type) {
+      case INT:
+        out.writeInts((int[]) values, start, length);
+        break;
+      case LONG:
+        out.writeLongs((long[]) values, start, length);
+        break;
+      case FLOAT:
+        out.writeFloats((float[]) values, start, length);
+        break;
+      default:
+        out.writeDoubles((double[]) values, start, length);
+      }
+    }
+
+    private void readItems(Decoder in, Object into, int start, int length) throws IOException {
+      switch (type) {
+      case INT:
+        in.readInts((int[]) into, start, length);
+        break;
+      case LONG:
+        in.readLongs((long[]) into, start, length);
+        break;
+      case FLOAT:
+        in.readFloats((float[]) into, start, length);
+        break;
+      default:
+        in.readDoubles((double[]) into, start, length);
+      }
+    }
+
+    /** Boxes the values, which compares NaN and -0.0 by their bits. */
+    private List<Object> boxed(Object array) {
+      List<Object> list = new ArrayList<>();
+      for (int i = 0; i < Array.getLength(array); i++) {
+        list.add(Array.get(array, i));
+      }
+      return list;
+    }
+
+    private byte[] encode(DatumWriter<Object> writer, Object datum) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+      writer.write(datum, out);
+      out.flush();
+      return bytes.toByteArray();
+    }
+
+    @Test
+    public void testEncodersAndDecoders() throws IOException {
+      List<byte[]> single = encodeAll(out -> {
+        out.writeArrayStart();
+        out.setItemCount(COUNT);
+        for (Object value : boxed(values)) {
+          out.startItem();
+          writeItem(out, value);
+        }
+        out.writeArrayEnd();
+      });
+      List<byte[]> bulk = encodeAll(out -> {
+        out.writeArrayStart();
+        out.setItemCount(COUNT);
+        writeItems(out, 0, 3);
+        writeItems(out, 3, COUNT - 3);
+        out.writeArrayEnd();
+      });
+      for (int i = 0; i < single.size(); i++) {
+        assertArrayEquals(single.get(i), bulk.get(i));
+      }
+
+      // the blocking encoder writes several blocks
+      for (byte[] bytes : bulk) {
+        for (Decoder in : decoders(bytes, schema)) {
+          Object read = Array.newInstance(values.getClass().getComponentType(), COUNT + 1);
+          int index = 1;
+          for (long l = in.readArrayStart(); l > 0; l = in.arrayNext()) {
+            readItems(in, read, index, (int) l);
+            index += (int) l;
+          }
+          assertEquals(COUNT + 1, index);
+          assertEquals(boxed(values), boxed(read).subList(1, index));
+        }
+      }
+    }
+
+    @Test
+    public void testReflect() throws IOException {
+      Schema reflectSchema = ReflectData.get().getSchema(values.getClass());
+      byte[] bytes = encode(new ReflectDatumWriter<>(reflectSchema), values);
+      Object read = new ReflectDatumReader<>(reflectSchema).read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+      assertEquals(boxed(values), boxed(read));
+    }
+
+    @Test
+    public void testGeneric() throws IOException {
+      List<Object> list = new GenericData.Array<>(schema, boxed(values));
+      byte[] bytes = encode(new GenericDatumWriter<>(schema), list);
+      for (GenericData data : new GenericData[] { new GenericData().setFastReaderEnabled(false),
+          new GenericData().setFastReaderEnabled(true) }) {
+        Object read = new GenericDatumReader<>(schema, schema, data).read(null,
+            DecoderFactory.get().binaryDecoder(bytes, null));
+        assertEquals(list, read);
+      }
+    }
+
+    @Test
+    public void testOverriddenHooks() throws IOException {
+      // subclasses that override the per-item hooks still see every item
+      int[] written = { 0 };
+      GenericDatumWriter<Object> writer = new GenericDatumWriter<Object>(schema) {
+        @Override
+        protected void writeWithoutConversion(Schema s, Object datum, Encoder out) throws IOException {
+          if (s.getType() == type) {
+            written[0]++;
+          }
+          super.writeWithoutConversion(s, datum, out);
+        }
+      };
+      byte[] bytes = encode(writer, new GenericData.Array<>(schema, boxed(values)));
+      assertEquals(COUNT, written[0]);
+
+      int[] read = { 0 };
+      GenericDatumReader<Object> reader = new GenericDatumReader<Object>(schema, schema,
+          new GenericData().setFastReaderEnabled(false)) {
+        @Override
+        protected Object readWithoutConversion(Object old, Schema expected, ResolvingDecoder in) throws IOException {
+          if (expected.getType() == type) {
+            read[0]++;
+          }
+          return super.readWithoutConversion(old, expected, in);
+        }
+      };
+      assertEquals(boxed(values), reader.read(null, DecoderFactory.get().binaryDecoder(bytes, null)));
+      assertEquals(COUNT, read[0]);
+    }
+  }
+
+  public static class TestPromotionsAndErrors {
+
+    @Test
+    public void testPromotedInts() throws IOException {
+      int[] values = (int[]) randomValues(Schema.Type.INT);
+      byte[] bytes = encodeAll(out -> {
+        out.writeArrayStart();
+        out.setItemCount(COUNT);
+        out.writeInts(values, 0, COUNT);
+        out.writeArrayEnd();
+      }).get(0);
+      ResolvingDecoder in = DecoderFactory.get().resolvingDecoder(arrayOf(Schema.Type.INT), arrayOf(Schema.Type.LONG),
+          DecoderFactory.get().binaryDecoder(bytes, null));
+      long[] read = new long[COUNT];
+      assertEquals(COUNT, in.readArrayStart());
+      in.readLongs(read, 0, COUNT);
+      assertEquals(0, in.arrayNext());
+      for (int i = 0; i < COUNT; i++) {
+        assertEquals(values[i], read[i]);
+      }
+    }
+
+    @Test
+    public void testPromotedItemsInReaders() throws IOException {
+      Schema ints = arrayOf(Schema.Type.INT);
+      Schema floats = arrayOf(Schema.Type.FLOAT);
+      int[] values = (int[]) randomValues(Schema.Type.INT);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+      new ReflectDatumWriter<int[]>(ints).write(values, out);
+      out.flush();
+
+      // promoted items are read one by one
+      for (GenericData data : new GenericData[] { new GenericData(), new GenericData().setFastReaderEnabled(true) }) {
+        List<?> longs = new GenericDatumReader<List<?>>(ints, arrayOf(Schema.Type.LONG), data).read(null,
+            DecoderFactory.get().binaryDecoder(bytes.toByteArray(), null));
+        assertEquals((long) values[5], longs.get(5));
+        List<?> doubles = new GenericDatumReader<List<?>>(ints, arrayOf(Schema.Type.DOUBLE), data).read(null,
+            DecoderFactory.get().binaryDecoder(bytes.toByteArray(), null));
+        assertEquals((double) values[5], doubles.get(5));
+        List<?> promoted = new GenericDatumReader<List<?>>(ints, floats, data).read(null,
+            DecoderFactory.get().binaryDecoder(bytes.toByteArray(), null));
+        assertEquals(COUNT, promoted.size());
+        assertEquals((float) values[5], promoted.get(5));
+      }
+    }
+
+    @Test(expected = InvalidNumberEncodingException.class)
+    public void testInvalidInt() throws IOException {
+      byte[] bytes = new byte[32];
+      Arrays.fill(bytes, (byte) 0xff);
+      DecoderFactory.get().binaryDecoder(bytes, null).readInts(new int[1], 0, 1);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncated() throws IOException {
+      DecoderFactory.get().byteBufferBinaryDecoder(ByteBuffer.allocate(7), null).readDoubles(new double[1], 0, 1);
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testOverflow() throws IOException {
+      EncoderFactory.get().byteBufferBinaryEncoder(ByteBuffer.allocate(7), null).writeDoubles(new double[1], 0, 1);
+    }
+  }
+}
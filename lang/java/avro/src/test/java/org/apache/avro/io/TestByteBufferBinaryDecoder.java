@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.RandomData;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TestByteBufferBinaryDecoder {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"b\",\"type\":\"boolean\"},{\"name\":\"i\",\"type\":\"int\"},{\"name\":\"l\",\"type\":\"long\"},"
+      + "{\"name\":\"f\",\"type\":\"float\"},{\"name\":\"d\",\"type\":\"double\"},{\"name\":\"s\",\"type\":\"string\"},"
+      + "{\"name\":\"y\",\"type\":\"bytes\"},{\"name\":\"x\",\"type\":{\"type\":\"fixed\",\"name\":\"X\",\"size\":3}},"
+      + "{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":\"long\"}},"
+      + "{\"name\":\"m\",\"type\":{\"type\":\"map\",\"values\":[\"null\",\"double\"]}}]}");
+
+  private final boolean direct;
+
+  public TestByteBufferBinaryDecoder(boolean direct) {
+    this.direct = direct;
+  }
+
+  @Parameters
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { true }, { false } });
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  private ByteBuffer copy(byte[] bytes) {
+    ByteBuffer buffer = allocate(bytes.length + 3);
+    buffer.put(new byte[] { 9, 9, 9 }).put(bytes).flip();
+    buffer.position(3);
+    return buffer;
+  }
+
+  @Test
+  public void testRoundTripMatchesBinaryEncoding() throws IOException {
+    GenericDatumWriter<Object> writer = new GenericDatumWriter<>(SCHEMA);
+    GenericDatumReader<Object> reader = new GenericDatumReader<>(SCHEMA);
+    for (Object datum : new RandomData(SCHEMA, 50, 42L, true)) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      BinaryEncoder streamEncoder = EncoderFactory.get().binaryEncoder(baos, null);
+      writer.write(datum, streamEncoder);
+      streamEncoder.flush();
+      byte[] expected = baos.toByteArray();
+
+      ByteBuffer buffer = allocate(expected.length);
+      buffer.order(ByteOrder.BIG_ENDIAN);
+      writer.write(datum, EncoderFactory.get().byteBufferBinaryEncoder(buffer, null));
+      assertEquals(expected.length, buffer.position());
+      buffer.flip();
+      byte[] actual = new byte[expected.length];
+      buffer.duplicate().get(actual);
+      assertArrayEquals(expected, actual);
+
+      BinaryDecoder decoder = DecoderFactory.get().byteBufferBinaryDecoder(copy(expected), null);
+      assertEquals(datum, reader.read(null, decoder));
+      assertTrue(decoder.isEnd());
+    }
+  }
+
+  @Test
+  public void testReadBytesSlicesSource() throws IOException {
+    ByteBuffer source = copy(new byte[] { 6, 1, 2, 3, 4, 'x' });
+    BinaryDecoder decoder = DecoderFactory.get().byteBufferBinaryDecoder(source, null);
+    ByteBuffer slice = decoder.readBytes(null);
+    assertEquals(3, slice.remaining());
+    assertEquals(1, slice.get(0));
+    source.put(4, (byte) 7);
+    assertEquals(7, slice.get(0));
+    assertEquals(3, source.position());
+
+    decoder = DecoderFactory.get().byteBufferBinaryDecoder(source, decoder);
+    ByteBuffer reuse = ByteBuffer.allocate(8);
+    ByteBuffer second = decoder.readBytes(reuse);
+    assertNotSame(reuse, second);
+    assertEquals(ByteBuffer.allocate(8), reuse);
+    assertEquals(slice, second);
+    assertEquals(4, decoder.inputStream().read());
+    assertFalse(decoder.isEnd());
+    assertEquals(new Utf8("x"), new Utf8(new byte[] { (byte) decoder.inputStream().read() }));
+    assertTrue(decoder.isEnd());
+  }
+
+  @Test
+  public void testReuseLeavesSourceUnchanged() throws IOException {
+    Schema schema = new Schema.Parser()
+        .parse("{\"type\":\"record\",\"name\":\"B\",\"fields\":[" + "{\"name\":\"y\",\"type\":\"bytes\"}]}");
+    byte[] encoded = { 4, 10, 20, 4, 11, 21 };
+    for (boolean readOnly : new boolean[] { false, true }) {
+      ByteBuffer source = copy(encoded);
+      if (readOnly) {
+        source = source.asReadOnlyBuffer();
+      }
+      BinaryDecoder decoder = DecoderFactory.get().byteBufferBinaryDecoder(source, null);
+      GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(schema);
+      GenericRecord first = reader.read(null, decoder);
+      assertEquals(ByteBuffer.wrap(new byte[] { 10, 20 }), first.get("y"));
+      GenericRecord second = reader.read(first, decoder);
+      assertEquals(ByteBuffer.wrap(new byte[] { 11, 21 }), second.get("y"));
+
+      byte[] after = new byte[encoded.length];
+      ((ByteBuffer) source.duplicate().position(3)).get(after);
+      assertArrayEquals(encoded, after);
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void testEOFString() throws IOException {
+    DecoderFactory.get().byteBufferBinaryDecoder(copy(new byte[] { 8, 'a' }), null).readString();
+  }
+
+  @Test(expected = EOFException.class)
+  public void testEOFDouble() throws IOException {
+    DecoderFactory.get().byteBufferBinaryDecoder(copy(new byte[7]), null).readDouble();
+  }
+}
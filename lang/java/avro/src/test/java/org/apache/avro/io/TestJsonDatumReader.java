@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestJsonDatumReader {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"int\"},{\"name\":\"b\",\"type\":\"string\"},"
+      + "{\"name\":\"c\",\"type\":[\"null\",{\"type\":\"record\",\"name\":\"S\",\"fields\":["
+      + "{\"name\":\"x\",\"type\":\"long\"},{\"name\":\"y\",\"type\":{\"type\":\"array\",\"items\":\"double\"}}]}]},"
+      + "{\"name\":\"d\",\"type\":{\"type\":\"map\",\"values\":\"boolean\"}},"
+      + "{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"P\",\"Q\"]}},"
+      + "{\"name\":\"f\",\"type\":{\"type\":\"fixed\",\"name\":\"F\",\"size\":2}},"
+      + "{\"name\":\"g\",\"type\":\"bytes\"}]}");
+
+  private static final String IN_ORDER = "{\"a\":1,\"b\":\"text\",\"c\":{\"S\":{\"x\":2,\"y\":[1.5,2.5]}},"
+      + "\"d\":{\"k\":true},\"e\":\"Q\",\"f\":\"\\u0001\\u0002\",\"g\":\"\\u00ff\"}";
+
+  private static final String SHUFFLED = "{\"g\":\"\\u00ff\",\"c\":{\"S\":{\"y\":[1.5,2.5],\"x\":2}},\"e\":\"Q\","
+      + "\"b\":\"text\",\"f\":\"\\u0001\\u0002\",\"d\":{\"k\":true},\"a\":1}";
+
+  private static GenericRecord readGeneric(Schema writer, Schema reader, String json, boolean fast) throws IOException {
+    GenericData data = new GenericData().setFastReaderEnabled(fast);
+    return new GenericDatumReader<GenericRecord>(writer, reader, data).read(null,
+        DecoderFactory.get().jsonDecoder(writer, json));
+  }
+
+  private static GenericRecord read(Schema writer, Schema reader, String json) throws IOException {
+    return new JsonDatumReader<GenericRecord>(writer, reader).read(null,
+        DecoderFactory.get().jsonDecoder(writer, json));
+  }
+
+  @Test
+  public void testMatchesGenericDatumReader() throws IOException {
+    GenericRecord expected = readGeneric(SCHEMA, SCHEMA, IN_ORDER, false);
+    assertEquals(expected, readGeneric(SCHEMA, SCHEMA, IN_ORDER, true));
+    assertEquals(expected, read(SCHEMA, SCHEMA, IN_ORDER));
+  }
+
+  @Test
+  public void testOutOfOrderFields() throws IOException {
+    GenericRecord expected = readGeneric(SCHEMA, SCHEMA, SHUFFLED, false);
+    assertEquals(expected, read(SCHEMA, SCHEMA, SHUFFLED));
+    assertEquals(expected, read(SCHEMA, SCHEMA, IN_ORDER));
+  }
+
+  @Test
+  public void testResolution() throws IOException {
+    Schema reader = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+        + "{\"name\":\"z\",\"type\":\"string\",\"default\":\"dflt\"},"
+        + "{\"name\":\"alpha\",\"type\":\"double\",\"aliases\":[\"a\"]},"
+        + "{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"Q\",\"P\"]}}]}");
+    GenericRecord expected = readGeneric(SCHEMA, reader, IN_ORDER, true);
+    GenericRecord actual = read(SCHEMA, reader, SHUFFLED);
+    assertEquals(expected, actual);
+    assertEquals(1.0, actual.get("alpha"));
+    assertEquals(new Utf8("dflt"), actual.get("z"));
+    assertEquals("Q", actual.get("e").toString());
+  }
+
+  @Test
+  public void testMultipleDatumsAndReuse() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"P\",\"fields\":["
+        + "{\"name\":\"id\",\"type\":\"int\"},{\"name\":\"opt\",\"type\":[\"null\",\"string\"],\"default\":null}]}");
+    JsonDecoder decoder = DecoderFactory.get().jsonDecoder(schema,
+        "{\"opt\":{\"string\":\"x\"},\"id\":1} {\"id\":2,\"opt\":null} {\"opt\":null,\"id\":3}");
+    JsonDatumReader<GenericRecord> reader = new JsonDatumReader<>(schema);
+    GenericRecord first = reader.read(null, decoder);
+    assertEquals(Arrays.asList(1, new Utf8("x")), Arrays.asList(first.get("id"), first.get("opt")));
+    GenericRecord second = reader.read(first, decoder);
+    assertSame(first, second);
+    assertEquals(2, second.get("id"));
+    assertNull(second.get("opt"));
+    assertEquals(3, reader.read(null, decoder).get("id"));
+  }
+
+  @Test
+  public void testUnknownFieldsAreSkipped() throws IOException {
+    Schema reader = new Schema.Parser()
+        .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"b\",\"type\":\"string\"}]}");
+    GenericRecord record = read(SCHEMA, reader, SHUFFLED);
+    assertEquals(new Utf8("text"), record.get("b"));
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testMissingFieldWithoutDefault() throws IOException {
+    read(SCHEMA, SCHEMA, "{\"a\":1}");
+  }
+
+  @Test
+  public void testInvalidBytesCharacters() throws IOException {
+    String[] inputs = { IN_ORDER.replace("\"\\u00ff\"", "\"\\u0100\""),
+        IN_ORDER.replace("\"\\u0001\\u0002\"", "\"\\u0001\\u20ac\"") };
+    for (String json : inputs) {
+      try {
+        read(SCHEMA, SCHEMA, json);
+        fail("Expected an AvroTypeException: " + json);
+      } catch (AvroTypeException e) {
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid character in bytes"));
+      }
+    }
+
+    // bytes promoted to strings
+    Schema writer = Schema.createRecord("P", null, null, false,
+        Arrays.asList(new Schema.Field("v", Schema.create(Schema.Type.BYTES), null, null)));
+    Schema reader = Schema.createRecord("P", null, null, false,
+        Arrays.asList(new Schema.Field("v", Schema.create(Schema.Type.STRING), null, null)));
+    assertEquals(new Utf8("\u00e9"), read(writer, reader, "{\"v\":\"\\u00c3\\u00a9\"}").get("v"));
+    try {
+      read(writer, reader, "{\"v\":\"\\u00e9\\u0100\"}");
+      fail("Expected an AvroTypeException");
+    } catch (AvroTypeException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid character in bytes"));
+    }
+  }
+
+  @Test
+  public void testDefaultsMatchResolvingDecoder() throws IOException {
+    Schema reader = new Schema.Parser()
+        .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[" + "{\"name\":\"a\",\"type\":\"int\"},"
+            + "{\"name\":\"s\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"},\"default\":\"x\"},"
+            + "{\"name\":\"u\",\"type\":\"string\",\"default\":\"y\"},"
+            + "{\"name\":\"day\",\"type\":{\"type\":\"int\",\"logicalType\":\"date\"},\"default\":10},"
+            + "{\"name\":\"rec\",\"type\":{\"type\":\"record\",\"name\":\"T\",\"fields\":["
+            + "{\"name\":\"n\",\"type\":\"long\"}]},\"default\":{\"n\":3}},"
+            + "{\"name\":\"list\",\"type\":{\"type\":\"array\",\"items\":\"int\"},\"default\":[1,2]},"
+            + "{\"name\":\"m\",\"type\":{\"type\":\"map\",\"values\":\"int\"},\"default\":{\"k\":1}},"
+            + "{\"name\":\"bin\",\"type\":\"bytes\",\"default\":\"\\u00ff\"},"
+            + "{\"name\":\"fix\",\"type\":{\"type\":\"fixed\",\"name\":\"G\",\"size\":1},\"default\":\"z\"},"
+            + "{\"name\":\"opt\",\"type\":[\"null\",\"int\"],\"default\":null}]}");
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new TimeConversions.DateConversion());
+
+    GenericRecord expected = new GenericDatumReader<GenericRecord>(SCHEMA, reader, data).read(null,
+        DecoderFactory.get().jsonDecoder(SCHEMA, IN_ORDER));
+    JsonDatumReader<GenericRecord> jsonReader = new JsonDatumReader<>(SCHEMA, reader, data);
+    GenericRecord actual = jsonReader.read(null, DecoderFactory.get().jsonDecoder(SCHEMA, SHUFFLED));
+    assertEquals(expected, actual);
+    assertEquals(LocalDate.ofEpochDay(10), actual.get("day"));
+    assertEquals("x", actual.get("s"));
+    assertEquals(new Utf8("y"), actual.get("u"));
+
+    // defaults are not shared between datums
+    ((GenericRecord) actual.get("rec")).put("n", 4L);
+    assertEquals(expected, jsonReader.read(null, DecoderFactory.get().jsonDecoder(SCHEMA, IN_ORDER)));
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testMissingWriterFieldIsNotDefaulted() throws IOException {
+    Schema reader = new Schema.Parser().parse(
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[" + "{\"name\":\"a\",\"type\":\"int\",\"default\":5}]}");
+    // the JsonDecoder fails too, as the writer's schema has the field
+    read(SCHEMA, reader, SHUFFLED.replace("\"a\":1", "\"x\":1"));
+  }
+}
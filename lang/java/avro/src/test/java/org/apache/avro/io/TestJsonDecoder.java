@@ -17,9 +17,20 @@
  */
 package org.apache.avro.io;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.avro.AvroTypeException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -75,4 +86,104 @@ public class TestJsonDecoder {
     Assert.assertEquals(200, in.readLong());
     in.skipArray();
   }
+
+  @Test
+  public void testUtf8StringsAndBytes() throws Exception {
+    String def = "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"s\",\"type\":\"string\"},"
+        + "{\"name\":\"b\",\"type\":\"bytes\"},{\"name\":\"f\",\"type\":{\"type\":\"fixed\",\"name\":\"F\",\"size\":3}}]}";
+    Schema schema = new Schema.Parser().parse(def);
+    String text = "a\u00e9\u4e2d\ud83d\ude00\"\n";
+    byte[] bytes = { 0, (byte) 0x7f, (byte) 0x80, (byte) 0xff };
+    byte[] fixed = { 1, (byte) 0xfe, 3 };
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonEncoder encoder = EncoderFactory.get().jsonEncoder(schema, out);
+    for (int i = 0; i < 2; i++) {
+      encoder.writeString(new Utf8(text));
+      encoder.writeBytes(bytes);
+      encoder.writeFixed(fixed);
+    }
+    encoder.flush();
+
+    JsonDecoder decoder = DecoderFactory.get().jsonDecoder(schema, out.toString(StandardCharsets.UTF_8.name()));
+    Utf8 string = decoder.readString(null);
+    Assert.assertEquals(text, string.toString());
+    ByteBuffer buffer = decoder.readBytes(null);
+    Assert.assertEquals(ByteBuffer.wrap(bytes), buffer);
+    byte[] actualFixed = new byte[3];
+    decoder.readFixed(actualFixed);
+    Assert.assertArrayEquals(fixed, actualFixed);
+
+    // the second datum is read into the previous instances
+    Assert.assertSame(string, decoder.readString(string));
+    Assert.assertEquals(text, string.toString());
+    Assert.assertSame(buffer, decoder.readBytes(buffer));
+    Assert.assertEquals(ByteBuffer.wrap(bytes), buffer);
+  }
+
+  @Test
+  public void testBytesOutOfRange() throws Exception {
+    String def = "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"b\",\"type\":\"bytes\"},"
+        + "{\"name\":\"f\",\"type\":{\"type\":\"fixed\",\"name\":\"F\",\"size\":1}}]}";
+    Schema schema = new Schema.Parser().parse(def);
+    try {
+      DecoderFactory.get().jsonDecoder(schema, "{\"b\":\"a\\u0100\",\"f\":\"x\"}").readBytes(null);
+      Assert.fail("Expected an AvroTypeException");
+    } catch (AvroTypeException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("100"));
+    }
+    JsonDecoder decoder = DecoderFactory.get().jsonDecoder(schema, "{\"b\":\"\",\"f\":\"\\u20ac\"}");
+    decoder.readBytes(null);
+    try {
+      decoder.readFixed(new byte[1]);
+      Assert.fail("Expected an AvroTypeException");
+    } catch (AvroTypeException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("20ac"));
+    }
+  }
+
+  @Test
+  public void testMalformedUtf8IsWrittenLikeString() throws Exception {
+    Schema schema = Schema.create(Schema.Type.STRING);
+    byte[][] inputs = { { 'a', (byte) 0xff, 'b' }, { (byte) 0xc3 }, { (byte) 0xc0, (byte) 0x80 },
+        { (byte) 0xed, (byte) 0xa0, (byte) 0x80 }, { (byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80 },
+        { 'o', 'k', (byte) 0xc3, (byte) 0xa9 } };
+    for (byte[] input : inputs) {
+      Utf8 utf8 = new Utf8(input);
+      Assert.assertEquals(toJson(schema, utf8.toString()), toJson(schema, utf8));
+    }
+  }
+
+  @Test
+  public void testUtf8Validation() throws Exception {
+    CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+    Random random = new Random(42);
+    byte[] bytes = new byte[4];
+    for (int i = 0; i < 200000; i++) {
+      int length = 1 + random.nextInt(bytes.length);
+      random.nextBytes(bytes);
+      bytes[0] |= (byte) 0x80; // mostly multi-byte sequences
+      boolean valid;
+      try {
+        utf8.decode(ByteBuffer.wrap(bytes, 0, length));
+        valid = true;
+      } catch (CharacterCodingException e) {
+        valid = false;
+      }
+      Assert.assertEquals(Arrays.toString(Arrays.copyOf(bytes, length)), valid, JsonEncoder.isValidUtf8(bytes, length));
+    }
+  }
+
+  private static String toJson(Schema schema, Object value) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonEncoder encoder = EncoderFactory.get().jsonEncoder(schema, out);
+    if (value instanceof Utf8) {
+      encoder.writeString((Utf8) value);
+    } else {
+      encoder.writeString((String) value);
+    }
+    encoder.flush();
+    return out.toString(StandardCharsets.UTF_8.name());
+  }
 }
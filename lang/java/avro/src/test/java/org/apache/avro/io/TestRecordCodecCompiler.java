@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.StringInterner;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestRecordCodecCompiler {
+
+  private static final Schema INNER = SchemaBuilder.record("Inner").fields().requiredInt("id").optionalString("label")
+      .endRecord();
+
+  private static final Schema WRITER = SchemaBuilder.record("Outer").fields().requiredInt("i").requiredLong("l")
+      .requiredFloat("f").requiredDouble("d").requiredBoolean("b").requiredString("s").requiredBytes("bytes")
+      .optionalInt("oi").optionalString("os").name("fixed").type().fixed("F").size(2).noDefault().name("inner")
+      .type(INNER).noDefault().name("list").type().array().items().longType().noDefault().name("color").type()
+      .enumeration("Color").symbols("RED", "GREEN").noDefault().requiredString("dropped").endRecord();
+
+  private final GenericData data = new GenericData().setCompiledCodecEnabled(true);
+
+  private GenericRecord createRecord() {
+    GenericRecord inner = new GenericData.Record(INNER);
+    inner.put("id", 7);
+    inner.put("label", "seven");
+
+    GenericRecord record = new GenericData.Record(WRITER);
+    record.put("i", 1);
+    record.put("l", 2L);
+    record.put("f", 3.5f);
+    record.put("d", 4.25);
+    record.put("b", true);
+    record.put("s", new Utf8("text"));
+    record.put("bytes", ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+    record.put("oi", null);
+    record.put("os", "optional");
+    record.put("fixed", new GenericData.Fixed(WRITER.getField("fixed").schema(), new byte[] { 9, 8 }));
+    record.put("inner", inner);
+    record.put("list", Arrays.asList(1L, 2L, 3L));
+    record.put("color", new GenericData.EnumSymbol(WRITER.getField("color").schema(), "GREEN"));
+    record.put("dropped", "gone");
+    return record;
+  }
+
+  private byte[] write(GenericDatumWriter<GenericRecord> writer, GenericRecord record) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    writer.write(record, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testWriterMatchesGenericWriter() throws IOException {
+    GenericRecord record = createRecord();
+    byte[] expected = write(new GenericDatumWriter<>(WRITER), record);
+    byte[] actual = write(new GenericDatumWriter<>(WRITER, data), record);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    GenericRecord record = createRecord();
+    byte[] encoded = write(new GenericDatumWriter<>(WRITER, data), record);
+
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(WRITER, WRITER, data);
+    GenericRecord result = reader.read(null, DecoderFactory.get().binaryDecoder(encoded, null));
+    assertEquals(record.toString(), result.toString());
+
+    // reading again reuses the record and its strings
+    Object s = result.get("s");
+    GenericRecord reused = reader.read(result, DecoderFactory.get().binaryDecoder(encoded, null));
+    assertSame(result, reused);
+    assertSame(s, reused.get("s"));
+  }
+
+  @Test
+  public void testResolution() throws IOException {
+    Schema readerSchema = SchemaBuilder.record("Outer").fields().requiredLong("i").requiredDouble("l")
+        .requiredDouble("f").requiredDouble("d").requiredBoolean("b").name("s").type().stringBuilder()
+        .prop(GenericData.STRING_PROP, "String").endString().noDefault().optionalLong("oi").name("inner").type(INNER)
+        .noDefault().name("added").type().intType().intDefault(42).endRecord();
+    byte[] encoded = write(new GenericDatumWriter<>(WRITER), createRecord());
+
+    GenericRecord expected = new GenericDatumReader<GenericRecord>(WRITER, readerSchema).read(null,
+        DecoderFactory.get().binaryDecoder(encoded, null));
+    GenericRecord actual = new GenericDatumReader<GenericRecord>(WRITER, readerSchema, data).read(null,
+        DecoderFactory.get().binaryDecoder(encoded, null));
+
+    assertEquals(expected, actual);
+    assertEquals(1L, actual.get("i"));
+    assertEquals(2.0, actual.get("l"));
+    assertEquals("text", actual.get("s"));
+    assertNull(actual.get("oi"));
+    assertEquals(42, actual.get("added"));
+  }
+
+  @Test
+  public void testRecursiveSchema() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Node\",\"fields\":["
+        + "{\"name\":\"value\",\"type\":\"int\"},{\"name\":\"next\",\"type\":[\"null\",\"Node\"]}]}");
+    GenericRecord tail = new GenericData.Record(schema);
+    tail.put("value", 2);
+    GenericRecord head = new GenericData.Record(schema);
+    head.put("value", 1);
+    head.put("next", tail);
+
+    byte[] encoded = write(new GenericDatumWriter<>(schema, data), head);
+    assertArrayEquals(write(new GenericDatumWriter<>(schema), head), encoded);
+    GenericRecord result = new GenericDatumReader<GenericRecord>(schema, schema, data).read(null,
+        DecoderFactory.get().binaryDecoder(encoded, null));
+    assertEquals(head, result);
+  }
+
+  @Test
+  public void testCompiledCodecsAreCached() throws IOException {
+    RecordCodecCompiler compiler = data.getRecordCodecCompiler();
+    assertSame(compiler.createDatumReader(WRITER), compiler.createDatumReader(WRITER));
+    assertSame(compiler.createDatumWriter(WRITER), compiler.createDatumWriter(WRITER));
+  }
+
+  @Test
+  public void testDroppedSchemasAreCollected() throws IOException, InterruptedException {
+    RecordCodecCompiler compiler = new RecordCodecCompiler(new GenericData());
+    WeakReference<Schema> schema = compileDroppedSchema(compiler);
+    for (int i = 0; i < 100 && schema.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(schema.get());
+  }
+
+  private static WeakReference<Schema> compileDroppedSchema(RecordCodecCompiler compiler) throws IOException {
+    Schema schema = new Schema.Parser().parse(INNER.toString());
+    Schema readerSchema = new Schema.Parser().parse(INNER.toString());
+    compiler.createDatumReader(schema, readerSchema);
+    compiler.createDatumWriter(schema);
+    return new WeakReference<>(schema);
+  }
+
+  @Test
+  public void testUnresolvedUnionNamesField() throws IOException {
+    GenericRecord record = createRecord();
+    record.put("oi", "not an int");
+    try {
+      write(new GenericDatumWriter<>(WRITER, data), record);
+    } catch (UnresolvedUnionException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("oi"));
+      return;
+    }
+    throw new AssertionError("Expected an UnresolvedUnionException");
+  }
+
+  @Test
+  public void testNonRecordSchemaFallsBack() throws IOException {
+    Schema schema = Schema.createArray(Schema.create(Schema.Type.INT));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    data.getRecordCodecCompiler().createDatumWriter(schema).write(Collections.singletonList(5), encoder);
+    encoder.flush();
+
+    Object result = data.getRecordCodecCompiler().createDatumReader(schema).read(null,
+        DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    assertEquals(Collections.singletonList(5), result);
+  }
+
+  @Test
+  public void testFailedCompilationIsNotCached() throws IOException {
+    Schema dropped = WRITER.getField("dropped").schema();
+    boolean[] failing = { true };
+    GenericData failingData = new GenericData() {
+      @Override
+      public StringInterner getStringInterner(Schema schema) {
+        if (failing[0] && schema == dropped) {
+          throw new IllegalStateException("failing");
+        }
+        return super.getStringInterner(schema);
+      }
+    };
+    RecordCodecCompiler compiler = new RecordCodecCompiler(failingData);
+    try {
+      compiler.createDatumReader(WRITER);
+      fail("Expected compilation to fail");
+    } catch (IllegalStateException e) {
+      assertEquals("failing", e.getMessage());
+    }
+
+    // neither the outer reader nor the nested one compiled before the failure
+    // is kept half built
+    failing[0] = false;
+    GenericRecord record = createRecord();
+    byte[] encoded = write(new GenericDatumWriter<>(WRITER), record);
+    DatumReader<GenericRecord> reader = compiler.createDatumReader(WRITER);
+    assertEquals(record.toString(), reader.read(null, DecoderFactory.get().binaryDecoder(encoded, null)).toString());
+    byte[] inner = write(new GenericDatumWriter<>(INNER), (GenericRecord) record.get("inner"));
+    DatumReader<GenericRecord> innerReader = compiler.createDatumReader(INNER);
+    assertEquals(record.get("inner"), innerReader.read(null, DecoderFactory.get().binaryDecoder(inner, null)));
+  }
+
+  @Test
+  public void testSetSchema() throws IOException {
+    RecordCodecCompiler compiler = data.getRecordCodecCompiler();
+    DatumReader<Object> reader = compiler.createDatumReader(WRITER);
+    DatumWriter<Object> writer = compiler.createDatumWriter(WRITER);
+    reader.setSchema(new Schema.Parser().parse(WRITER.toString())); // an equal schema is fine
+    writer.setSchema(WRITER);
+    try {
+      reader.setSchema(INNER);
+      fail("Expected an UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("createDatumReader"));
+    }
+    try {
+      writer.setSchema(INNER);
+      fail("Expected an UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("createDatumWriter"));
+    }
+  }
+}
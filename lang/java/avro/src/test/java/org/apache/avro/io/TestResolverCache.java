@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.junit.Test;
+
+public class TestResolverCache {
+
+  private static final Schema WRITER = SchemaBuilder.record("R").fields().requiredInt("a").requiredString("b")
+      .endRecord();
+  private static final Schema READER = SchemaBuilder.record("R").fields().requiredLong("a").endRecord();
+
+  @Test
+  public void testHitsAndMisses() throws IOException {
+    ResolverCache cache = new ResolverCache(10);
+    Object resolver = cache.getResolver(WRITER, READER);
+    assertSame(resolver, cache.getResolver(WRITER, READER));
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testSharedAcrossThreads() throws Exception {
+    ResolverCache cache = new ResolverCache(10);
+    Object resolver = cache.getResolver(WRITER, READER);
+    AtomicReference<Object> other = new AtomicReference<>();
+    Thread thread = new Thread(() -> {
+      try {
+        other.set(cache.getResolver(WRITER, READER));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    thread.start();
+    thread.join();
+    assertSame(resolver, other.get());
+  }
+
+  @Test
+  public void testBounded() throws IOException {
+    ResolverCache cache = new ResolverCache(2);
+    Object first = cache.getResolver(WRITER, READER);
+    cache.getResolver(WRITER, WRITER);
+    cache.getResolver(READER, READER);
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    // the eldest entry was evicted
+    assertNotSame(first, cache.getResolver(WRITER, READER));
+  }
+
+  @Test
+  public void testResolvingDecoder() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    encoder.writeInt(42);
+    encoder.writeString("skipped");
+    encoder.flush();
+
+    ResolverCache cache = new ResolverCache(10);
+    for (int i = 0; i < 2; i++) {
+      ResolvingDecoder in = cache.newResolvingDecoder(WRITER, READER,
+          DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+      assertEquals(1, in.readFieldOrder().length);
+      assertEquals(42L, in.readLong());
+      in.drain();
+    }
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new ResolverCache(0);
+  }
+}
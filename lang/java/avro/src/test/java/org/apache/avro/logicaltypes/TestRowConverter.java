@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.logicaltypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.junit.Test;
+
+public class TestRowConverter {
+
+  private static final Schema INNER = SchemaBuilder.record("Inner").fields().requiredInt("id").endRecord();
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Row").fields().requiredInt("i").optionalLong("l")
+      .requiredDouble("d").requiredString("s").name("ts").type(AvroTimestampMillis.create().getRecommendedSchema())
+      .noDefault().name("date").type(AvroDate.create().getRecommendedSchema()).noDefault().name("dec")
+      .type(AvroDecimal.create(10, 2).getRecommendedSchema()).noDefault().name("e").type().enumeration("E")
+      .symbols("A", "B").noDefault().name("inner").type(INNER).noDefault().endRecord();
+
+  private static Object[] row(Object i, Object l, Object d, Object ts) {
+    return new Object[] { i, l, d, "text", ts, LocalDate.ofEpochDay(3), new BigDecimal("1.25"), "B",
+        new Object[] { 5 } };
+  }
+
+  private static void assertMatchesDatatypes(Object[] row, GenericData.Record record) {
+    for (Schema.Field field : SCHEMA.getFields()) {
+      Object value = row[field.pos()];
+      if (field.name().equals("inner")) {
+        assertEquals(((Object[]) value)[0], ((GenericData.Record) record.get(field.pos())).get(0));
+      } else {
+        assertEquals(field.getDataType().convertToRawType(value), record.get(field.pos()));
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesDatatypeConversions() {
+    RowConverter converter = new RowConverter(SCHEMA);
+    Object[] row = row(1, 2L, 3.5, Instant.ofEpochMilli(1234));
+    assertMatchesDatatypes(row, converter.convert(row));
+  }
+
+  @Test
+  public void testRespecializesOnClassChange() {
+    RowConverter converter = new RowConverter(SCHEMA);
+    Object[] first = row(1, 2, 3.5f, Instant.ofEpochMilli(1234));
+    GenericData.Record record = converter.convert(first);
+    assertEquals(2L, record.get("l"));
+    assertEquals(3.5, record.get("d"));
+
+    Object[] second = row("7", null, new BigDecimal("2.5"), new Timestamp(5678));
+    GenericData.Record reused = converter.convert(second, record);
+    assertSame(record, reused);
+    assertEquals(7, reused.get("i"));
+    assertNull(reused.get("l"));
+    assertEquals(2.5, reused.get("d"));
+    assertEquals(5678L, reused.get("ts"));
+
+    Object[] third = row(1, 2L, 3.5, 42L);
+    assertEquals(42L, converter.convert(third).get("ts"));
+  }
+
+  @Test
+  public void testRecursiveRows() {
+    Schema node = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Node\",\"fields\":["
+        + "{\"name\":\"value\",\"type\":\"long\"},{\"name\":\"next\",\"type\":[\"null\",\"Node\"]}]}");
+    RowConverter converter = new RowConverter(node);
+    GenericData.Record head = converter.convert(new Object[] { 1, new Object[] { 2, new Object[] { 3, null } } });
+    GenericData.Record second = (GenericData.Record) head.get("next");
+    assertEquals(1L, head.get("value"));
+    assertEquals(2L, second.get("value"));
+    assertEquals(3L, ((GenericData.Record) second.get("next")).get("value"));
+    assertNull(((GenericData.Record) second.get("next")).get("next"));
+  }
+
+  @Test
+  public void testEnumDatatypeIsCached() {
+    Schema e = SCHEMA.getField("e").schema();
+    assertSame(e.getDataType(), e.getDataType());
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testInvalidValue() {
+    new RowConverter(SCHEMA).convert(row(new Object(), 1L, 1.0, 1L));
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testWrongRowLength() {
+    new RowConverter(SCHEMA).convert(new Object[] { 1 });
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+public class TestStringInterner {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Event\",\"fields\":["
+      + "{\"name\":\"country\",\"type\":{\"type\":\"string\",\"avro.java.string.intern\":8}},"
+      + "{\"name\":\"status\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\",\"avro.java.string.intern\":8}},"
+      + "{\"name\":\"id\",\"type\":\"string\"}]}");
+
+  private static BinaryDecoder decoderFor(String... values) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    for (String value : values) {
+      encoder.writeString(value);
+    }
+    encoder.flush();
+    return DecoderFactory.get().binaryDecoder(out.toByteArray(), null);
+  }
+
+  @Test
+  public void testSharedInstances() throws IOException {
+    StringInterner interner = new StringInterner(4);
+    BinaryDecoder in = decoderFor("DE", "FR", "DE", "FR", "");
+    Utf8 de = interner.readUtf8(in);
+    String fr = interner.readString(in);
+    assertEquals(new Utf8("DE"), de);
+    assertEquals("FR", fr);
+    assertSame(de, interner.readUtf8(in));
+    assertSame(fr, interner.readString(in));
+    assertEquals(new Utf8(), interner.readUtf8(in));
+  }
+
+  @Test
+  public void testModifiedInstanceIsReplaced() throws IOException {
+    StringInterner interner = new StringInterner(4);
+    Utf8 de = interner.readUtf8(decoderFor("DE"));
+
+    // a reader without interning reuses the instance for another value
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("country", de);
+    record.put("status", "OK");
+    record.put("id", "1");
+    GenericData plain = new GenericData() {
+      @Override
+      public StringInterner getStringInterner(Schema schema) {
+        return null;
+      }
+    };
+    GenericRecord other = new GenericData.Record(SCHEMA);
+    other.put("country", "FRA");
+    other.put("status", "OK");
+    other.put("id", "2");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(SCHEMA).write(other, encoder);
+    encoder.flush();
+    new GenericDatumReader<GenericRecord>(SCHEMA, SCHEMA, plain).read(record,
+        DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    assertEquals(new Utf8("FRA"), de);
+
+    BinaryDecoder in = decoderFor("DE", "FRA", "DE");
+    Utf8 fresh = interner.readUtf8(in);
+    assertEquals(new Utf8("DE"), fresh);
+    assertNotSame(de, fresh);
+    assertEquals(new Utf8("FRA"), interner.readUtf8(in));
+    assertSame(fresh, interner.readUtf8(in));
+    assertEquals("DE", interner.readString(decoderFor("DE")));
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    StringInterner interner = new StringInterner(1);
+    String[] values = new String[100];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = "v" + i;
+    }
+    BinaryDecoder in = decoderFor(values);
+    for (String value : values) {
+      assertEquals(value, interner.readString(in));
+    }
+  }
+
+  @Test
+  public void testLongStringsNotCached() throws IOException {
+    StringInterner interner = new StringInterner(4);
+    char[] chars = new char[StringInterner.MAX_LENGTH + 1];
+    Arrays.fill(chars, 'x');
+    String value = new String(chars);
+    BinaryDecoder in = decoderFor(value, value);
+    Utf8 first = interner.readUtf8(in);
+    assertEquals(new Utf8(value), first);
+    assertNotSame(first, interner.readUtf8(in));
+  }
+
+  @Test
+  public void testInternerFromSchema() {
+    GenericData data = new GenericData();
+    Schema country = SCHEMA.getField("country").schema();
+    Schema id = SCHEMA.getField("id").schema();
+    assertSame(data.getStringInterner(country), data.getStringInterner(country));
+    assertNull(data.getStringInterner(id));
+    data.setStringInternCapacity(16);
+    assertNotNull(data.getStringInterner(id));
+  }
+
+  @Test
+  public void testReaders() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(SCHEMA);
+    for (int i = 0; i < 2; i++) {
+      GenericRecord record = new GenericData.Record(SCHEMA);
+      record.put("country", "NL");
+      record.put("status", "OK");
+      record.put("id", "id" + i);
+      writer.write(record, encoder);
+    }
+    encoder.flush();
+    byte[] bytes = out.toByteArray();
+
+    GenericData[] models = { new GenericData(), new GenericData().setFastReaderEnabled(true),
+        new GenericData().setCompiledCodecEnabled(true) };
+    for (GenericData data : models) {
+      GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA, SCHEMA, data);
+      BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+      GenericRecord first = reader.read(null, in);
+      GenericRecord second = reader.read(null, in);
+      assertEquals(new Utf8("NL"), first.get("country"));
+      assertEquals("OK", first.get("status"));
+      assertSame(first.get("country"), second.get("country"));
+      assertSame(first.get("status"), second.get("status"));
+      assertNotSame(first.get("id"), second.get("id"));
+
+      // reusing a record must not overwrite the interned values
+      GenericRecord reused = reader.read(first, DecoderFactory.get().binaryDecoder(bytes, null));
+      assertEquals(new Utf8("NL"), second.get("country"));
+      assertSame(second.get("country"), reused.get("country"));
+    }
+  }
+}
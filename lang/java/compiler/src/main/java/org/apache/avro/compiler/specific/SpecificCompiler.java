@@ -39,6 +39,7 @@ import java.util.Set;
 
 import org.apache.avro.Conversion;
 import org.apache.avro.Conversions;
+import org.apache.avro.LogicalType;
 import org.apache.avro.LogicalTypes;
 import org.apache.avro.data.TimeConversions;
 import org.apache.avro.specific.SpecificData;
@@ -293,7 +294,7 @@ public class SpecificCompiler {
       return result;
     }
 
-    Conversion<?> conversion = specificData.getConversionFor(LogicalTypes.fromSchemaIgnoreInvalid(schema));
+    Conversion<?> conversion = getConversionFor(LogicalTypes.fromSchemaIgnoreInvalid(schema));
     if (conversion != null)
       result.add(conversion);
 
@@ -349,6 +350,22 @@ public class SpecificCompiler {
     velocityEngine.setProperty("parser.space_gobbling", "bc");
   }
 
+  /**
+   * Returns the conversion registered for a logical type. A custom
+   * {@link Conversions.UnscaledDecimalConversion} replaces the
+   * {@link Conversions.DecimalConversion}, as a model can only hold one
+   * conversion for "decimal", so decimals too wide for it are rejected.
+   */
+  private Conversion<?> getConversionFor(LogicalType logicalType) {
+    Conversion<?> conversion = specificData.getConversionFor(logicalType);
+    if (enableDecimalLogicalType && conversion instanceof Conversions.UnscaledDecimalConversion
+        && !Conversions.UnscaledDecimalConversion.supports(logicalType)) {
+      throw new RuntimeException("Decimals with a precision of " + ((LogicalTypes.Decimal) logicalType).getPrecision()
+          + " do not fit the unscaled long of " + conversion.getClass().getName());
+    }
+    return conversion;
+  }
+
   private void initializeSpecificData() {
     addLogicalTypeConversions(specificData);
     specificData.addLogicalTypeConversion(new Conversions.DecimalConversion());
@@ -785,7 +802,7 @@ public class SpecificCompiler {
 
   private String getConvertedLogicalType(Schema schema) {
     if (enableDecimalLogicalType || !(schema.getLogicalType() instanceof LogicalTypes.Decimal)) {
-      Conversion<?> conversion = specificData.getConversionFor(schema.getLogicalType());
+      Conversion<?> conversion = getConversionFor(schema.getLogicalType());
       if (conversion != null) {
         return conversion.getConvertedType().getName();
       }
@@ -797,7 +814,7 @@ public class SpecificCompiler {
    * Utility for template use.
    */
   public String generateSetterCode(Schema schema, String name, String pname) {
-    Conversion<?> conversion = specificData.getConversionFor(schema.getLogicalType());
+    Conversion<?> conversion = getConversionFor(schema.getLogicalType());
     if (conversion != null) {
       return conversion.adjustAndSetValue("this." + name, pname);
     }
@@ -924,7 +941,7 @@ public class SpecificCompiler {
       return "null";
     }
 
-    final Conversion<Object> conversion = specificData.getConversionFor(schema.getLogicalType());
+    final Conversion<?> conversion = getConversionFor(schema.getLogicalType());
     if (conversion != null) {
       return "new " + conversion.getClass().getCanonicalName() + "()";
     }
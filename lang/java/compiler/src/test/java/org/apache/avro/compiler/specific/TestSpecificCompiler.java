@@ -36,6 +36,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.avro.Conversions;
 import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
@@ -687,6 +688,40 @@ public class TestSpecificCompiler {
         compiler.conversionInstance(uuidSchema));
   }
 
+  @Test
+  public void testUnscaledDecimalConversion() throws Exception {
+    Schema decimal = LogicalTypes.decimal(18, 4).addToSchema(Schema.create(Schema.Type.BYTES));
+    Schema schema = SchemaBuilder.record("WithUnscaledDecimals").namespace("unscaled").fields().name("amount")
+        .type(decimal).noDefault().name("optionalAmount")
+        .type(Schema.createUnion(Schema.create(Schema.Type.NULL), decimal)).withDefault(null).endRecord();
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    compiler.setEnableDecimalLogicalType(true);
+    compiler.addCustomConversion(Conversions.UnscaledDecimalConversion.class);
+
+    assertEquals("new org.apache.avro.Conversions.UnscaledDecimalConversion()", compiler.conversionInstance(decimal));
+    assertEquals(Collections.singleton("org.apache.avro.Conversions.UnscaledDecimalConversion"),
+        compiler.getUsedConversionClasses(schema));
+    assertEquals("java.lang.Long", compiler.javaType(decimal));
+
+    Collection<SpecificCompiler.OutputFile> outputs = compiler.compile();
+    String contents = outputs.iterator().next().contents;
+    assertTrue(contents, contents.contains("private java.lang.Long amount;"));
+    assertTrue(contents, contents
+        .contains("MODEL$.addLogicalTypeConversion(new org.apache.avro.Conversions.UnscaledDecimalConversion());"));
+    assertFalse(contents, contents.contains("new org.apache.avro.Conversions.DecimalConversion()"));
+    assertCompilesWithJavaCompiler(new File(OUTPUT_DIR.getRoot(), name.getMethodName()), outputs, true);
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testUnscaledDecimalConversionRejectsWideDecimals() throws Exception {
+    Schema schema = SchemaBuilder.record("WithWideDecimal").fields().name("amount")
+        .type(LogicalTypes.decimal(30, 4).addToSchema(Schema.create(Schema.Type.BYTES))).noDefault().endRecord();
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    compiler.setEnableDecimalLogicalType(true);
+    compiler.addCustomConversion(Conversions.UnscaledDecimalConversion.class);
+    compiler.compile();
+  }
+
   @Test
   public void testPojoWithOptionalTurnedOffByDefault() throws IOException {
     SpecificCompiler compiler = createCompiler();
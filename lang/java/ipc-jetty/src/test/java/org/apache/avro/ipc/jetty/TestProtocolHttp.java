@@ -17,6 +17,7 @@
  */
 package org.apache.avro.ipc.jetty;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -24,6 +25,7 @@ import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Protocol;
 import org.apache.avro.Schema;
 import org.apache.avro.TestProtocolSpecific;
+import org.apache.avro.ipc.CallFuture;
 import org.apache.avro.ipc.Server;
 import org.apache.avro.ipc.Transceiver;
 import org.apache.avro.ipc.Responder;
@@ -36,10 +38,18 @@ import org.apache.avro.test.Simple;
 import org.junit.Test;
 
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.net.ServerSocket;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class TestProtocolHttp extends TestProtocolSpecific {
 
@@ -90,4 +100,61 @@ public class TestProtocolHttp extends TestProtocolSpecific {
     requestor.request("ack", new GenericData.Record(message.getRequest()));
   }
 
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    Simple proxy = SpecificRequestor.getClient(Simple.class, createTransceiver());
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        int arg = i;
+        results.add(threads.submit(() -> proxy.add(arg, 1)));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(i + 1, (int) results.get(i).get());
+      }
+    } finally {
+      threads.shutdown();
+    }
+  }
+
+  @Test
+  public void testExecutor() throws Exception {
+    HttpTransceiver client = (HttpTransceiver) createTransceiver();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    client.setExecutor(executor);
+    try {
+      Simple.Callback proxy = SpecificRequestor.getClient(Simple.Callback.class, client);
+      List<CallFuture<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        CallFuture<Integer> future = new CallFuture<>();
+        proxy.add(i, 1, future);
+        futures.add(future);
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        assertEquals(i + 1, (int) futures.get(i).get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testExecutorReportsRuntimeExceptions() throws Exception {
+    // a file URL has no HttpURLConnection, so posting throws a ClassCastException
+    HttpTransceiver client = new HttpTransceiver(new URL("file:///nonexistent"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    client.setExecutor(executor);
+    try {
+      CallFuture<List<ByteBuffer>> future = new CallFuture<>();
+      client.transceive(Collections.singletonList(ByteBuffer.allocate(1)), future);
+      future.get(10, TimeUnit.SECONDS);
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ClassCastException);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
 }
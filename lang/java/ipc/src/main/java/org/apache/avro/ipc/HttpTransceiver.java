@@ -27,10 +27,22 @@ import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.net.URL;
 import java.net.HttpURLConnection;
 
-/** An HTTP-based {@link Transceiver} implementation. */
+/**
+ * An HTTP-based {@link Transceiver} implementation.
+ * <p/>
+ * Every call to {@link #transceive(List)} posts on its own connection, so
+ * concurrent callers do not wait for each other. Responses are read completely
+ * and their streams closed, which lets the JDK keep the connections alive and
+ * reuse them for later calls; the size of that pool is set by the
+ * <tt>http.maxConnections</tt> system property. When an {@link Executor} is set
+ * with {@link #setExecutor(Executor)}, {@link #transceive(List, Callback)}
+ * returns immediately and the callback is invoked from the executor.
+ */
 public class HttpTransceiver extends Transceiver {
   static final String CONTENT_TYPE = "avro/binary";
 
@@ -38,6 +50,7 @@ public class HttpTransceiver extends Transceiver {
   private Proxy proxy;
   private HttpURLConnection connection;
   private int timeout;
+  private volatile Executor executor;
 
   public HttpTransceiver(URL url) {
     this.url = url;
@@ -53,20 +66,62 @@ public class HttpTransceiver extends Transceiver {
     this.timeout = timeout;
   }
 
+  /**
+   * Sets the executor that runs calls made through
+   * {@link #transceive(List, Callback)}. If none is set, such calls complete
+   * before returning, as with other transceivers.
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
   @Override
   public String getRemoteName() {
     return this.url.toString();
   }
 
   @Override
-  public synchronized List<ByteBuffer> readBuffers() throws IOException {
-    try (InputStream in = connection.getInputStream()) {
-      return readBuffers(in);
+  public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+    HttpURLConnection connection = post(request);
+    return readResponse(connection);
+  }
+
+  @Override
+  public void transceive(List<ByteBuffer> request, Callback<List<ByteBuffer>> callback) throws IOException {
+    Executor executor = this.executor;
+    if (executor == null) {
+      super.transceive(request, callback);
+      return;
     }
+    try {
+      executor.execute(() -> {
+        List<ByteBuffer> response;
+        try {
+          response = transceive(request);
+        } catch (Exception e) {
+          // any failure must reach the callback, or a CallFuture waits forever
+          callback.handleError(e);
+          return;
+        }
+        callback.handleResult(response);
+      });
+    } catch (RejectedExecutionException e) {
+      throw new IOException("Call rejected by executor", e);
+    }
+  }
+
+  @Override
+  public synchronized List<ByteBuffer> readBuffers() throws IOException {
+    return readResponse(connection);
   }
 
   @Override
   public synchronized void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+    connection = post(buffers);
+  }
+
+  private HttpURLConnection post(List<ByteBuffer> buffers) throws IOException {
+    HttpURLConnection connection;
     if (proxy == null)
       connection = (HttpURLConnection) url.openConnection();
     else
@@ -74,7 +129,8 @@ public class HttpTransceiver extends Transceiver {
 
     connection.setRequestMethod("POST");
     connection.setRequestProperty("Content-Type", CONTENT_TYPE);
-    connection.setRequestProperty("Content-Length", Integer.toString(getLength(buffers)));
+    // stream the body instead of having the connection buffer it
+    connection.setFixedLengthStreamingMode(getLength(buffers));
     connection.setDoOutput(true);
     connection.setReadTimeout(timeout);
     connection.setConnectTimeout(timeout);
@@ -82,6 +138,26 @@ public class HttpTransceiver extends Transceiver {
     try (OutputStream out = connection.getOutputStream()) {
       writeBuffers(buffers, out);
     }
+    return connection;
+  }
+
+  private static List<ByteBuffer> readResponse(HttpURLConnection connection) throws IOException {
+    try (InputStream in = connection.getInputStream()) {
+      return readBuffers(in);
+    } catch (IOException e) {
+      // consume the error body so the connection can be kept alive
+      try (InputStream error = connection.getErrorStream()) {
+        if (error != null) {
+          byte[] skip = new byte[1024];
+          while (error.read(skip) >= 0) {
+            // discard
+          }
+        }
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
   }
 
   static int getLength(List<ByteBuffer> buffers) {
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Server} for a client in another process on the same host, which
+ * connects with a {@link MappedFileTransceiver} to the file this creates. The
+ * file is sized for a ring of the given capacity in each direction; messages
+ * larger than that stream through the ring. The server answers a single client,
+ * whose requests it reads in order.
+ */
+public class MappedFileServer extends Thread implements Server {
+  private static final Logger LOG = LoggerFactory.getLogger(MappedFileServer.class);
+
+  /** The default capacity, in bytes, of the ring for each direction. */
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+
+  private final Responder responder;
+  private final File file;
+  private final MappedFileTransceiver xc;
+
+  public MappedFileServer(Responder responder, File file) throws IOException {
+    this(responder, file, DEFAULT_CAPACITY);
+  }
+
+  public MappedFileServer(Responder responder, File file, int capacity) throws IOException {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    this.responder = responder;
+    this.file = file;
+    this.xc = new MappedFileTransceiver(file, MappedFileTransceiver.map(file, capacity), true);
+    xc.clear();
+
+    setName("MappedFileServer on " + file);
+    setDaemon(true);
+  }
+
+  /** Returns the file that clients connect to. */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Sets the process of the client, so that the server stops once that process
+   * has exited.
+   */
+  public void setPeer(Process peer) {
+    xc.setPeer(peer);
+  }
+
+  /** Returns zero, since this server listens on no port. */
+  @Override
+  public int getPort() {
+    return 0;
+  }
+
+  @Override
+  public void run() {
+    LOG.info("starting " + file);
+    try {
+      while (true) {
+        xc.writeBuffers(responder.respond(xc.readBuffers(), xc));
+      }
+    } catch (EOFException | ClosedChannelException e) {
+    } catch (IOException e) {
+      LOG.warn("unexpected error", e);
+    } finally {
+      LOG.info("stopping " + file);
+      try {
+        xc.close();
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      xc.close();
+    } catch (IOException e) {
+    }
+    interrupt();
+  }
+}
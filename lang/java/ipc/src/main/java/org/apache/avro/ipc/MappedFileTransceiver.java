@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.avro.Protocol;
+
+/**
+ * A {@link Transceiver} for processes on the same host that share a
+ * memory-mapped file, created by a {@link MappedFileServer}. The file holds a
+ * ring of bytes for each direction, so messages pass without copies through a
+ * network stack. A side that waits for the other spins, then parks its thread.
+ * Messages are framed as by {@link SocketTransceiver}. Each file connects one
+ * client to its server.
+ * <p>
+ * The file holds two rings of equal capacity, which is half the file's length
+ * less a header of 256 bytes each: first the ring of requests, then the ring of
+ * responses. See {@link MappedRing} for the layout of a ring, which peers in
+ * other languages may implement.
+ */
+public class MappedFileTransceiver extends Transceiver {
+  private static final Logger LOG = LoggerFactory.getLogger(MappedFileTransceiver.class);
+
+  private final File file;
+  private final MappedRing in;
+  private final MappedRing out;
+  private final ByteBuffer readHeader = ByteBuffer.allocate(4);
+  private final ByteBuffer writeHeader = ByteBuffer.allocate(4);
+
+  private Protocol remote;
+
+  /** Connects to the server that created the file. */
+  public MappedFileTransceiver(File file) throws IOException {
+    this(file, map(file, -1), false);
+  }
+
+  MappedFileTransceiver(File file, MappedByteBuffer map, boolean server) {
+    this.file = file;
+    int capacity = map.capacity() / 2 - MappedRing.HEADER_SIZE;
+    MappedRing requests = new MappedRing(map, capacity);
+    ((Buffer) map).position(MappedRing.size(capacity));
+    MappedRing responses = new MappedRing(map, capacity);
+    this.in = server ? requests : responses;
+    this.out = server ? responses : requests;
+    LOG.info("open to " + getRemoteName());
+  }
+
+  /**
+   * Maps the file, first sizing it for rings of the given capacity if that is not
+   * negative.
+   */
+  static MappedByteBuffer map(File file, int capacity) throws IOException {
+    if (capacity < 0 && !file.exists())
+      throw new IOException("No such file: " + file);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      if (capacity >= 0)
+        raf.setLength(2L * MappedRing.size(capacity));
+      return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+    }
+  }
+
+  /**
+   * Sets the process at the other end, so that a read or write waiting for it
+   * fails once that process has exited. A process that crashes never closes the
+   * rings, so without this such a wait lasts forever.
+   */
+  public void setPeer(Process peer) {
+    in.setPeerAlive(peer::isAlive);
+    out.setPeerAlive(peer::isAlive);
+  }
+
+  /** Empties both rings. Called by the server before any client connects. */
+  void clear() {
+    in.clear();
+    out.clear();
+  }
+
+  @Override
+  public String getRemoteName() {
+    return file.getPath();
+  }
+
+  @Override
+  public synchronized List<ByteBuffer> readBuffers() throws IOException {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    while (true) {
+      ((Buffer) readHeader).clear();
+      in.read(readHeader);
+      ((Buffer) readHeader).flip();
+      int length = readHeader.getInt();
+      if (length == 0) { // end of buffers
+        return buffers;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      in.read(buffer);
+      ((Buffer) buffer).flip();
+      buffers.add(buffer);
+    }
+  }
+
+  @Override
+  public synchronized void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+    if (buffers == null)
+      return; // no data to write
+    for (ByteBuffer buffer : buffers) {
+      if (buffer.remaining() == 0)
+        continue;
+      writeLength(buffer.remaining()); // length-prefix
+      out.write(buffer);
+    }
+    writeLength(0); // null-terminate
+  }
+
+  private void writeLength(int length) throws IOException {
+    ((Buffer) writeHeader).clear();
+    writeHeader.putInt(length);
+    ((Buffer) writeHeader).flip();
+    out.write(writeHeader);
+  }
+
+  @Override
+  public boolean isConnected() {
+    return remote != null;
+  }
+
+  @Override
+  public void setRemote(Protocol remote) {
+    this.remote = remote;
+  }
+
+  @Override
+  public Protocol getRemote() {
+    return remote;
+  }
+
+  /** Closes both rings, so that the other side stops once it has read them. */
+  @Override
+  public void close() throws IOException {
+    in.close();
+    out.close();
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A ring of bytes in a region of a memory-mapped file, written by one process
+ * and read by another.
+ * <p>
+ * The region is laid out as follows. All numbers are big-endian.
+ * <ul>
+ * <li>At offset 0, a long: the number of bytes ever written.</li>
+ * <li>At offset 64, a long: the number of bytes ever read.</li>
+ * <li>At offset 128, an int: nonzero once either side has closed the ring.</li>
+ * <li>From offset 256, the data: the byte with index n, counting from zero over
+ * all bytes ever written, is at offset 256 + n % capacity.</li>
+ * </ul>
+ * The ring is full when the two numbers differ by the capacity, and empty when
+ * they are equal.
+ * <p>
+ * Each side must order its accesses to the region as follows, and peers in
+ * other languages must do the same with their own fences. The writer stores the
+ * bytes before it stores the raised number written, and loads the number read
+ * before it overwrites the bytes that number frees. The reader loads the number
+ * written before it loads the bytes that number covers, and loads them before
+ * it stores the raised number read. A full memory fence separates each such
+ * pair.
+ * <p>
+ * The Java memory model does not cover a file mapped by two processes, and Java
+ * 8 has no public fence. This class fences with an atomic update of an
+ * unrelated field, which relies on HotSpot behavior. HotSpot compiles the
+ * update to an instruction that is a full fence on the processors it supports,
+ * and it does not move the buffer's loads and stores across the update. Other
+ * virtual machines may reorder them.
+ * <p>
+ * A side that finds the ring full or empty spins briefly, then parks for
+ * increasing intervals of up to ten milliseconds until the other side catches
+ * up. If a check of the other side's liveness was set, it fails the wait once
+ * the other side is gone, since a crashed peer never closes the ring.
+ */
+class MappedRing {
+  static final int HEADER_SIZE = 256;
+
+  private static final int WRITTEN = 0;
+  private static final int READ = 64;
+  private static final int CLOSED = 128;
+
+  private static final int SPINS = 1000;
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final ByteBuffer header;
+  private final ByteBuffer data;
+  private final int capacity;
+
+  // updated atomically for its memory fence only, see fence()
+  private final AtomicLong fence = new AtomicLong();
+
+  private volatile BooleanSupplier peerAlive;
+  private boolean peerGone;
+
+  /** Uses the region of the mapped file that starts at the buffer's position. */
+  MappedRing(ByteBuffer mapped, int capacity) {
+    ByteBuffer region = mapped.duplicate();
+    ((Buffer) region).limit(region.position() + HEADER_SIZE + capacity);
+    this.header = region.slice();
+    ((Buffer) region).position(region.position() + HEADER_SIZE);
+    this.data = region.slice();
+    this.capacity = capacity;
+  }
+
+  /** Returns the size of the region used by a ring of the given capacity. */
+  static int size(int capacity) {
+    return HEADER_SIZE + capacity;
+  }
+
+  /**
+   * Sets the check of whether the other side is alive, made while waiting for it.
+   */
+  void setPeerAlive(BooleanSupplier peerAlive) {
+    this.peerAlive = peerAlive;
+  }
+
+  /** Resets the ring to be empty and open. */
+  void clear() {
+    header.putLong(WRITTEN, 0);
+    header.putLong(READ, 0);
+    header.putInt(CLOSED, 0);
+    fence();
+  }
+
+  /** Writes all of the buffer, waiting for the reader to make room. */
+  synchronized void write(ByteBuffer src) throws IOException {
+    long written = header.getLong(WRITTEN);
+    int idle = 0;
+    while (src.hasRemaining()) {
+      long free = capacity - (written - header.getLong(READ));
+      fence(); // see the bytes freed before overwriting them
+      if (free == 0) {
+        idle = await(idle);
+        continue;
+      }
+      idle = 0;
+      int offset = (int) (written % capacity);
+      int length = (int) Math.min(Math.min(free, src.remaining()), capacity - offset);
+      ByteBuffer chunk = src.duplicate();
+      ((Buffer) chunk).limit(chunk.position() + length);
+      ((Buffer) data).position(offset);
+      data.put(chunk);
+      ((Buffer) src).position(src.position() + length);
+      written += length;
+      fence(); // publish the bytes before the count
+      header.putLong(WRITTEN, written);
+    }
+  }
+
+  /** Fills the buffer, waiting for the writer to provide enough bytes. */
+  synchronized void read(ByteBuffer dst) throws IOException {
+    long read = header.getLong(READ);
+    int idle = 0;
+    while (dst.hasRemaining()) {
+      long available = header.getLong(WRITTEN) - read;
+      fence(); // see the bytes counted
+      if (available == 0) {
+        idle = await(idle);
+        continue;
+      }
+      idle = 0;
+      int offset = (int) (read % capacity);
+      int length = (int) Math.min(Math.min(available, dst.remaining()), capacity - offset);
+      ((Buffer) data).limit(offset + length).position(offset);
+      dst.put(data);
+      ((Buffer) data).limit(capacity);
+      read += length;
+      fence(); // finish reading the bytes before freeing them
+      header.putLong(READ, read);
+    }
+  }
+
+  /** Marks the ring closed, which stops both sides. */
+  void close() {
+    header.putInt(CLOSED, 1);
+    fence();
+  }
+
+  /**
+   * A full memory fence, which Java 8 offers no public API for. The memory model
+   * does not promise that an atomic update of an unrelated field orders the
+   * mapped file's loads and stores. HotSpot does order them, as its atomic update
+   * is a full fence in both the compiler and the processor.
+   */
+  private void fence() {
+    fence.getAndIncrement();
+  }
+
+  private int await(int idle) throws IOException {
+    if (header.getInt(CLOSED) != 0)
+      throw new ClosedChannelException();
+    if (idle < SPINS) {
+      Thread.yield();
+    } else {
+      BooleanSupplier peerAlive = this.peerAlive;
+      if (peerAlive != null && !peerAlive.getAsBoolean()) {
+        // look at the ring once more, for what the peer wrote before it went
+        if (peerGone)
+          throw new IOException("The other side of the ring is gone");
+        peerGone = true;
+        return idle;
+      }
+      LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(idle - SPINS, 14)));
+      if (Thread.currentThread().isInterrupted())
+        throw new ClosedByInterruptException();
+    }
+    return idle + 1;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tags the calls sent over a connection with serial numbers, so that many can
+ * be outstanding at once and their responses can arrive in any order. Both
+ * sides agree to this in the handshake: a client offers it by sending
+ * {@link #HANDSHAKE_META} in its handshake request meta, and a server that
+ * supports it echoes the key in its response. Only the calls that follow the
+ * handshake are tagged.
+ * <p/>
+ * The serial is sent as a four-byte buffer ahead of the call's own buffers.
+ * Instances of this class hold the client side of a connection: the callbacks
+ * of outstanding calls and a thread that reads responses and passes each to the
+ * callback registered for its serial.
+ */
+class Multiplexer implements Runnable {
+  private static final Logger LOG = LoggerFactory.getLogger(Multiplexer.class);
+
+  /** The handshake meta key with which each side agrees to tag calls. */
+  static final String HANDSHAKE_META = "avro.multiplexed";
+
+  /** The framing that calls are tagged on top of. */
+  interface Connection {
+    /** Reads the buffers of one response. Only called by the reader thread. */
+    List<ByteBuffer> read() throws IOException;
+
+    /** Writes the buffers of one call. May be called by any thread. */
+    void write(List<ByteBuffer> buffers) throws IOException;
+  }
+
+  private final Connection connection;
+  private final AtomicInteger serialGenerator = new AtomicInteger();
+  private final Map<Integer, Callback<List<ByteBuffer>>> requests = new ConcurrentHashMap<>();
+  private volatile IOException failure;
+
+  Multiplexer(Connection connection, String name) {
+    this.connection = connection;
+    Thread reader = new Thread(this, "Responses from " + name);
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  /** Prepends a serial to the buffers of a call. */
+  static List<ByteBuffer> tag(int serial, List<ByteBuffer> buffers) {
+    List<ByteBuffer> tagged = new ArrayList<>(buffers.size() + 1);
+    ByteBuffer header = ByteBuffer.allocate(4).putInt(serial);
+    ((Buffer) header).flip();
+    tagged.add(header);
+    tagged.addAll(buffers);
+    return tagged;
+  }
+
+  /**
+   * Removes the serial from the front of the buffers of a call and returns it.
+   */
+  static int untag(List<ByteBuffer> buffers) throws IOException {
+    if (buffers.isEmpty() || buffers.get(0).remaining() < 4)
+      throw new IOException("Call is missing its serial");
+    ByteBuffer first = buffers.get(0);
+    int serial = first.getInt();
+    if (!first.hasRemaining())
+      buffers.remove(0);
+    return serial;
+  }
+
+  /** Sends a call whose response is passed to the callback. */
+  void transceive(List<ByteBuffer> request, Callback<List<ByteBuffer>> callback) throws IOException {
+    int serial = serialGenerator.incrementAndGet();
+    requests.put(serial, callback);
+    try {
+      checkFailure();
+      connection.write(tag(serial, request));
+    } catch (IOException e) {
+      requests.remove(serial);
+      throw e;
+    }
+  }
+
+  /** Sends a call and waits for its response. */
+  List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+    CallFuture<List<ByteBuffer>> future = new CallFuture<>();
+    transceive(request, future);
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a response", e);
+    } catch (ExecutionException e) {
+      Throwable error = e.getCause();
+      if (error instanceof IOException)
+        throw (IOException) error;
+      throw new IOException(error);
+    }
+  }
+
+  /** Sends a call that has no response. */
+  void write(List<ByteBuffer> buffers) throws IOException {
+    checkFailure();
+    connection.write(tag(serialGenerator.incrementAndGet(), buffers));
+  }
+
+  private void checkFailure() throws IOException {
+    IOException failure = this.failure;
+    if (failure != null)
+      throw new IOException("Connection failed", failure);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        List<ByteBuffer> response = connection.read();
+        int serial = untag(response);
+        Callback<List<ByteBuffer>> callback = requests.remove(serial);
+        if (callback == null) {
+          LOG.warn("Missing previous call info for serial {}", serial);
+          continue;
+        }
+        try {
+          callback.handleResult(response);
+        } catch (RuntimeException e) {
+          LOG.error("Error in callback handler: " + e, e);
+        }
+      }
+    } catch (IOException e) {
+      failure = e;
+      // fail every outstanding call, including any registered concurrently
+      for (Integer serial : requests.keySet()) {
+        Callback<List<ByteBuffer>> callback = requests.remove(serial);
+        if (callback != null)
+          callback.handleError(e);
+      }
+    }
+  }
+}
@@ -59,6 +59,9 @@ public abstract class Requestor {
   private final Protocol local;
   private volatile Protocol remote;
   private volatile boolean sendLocalText;
+  // whether a handshake has succeeded, which lets two-way requests over
+  // transceivers that never stay connected skip the handshake lock
+  private volatile boolean handshakeEstablished;
   private final Transceiver transceiver;
   private final ReentrantLock handshakeLock = new ReentrantLock();
 
@@ -138,7 +141,7 @@ public abstract class Requestor {
   /** Writes a request message and returns the result through a Callback. */
   <T> void request(Request request, Callback<T> callback) throws AvroRemoteException, IOException {
     Transceiver t = getTransceiver();
-    if (!t.isConnected()) {
+    if (!t.isConnected() && (request.getMessage().isOneWay() || !handshakeEstablished)) {
       // Acquire handshake lock so that only one thread is performing the
       // handshake and other threads block until the handshake is completed
       handshakeLock.lock();
@@ -230,6 +233,8 @@ public abstract class Requestor {
       plugin.clientStartConnect(context);
     }
     handshake.setMeta(context.requestHandshakeMeta());
+    if (transceiver.offersMultiplexing())
+      handshake.getMeta().put(Multiplexer.HANDSHAKE_META, ByteBuffer.allocate(0));
 
     HANDSHAKE_WRITER.write(handshake, out);
   }
@@ -264,14 +269,21 @@ public abstract class Requestor {
     for (RPCPlugin plugin : rpcMetaPlugins) {
       plugin.clientFinishConnect(context);
     }
-    if (established)
+    if (established) {
+      handshakeEstablished = true;
+      Map<String, ByteBuffer> meta = handshake.getMeta();
+      if (meta != null && meta.containsKey(Multiplexer.HANDSHAKE_META))
+        getTransceiver().startMultiplexing();
       getTransceiver().setRemote(remote);
+    }
     return established;
   }
 
   private void setRemote(HandshakeResponse handshake) throws IOException {
-    remote = Protocol.parse(handshake.getServerProtocol().toString());
     MD5 remoteHash = handshake.getServerHash();
+    // like the Responder, only parse protocols not seen before
+    Protocol known = REMOTE_PROTOCOLS.get(remoteHash);
+    remote = known != null ? known : Protocol.parse(handshake.getServerProtocol().toString());
     REMOTE_HASHES.put(transceiver.getRemoteName(), remoteHash);
     REMOTE_PROTOCOLS.putIfAbsent(remoteHash, remote);
   }
@@ -229,6 +229,10 @@ public abstract class Responder {
     for (RPCPlugin plugin : rpcMetaPlugins) {
       plugin.serverConnecting(context);
     }
+    Map<String, ByteBuffer> meta = request.getMeta();
+    if (connection != null && response.getMatch() != HandshakeMatch.NONE && meta != null
+        && meta.containsKey(Multiplexer.HANDSHAKE_META) && connection.acceptMultiplexing())
+      context.responseHandshakeMeta().put(Multiplexer.HANDSHAKE_META, ByteBuffer.allocate(0));
     handshakeWriter.write(response, out);
 
     if (connection != null && response.getMatch() != HandshakeMatch.NONE)
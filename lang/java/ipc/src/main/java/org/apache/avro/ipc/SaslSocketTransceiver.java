@@ -58,6 +58,12 @@ public class SaslSocketTransceiver extends Transceiver {
   private boolean dataIsWrapped;
   private boolean saslResponsePiggybacked;
 
+  private boolean offerMultiplexing;
+  private volatile Multiplexer multiplexer; // client side, once agreed
+  private boolean multiplexAccepted; // server side, after the next write
+  private boolean multiplexed; // server side
+  private int serial; // server side, of the call being answered
+
   private Protocol remote;
 
   private ByteBuffer readHeader = ByteBuffer.allocate(4);
@@ -109,22 +115,72 @@ public class SaslSocketTransceiver extends Transceiver {
     return channel.socket().getRemoteSocketAddress().toString();
   }
 
+  /**
+   * Whether to offer the server in the handshake to tag calls with serials. If
+   * the server agrees, any number of calls may then be outstanding at once over
+   * this transceiver, and {@link #transceive(List, Callback)} returns without
+   * waiting for the response. Must be set before the first call.
+   */
+  public void setMultiplexing(boolean offerMultiplexing) {
+    this.offerMultiplexing = offerMultiplexing;
+  }
+
   @Override
-  public synchronized List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
-    if (saslResponsePiggybacked) { // still need to read response
-      saslResponsePiggybacked = false;
-      Status status = readStatus();
-      ByteBuffer frame = readFrame();
-      switch (status) {
-      case COMPLETE:
-        break;
-      case FAIL:
-        throw new SaslException("Fail: " + toString(frame));
-      default:
-        throw new IOException("Unexpected SASL status: " + status);
+  boolean offersMultiplexing() {
+    return offerMultiplexing;
+  }
+
+  @Override
+  void startMultiplexing() {
+    multiplexer = new Multiplexer(new Multiplexer.Connection() {
+      @Override
+      public List<ByteBuffer> read() throws IOException {
+        return readFrames();
+      }
+
+      @Override
+      public void write(List<ByteBuffer> buffers) throws IOException {
+        writeFrames(buffers);
+      }
+    }, getRemoteName());
+  }
+
+  @Override
+  synchronized boolean acceptMultiplexing() {
+    multiplexAccepted = true;
+    return true;
+  }
+
+  @Override
+  public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+    Multiplexer multiplexer = this.multiplexer;
+    if (multiplexer != null)
+      return multiplexer.transceive(request);
+    synchronized (this) {
+      if (saslResponsePiggybacked) { // still need to read response
+        saslResponsePiggybacked = false;
+        Status status = readStatus();
+        ByteBuffer frame = readFrame();
+        switch (status) {
+        case COMPLETE:
+          break;
+        case FAIL:
+          throw new SaslException("Fail: " + toString(frame));
+        default:
+          throw new IOException("Unexpected SASL status: " + status);
+        }
       }
+      return super.transceive(request);
     }
-    return super.transceive(request);
+  }
+
+  @Override
+  public void transceive(List<ByteBuffer> request, Callback<List<ByteBuffer>> callback) throws IOException {
+    Multiplexer multiplexer = this.multiplexer;
+    if (multiplexer != null)
+      multiplexer.transceive(request, callback);
+    else
+      super.transceive(request, callback);
   }
 
   private void open(boolean isClient) throws IOException {
@@ -185,6 +241,32 @@ public class SaslSocketTransceiver extends Transceiver {
 
   @Override
   public synchronized List<ByteBuffer> readBuffers() throws IOException {
+    List<ByteBuffer> buffers = readFrames();
+    if (multiplexed)
+      serial = Multiplexer.untag(buffers);
+    return buffers;
+  }
+
+  @Override
+  boolean hasLengthPrefixedFrames() {
+    // a subclass may read requests differently
+    return getClass() == SaslSocketTransceiver.class;
+  }
+
+  @Override
+  synchronized List<ByteBuffer> readBuffers(List<ByteBuffer> frames) throws IOException {
+    List<ByteBuffer> buffers = new ArrayList<>(frames.size());
+    for (ByteBuffer frame : frames) {
+      buffers.add(dataIsWrapped ? ByteBuffer.wrap(sasl.unwrap(frame.array())) : frame);
+    }
+    if (multiplexed)
+      serial = Multiplexer.untag(buffers);
+    return buffers;
+  }
+
+  // reads are only made by one thread at a time, by a server's connection or a
+  // client's response reader, so they need no lock
+  private List<ByteBuffer> readFrames() throws IOException {
     List<ByteBuffer> buffers = new ArrayList<>();
     while (true) {
       ByteBuffer buffer = readFrameAndUnwrap();
@@ -229,7 +311,25 @@ public class SaslSocketTransceiver extends Transceiver {
   }
 
   @Override
-  public synchronized void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+  public void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+    Multiplexer multiplexer = this.multiplexer;
+    if (multiplexer != null) {
+      if (buffers != null)
+        multiplexer.write(buffers);
+      return;
+    }
+    synchronized (this) {
+      if (multiplexed && buffers != null)
+        buffers = Multiplexer.tag(serial, buffers);
+      writeFrames(buffers);
+      if (multiplexAccepted) { // the handshake response is not tagged
+        multiplexAccepted = false;
+        multiplexed = true;
+      }
+    }
+  }
+
+  private synchronized void writeFrames(List<ByteBuffer> buffers) throws IOException {
     if (buffers == null)
       return; // no data to write
     List<ByteBuffer> writes = new ArrayList<>(buffers.size() * 2 + 1);
@@ -353,14 +453,15 @@ public class SaslSocketTransceiver extends Transceiver {
         server.dispose();
     }
 
-    public byte[] unwrap(byte[] buf) throws SaslException {
+    // the response reader of a multiplexed client unwraps while callers wrap
+    public synchronized byte[] unwrap(byte[] buf) throws SaslException {
       if (client != null)
         return client.unwrap(buf, 0, buf.length);
       else
         return server.unwrap(buf, 0, buf.length);
     }
 
-    public byte[] wrap(byte[] buf, int start, int len) throws SaslException {
+    public synchronized byte[] wrap(byte[] buf, int start, int len) throws SaslException {
       if (client != null)
         return client.wrap(buf, start, len);
       else
@@ -22,9 +22,21 @@ import java.io.IOException;
 import java.io.EOFException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +49,17 @@ import org.apache.avro.ipc.generic.GenericResponder;
 /**
  * A socket-based server implementation. This uses a simple, non-standard wire
  * protocol and is not intended for production services.
+ * <p/>
+ * By default each connection is served by its own thread. After
+ * {@link #setWorkerThreads(int)}, idle connections are instead watched by a
+ * single {@link Selector}, which also reads requests as they arrive. A
+ * connection with a whole request read is handed to a fixed pool of threads
+ * that call {@link Responder#respond(List, Transceiver)} and write the response
+ * before returning the connection to the selector. The framing and handshakes
+ * are those of the {@link Transceiver} returned by
+ * {@link #getTransceiver(SocketChannel)} either way; transceivers of other
+ * types than {@link SocketTransceiver} and {@link SaslSocketTransceiver} read
+ * their requests on the workers.
  *
  * @deprecated use {@link SaslSocketServer} instead.
  */
@@ -47,6 +70,7 @@ public class SocketServer extends Thread implements Server {
   private Responder responder;
   private ServerSocketChannel channel;
   private ThreadGroup group;
+  private int workerThreads;
 
   public SocketServer(Responder responder, SocketAddress addr) throws IOException {
     String name = "SocketServer on " + addr;
@@ -66,10 +90,30 @@ public class SocketServer extends Thread implements Server {
     return channel.socket().getLocalPort();
   }
 
+  /**
+   * Serves connections with a selector and the given number of worker threads
+   * rather than a thread per connection. Must be called before the server is
+   * started. Zero, the default, selects a thread per connection.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 0)
+      throw new IllegalArgumentException("Negative worker thread count: " + workerThreads);
+    this.workerThreads = workerThreads;
+  }
+
   @Override
   public void run() {
     LOG.info("starting " + channel.socket().getInetAddress());
     try {
+      if (workerThreads > 0) {
+        try {
+          new Dispatcher().run();
+        } catch (IOException e) {
+          LOG.warn("unexpected error", e);
+          throw new RuntimeException(e);
+        }
+        return;
+      }
       while (true) {
         try {
           new Connection(channel.accept());
@@ -136,6 +180,197 @@ public class SocketServer extends Thread implements Server {
 
   }
 
+  /**
+   * Watches idle connections for requests and passes them to the workers. The
+   * frames of a request are read here without blocking, when the transceiver
+   * frames requests by length, so that slow or silent peers never hold a worker.
+   * Transceivers are created, which for SASL includes the negotiation, on threads
+   * of their own. Connections being served are deregistered from the selector and
+   * switched to blocking mode, so transceivers write them exactly as they do when
+   * served by a thread of their own.
+   */
+  private class Dispatcher {
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final ExecutorService openers;
+    private final Queue<SelectedConnection> returned = new ConcurrentLinkedQueue<>();
+
+    Dispatcher() throws IOException {
+      this.selector = Selector.open();
+      this.workers = Executors.newFixedThreadPool(workerThreads, threadFactory(" worker "));
+      this.openers = Executors.newCachedThreadPool(threadFactory(" opener "));
+    }
+
+    private ThreadFactory threadFactory(String kind) {
+      AtomicInteger count = new AtomicInteger();
+      return r -> {
+        Thread thread = new Thread(group, r, getName() + kind + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+    }
+
+    void run() throws IOException {
+      List<SelectedConnection> ready = new ArrayList<>();
+      try {
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_ACCEPT);
+        while (!isInterrupted()) {
+          selector.select();
+          do {
+            for (SelectedConnection c; (c = returned.poll()) != null;) {
+              c.register();
+            }
+            for (SelectionKey key : selector.selectedKeys()) {
+              if (key.isAcceptable()) {
+                SocketChannel accepted = channel.accept();
+                if (accepted != null)
+                  openers.execute(new SelectedConnection(accepted)::open);
+              } else {
+                SelectedConnection c = (SelectedConnection) key.attachment();
+                if (c.readRequest()) {
+                  key.cancel();
+                  ready.add(c);
+                }
+              }
+            }
+            selector.selectedKeys().clear();
+            if (ready.isEmpty())
+              break;
+            // complete deregistration so that workers may block on the channels
+            selector.selectNow();
+            for (SelectedConnection c : ready) {
+              workers.execute(c);
+            }
+            ready.clear();
+          } while (!selector.selectedKeys().isEmpty());
+        }
+      } catch (ClosedChannelException e) {
+      } finally {
+        workers.shutdownNow();
+        openers.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+          if (key.attachment() != null)
+            ((SelectedConnection) key.attachment()).close();
+        }
+        selector.close();
+      }
+    }
+
+    private class SelectedConnection implements Runnable {
+      private final SocketChannel channel;
+      private Transceiver xc;
+
+      // the request being read by the selector, if the transceiver frames
+      // requests by length
+      private final ByteBuffer header = ByteBuffer.allocate(4);
+      private ByteBuffer frame;
+      private List<ByteBuffer> frames = new ArrayList<>();
+
+      SelectedConnection(SocketChannel channel) {
+        this.channel = channel;
+      }
+
+      /** Creates the transceiver, then passes the connection to the selector. */
+      void open() {
+        try {
+          xc = getTransceiver(channel);
+          channel.configureBlocking(false);
+          returned.add(this);
+          selector.wakeup();
+        } catch (EOFException | ClosedChannelException e) {
+          close();
+        } catch (IOException | RuntimeException e) {
+          LOG.warn("unexpected error", e);
+          close();
+        }
+      }
+
+      /**
+       * Called by the selector when the channel is readable. Returns whether the
+       * connection is ready for a worker, i.e. a whole request has been read, or the
+       * transceiver reads requests itself.
+       */
+      boolean readRequest() {
+        if (!xc.hasLengthPrefixedFrames())
+          return true;
+        try {
+          while (true) {
+            if (frame == null) {
+              if (channel.read(header) < 0)
+                throw new EOFException();
+              if (header.hasRemaining())
+                return false;
+              ((Buffer) header).flip();
+              int length = header.getInt();
+              ((Buffer) header).clear();
+              if (length == 0) // end of buffers
+                return true;
+              if (length < 0)
+                throw new IOException("Invalid frame length: " + length);
+              frame = ByteBuffer.allocate(length);
+            }
+            if (channel.read(frame) < 0)
+              throw new EOFException();
+            if (frame.hasRemaining())
+              return false;
+            ((Buffer) frame).flip();
+            frames.add(frame);
+            frame = null;
+          }
+        } catch (EOFException e) {
+          close();
+        } catch (IOException e) {
+          LOG.warn("unexpected error", e);
+          close();
+        }
+        return false;
+      }
+
+      @Override
+      public void run() {
+        try {
+          channel.configureBlocking(true);
+          List<ByteBuffer> request;
+          if (xc.hasLengthPrefixedFrames()) {
+            request = xc.readBuffers(frames);
+            frames = new ArrayList<>();
+          } else {
+            request = xc.readBuffers();
+          }
+          xc.writeBuffers(responder.respond(request, xc));
+          channel.configureBlocking(false);
+          returned.add(this);
+          selector.wakeup();
+        } catch (EOFException | ClosedChannelException e) {
+          close();
+        } catch (IOException | RuntimeException e) {
+          LOG.warn("unexpected error", e);
+          close();
+        }
+      }
+
+      void register() {
+        try {
+          channel.register(selector, SelectionKey.OP_READ, this);
+        } catch (ClosedChannelException e) {
+          close();
+        }
+      }
+
+      void close() {
+        try {
+          if (xc != null)
+            xc.close();
+          else
+            channel.close();
+        } catch (IOException e) {
+          LOG.warn("unexpected error", e);
+        }
+      }
+    }
+  }
+
   public static void main(String[] arg) throws Exception {
     Responder responder = new GenericResponder(Protocol.parse("{\"protocol\": \"X\"}")) {
       @Override
@@ -43,9 +43,16 @@ public class SocketTransceiver extends Transceiver {
 
   private SocketChannel channel;
   private ByteBuffer header = ByteBuffer.allocate(4);
+  private ByteBuffer readHeader = ByteBuffer.allocate(4);
 
   private Protocol remote;
 
+  private boolean offerMultiplexing;
+  private volatile Multiplexer multiplexer; // client side, once agreed
+  private boolean multiplexAccepted; // server side, after the next write
+  private boolean multiplexed; // server side
+  private int serial; // server side, of the call being answered
+
   public SocketTransceiver(SocketAddress address) throws IOException {
     this(SocketChannel.open(address));
   }
@@ -61,17 +68,108 @@ public class SocketTransceiver extends Transceiver {
     return channel.socket().getRemoteSocketAddress().toString();
   }
 
+  /**
+   * Whether to offer the server in the handshake to tag calls with serials. If
+   * the server agrees, any number of calls may then be outstanding at once over
+   * this transceiver, and {@link #transceive(List, Callback)} returns without
+   * waiting for the response. Must be set before the first call.
+   */
+  public void setMultiplexing(boolean offerMultiplexing) {
+    this.offerMultiplexing = offerMultiplexing;
+  }
+
+  @Override
+  boolean offersMultiplexing() {
+    return offerMultiplexing;
+  }
+
+  @Override
+  void startMultiplexing() {
+    multiplexer = new Multiplexer(new Multiplexer.Connection() {
+      @Override
+      public List<ByteBuffer> read() throws IOException {
+        return readFrames();
+      }
+
+      @Override
+      public void write(List<ByteBuffer> buffers) throws IOException {
+        writeFrames(buffers);
+      }
+    }, getRemoteName());
+  }
+
+  @Override
+  synchronized boolean acceptMultiplexing() {
+    multiplexAccepted = true;
+    return true;
+  }
+
+  @Override
+  public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+    Multiplexer multiplexer = this.multiplexer;
+    if (multiplexer != null)
+      return multiplexer.transceive(request);
+    return super.transceive(request);
+  }
+
+  @Override
+  public void transceive(List<ByteBuffer> request, Callback<List<ByteBuffer>> callback) throws IOException {
+    Multiplexer multiplexer = this.multiplexer;
+    if (multiplexer != null)
+      multiplexer.transceive(request, callback);
+    else
+      super.transceive(request, callback);
+  }
+
   @Override
   public synchronized List<ByteBuffer> readBuffers() throws IOException {
+    return readBuffers(readFrames());
+  }
+
+  @Override
+  boolean hasLengthPrefixedFrames() {
+    // a subclass may read requests differently
+    return getClass() == SocketTransceiver.class;
+  }
+
+  @Override
+  synchronized List<ByteBuffer> readBuffers(List<ByteBuffer> frames) throws IOException {
+    if (multiplexed)
+      serial = Multiplexer.untag(frames);
+    return frames;
+  }
+
+  @Override
+  public void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+    Multiplexer multiplexer = this.multiplexer;
+    if (multiplexer != null) {
+      if (buffers != null)
+        multiplexer.write(buffers);
+      return;
+    }
+    synchronized (this) {
+      if (multiplexed && buffers != null)
+        buffers = Multiplexer.tag(serial, buffers);
+      writeFrames(buffers);
+      if (multiplexAccepted) { // the handshake response is not tagged
+        multiplexAccepted = false;
+        multiplexed = true;
+      }
+    }
+  }
+
+  // reads are only made by one thread at a time, by a server's connection or a
+  // client's response reader, so they need no lock
+  private List<ByteBuffer> readFrames() throws IOException {
     List<ByteBuffer> buffers = new ArrayList<>();
     while (true) {
-      ((Buffer) header).clear();
-      while (header.hasRemaining()) {
-        if (channel.read(header) < 0)
+      ((Buffer) readHeader).clear();
+      while (readHeader.hasRemaining()) {
+        if (channel.read(readHeader) < 0)
           throw new ClosedChannelException();
       }
-      ((Buffer) header).flip();
-      int length = header.getInt();
+      ((Buffer) readHeader).flip();
+      int length = readHeader.getInt();
       if (length == 0) { // end of buffers
         return buffers;
       }
@@ -85,8 +183,7 @@ public class SocketTransceiver extends Transceiver {
     }
   }
 
-  @Override
-  public synchronized void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+  private synchronized void writeFrames(List<ByteBuffer> buffers) throws IOException {
     if (buffers == null)
       return; // no data to write
     for (ByteBuffer buffer : buffers) {
@@ -111,6 +111,48 @@ public abstract class Transceiver implements Closeable {
     throw new IllegalStateException("Not connected.");
   }
 
+  /**
+   * Whether to offer in the handshake to tag calls with serials, so that many can
+   * be outstanding over this transceiver at once. False by default.
+   */
+  boolean offersMultiplexing() {
+    return false;
+  }
+
+  /**
+   * Called on the client side after the remote has agreed in the handshake to tag
+   * the calls that follow with serials. Does nothing by default.
+   */
+  void startMultiplexing() throws IOException {
+  }
+
+  /**
+   * Called on the server side when the remote offers in the handshake to tag
+   * calls with serials. Returns whether this transceiver agrees to tag the calls
+   * that follow the response being written; false by default.
+   */
+  boolean acceptMultiplexing() {
+    return false;
+  }
+
+  /**
+   * Whether requests arrive as buffers each prefixed by its length as a
+   * big-endian int and ended by a zero length, so that a server may read them off
+   * the wire itself and pass them to {@link #readBuffers(List)}. False by
+   * default.
+   */
+  boolean hasLengthPrefixedFrames() {
+    return false;
+  }
+
+  /**
+   * Called on the server side with the frames of a request that the server read
+   * off the wire. Returns the request, as {@link #readBuffers()} does.
+   */
+  List<ByteBuffer> readBuffers(List<ByteBuffer> frames) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public void close() throws IOException {
   }
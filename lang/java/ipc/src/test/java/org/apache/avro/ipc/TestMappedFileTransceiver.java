@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestMappedFileTransceiver {
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Echo\", \"messages\": { \"echo\": {"
+      + " \"request\": [{\"name\": \"x\", \"type\": \"bytes\"}], \"response\": \"bytes\"} } }");
+
+  @Rule
+  public TemporaryFolder dir = new TemporaryFolder();
+
+  private static class EchoResponder extends GenericResponder {
+    EchoResponder() {
+      super(PROTOCOL);
+    }
+
+    @Override
+    public Object respond(Message message, Object request) {
+      return ((GenericRecord) request).get("x");
+    }
+  }
+
+  /** Serves the echo protocol from a separate process. */
+  public static class Child {
+    public static void main(String[] args) throws Exception {
+      MappedFileServer server = new MappedFileServer(new EchoResponder(), new File(args[0]), 4096);
+      server.start();
+      System.out.println("ready");
+      System.out.flush();
+      server.join();
+    }
+  }
+
+  private static void checkEcho(Transceiver client) throws Exception {
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+    Random random = new Random(41);
+    // sizes on both sides of the ring's capacity, so that messages wrap
+    for (int size : new int[] { 0, 1, 1000, 4095, 4096, 4097, 100000 }) {
+      byte[] bytes = new byte[size];
+      random.nextBytes(bytes);
+      GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("echo").getRequest());
+      params.put("x", ByteBuffer.wrap(bytes));
+      assertEquals(ByteBuffer.wrap(bytes), requestor.request("echo", params));
+    }
+  }
+
+  @Test
+  public void testEcho() throws Exception {
+    File file = dir.newFile();
+    MappedFileServer server = new MappedFileServer(new EchoResponder(), file, 4096);
+    server.start();
+    try (Transceiver client = new MappedFileTransceiver(file)) {
+      checkEcho(client);
+    }
+    server.join(10000);
+    assertFalse(server.isAlive());
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    File file = dir.newFile();
+    MappedFileServer server = new MappedFileServer(new EchoResponder(), file);
+    server.start();
+    server.close();
+    server.join(10000);
+    assertFalse(server.isAlive());
+  }
+
+  /** Starts a child process serving the echo protocol from the file. */
+  private static Process startChild(File file) throws Exception {
+    Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(), "-classpath",
+        System.getProperty("java.class.path"), Child.class.getName(), file.getPath())
+            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+    for (String line = out.readLine(); !"ready".equals(line); line = out.readLine()) {
+      if (line == null)
+        throw new IllegalStateException("Child exited before it was ready");
+    }
+    return child;
+  }
+
+  @Test
+  public void testChildProcess() throws Exception {
+    File file = new File(dir.getRoot(), "ring");
+    Process child = startChild(file);
+    try {
+      try (Transceiver client = new MappedFileTransceiver(file)) {
+        checkEcho(client);
+      }
+      assertEquals(0, child.waitFor());
+    } finally {
+      child.destroy();
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testChildProcessDies() throws Exception {
+    File file = new File(dir.getRoot(), "ring");
+    Process child = startChild(file);
+    try (MappedFileTransceiver client = new MappedFileTransceiver(file)) {
+      client.setPeer(child);
+      child.destroy();
+      child.waitFor();
+      // the request fits the ring, but no response ever comes
+      GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("echo").getRequest());
+      params.put("x", ByteBuffer.wrap(new byte[10]));
+      try {
+        new GenericRequestor(PROTOCOL, client).request("echo", params);
+        fail("Expected an IOException");
+      } catch (IOException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("gone"));
+      }
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+@SuppressWarnings("deprecation")
+public class TestMultiplexing {
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Echo\", \"messages\": {"
+      + " \"echo\": {\"request\": [{\"name\": \"x\", \"type\": \"int\"}], \"response\": \"int\"},"
+      + " \"tick\": {\"request\": [], \"response\": \"null\", \"one-way\": true} } }");
+
+  @Parameters(name = "sasl={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { false }, { true } });
+  }
+
+  private final boolean sasl;
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger ticks = new AtomicInteger();
+  private SocketServer server;
+  private Transceiver client;
+
+  public TestMultiplexing(boolean sasl) {
+    this.sasl = sasl;
+  }
+
+  @Before
+  public void startServer() throws Exception {
+    Responder responder = new GenericResponder(PROTOCOL) {
+      @Override
+      public Object respond(Message message, Object request) throws Exception {
+        if (message.getName().equals("tick")) {
+          ticks.incrementAndGet();
+          return null;
+        }
+        Object x = ((GenericRecord) request).get("x");
+        // held until the client has sent the calls after it
+        if (x.equals(0) && !release.await(10, TimeUnit.SECONDS))
+          throw new IllegalStateException("Call was not released");
+        return x;
+      }
+    };
+    InetSocketAddress address = new InetSocketAddress(0);
+    server = sasl ? new SaslSocketServer(responder, address) : new SocketServer(responder, address);
+    server.start();
+    address = new InetSocketAddress(server.getPort());
+    if (sasl) {
+      SaslSocketTransceiver transceiver = new SaslSocketTransceiver(address);
+      transceiver.setMultiplexing(true);
+      client = transceiver;
+    } else {
+      SocketTransceiver transceiver = new SocketTransceiver(address);
+      transceiver.setMultiplexing(true);
+      client = transceiver;
+    }
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    release.countDown();
+    client.close();
+    server.close();
+  }
+
+  private static GenericRecord echo(int x) {
+    GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("echo").getRequest());
+    params.put("x", x);
+    return params;
+  }
+
+  @Test
+  public void testPipelined() throws Exception {
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+    assertEquals(-1, requestor.request("echo", echo(-1))); // handshake
+
+    // none of these wait for the first, which the server holds
+    List<CallFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      CallFuture<Integer> future = new CallFuture<>();
+      requestor.request("echo", echo(i), future);
+      futures.add(future);
+    }
+    assertEquals(1, release.getCount());
+    release.countDown();
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(i, (int) futures.get(i).get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testConcurrentCallers() throws Exception {
+    release.countDown();
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+    List<Thread> callers = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int base = t * 1000;
+      Thread caller = new Thread(() -> {
+        try {
+          for (int i = 1; i < 100; i++) {
+            assertEquals(base + i, requestor.request("echo", echo(base + i)));
+          }
+        } catch (Throwable e) {
+          synchronized (errors) {
+            errors.add(e);
+          }
+        }
+      });
+      callers.add(caller);
+      caller.start();
+    }
+    for (Thread caller : callers) {
+      caller.join();
+    }
+    assertEquals(new ArrayList<Throwable>(), errors);
+  }
+
+  @Test
+  public void testOneWay() throws Exception {
+    release.countDown();
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+    GenericRecord tick = new GenericData.Record(PROTOCOL.getMessages().get("tick").getRequest());
+    requestor.request("tick", tick); // handshake
+    for (int i = 0; i < 10; i++) {
+      requestor.request("tick", tick);
+    }
+    // calls on a connection are answered in order
+    assertEquals(7, requestor.request("echo", echo(7)));
+    assertEquals(11, ticks.get());
+  }
+
+  @Test
+  public void testClosed() throws Exception {
+    GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+    assertEquals(-1, requestor.request("echo", echo(-1)));
+    CallFuture<Integer> future = new CallFuture<>();
+    requestor.request("echo", echo(0), future);
+    client.close();
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("Expected the outstanding call to fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+}
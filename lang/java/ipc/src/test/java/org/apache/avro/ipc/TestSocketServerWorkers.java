@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Protocol.Message;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.ipc.generic.GenericRequestor;
+import org.apache.avro.ipc.generic.GenericResponder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSocketServerWorkers {
+  // both ends of every connection are open in this process, so the default
+  // stays well below the usual limit of 1024 open files
+  private static final int CONNECTIONS = Integer.parseInt(System.getProperty("test.connections", "400"));
+  private static final int WORKERS = 4;
+
+  private static final Protocol PROTOCOL = Protocol.parse("{\"protocol\": \"Echo\", \"messages\": { \"echo\": {"
+      + " \"request\": [{\"name\": \"x\", \"type\": \"int\"}], \"response\": \"int\"} } }");
+
+  private SaslSocketServer server;
+  private final List<Transceiver> clients = new ArrayList<>();
+  private final List<SocketChannel> peers = new ArrayList<>();
+
+  @Before
+  public void startServer() throws Exception {
+    server = new SaslSocketServer(new GenericResponder(PROTOCOL) {
+      @Override
+      public Object respond(Message message, Object request) {
+        return ((GenericRecord) request).get("x");
+      }
+    }, new InetSocketAddress(0));
+    server.setWorkerThreads(WORKERS);
+    server.start();
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    for (Transceiver client : clients) {
+      client.close();
+    }
+    for (SocketChannel peer : peers) {
+      peer.close();
+    }
+    server.close();
+    server.join(10000);
+  }
+
+  private static Object echo(GenericRequestor requestor, int x) throws Exception {
+    GenericRecord params = new GenericData.Record(PROTOCOL.getMessages().get("echo").getRequest());
+    params.put("x", x);
+    return requestor.request("echo", params);
+  }
+
+  @Test
+  public void testManyConnections() throws Exception {
+    int threads = Thread.activeCount();
+    List<GenericRequestor> requestors = new ArrayList<>();
+    for (int i = 0; i < CONNECTIONS; i++) {
+      Transceiver client = new SaslSocketTransceiver(new InetSocketAddress(server.getPort()));
+      clients.add(client);
+      GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+      requestors.add(requestor);
+      assertEquals(i, echo(requestor, i));
+    }
+    // the workers, plus the few threads that negotiated SASL one at a time
+    assertTrue(Thread.activeCount() <= threads + 2 * WORKERS);
+
+    // every connection stays usable while the others sit idle
+    for (int i = CONNECTIONS - 1; i >= 0; i--) {
+      assertEquals(-i, echo(requestors.get(i), -i));
+    }
+  }
+
+  @Test
+  public void testConcurrentClients() throws Exception {
+    List<Thread> callers = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Transceiver client = new SaslSocketTransceiver(new InetSocketAddress(server.getPort()));
+      clients.add(client);
+      GenericRequestor requestor = new GenericRequestor(PROTOCOL, client);
+      Thread caller = new Thread(() -> {
+        try {
+          for (int i = 0; i < 100; i++) {
+            assertEquals(i, echo(requestor, i));
+          }
+        } catch (Throwable e) {
+          synchronized (errors) {
+            errors.add(e);
+          }
+        }
+      });
+      callers.add(caller);
+      caller.start();
+    }
+    for (Thread caller : callers) {
+      caller.join();
+    }
+    assertEquals(new ArrayList<Throwable>(), errors);
+  }
+
+  @Test
+  public void testClosedConnection() throws Exception {
+    Transceiver client = new SaslSocketTransceiver(new InetSocketAddress(server.getPort()));
+    assertEquals(1, echo(new GenericRequestor(PROTOCOL, client), 1));
+    client.close();
+
+    // the server keeps serving others
+    Transceiver other = new SaslSocketTransceiver(new InetSocketAddress(server.getPort()));
+    clients.add(other);
+    assertEquals(2, echo(new GenericRequestor(PROTOCOL, other), 2));
+  }
+
+  /** Opens a raw connection that negotiates SASL but sends no whole request. */
+  private SocketChannel stalledPeer(boolean negotiate) throws Exception {
+    SocketChannel peer = SocketChannel.open(new InetSocketAddress(server.getPort()));
+    peers.add(peer);
+    if (negotiate) {
+      byte[] mechanism = "ANONYMOUS".getBytes(StandardCharsets.UTF_8);
+      ByteBuffer start = ByteBuffer.allocate(1 + 4 + mechanism.length + 4 + 2);
+      start.put((byte) 0).putInt(mechanism.length).put(mechanism).putInt(0);
+      start.put((byte) 0).put((byte) 0); // half a frame header
+      start.flip();
+      while (start.hasRemaining()) {
+        peer.write(start);
+      }
+    }
+    return peer;
+  }
+
+  @Test
+  public void testStalledPeers() throws Exception {
+    // peers that are silent during or after the negotiation hold no worker
+    for (int i = 0; i < WORKERS; i++) {
+      stalledPeer(false);
+      stalledPeer(true);
+    }
+    ExecutorService caller = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> result = caller.submit(() -> {
+        Transceiver client = new SaslSocketTransceiver(new InetSocketAddress(server.getPort()));
+        clients.add(client);
+        return echo(new GenericRequestor(PROTOCOL, client), 3);
+      });
+      assertEquals(3, result.get(10, TimeUnit.SECONDS));
+    } finally {
+      caller.shutdownNow();
+    }
+  }
+}
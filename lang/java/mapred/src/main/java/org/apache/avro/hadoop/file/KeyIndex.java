@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.apache.avro.hadoop.file;
+
+import java.util.Arrays;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryData;
+
+/**
+ * The in-memory key index of a SortedKeyValueFile.
+ *
+ * <p>
+ * Rather than holding a map of deserialized keys, which for small keys costs
+ * several times their size in object headers and references, the index holds
+ * the binary-encoded keys end to end in a single array, with an array of their
+ * starts and an array of their positions in the data file. Lookups are a binary
+ * search over the encoded keys with {@link BinaryData#compare}, which orders
+ * them exactly as the writer sorted them.
+ * </p>
+ *
+ * <p>
+ * If the file was written with block key ranges, the index also holds the last
+ * key of each block, so that lookups of keys that fall between blocks need not
+ * read the data file.
+ * </p>
+ */
+class KeyIndex {
+  private final Schema mKeySchema;
+
+  /** The first key of each block. */
+  private final EncodedKeys mKeys = new EncodedKeys();
+
+  /** The last key of each block, or null if the index does not record them. */
+  private EncodedKeys mMaxKeys;
+
+  /** The position in the data file of each key's block. */
+  private long[] mPositions = new long[64];
+
+  /** The number of keys. */
+  private int mSize;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param keySchema The schema the keys are encoded with.
+   */
+  KeyIndex(Schema keySchema) {
+    mKeySchema = keySchema;
+  }
+
+  /**
+   * Appends an entry. Entries must be added in sorted key order.
+   *
+   * @param key      An array holding the encoded key.
+   * @param start    The start of the key in the array.
+   * @param length   The length of the encoded key.
+   * @param position The position of the key's block in the data file.
+   */
+  void add(byte[] key, int start, int length, long position) {
+    if (mSize == mPositions.length) {
+      mPositions = Arrays.copyOf(mPositions, mSize * 2);
+    }
+    mKeys.add(key, start, length);
+    mPositions[mSize++] = position;
+  }
+
+  /**
+   * Sets the last key in the block of the most recently added entry.
+   *
+   * @param key    An array holding the encoded key.
+   * @param start  The start of the key in the array.
+   * @param length The length of the encoded key.
+   */
+  void addMax(byte[] key, int start, int length) {
+    if (null == mMaxKeys) {
+      mMaxKeys = new EncodedKeys();
+    }
+    mMaxKeys.add(key, start, length);
+  }
+
+  /** Releases the unused capacity once all entries have been added. */
+  void trim() {
+    mKeys.trim();
+    if (null != mMaxKeys) {
+      if (mMaxKeys.mSize != mSize) {
+        throw new IllegalStateException("Expected " + mSize + " block max keys but found " + mMaxKeys.mSize);
+      }
+      mMaxKeys.trim();
+    }
+    mPositions = Arrays.copyOf(mPositions, mSize);
+  }
+
+  /** Returns the number of entries. */
+  int size() {
+    return mSize;
+  }
+
+  /** Returns the data file position of an entry. */
+  long getPosition(int entry) {
+    return mPositions[entry];
+  }
+
+  /** Returns whether the index records the last key of each block. */
+  boolean hasMaxKeys() {
+    return null != mMaxKeys;
+  }
+
+  /**
+   * Finds the last entry whose key is less than or equal to an encoded key.
+   *
+   * @param key   An array holding the encoded key.
+   * @param start The start of the key in the array.
+   * @return The entry, or -1 if the key is before the first entry.
+   */
+  int floor(byte[] key, int start) {
+    int low = 0;
+    int high = mSize - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (mKeys.compare(mid, key, start, mKeySchema) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high;
+  }
+
+  /** Compares the first key of an entry's block with an encoded key. */
+  int compare(int entry, byte[] key, int start) {
+    return mKeys.compare(entry, key, start, mKeySchema);
+  }
+
+  /**
+   * Compares the last key of an entry's block with an encoded key. Only valid if
+   * {@link #hasMaxKeys()}.
+   */
+  int compareMax(int entry, byte[] key, int start) {
+    return mMaxKeys.compare(entry, key, start, mKeySchema);
+  }
+
+  /** Encoded keys held end to end in a single array. */
+  private static class EncodedKeys {
+    /** The encoded keys, end to end. */
+    private byte[] mBytes = new byte[1024];
+
+    /** The start of each key in mBytes, and the end of the last. */
+    private int[] mStarts = new int[65];
+
+    /** The number of keys. */
+    private int mSize;
+
+    void add(byte[] key, int start, int length) {
+      int end = mStarts[mSize];
+      if (end + length > mBytes.length) {
+        mBytes = Arrays.copyOf(mBytes, Math.max(end + length, mBytes.length * 2));
+      }
+      if (mSize + 1 == mStarts.length) {
+        mStarts = Arrays.copyOf(mStarts, mStarts.length * 2);
+      }
+      System.arraycopy(key, start, mBytes, end, length);
+      mStarts[++mSize] = end + length;
+    }
+
+    void trim() {
+      mBytes = Arrays.copyOf(mBytes, mStarts[mSize]);
+      mStarts = Arrays.copyOf(mStarts, mSize + 1);
+    }
+
+    int compare(int i, byte[] key, int start, Schema schema) {
+      return BinaryData.compare(mBytes, mStarts[i], key, start, schema);
+    }
+  }
+}
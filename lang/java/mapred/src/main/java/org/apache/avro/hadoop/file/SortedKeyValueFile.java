@@ -18,29 +18,45 @@
 
 package org.apache.avro.hadoop.file;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.specific.SpecificData;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.DataFileWriter;
-import org.apache.avro.hadoop.util.AvroCharSequenceComparator;
 import org.apache.avro.hadoop.io.AvroKeyValue;
 import org.apache.avro.mapred.FsInput;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.bloom.DynamicBloomFilter;
+import org.apache.hadoop.util.bloom.Filter;
+import org.apache.hadoop.util.bloom.Key;
+import org.apache.hadoop.util.hash.Hash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +75,13 @@ import org.slf4j.LoggerFactory;
  * </p>
  *
  * <p>
+ * Optionally, each index entry also records the last key of its block, in a
+ * 'max' field, and the directory holds a third file named 'bloom' with a Bloom
+ * filter over the binary-encoded keys. A reader uses these to answer lookups of
+ * most missing keys without reading the data file.
+ * </p>
+ *
+ * <p>
  * SortedKeyValueFile is to Avro container file as MapFile is to SequenceFile.
  * </p>
  */
@@ -71,6 +94,18 @@ public class SortedKeyValueFile {
   /** The name of the index file within the SortedKeyValueFile directory. */
   public static final String INDEX_FILENAME = "index";
 
+  /** The name of the optional Bloom filter file within the directory. */
+  public static final String BLOOM_FILENAME = "bloom";
+
+  /**
+   * The data file metadata entry recording that the Bloom filter file was
+   * written with it, so that a stale filter from an earlier file is not used.
+   */
+  private static final String BLOOM_FILTER_META = "sortedkeyvaluefile.bloom";
+
+  /** The name of the optional index field holding the last key of a block. */
+  public static final String MAX_KEY_FIELD = "max";
+
   /**
    * Reads a SortedKeyValueFile by loading the key index into memory.
    *
@@ -78,7 +113,8 @@ public class SortedKeyValueFile {
    * When doing a lookup, this reader finds the correct block in the data file
    * using the key index. It performs a single disk seek to the block and loads
    * the entire block into memory. The block is scanned until the key is found or
-   * is determined not to exist.
+   * is determined not to exist. Where the file has a Bloom filter or block key
+   * ranges, keys they rule out are not looked for in the data file at all.
    * </p>
    *
    * @param <K> The key type.
@@ -86,7 +122,19 @@ public class SortedKeyValueFile {
    */
   public static class Reader<K, V> implements Closeable, Iterable<AvroKeyValue<K, V>> {
     /** The index from key to its byte offset into the data file. */
-    private final NavigableMap<K, Long> mIndex;
+    private final KeyIndex mIndex;
+
+    /** The writer used to encode keys for lookups in the index. */
+    private final DatumWriter<K> mKeyWriter;
+
+    /** The buffer that keys are encoded into. */
+    private final ByteArrayOutputStream mKeyBytes = new ByteArrayOutputStream();
+
+    /** The encoder that keys are encoded with. */
+    private final BinaryEncoder mKeyEncoder = EncoderFactory.get().directBinaryEncoder(mKeyBytes, null);
+
+    /** The Bloom filter over the encoded keys, or null. */
+    private final Filter mBloomFilter;
 
     /** The reader for the data file. */
     private final DataFileReader<GenericRecord> mDataFileReader;
@@ -221,6 +269,7 @@ public class SortedKeyValueFile {
       Path indexFilePath = new Path(options.getPath(), INDEX_FILENAME);
       LOG.debug("Loading the index from {}", indexFilePath);
       mIndex = loadIndexFile(options.getConfiguration(), indexFilePath, mKeySchema);
+      mKeyWriter = model.createDatumWriter(mKeySchema);
 
       // Open the data file.
       Path dataFilePath = new Path(options.getPath(), DATA_FILENAME);
@@ -229,14 +278,18 @@ public class SortedKeyValueFile {
       DatumReader<GenericRecord> datumReader = model.createDatumReader(recordSchema);
       mDataFileReader = new DataFileReader<>(new FsInput(dataFilePath, options.getConfiguration()), datumReader);
 
+      // Load the Bloom filter, if there is one.
+      Path bloomFilePath = new Path(options.getPath(), BLOOM_FILENAME);
+      mBloomFilter = loadBloomFilter(options.getConfiguration(), bloomFilePath);
     }
 
     /**
      * Gets the first value associated with a given key, or null if it is not found.
      *
      * <p>
-     * This method will move the current position in the file to the record
-     * immediately following the requested key.
+     * If the key is looked for in the data file, this method will move the
+     * current position in the file to the record immediately following the
+     * requested key.
      * </p>
      *
      * @param key The key to look up.
@@ -246,15 +299,15 @@ public class SortedKeyValueFile {
     public V get(K key) throws IOException {
       // Look up the entry in the index.
       LOG.debug("Looking up key {} in the index", key);
-      Map.Entry<K, Long> indexEntry = mIndex.floorEntry(key);
-      if (null == indexEntry) {
-        LOG.debug("Key {} was not found in the index (it is before the first entry)", key);
+      int indexEntry = findBlock(key, encode(key));
+      if (indexEntry < 0) {
         return null;
       }
-      LOG.debug("Key was found in the index, seeking to syncpoint {}", indexEntry.getValue());
+      long position = mIndex.getPosition(indexEntry);
+      LOG.debug("Key was found in the index, seeking to syncpoint {}", position);
 
       // Seek to the data block that would contain the entry.
-      mDataFileReader.seek(indexEntry.getValue());
+      mDataFileReader.seek(position);
 
       // Scan from this position of the file until we find it or pass it.
       for (AvroKeyValue<K, V> record : this) {
@@ -276,6 +329,93 @@ public class SortedKeyValueFile {
       return null;
     }
 
+    /**
+     * Gets the first value associated with each of a sequence of keys.
+     *
+     * <p>
+     * The keys must be in sorted order. Each data block is read at most once, so
+     * where several keys fall in the same block this is much faster than getting
+     * them one at a time. This method will move the current position in the file.
+     * </p>
+     *
+     * @param keys The keys to look up, in sorted order.
+     * @return The value associated with each key, or null where it is not found.
+     * @throws IOException If there is an error.
+     */
+    public List<V> getAll(Iterable<? extends K> keys) throws IOException {
+      List<V> values = new ArrayList<>();
+      Iterator<AvroKeyValue<K, V>> records = null;
+      AvroKeyValue<K, V> record = null; // the first record not yet passed
+      byte[] previousKey = null;
+      for (K key : keys) {
+        byte[] encodedKey = encode(key);
+        if (null != previousKey && BinaryData.compare(previousKey, 0, encodedKey, 0, mKeySchema) > 0) {
+          throw new IllegalArgumentException(
+              "Keys must be looked up in sorted order. Attempted to look up key " + key + " out of order.");
+        }
+        previousKey = encodedKey;
+        values.add(null);
+
+        int indexEntry = findBlock(key, encodedKey);
+        if (indexEntry < 0) {
+          continue;
+        }
+
+        // Seek to the block unless the scan for an earlier key has reached it.
+        if (null == record || mIndex.compare(indexEntry, encode(record.getKey()), 0) > 0) {
+          LOG.debug("Seeking to syncpoint {} for key {}", mIndex.getPosition(indexEntry), key);
+          mDataFileReader.seek(mIndex.getPosition(indexEntry));
+          records = iterator();
+          record = records.hasNext() ? records.next() : null;
+        }
+
+        // Scan until we find it or pass it, keeping the record for the next key.
+        while (null != record) {
+          int comparison = model.compare(record.getKey(), key, mKeySchema);
+          if (0 == comparison) {
+            values.set(values.size() - 1, record.getValue());
+            break;
+          }
+          if (comparison > 0) {
+            break;
+          }
+          record = records.hasNext() ? records.next() : null;
+        }
+      }
+      return values;
+    }
+
+    /**
+     * Finds the index entry for the block that would contain a key.
+     *
+     * @param key        The key.
+     * @param encodedKey The binary-encoded key.
+     * @return The index entry, or -1 if the key is known not to be in the file.
+     */
+    private int findBlock(K key, byte[] encodedKey) {
+      if (null != mBloomFilter && !mBloomFilter.membershipTest(new Key(encodedKey))) {
+        LOG.debug("Key {} was not found in the Bloom filter", key);
+        return -1;
+      }
+      int indexEntry = mIndex.floor(encodedKey, 0);
+      if (indexEntry < 0) {
+        LOG.debug("Key {} was not found in the index (it is before the first entry)", key);
+        return -1;
+      }
+      if (mIndex.hasMaxKeys() && mIndex.compareMax(indexEntry, encodedKey, 0) < 0) {
+        LOG.debug("Key {} was not found in the index (it is after the last key of its block)", key);
+        return -1;
+      }
+      return indexEntry;
+    }
+
+    /** Binary-encodes a key with the reader key schema. */
+    private byte[] encode(K key) throws IOException {
+      mKeyBytes.reset();
+      mKeyWriter.write(key, mKeyEncoder);
+      return mKeyBytes.toByteArray();
+    }
+
     /**
      * Returns an iterator starting at the current position in the file.
      *
@@ -302,39 +442,112 @@ public class SortedKeyValueFile {
     }
 
     /**
-     * Loads an index file into an in-memory map, from key to file offset in bytes.
+     * Loads an index file into memory, as its keys binary-encoded with the reader
+     * key schema and their file offsets in bytes.
+     *
+     * <p>
+     * Where the index was written with the reader key schema, keys are copied
+     * from its blocks without being deserialized. Otherwise each key is resolved
+     * to the reader key schema and re-encoded.
+     * </p>
      *
      * @param conf      The configuration.
      * @param path      The path to the index file.
      * @param keySchema The reader schema for the key.
      * @throws IOException If there is an error.
      */
-    private <K> NavigableMap<K, Long> loadIndexFile(Configuration conf, Path path, Schema keySchema)
-        throws IOException {
-      DatumReader<GenericRecord> datumReader = model
-          .createDatumReader(AvroKeyValue.getSchema(keySchema, Schema.create(Schema.Type.LONG)));
-
-      NavigableMap<K, Long> index = new TreeMap<>();
-      try (DataFileReader<GenericRecord> fileReader = new DataFileReader<>(new FsInput(path, conf), datumReader)) {
-        if (Schema.create(Schema.Type.STRING).equals(keySchema)) {
-          // Because Avro STRING types are mapped to the Java CharSequence class that does
-          // not
-          // mandate the implementation of Comparable, we need to specify a special
-          // CharSequence comparator if the key type is a string. This hack only fixes the
-          // problem for primitive string types. If, for example, you tried to use a
-          // record
-          // type as the key, any string fields inside of it would not be compared
-          // correctly
-          // against java.lang.Strings.
-          index = new TreeMap<>(new AvroCharSequenceComparator<>());
+    private KeyIndex loadIndexFile(Configuration conf, Path path, Schema keySchema) throws IOException {
+      KeyIndex index = new KeyIndex(keySchema);
+      try (DataFileReader<Object> fileReader = new DataFileReader<>(new FsInput(path, conf),
+          new GenericDatumReader<>())) {
+        Schema writerKeySchema = fileReader.getSchema().getField(AvroKeyValue.KEY_FIELD).schema();
+        boolean hasMaxKeys = null != fileReader.getSchema().getField(MAX_KEY_FIELD);
+        DatumReader<Object> keyReader = null;
+        DatumWriter<Object> keyWriter = null;
+        ByteArrayOutputStream keyBytes = null;
+        BinaryEncoder keyEncoder = null;
+        Object key = null;
+        if (!writerKeySchema.equals(keySchema)) {
+          keyReader = model.createDatumReader(writerKeySchema, keySchema);
+          keyWriter = model.createDatumWriter(keySchema);
+          keyBytes = new ByteArrayOutputStream();
+          keyEncoder = EncoderFactory.get().directBinaryEncoder(keyBytes, null);
         }
-        for (GenericRecord genericRecord : fileReader) {
-          AvroKeyValue<K, Long> indexRecord = new AvroKeyValue<>(genericRecord);
-          index.put(indexRecord.getKey(), indexRecord.getValue());
+
+        BinaryDecoder decoder = null;
+        while (fileReader.hasNext()) {
+          long count = fileReader.getBlockCount();
+          ByteBuffer block = fileReader.nextBlock();
+          byte[] bytes;
+          int start;
+          if (block.hasArray()) {
+            bytes = block.array();
+            start = block.arrayOffset() + block.position();
+          } else {
+            bytes = new byte[block.remaining()];
+            block.duplicate().get(bytes);
+            start = 0;
+          }
+          int end = start + block.remaining();
+          decoder = DecoderFactory.get().binaryDecoder(bytes, start, end - start, decoder);
+          for (long i = 0; i < count; i++) {
+            if (keyReader == null) {
+              int keyStart = end - decoder.inputStream().available();
+              GenericDatumReader.skip(writerKeySchema, decoder);
+              int keyEnd = end - decoder.inputStream().available();
+              index.add(bytes, keyStart, keyEnd - keyStart, decoder.readLong());
+              if (hasMaxKeys) {
+                keyStart = end - decoder.inputStream().available();
+                GenericDatumReader.skip(writerKeySchema, decoder);
+                keyEnd = end - decoder.inputStream().available();
+                index.addMax(bytes, keyStart, keyEnd - keyStart);
+              }
+            } else {
+              key = keyReader.read(key, decoder);
+              keyBytes.reset();
+              keyWriter.write(key, keyEncoder);
+              index.add(keyBytes.toByteArray(), 0, keyBytes.size(), decoder.readLong());
+              if (hasMaxKeys) {
+                key = keyReader.read(key, decoder);
+                keyBytes.reset();
+                keyWriter.write(key, keyEncoder);
+                index.addMax(keyBytes.toByteArray(), 0, keyBytes.size());
+              }
+            }
+          }
         }
       }
+      index.trim();
       return index;
     }
+
+    /**
+     * Loads a Bloom filter file, if the data file was written with one and the
+     * keys are read with the schema they were written with, so that they encode
+     * to the same bytes.
+     *
+     * @param conf The configuration.
+     * @param path The path to the Bloom filter file.
+     * @return The Bloom filter, or null.
+     * @throws IOException If there is an error.
+     */
+    private Filter loadBloomFilter(Configuration conf, Path path) throws IOException {
+      FileSystem fileSystem = path.getFileSystem(conf);
+      if (null == mDataFileReader.getMeta(BLOOM_FILTER_META) || !fileSystem.exists(path)) {
+        return null;
+      }
+      Schema writerKeySchema = mDataFileReader.getSchema().getField(AvroKeyValue.KEY_FIELD).schema();
+      if (!writerKeySchema.equals(mKeySchema)) {
+        LOG.debug("Not using the Bloom filter {}, since the key schema differs from the writer's", path);
+        return null;
+      }
+      LOG.debug("Loading the Bloom filter from {}", path);
+      DynamicBloomFilter bloomFilter = new DynamicBloomFilter();
+      try (DataInputStream in = fileSystem.open(path)) {
+        bloomFilter.readFields(in);
+      }
+      return bloomFilter;
+    }
   }
 
   /**
@@ -377,6 +590,36 @@ public class SortedKeyValueFile {
     /** The most recent key that was appended to the file, or null. */
     private K mPreviousKey;
 
+    /** Whether index entries record the last key of their block. */
+    private final boolean mBlockKeyRanges;
+
+    /** The first key of the current block, if its index entry is pending. */
+    private K mBlockFirstKey;
+
+    /** The position of the current block, if its index entry is pending. */
+    private long mBlockPosition;
+
+    /** The Bloom filter over the encoded keys, or null. */
+    private final DynamicBloomFilter mBloomFilter;
+
+    /** The path of the Bloom filter file. */
+    private final Path mBloomFilePath;
+
+    /** The file system the file is written to. */
+    private final FileSystem mFileSystem;
+
+    /** The writer used to encode keys for the Bloom filter. */
+    private final DatumWriter<K> mKeyWriter;
+
+    /** The buffer that keys are encoded into. */
+    private final ByteArrayOutputStream mKeyBytes = new ByteArrayOutputStream();
+
+    /** The encoder that keys are encoded with. */
+    private final BinaryEncoder mKeyEncoder = EncoderFactory.get().directBinaryEncoder(mKeyBytes, null);
+
+    /** The number of hash functions used by Bloom filters. */
+    private static final int BLOOM_HASH_COUNT = 5;
+
     /**
      * A class to encapsulate the various options of a SortedKeyValueFile.Writer.
      */
@@ -402,6 +645,18 @@ public class SortedKeyValueFile {
       /** The compression codec for the data. */
       private CodecFactory codec = CodecFactory.nullCodec();
 
+      /** Whether index entries record the last key of their block. */
+      private boolean mBlockKeyRanges;
+
+      /** Whether to write a Bloom filter over the keys. */
+      private boolean mBloomFilter;
+
+      /** The number of keys each part of the Bloom filter is sized for. */
+      private int mBloomFilterKeys = 1024 * 1024;
+
+      /** The false positive rate the Bloom filter is sized for. */
+      private float mBloomFilterErrorRate = 0.005f;
+
       /**
        * Sets the key schema.
        *
@@ -534,6 +789,98 @@ public class SortedKeyValueFile {
       public CodecFactory getCodec() {
         return this.codec;
       }
+
+      /**
+       * Sets whether each index entry records the last key of its block.
+       *
+       * <p>
+       * A reader then need not read the data file to look up a key that falls
+       * after the last key of one block and before the first of the next.
+       * </p>
+       *
+       * @param blockKeyRanges Whether to record block key ranges.
+       * @return This options instance.
+       */
+      public Options withBlockKeyRanges(boolean blockKeyRanges) {
+        mBlockKeyRanges = blockKeyRanges;
+        return this;
+      }
+
+      /**
+       * Gets whether each index entry records the last key of its block.
+       *
+       * @return Whether to record block key ranges.
+       */
+      public boolean getBlockKeyRanges() {
+        return mBlockKeyRanges;
+      }
+
+      /**
+       * Sets whether to write a Bloom filter over the keys.
+       *
+       * <p>
+       * A reader then need not read the data file to look up most keys that are
+       * not in it. The filter is over the binary-encoded keys, so the key schema
+       * may not have fields whose order is ignore.
+       * </p>
+       *
+       * @param bloomFilter Whether to write a Bloom filter.
+       * @return This options instance.
+       */
+      public Options withBloomFilter(boolean bloomFilter) {
+        mBloomFilter = bloomFilter;
+        return this;
+      }
+
+      /**
+       * Gets whether to write a Bloom filter over the keys.
+       *
+       * @return Whether to write a Bloom filter.
+       */
+      public boolean getBloomFilter() {
+        return mBloomFilter;
+      }
+
+      /**
+       * Sets the number of keys the Bloom filter is sized for. The filter grows by
+       * another part of this size for each further such number of keys.
+       *
+       * @param bloomFilterKeys The number of keys.
+       * @return This options instance.
+       */
+      public Options withBloomFilterKeys(int bloomFilterKeys) {
+        mBloomFilterKeys = bloomFilterKeys;
+        return this;
+      }
+
+      /**
+       * Gets the number of keys the Bloom filter is sized for.
+       *
+       * @return The number of keys.
+       */
+      public int getBloomFilterKeys() {
+        return mBloomFilterKeys;
+      }
+
+      /**
+       * Sets the false positive rate the Bloom filter is sized for.
+       *
+       * @param bloomFilterErrorRate The false positive rate.
+       * @return This options instance.
+       */
+      public Options withBloomFilterErrorRate(float bloomFilterErrorRate) {
+        mBloomFilterErrorRate = bloomFilterErrorRate;
+        return this;
+      }
+
+      /**
+       * Gets the false positive rate the Bloom filter is sized for.
+       *
+       * @return The false positive rate.
+       */
+      public float getBloomFilterErrorRate() {
+        return mBloomFilterErrorRate;
+      }
     }
 
     /**
@@ -550,6 +897,7 @@ public class SortedKeyValueFile {
       }
 
       FileSystem fileSystem = options.getPath().getFileSystem(options.getConfiguration());
+      mFileSystem = fileSystem;
 
       // Save the key and value schemas.
       mKeySchema = options.getKeySchema();
@@ -580,15 +928,81 @@ public class SortedKeyValueFile {
                                                                                    // sufficiently large, since
                                                                                    // we will manually sync every
                                                                                    // mIndexInterval records.
-          .setCodec(options.getCodec()).create(mRecordSchema, dataOutputStream);
+          .setCodec(options.getCodec());
+      if (options.getBloomFilter()) {
+        mDataFileWriter.setMeta(BLOOM_FILTER_META, "true");
+      }
+      mDataFileWriter.create(mRecordSchema, dataOutputStream);
 
       // Open a writer for the index file.
       Path indexFilePath = new Path(options.getPath(), INDEX_FILENAME);
       LOG.debug("Creating writer for avro index file: {}", indexFilePath);
-      mIndexSchema = AvroKeyValue.getSchema(mKeySchema, Schema.create(Schema.Type.LONG));
+      mBlockKeyRanges = options.getBlockKeyRanges();
+      mIndexSchema = mBlockKeyRanges ? getIndexSchemaWithMaxKeys(mKeySchema)
+          : AvroKeyValue.getSchema(mKeySchema, Schema.create(Schema.Type.LONG));
       DatumWriter<GenericRecord> indexWriter = model.createDatumWriter(mIndexSchema);
       OutputStream indexOutputStream = fileSystem.create(indexFilePath);
       mIndexFileWriter = new DataFileWriter<>(indexWriter).create(mIndexSchema, indexOutputStream);
+
+      // Create the Bloom filter, which is written when the file is closed.
+      mBloomFilePath = new Path(options.getPath(), BLOOM_FILENAME);
+      mKeyWriter = model.createDatumWriter(mKeySchema);
+      if (options.getBloomFilter()) {
+        if (hasIgnoredFields(mKeySchema, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+          throw new IllegalArgumentException("A Bloom filter requires a key schema without ignored fields");
+        }
+        int keys = options.getBloomFilterKeys();
+        int vectorSize = (int) Math.ceil(-BLOOM_HASH_COUNT * (double) keys
+            / Math.log(1.0 - Math.pow(options.getBloomFilterErrorRate(), 1.0 / BLOOM_HASH_COUNT)));
+        mBloomFilter = new DynamicBloomFilter(vectorSize, BLOOM_HASH_COUNT,
+            Hash.getHashType(options.getConfiguration()), keys);
+      } else {
+        mBloomFilter = null;
+        // Remove the filter of a file previously written to this directory.
+        fileSystem.delete(mBloomFilePath, false);
+      }
+    }
+
+    /**
+     * Gets the schema of index records that also record the last key of a block.
+     *
+     * @param keySchema The key schema.
+     * @return The index record schema.
+     */
+    private static Schema getIndexSchemaWithMaxKeys(Schema keySchema) {
+      Schema schema = Schema.createRecord(AvroKeyValue.KEY_VALUE_PAIR_RECORD_NAME, "A key/value pair",
+          AvroKeyValue.KEY_VALUE_PAIR_RECORD_NAMESPACE, false);
+      schema.setFields(Arrays.asList(new Schema.Field(AvroKeyValue.KEY_FIELD, keySchema, "The key", null),
+          new Schema.Field(AvroKeyValue.VALUE_FIELD, Schema.create(Schema.Type.LONG), "The value", null),
+          new Schema.Field(MAX_KEY_FIELD, keySchema, "The last key in the block", null)));
+      return schema;
+    }
+
+    /** Returns whether a schema has fields that are ignored by comparisons. */
+    private static boolean hasIgnoredFields(Schema schema, Set<Schema> seen) {
+      if (!seen.add(schema)) {
+        return false;
+      }
+      switch (schema.getType()) {
+      case RECORD:
+        for (Schema.Field field : schema.getFields()) {
+          if (field.order() == Schema.Field.Order.IGNORE || hasIgnoredFields(field.schema(), seen)) {
+            return true;
+          }
+        }
+        return false;
+      case ARRAY:
+        return hasIgnoredFields(schema.getElementType(), seen);
+      case UNION:
+        for (Schema branch : schema.getTypes()) {
+          if (hasIgnoredFields(branch, seen)) {
+            return true;
+          }
+        }
+        return false;
+      default:
+        return false;
+      }
     }
 
     /**
@@ -604,8 +1018,16 @@ public class SortedKeyValueFile {
         throw new IllegalArgumentException("Records must be inserted in sorted key order." + " Attempted to insert key "
             + key + " after " + mPreviousKey + ".");
       }
+      K lastKey = mPreviousKey;
       mPreviousKey = model.deepCopy(mKeySchema, key);
 
+      // Add it to the Bloom filter.
+      if (null != mBloomFilter) {
+        mKeyBytes.reset();
+        mKeyWriter.write(key, mKeyEncoder);
+        mBloomFilter.add(new Key(mKeyBytes.toByteArray()));
+      }
+
       // Construct the data record.
       AvroKeyValue<K, V> dataRecord = new AvroKeyValue<>(new GenericData.Record(mRecordSchema));
       dataRecord.setKey(key);
@@ -617,22 +1039,56 @@ public class SortedKeyValueFile {
         // nonempty) and reports the current position in the file.
         long position = mDataFileWriter.sync();
 
-        // Construct the record to put in the index.
-        AvroKeyValue<K, Long> indexRecord = new AvroKeyValue<>(new GenericData.Record(mIndexSchema));
-        indexRecord.setKey(key);
-        indexRecord.setValue(position);
-        mIndexFileWriter.append(indexRecord.get());
+        if (mBlockKeyRanges) {
+          // The previous block's last key is now known, so its entry can be written.
+          if (null != mBlockFirstKey) {
+            appendIndexEntry(mBlockFirstKey, mBlockPosition, lastKey);
+          }
+          mBlockFirstKey = mPreviousKey;
+          mBlockPosition = position;
+        } else {
+          appendIndexEntry(key, position, null);
+        }
       }
 
       // Write it to the data file.
       mDataFileWriter.append(dataRecord.get());
     }
 
+    /**
+     * Appends an entry to the index file.
+     *
+     * @param key      The first key in the block.
+     * @param position The position of the block in the data file.
+     * @param maxKey   The last key in the block, if recording block key ranges.
+     * @throws IOException If there is an error.
+     */
+    private void appendIndexEntry(K key, long position, K maxKey) throws IOException {
+      // Construct the record to put in the index.
+      AvroKeyValue<K, Long> indexRecord = new AvroKeyValue<>(new GenericData.Record(mIndexSchema));
+      indexRecord.setKey(key);
+      indexRecord.setValue(position);
+      if (mBlockKeyRanges) {
+        indexRecord.get().put(MAX_KEY_FIELD, maxKey);
+      }
+      mIndexFileWriter.append(indexRecord.get());
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
+      if (null != mBlockFirstKey) {
+        appendIndexEntry(mBlockFirstKey, mBlockPosition, mPreviousKey);
+        mBlockFirstKey = null;
+      }
       mIndexFileWriter.close();
       mDataFileWriter.close();
+      if (null != mBloomFilter) {
+        LOG.debug("Writing the Bloom filter to {}", mBloomFilePath);
+        try (DataOutputStream out = mFileSystem.create(mBloomFilePath)) {
+          mBloomFilter.write(out);
+        }
+      }
     }
   }
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.mapred.tether;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Sends task input to a tethered process from a thread of its own, so that
+ * reading the input overlaps with sending it and with its processing by the
+ * subprocess. At most a fixed window of input calls is queued for sending;
+ * beyond that, callers wait. Records added one at a time are batched into
+ * input calls of about {@link #BATCH_BYTES} each.
+ */
+class TetherInputSender implements Runnable {
+  static final int BATCH_BYTES = 64 * 1024;
+
+  private static final TetherData END = new TetherData();
+
+  private final InputProtocol inputClient;
+  private final BlockingQueue<TetherData> queue;
+  private final Thread thread;
+  private volatile Throwable error;
+
+  private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+  private int batchCount;
+
+  TetherInputSender(InputProtocol inputClient, int window) {
+    this.inputClient = inputClient;
+    this.queue = new ArrayBlockingQueue<>(window);
+    this.thread = new Thread(this, "Tether input sender");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Queues a call with the given binary-encoded records. The data is copied, so
+   * the buffer may be reused once this returns.
+   */
+  void send(ByteBuffer data, int count) throws IOException {
+    ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+    copy.put(data.duplicate());
+    ((Buffer) copy).flip();
+    TetherData call = new TetherData(copy);
+    call.count(count);
+    put(call);
+  }
+
+  /** Adds a binary-encoded record to the batch being built. */
+  void add(ByteBuffer datum) throws IOException {
+    batch.write(datum.array(), datum.arrayOffset() + datum.position(), datum.remaining());
+    batchCount++;
+    if (batch.size() >= BATCH_BYTES)
+      flush();
+  }
+
+  private void flush() throws IOException {
+    if (batchCount == 0)
+      return;
+    TetherData call = new TetherData(ByteBuffer.wrap(batch.toByteArray()));
+    call.count(batchCount);
+    batch.reset();
+    batchCount = 0;
+    put(call);
+  }
+
+  private void put(TetherData call) throws IOException {
+    checkError();
+    try {
+      queue.put(call);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while sending input", e);
+    }
+  }
+
+  /**
+   * Sends any batched records and waits until every queued call has been sent.
+   */
+  void finish() throws IOException {
+    flush();
+    put(END);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while sending input", e);
+    }
+    checkError();
+  }
+
+  /**
+   * Drops any queued calls and waits for the call being sent, if any, to
+   * complete.
+   */
+  void abort() {
+    queue.clear();
+    queue.offer(END);
+    try {
+      thread.join(TetherOutputService.TIMEOUT);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void checkError() throws IOException {
+    if (error != null)
+      throw new IOException("Failed to send input: " + error, error);
+  }
+
+  @Override
+  public void run() {
+    try {
+      for (TetherData call = queue.take(); call != END; call = queue.take()) {
+        inputClient.input(call.buffer(), call.count());
+      }
+    } catch (Throwable t) {
+      error = t;
+      queue.clear(); // release a waiting caller
+    }
+  }
+}
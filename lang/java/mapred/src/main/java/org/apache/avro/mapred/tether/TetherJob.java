@@ -44,6 +44,10 @@ public class TetherJob extends Configured {
   public static final String TETHER_EXEC_ARGS = "avro.tether.executable_args";
   public static final String TETHER_EXEC_CACHED = "avro.tether.executable_cached";
   public static final String TETHER_PROTOCOL = "avro.tether.protocol";
+  public static final String TETHER_INPUT_WINDOW = "avro.tether.input.window";
+
+  /** The default number of input calls that may be queued for a subprocess. */
+  public static final int DEFAULT_INPUT_WINDOW = 4;
 
   /** Get the URI of the application's executable. */
   public static URI getExecutable(JobConf job) {
@@ -99,12 +103,30 @@ public class TetherJob extends Configured {
       return TetheredProcess.Protocol.HTTP;
     } else if (job.get(TetherJob.TETHER_PROTOCOL).equals("sasl")) {
       return TetheredProcess.Protocol.SASL;
+    } else if (job.get(TetherJob.TETHER_PROTOCOL).equals("mmap")) {
+      return TetheredProcess.Protocol.MMAP;
     } else {
       throw new RuntimeException("Unknown value for protocol: " + job.get(TetherJob.TETHER_PROTOCOL));
     }
 
   }
 
+  /**
+   * Set how many input calls may be queued for sending to the subprocess while
+   * the task reads further input. Each holds a block of map input or a batch of
+   * reduce input.
+   */
+  public static void setInputWindow(JobConf job, int window) {
+    if (window < 1)
+      throw new IllegalArgumentException("Input window must be positive: " + window);
+    job.setInt(TETHER_INPUT_WINDOW, window);
+  }
+
+  /** Get how many input calls may be queued for sending to the subprocess. */
+  public static int getInputWindow(JobConf job) {
+    return job.getInt(TETHER_INPUT_WINDOW, DEFAULT_INPUT_WINDOW);
+  }
+
   /**
    * Submit a job to the map/reduce cluster. All of the necessary modifications to
    * the job to run under tether are made to the configuration.
@@ -122,16 +144,18 @@ public class TetherJob extends Configured {
 
   /**
    * Determines which transport protocol (e.g http or sasl) used to communicate
-   * between the parent and subprocess
+   * between the parent and subprocess. With mmap the two exchange calls through
+   * memory-mapped files in the task's temporary directory rather than through
+   * the network stack.
    *
    * @param job   - job configuration
-   * @param proto - String identifying the protocol currently http or sasl
+   * @param proto - String identifying the protocol currently http, sasl or mmap
    */
   public static void setProtocol(JobConf job, String proto) throws IOException {
     proto = proto.trim().toLowerCase();
 
-    if (!(proto.equals("http") || proto.equals("sasl"))) {
-      throw new IOException("protocol must be 'http' or 'sasl'");
+    if (!(proto.equals("http") || proto.equals("sasl") || proto.equals("mmap"))) {
+      throw new IOException("protocol must be 'http', 'sasl' or 'mmap'");
     }
 
     job.set(TETHER_PROTOCOL, proto);
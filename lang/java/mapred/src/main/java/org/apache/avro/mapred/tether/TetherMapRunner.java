@@ -39,6 +39,7 @@ class TetherMapRunner extends MapRunner<TetherData, NullWritable, TetherData, Nu
 
   private JobConf job;
   private TetheredProcess process;
+  private TetherInputSender sender;
 
   public void configure(JobConf job) {
     this.job = job;
@@ -59,15 +60,17 @@ class TetherMapRunner extends MapRunner<TetherData, NullWritable, TetherData, Nu
       LOG.info("send partitions to subprocess for map task");
       process.inputClient.partitions(job.getNumReduceTasks());
 
-      // run map
+      // run map, sending blocks while the next are read
       Counter inputRecordCounter = reporter.getCounter("org.apache.hadoop.mapred.Task$Counter", "MAP_INPUT_RECORDS");
+      sender = new TetherInputSender(process.inputClient, TetherJob.getInputWindow(job));
       TetherData data = new TetherData();
       while (recordReader.next(data, NullWritable.get())) {
-        process.inputClient.input(data.buffer(), data.count());
+        sender.send(data.buffer(), data.count());
         inputRecordCounter.increment(data.count() - 1);
         if (process.outputService.isFinished())
           break;
       }
+      sender.finish();
       LOG.info("send complete to subprocess for map task");
       process.inputClient.complete();
 
@@ -77,6 +80,8 @@ class TetherMapRunner extends MapRunner<TetherData, NullWritable, TetherData, Nu
 
     } catch (Throwable t) { // send abort
       LOG.warn("Task failed", t);
+      if (sender != null)
+        sender.abort();
       process.inputClient.abort();
       throw new IOException("Task failed: " + t, t);
 
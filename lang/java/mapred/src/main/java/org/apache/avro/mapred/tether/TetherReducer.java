@@ -33,6 +33,7 @@ class TetherReducer implements Reducer<TetherData, NullWritable, TetherData, Nul
 
   private JobConf job;
   private TetheredProcess process;
+  private TetherInputSender sender;
   private boolean error;
 
   @Override
@@ -48,8 +49,9 @@ class TetherReducer implements Reducer<TetherData, NullWritable, TetherData, Nul
         process = new TetheredProcess(job, collector, reporter);
         process.inputClient.configure(TaskType.REDUCE, AvroJob.getMapOutputSchema(job).toString(),
             AvroJob.getOutputSchema(job).toString());
+        sender = new TetherInputSender(process.inputClient, TetherJob.getInputWindow(job));
       }
-      process.inputClient.input(datum.buffer(), datum.count());
+      sender.add(datum.buffer());
     } catch (IOException e) {
       error = true;
       throw e;
@@ -67,10 +69,14 @@ class TetherReducer implements Reducer<TetherData, NullWritable, TetherData, Nul
     if (process == null)
       return;
     try {
-      if (error)
+      if (error) {
+        if (sender != null)
+          sender.abort();
         process.inputClient.abort();
-      else
+      } else {
+        sender.finish();
         process.inputClient.complete();
+      }
       process.outputService.waitForFinish();
     } catch (InterruptedException e) {
       throw new IOException(e);
@@ -40,6 +40,8 @@ import org.apache.hadoop.fs.FileUtil;
 
 import org.apache.avro.ipc.Transceiver;
 import org.apache.avro.ipc.Server;
+import org.apache.avro.ipc.MappedFileServer;
+import org.apache.avro.ipc.MappedFileTransceiver;
 import org.apache.avro.ipc.SaslSocketServer;
 import org.apache.avro.ipc.SaslSocketTransceiver;
 import org.apache.avro.ipc.specific.SpecificRequestor;
@@ -67,12 +69,16 @@ class TetheredProcess {
    * the map/reduce java daemons and the tethered proce
    */
   public enum Protocol {
-    HTTP, SASL, NONE
+    HTTP, SASL, MMAP, NONE
   };
 
   // which protocol we are using
   Protocol proto;
 
+  // for MMAP, the files through which output and input calls pass
+  File outputFile;
+  File inputFile;
+
   public TetheredProcess(JobConf job, OutputCollector<TetherData, NullWritable> collector, Reporter reporter)
       throws Exception {
     try {
@@ -93,6 +99,12 @@ class TetheredProcess {
         this.outputServer = new HttpServer(new SpecificResponder(OutputProtocol.class, outputService),
             iaddress.getPort());
         break;
+      case MMAP:
+        this.outputFile = File.createTempFile("tether-output", ".ring");
+        this.inputFile = File.createTempFile("tether-input", ".ring");
+        this.outputServer = new MappedFileServer(new SpecificResponder(OutputProtocol.class, outputService),
+            outputFile);
+        break;
       case NONE:
       default:
         throw new RuntimeException("No transport protocol was specified in the job configuration");
@@ -123,6 +135,14 @@ class TetheredProcess {
       case HTTP:
         this.clientTransceiver = new HttpTransceiver(new URL("http://127.0.0.1:" + outputService.inputPort()));
         break;
+      case MMAP:
+        // fail calls rather than wait forever if the child crashes
+        ((MappedFileServer) outputServer).setPeer(subprocess);
+        outputService.inputPort(); // wait until the child serves its input file
+        MappedFileTransceiver transceiver = new MappedFileTransceiver(inputFile);
+        transceiver.setPeer(subprocess);
+        this.clientTransceiver = transceiver;
+        break;
       default:
         throw new RuntimeException("Error: code to handle this protocol is not implemented");
       }
@@ -145,6 +165,10 @@ class TetheredProcess {
       subprocess.destroy();
     if (outputServer != null)
       outputServer.close();
+    if (outputFile != null)
+      outputFile.delete();
+    if (inputFile != null)
+      inputFile.delete();
   }
 
   private Process startSubprocess(JobConf job) throws IOException, InterruptedException {
@@ -205,6 +229,12 @@ class TetheredProcess {
     // add an environment variable to specify what protocol to use for communication
     env.put("AVRO_TETHER_PROTOCOL", job.get(TetherJob.TETHER_PROTOCOL));
 
+    // with mmap, the files replace the ports
+    if (outputFile != null) {
+      env.put("AVRO_TETHER_OUTPUT_FILE", outputFile.getPath());
+      env.put("AVRO_TETHER_INPUT_FILE", inputFile.getPath());
+    }
+
     // print an info message about the command
     String imsg = "";
     for (String s : command) {
@@ -22,7 +22,9 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.avro.AvroRuntimeException;
@@ -234,6 +236,226 @@ public class TestSortedKeyValueFile {
     }
   }
 
+  @Test
+  public void testReaderManyKeys() throws IOException {
+    Configuration conf = new Configuration();
+    Path path = new Path(mTempDir.getRoot().getPath(), "many");
+    SortedKeyValueFile.Writer.Options writerOptions = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path).withIndexInterval(7);
+
+    // even keys from -1000 to 1000
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(writerOptions)) {
+      for (int i = -1000; i <= 1000; i += 2) {
+        writer.append(i, "v" + i);
+      }
+    }
+
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path);
+
+    try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      for (int i = -1002; i <= 1002; i++) {
+        CharSequence value = reader.get(i);
+        if (i % 2 == 0 && i >= -1000 && i <= 1000) {
+          assertEquals("v" + i, value.toString());
+        } else {
+          assertNull(value);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReaderKeySchemaResolution() throws IOException {
+    Configuration conf = new Configuration();
+    Path path = new Path(mTempDir.getRoot().getPath(), "promoted");
+    SortedKeyValueFile.Writer.Options writerOptions = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path).withIndexInterval(3);
+
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(writerOptions)) {
+      for (int i = 0; i < 100; i += 2) {
+        writer.append(i, "v" + i);
+      }
+    }
+
+    // the int keys are read as longs
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.LONG)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(conf).withPath(path);
+
+    try (SortedKeyValueFile.Reader<Long, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      assertEquals("v0", reader.get(0L).toString());
+      assertEquals("v42", reader.get(42L).toString());
+      assertEquals("v98", reader.get(98L).toString());
+      assertNull(reader.get(-1L));
+      assertNull(reader.get(43L));
+      assertNull(reader.get(100L));
+    }
+  }
+
+  private Path writeEvenKeys(String name, boolean blockKeyRanges, boolean bloomFilter) throws IOException {
+    Path path = new Path(mTempDir.getRoot().getPath(), name);
+    SortedKeyValueFile.Writer.Options options = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(new Configuration()).withPath(path).withIndexInterval(5)
+        .withBlockKeyRanges(blockKeyRanges).withBloomFilter(bloomFilter).withBloomFilterKeys(100);
+
+    // even keys from 0 to 198, with 50 repeated
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(options)) {
+      for (int i = 0; i < 200; i += 2) {
+        writer.append(i, "v" + i);
+        if (i == 50) {
+          for (int j = 0; j < 3; j++) {
+            writer.append(i, "dup");
+          }
+        }
+      }
+    }
+    return path;
+  }
+
+  @Test
+  public void testBloomFilterAndBlockKeyRanges() throws IOException {
+    for (boolean blockKeyRanges : new boolean[] { false, true }) {
+      for (boolean bloomFilter : new boolean[] { false, true }) {
+        Path path = writeEvenKeys("file-" + blockKeyRanges + "-" + bloomFilter, blockKeyRanges, bloomFilter);
+        assertEquals(bloomFilter, new File(path.toString(), SortedKeyValueFile.BLOOM_FILENAME).exists());
+
+        SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+            .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+            .withConfiguration(new Configuration()).withPath(path);
+        try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+          List<Integer> keys = new ArrayList<>();
+          for (int i = -2; i < 202; i++) {
+            keys.add(i);
+            keys.add(i); // each key twice
+          }
+          List<CharSequence> values = reader.getAll(keys);
+          assertEquals(keys.size(), values.size());
+          for (int k = 0; k < keys.size(); k++) {
+            int i = keys.get(k);
+            CharSequence value = reader.get(i);
+            if (i % 2 == 0 && i >= 0 && i < 200) {
+              assertEquals("v" + i, value.toString());
+              assertEquals("v" + i, values.get(k).toString());
+            } else {
+              assertNull(value);
+              assertNull(values.get(k));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRewriteWithoutBloomFilter() throws IOException {
+    Path path = writeEvenKeys("rewrite", false, true);
+    File bloomFile = new File(path.toString(), SortedKeyValueFile.BLOOM_FILENAME);
+    File staleBloomFile = new File(mTempDir.getRoot(), "stale-bloom");
+    Files.copy(bloomFile.toPath(), staleBloomFile.toPath());
+
+    // rewrite the directory with odd keys and no Bloom filter
+    SortedKeyValueFile.Writer.Options writerOptions = new SortedKeyValueFile.Writer.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(new Configuration()).withPath(path).withIndexInterval(5);
+    try (SortedKeyValueFile.Writer<Integer, CharSequence> writer = new SortedKeyValueFile.Writer<>(writerOptions)) {
+      for (int i = 1; i < 200; i += 2) {
+        writer.append(i, "v" + i);
+      }
+    }
+    assertFalse(bloomFile.exists());
+
+    // a filter left behind in the directory is not used for the new data file
+    Files.copy(staleBloomFile.toPath(), bloomFile.toPath());
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(new Configuration()).withPath(path);
+    try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      for (int i = 1; i < 200; i += 2) {
+        assertEquals("v" + i, reader.get(i).toString());
+      }
+      assertNull(reader.get(2));
+    }
+  }
+
+  @Test
+  public void testBlockKeyRangesIndex() throws IOException {
+    Path path = writeEvenKeys("ranges", true, false);
+
+    // the index can still be read as plain key/value pairs
+    DatumReader<GenericRecord> indexReader = new GenericDatumReader<>(
+        AvroKeyValue.getSchema(Schema.create(Schema.Type.INT), Schema.create(Schema.Type.LONG)));
+    List<Integer> maxKeys = new ArrayList<>();
+    List<Integer> keys = new ArrayList<>();
+    File indexFile = new File(path.toString(), SortedKeyValueFile.INDEX_FILENAME);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(indexFile, indexReader)) {
+      assertNotNull(reader.getSchema().getField(SortedKeyValueFile.MAX_KEY_FIELD));
+      for (GenericRecord record : reader) {
+        keys.add((Integer) new AvroKeyValue<Integer, Long>(record).getKey());
+      }
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(indexFile, new GenericDatumReader<>())) {
+      for (GenericRecord record : reader) {
+        maxKeys.add((Integer) record.get(SortedKeyValueFile.MAX_KEY_FIELD));
+      }
+    }
+    // 103 records, in blocks of 5
+    assertEquals(21, keys.size());
+    assertEquals(Integer.valueOf(0), keys.get(0));
+    assertEquals(Integer.valueOf(8), maxKeys.get(0));
+    assertEquals(Integer.valueOf(10), keys.get(1));
+    assertEquals(Integer.valueOf(198), maxKeys.get(20));
+  }
+
+  @Test
+  public void testBloomFilterWithResolvedKeys() throws IOException {
+    Path path = writeEvenKeys("resolved", true, true);
+
+    // the int keys are read as longs, so the Bloom filter is not used
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.LONG)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(new Configuration()).withPath(path);
+    try (SortedKeyValueFile.Reader<Long, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      List<CharSequence> values = reader.getAll(Arrays.asList(-1L, 0L, 9L, 50L, 51L, 198L, 199L));
+      assertEquals(Arrays.asList(null, "v0", null, "v50", null, "v198", null), toStrings(values));
+      assertEquals("v42", reader.get(42L).toString());
+      assertNull(reader.get(43L));
+    }
+  }
+
+  private static List<String> toStrings(List<CharSequence> values) {
+    List<String> strings = new ArrayList<>();
+    for (CharSequence value : values) {
+      strings.add(null == value ? null : value.toString());
+    }
+    return strings;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetAllOutOfSortedOrder() throws IOException {
+    Path path = writeEvenKeys("unsorted", false, false);
+    SortedKeyValueFile.Reader.Options readerOptions = new SortedKeyValueFile.Reader.Options()
+        .withKeySchema(Schema.create(Schema.Type.INT)).withValueSchema(Schema.create(Schema.Type.STRING))
+        .withConfiguration(new Configuration()).withPath(path);
+    try (SortedKeyValueFile.Reader<Integer, CharSequence> reader = new SortedKeyValueFile.Reader<>(readerOptions)) {
+      reader.getAll(Arrays.asList(4, 2));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBloomFilterWithIgnoredKeyFields() throws IOException {
+    Schema keySchema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"K\",\"fields\":["
+        + "{\"name\":\"id\",\"type\":\"int\"},{\"name\":\"note\",\"type\":\"string\",\"order\":\"ignore\"}]}");
+    SortedKeyValueFile.Writer.Options options = new SortedKeyValueFile.Writer.Options().withKeySchema(keySchema)
+        .withValueSchema(Schema.create(Schema.Type.STRING)).withConfiguration(new Configuration())
+        .withPath(new Path(mTempDir.getRoot().getPath(), "ignored")).withBloomFilter(true);
+    new SortedKeyValueFile.Writer<GenericRecord, CharSequence>(options).close();
+  }
+
   public static class Stringy implements Comparable<Stringy> {
     private String s;
 
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.mapred.tether;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestTetherInputSender {
+
+  /** Records the input calls it receives. */
+  private static class Recorder implements InputProtocol {
+    final List<byte[]> data = new ArrayList<>();
+    final List<Long> counts = new ArrayList<>();
+    final CountDownLatch release;
+
+    Recorder(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public void configure(TaskType taskType, String inSchema, String outSchema) {
+    }
+
+    @Override
+    public void partitions(int partitions) {
+    }
+
+    @Override
+    public synchronized void input(ByteBuffer buffer, long count) {
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      data.add(bytes);
+      counts.add(count);
+    }
+
+    @Override
+    public void abort() {
+    }
+
+    @Override
+    public void complete() {
+    }
+  }
+
+  @Test
+  public void testSend() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Recorder recorder = new Recorder(release);
+    TetherInputSender sender = new TetherInputSender(recorder, 2);
+    ByteBuffer block = ByteBuffer.allocate(3);
+    for (int i = 0; i < 3; i++) { // reuses the buffer, as record readers do
+      ((Buffer) block).clear();
+      block.put(new byte[] { (byte) i, (byte) i, (byte) i });
+      ((Buffer) block).flip();
+      sender.send(block, i + 1);
+    }
+    release.countDown();
+    sender.finish();
+    assertEquals(3, recorder.data.size());
+    for (int i = 0; i < 3; i++) {
+      assertArrayEquals(new byte[] { (byte) i, (byte) i, (byte) i }, recorder.data.get(i));
+      assertEquals(i + 1, (long) recorder.counts.get(i));
+    }
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    Recorder recorder = new Recorder(new CountDownLatch(0));
+    TetherInputSender sender = new TetherInputSender(recorder, 1);
+    byte[] datum = new byte[1000];
+    int records = 2 * TetherInputSender.BATCH_BYTES / datum.length + 10;
+    for (int i = 0; i < records; i++) {
+      datum[0] = (byte) i;
+      sender.add(ByteBuffer.wrap(datum));
+    }
+    sender.finish();
+
+    long total = 0;
+    int index = 0;
+    for (int call = 0; call < recorder.data.size(); call++) {
+      byte[] bytes = recorder.data.get(call);
+      long count = recorder.counts.get(call);
+      assertEquals(count * datum.length, bytes.length);
+      for (int i = 0; i < count; i++, index++) {
+        assertEquals((byte) index, bytes[i * datum.length]);
+      }
+      total += count;
+    }
+    assertEquals(records, total);
+    assertEquals(3, recorder.data.size());
+  }
+
+  @Test
+  public void testError() throws Exception {
+    InputProtocol failing = new Recorder(new CountDownLatch(0)) {
+      @Override
+      public synchronized void input(ByteBuffer buffer, long count) {
+        throw new RuntimeException("child failed");
+      }
+    };
+    TetherInputSender sender = new TetherInputSender(failing, 1);
+    try {
+      for (int i = 0; i < 100; i++) {
+        sender.send(ByteBuffer.allocate(1), 1);
+      }
+      sender.finish();
+      fail("Expected the failure to be reported");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("child failed"));
+    }
+  }
+}
@@ -128,4 +128,15 @@ public class TestWordCountTether {
   public void testhtp() throws Exception {
     _runjob("http");
   }
+
+  /**
+   * Test the job using memory-mapped files
+   *
+   * @throws Exception
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testMappedFiles() throws Exception {
+    _runjob("mmap");
+  }
 }
@@ -18,17 +18,21 @@
 
 package org.apache.avro.mapred.tether;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.avro.Schema;
 import org.apache.avro.ipc.HttpTransceiver;
+import org.apache.avro.ipc.MappedFileTransceiver;
 import org.apache.avro.ipc.Transceiver;
 import org.apache.avro.ipc.SaslSocketTransceiver;
 import org.apache.avro.ipc.specific.SpecificRequestor;
@@ -64,6 +68,9 @@ public abstract class TetherTask<IN, MID, OUT> {
   private Collector<MID> midCollector;
   private Collector<OUT> outCollector;
 
+  // output values are sent in batches of about this size
+  private static final int OUTPUT_BATCH_BYTES = 64 * 1024;
+
   private static class Buffer extends ByteArrayOutputStream {
     public ByteBuffer data() {
       return ByteBuffer.wrap(buf, 0, count);
@@ -75,6 +82,8 @@ public abstract class TetherTask<IN, MID, OUT> {
     private SpecificDatumWriter<T> writer;
     private Buffer buffer = new Buffer();
     private BinaryEncoder encoder = new EncoderFactory().configureBlockSize(512).binaryEncoder(buffer, null);
+    private List<ByteBuffer> batch = new ArrayList<>();
+    private int batchBytes;
 
     private Collector(Schema schema) {
       this.writer = new SpecificDatumWriter<>(schema);
@@ -85,7 +94,19 @@ public abstract class TetherTask<IN, MID, OUT> {
       buffer.reset();
       writer.write(record, encoder);
       encoder.flush();
-      outputClient.output(buffer.data());
+      batch.add(ByteBuffer.wrap(buffer.toByteArray()));
+      batchBytes += buffer.size();
+      if (batchBytes >= OUTPUT_BATCH_BYTES)
+        flush();
+    }
+
+    /** Send any batched output values. */
+    void flush() {
+      if (batch.isEmpty())
+        return;
+      outputClient.outputs(batch);
+      batch = new ArrayList<>();
+      batchBytes = 0;
     }
 
     /** Collect a pre-partitioned map output value. */
@@ -116,6 +137,8 @@ public abstract class TetherTask<IN, MID, OUT> {
       proto = TetheredProcess.Protocol.HTTP;
     } else if (protocol.equals("sasl")) {
       proto = TetheredProcess.Protocol.SASL;
+    } else if (protocol.equals("mmap")) {
+      proto = TetheredProcess.Protocol.MMAP;
     } else {
       throw new RuntimeException("AVROT_TETHER_PROTOCOL=" + protocol + " but this protocol is unsupported");
     }
@@ -130,6 +153,11 @@ public abstract class TetherTask<IN, MID, OUT> {
       this.clientTransceiver = new HttpTransceiver(new URL("http://127.0.0.1:" + clientPort));
       this.outputClient = SpecificRequestor.getClient(OutputProtocol.class, clientTransceiver);
       break;
+
+    case MMAP:
+      this.clientTransceiver = new MappedFileTransceiver(new File(System.getenv("AVRO_TETHER_OUTPUT_FILE")));
+      this.outputClient = SpecificRequestor.getClient(OutputProtocol.class, clientTransceiver);
+      break;
     }
 
     // send inputPort to parent
@@ -198,6 +226,10 @@ public abstract class TetherTask<IN, MID, OUT> {
         LOG.warn("failing: " + e, e);
         fail(e.toString());
       }
+    if (midCollector != null)
+      midCollector.flush();
+    if (outCollector != null)
+      outCollector.flush();
     LOG.info("TetherTask: Sending complete to parent process.");
     outputClient.complete();
     LOG.info("TetherTask: Done sending complete to parent process.");
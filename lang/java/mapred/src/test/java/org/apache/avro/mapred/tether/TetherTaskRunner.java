@@ -18,6 +18,7 @@
 
 package org.apache.avro.mapred.tether;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -25,6 +26,7 @@ import java.nio.ByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.avro.ipc.MappedFileServer;
 import org.apache.avro.ipc.SaslSocketServer;
 import org.apache.avro.ipc.specific.SpecificResponder;
 import org.apache.avro.ipc.Server;
@@ -59,6 +61,9 @@ public class TetherTaskRunner implements InputProtocol {
     } else if (protocol.equals("sasl")) {
       LOG.info("Use SASL protocol");
       proto = TetheredProcess.Protocol.SASL;
+    } else if (protocol.equals("mmap")) {
+      LOG.info("Use MMAP protocol");
+      proto = TetheredProcess.Protocol.MMAP;
     } else {
       throw new RuntimeException("AVRO_TETHER_PROTOCOL=" + protocol + " but this protocol is unsupported");
     }
@@ -77,6 +82,12 @@ public class TetherTaskRunner implements InputProtocol {
 
       LOG.info("Started HttpServer on port:" + iaddress.getPort());
       break;
+
+    case MMAP:
+      File inputFile = new File(System.getenv("AVRO_TETHER_INPUT_FILE"));
+      this.inputServer = new MappedFileServer(new SpecificResponder(InputProtocol.class, this), inputFile);
+      LOG.info("Started MappedFileServer on file:" + inputFile);
+      break;
     }
 
     inputServer.start();
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.avro.perf.test.generic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.io.JsonDatumReader;
+import org.apache.avro.io.JsonDecoder;
+import org.apache.avro.io.JsonEncoder;
+import org.apache.avro.perf.test.BasicState;
+import org.apache.avro.util.Utf8;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Round-trips of generic records through Avro's JSON encoding.
+ */
+public class GenericJsonTest {
+
+  private static final String RECORD_SCHEMA = "{ \"type\": \"record\", \"name\": \"R\", \"fields\": [\n"
+      + "{ \"name\": \"id\", \"type\": \"long\" },\n" + "{ \"name\": \"name\", \"type\": \"string\" },\n"
+      + "{ \"name\": \"note\", \"type\": [\"null\", \"string\"] },\n" + "{ \"name\": \"data\", \"type\": \"bytes\" },\n"
+      + "{ \"name\": \"values\", \"type\": { \"type\": \"array\", \"items\": \"double\" } }\n" + "] }";
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void encode(final TestStateEncode state) throws Exception {
+    final JsonEncoder e = state.encoder;
+    final GenericDatumWriter<Object> writer = new GenericDatumWriter<>(state.schema);
+    for (final GenericRecord rec : state.testData) {
+      writer.write(rec, e);
+    }
+    e.flush();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void decode(final Blackhole blackhole, final TestStateDecode state) throws Exception {
+    final JsonDecoder d = state.decoder;
+    final GenericDatumReader<Object> reader = new GenericDatumReader<>(state.schema);
+    Object reuse = null;
+    for (int i = 0; i < state.getBatchSize(); i++) {
+      reuse = reader.read(reuse, d);
+      blackhole.consume(reuse);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void decodeDocumentOrder(final Blackhole blackhole, final TestStateDecode state) throws Exception {
+    final JsonDecoder d = state.decoder;
+    final JsonDatumReader<Object> reader = new JsonDatumReader<>(state.schema);
+    Object reuse = null;
+    for (int i = 0; i < state.getBatchSize(); i++) {
+      reuse = reader.read(reuse, d);
+      blackhole.consume(reuse);
+    }
+  }
+
+  private static GenericRecord[] createRecords(Schema schema, Random r, int count) {
+    final GenericRecord[] records = new GenericRecord[count];
+    for (int i = 0; i < count; i++) {
+      final GenericRecord rec = new GenericData.Record(schema);
+      rec.put("id", r.nextLong());
+      rec.put("name", new Utf8("name-" + r.nextInt() + "-\u00e9\u4e2d"));
+      rec.put("note", r.nextBoolean() ? null : new Utf8("note " + r.nextInt()));
+      final byte[] data = new byte[16];
+      r.nextBytes(data);
+      rec.put("data", ByteBuffer.wrap(data));
+      final List<Double> values = new ArrayList<>();
+      for (int j = 0; j < 8; j++) {
+        values.add(r.nextDouble());
+      }
+      rec.put("values", values);
+      records[i] = rec;
+    }
+    return records;
+  }
+
+  @State(Scope.Thread)
+  public static class TestStateEncode extends BasicState {
+
+    private final Schema schema;
+
+    private GenericRecord[] testData;
+    private JsonEncoder encoder;
+
+    public TestStateEncode() {
+      super();
+      this.schema = new Schema.Parser().parse(RECORD_SCHEMA);
+    }
+
+    /**
+     * Setup the trial data.
+     *
+     * @throws IOException Could not setup test data
+     */
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws Exception {
+      this.encoder = EncoderFactory.get().jsonEncoder(schema, getNullOutputStream());
+      this.testData = createRecords(schema, super.getRandom(), getBatchSize());
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestStateDecode extends BasicState {
+
+    private final Schema schema;
+
+    private byte[] testData;
+    private JsonDecoder decoder;
+
+    public TestStateDecode() {
+      super();
+      this.schema = new Schema.Parser().parse(RECORD_SCHEMA);
+    }
+
+    /**
+     * Generate test data.
+     *
+     * @throws IOException Could not setup test data
+     */
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws IOException {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final JsonEncoder encoder = EncoderFactory.get().jsonEncoder(schema, baos);
+      final GenericDatumWriter<Object> writer = new GenericDatumWriter<>(schema);
+      for (final GenericRecord rec : createRecords(schema, super.getRandom(), getBatchSize())) {
+        writer.write(rec, encoder);
+      }
+      encoder.flush();
+      this.testData = baos.toByteArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void doSetupInvocation() throws Exception {
+      this.decoder = DecoderFactory.get().jsonDecoder(schema, new ByteArrayInputStream(this.testData));
+    }
+  }
+}
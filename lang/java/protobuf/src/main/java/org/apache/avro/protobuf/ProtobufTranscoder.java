@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.protobuf;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Transcodes protobuf's wire format directly into Avro's binary encoding,
+ * without building {@link com.google.protobuf.Message} instances. The Avro data
+ * written is that which a {@link ProtobufDatumWriter} would write for the
+ * parsed message, using the schema returned by
+ * {@link ProtobufData#getSchema(Descriptor)}.
+ * <p/>
+ * A plan is compiled once from the descriptor and schema. Each message is then
+ * scanned with a {@link CodedInputStream}, noting where each field's values lie
+ * in the input, and the fields are written in the schema's order. Strings,
+ * bytes and nested messages are written from the input without being copied.
+ * <p/>
+ * As when parsing, the last value of a singular field wins, repeated fields may
+ * be packed or not, singular message fields that occur more than once are
+ * merged, and unknown fields or enum values are ignored. Absent fields are
+ * written with their protobuf default, absent optional messages as null.
+ * <p/>
+ * Instances reuse their internal state from message to message, and so are not
+ * thread-safe.
+ */
+public class ProtobufTranscoder {
+  private static final int MAX_DEPTH = 100;
+
+  // the tags of Timestamp's seconds (1) and nanos (2), both varints
+  private static final int SECONDS_TAG = (1 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int NANOS_TAG = (2 << 3) | WireFormat.WIRETYPE_VARINT;
+
+  private final Schema schema;
+  private final MessagePlan root;
+  private final List<Frame> frames = new ArrayList<>();
+  private byte[] buffer = new byte[0];
+
+  /** Construct for a message type, using {@link ProtobufData#get()}. */
+  public ProtobufTranscoder(Descriptor descriptor) {
+    this(descriptor, ProtobufData.get());
+  }
+
+  /**
+   * Construct for a message type, using the schema (including any logical type
+   * conversions) that the given data model assigns it.
+   */
+  public ProtobufTranscoder(Descriptor descriptor, ProtobufData data) {
+    this.schema = data.getSchema(descriptor);
+    if (schema.getType() != Schema.Type.RECORD)
+      throw new AvroRuntimeException("Not a record: " + schema);
+    this.root = compile(descriptor, schema, new IdentityHashMap<>());
+  }
+
+  /** Return the schema of the Avro data written. */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /** Transcode a serialized message. */
+  public void transcode(byte[] bytes, BinaryEncoder out) throws IOException {
+    transcode(bytes, 0, bytes.length, out);
+  }
+
+  /** Transcode a serialized message held in part of an array. */
+  public void transcode(byte[] bytes, int offset, int length, BinaryEncoder out) throws IOException {
+    Frame frame = frame(0);
+    frame.parse(root, bytes, offset, length);
+    write(frame, root, out, 0);
+  }
+
+  /**
+   * Transcode the next message of a stream written with
+   * {@link com.google.protobuf.MessageLite#writeDelimitedTo}.
+   *
+   * @return false if the stream was already at its end
+   */
+  public boolean transcodeDelimited(InputStream in, BinaryEncoder out) throws IOException {
+    int first = in.read();
+    if (first == -1)
+      return false;
+    int size = CodedInputStream.readRawVarint32(first, in);
+    if (size < 0)
+      throw new InvalidProtocolBufferException("Negative message size: " + size);
+    if (buffer.length < size)
+      buffer = new byte[Math.max(size, buffer.length * 2)];
+    for (int read = 0; read < size;) {
+      int n = in.read(buffer, read, size - read);
+      if (n < 0)
+        throw new EOFException();
+      read += n;
+    }
+    transcode(buffer, 0, size, out);
+    return true;
+  }
+
+  private Frame frame(int depth) throws IOException {
+    if (depth > MAX_DEPTH)
+      throw new InvalidProtocolBufferException("Message nested more than " + MAX_DEPTH + " deep");
+    while (frames.size() <= depth)
+      frames.add(new Frame());
+    return frames.get(depth);
+  }
+
+  private void write(Frame frame, MessagePlan plan, BinaryEncoder out, int depth) throws IOException {
+    for (int i = 0; i < plan.fields.length; i++) {
+      FieldPlan f = plan.fields[i];
+      int count = frame.counts[i];
+      long[] values = frame.values[i];
+      if (f.repeated) {
+        out.writeArrayStart();
+        out.setItemCount(count);
+        for (int j = 0; j < count; j++) {
+          out.startItem();
+          write(f, frame.buf, values[j], out, depth);
+        }
+        out.writeArrayEnd();
+      } else if (f.type == FieldDescriptor.Type.MESSAGE) {
+        if (f.nullable)
+          out.writeIndex(count == 0 ? 0 : 1);
+        if (count == 1) {
+          write(f, frame.buf, values[0], out, depth);
+        } else if (count > 1 || !f.nullable) { // merge occurrences
+          int length = 0;
+          for (int j = 0; j < count; j++)
+            length += (int) values[j];
+          byte[] merged = new byte[length];
+          for (int j = 0, p = 0; j < count; p += (int) values[j++])
+            System.arraycopy(frame.buf, (int) (values[j] >>> 32), merged, p, (int) values[j]);
+          writeMessage(f, merged, 0, length, out, depth);
+        }
+      } else if (count == 0) {
+        if (f.defaultBytes != null)
+          out.writeBytes(f.defaultBytes);
+        else
+          write(f, null, f.defaultValue, out, depth);
+      } else {
+        write(f, frame.buf, values[0], out, depth);
+      }
+    }
+  }
+
+  private void write(FieldPlan f, byte[] buf, long value, BinaryEncoder out, int depth) throws IOException {
+    switch (f.type) {
+    case INT32:
+    case UINT32:
+    case SINT32:
+    case FIXED32:
+    case SFIXED32:
+      out.writeInt((int) value);
+      break;
+    case INT64:
+    case UINT64:
+    case SINT64:
+    case FIXED64:
+    case SFIXED64:
+      out.writeLong(value);
+      break;
+    case BOOL:
+      out.writeBoolean(value != 0);
+      break;
+    case FLOAT:
+      out.writeFloat(Float.intBitsToFloat((int) value));
+      break;
+    case DOUBLE:
+      out.writeDouble(Double.longBitsToDouble(value));
+      break;
+    case ENUM:
+      out.writeEnum((int) value);
+      break;
+    case STRING: // the binary encodings of strings and bytes are the same
+    case BYTES:
+      out.writeBytes(buf, (int) (value >>> 32), (int) value);
+      break;
+    case MESSAGE:
+      writeMessage(f, buf, (int) (value >>> 32), (int) value, out, depth);
+      break;
+    default:
+      throw new AvroRuntimeException("Unexpected type: " + f.type);
+    }
+  }
+
+  private void writeMessage(FieldPlan f, byte[] buf, int offset, int length, BinaryEncoder out, int depth)
+      throws IOException {
+    if (f.timestampUnits != 0) {
+      writeTimestamp(f.timestampUnits, buf, offset, length, out);
+      return;
+    }
+    Frame frame = frame(depth + 1);
+    frame.parse(f.message, buf, offset, length);
+    write(frame, f.message, out, depth + 1);
+  }
+
+  /** Write a google.protobuf.Timestamp as a count of units since the epoch. */
+  private static void writeTimestamp(int units, byte[] buf, int offset, int length, BinaryEncoder out)
+      throws IOException {
+    CodedInputStream in = CodedInputStream.newInstance(buf, offset, length);
+    long seconds = 0;
+    int nanos = 0;
+    for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+      if (tag == SECONDS_TAG)
+        seconds = in.readInt64();
+      else if (tag == NANOS_TAG)
+        nanos = in.readInt32();
+      else
+        in.skipField(tag);
+    }
+    out.writeLong(seconds * units + nanos / (1000000000 / units));
+  }
+
+  /** How to transcode a message type. */
+  private static class MessagePlan {
+    FieldPlan[] fields; // in schema order
+    FieldPlan[] byNumber; // for field numbers below 256
+    int[] numbers; // sorted, for larger field numbers
+    FieldPlan[] numbered;
+
+    FieldPlan field(int number) {
+      if (number < byNumber.length)
+        return byNumber[number];
+      int i = Arrays.binarySearch(numbers, number);
+      return i < 0 ? null : numbered[i];
+    }
+  }
+
+  /** How to transcode a field. */
+  private static class FieldPlan {
+    final int pos;
+    final FieldDescriptor.Type type;
+    final int wireType;
+    final boolean repeated;
+    final boolean packable;
+    boolean nullable;
+    MessagePlan message;
+    int timestampUnits; // non-zero where a message is written as a timestamp
+    int[] enumNumbers; // sorted, with the matching ordinals
+    int[] enumOrdinals;
+    long defaultValue;
+    byte[] defaultBytes;
+
+    FieldPlan(int pos, FieldDescriptor f) {
+      this.pos = pos;
+      this.type = f.getType();
+      this.wireType = f.getLiteType().getWireType();
+      this.repeated = f.isRepeated();
+      this.packable = f.isPackable();
+    }
+
+    int ordinal(int number) {
+      int i = Arrays.binarySearch(enumNumbers, number);
+      return i < 0 ? -1 : enumOrdinals[i];
+    }
+  }
+
+  private static MessagePlan compile(Descriptor descriptor, Schema schema, Map<Descriptor, MessagePlan> seen) {
+    MessagePlan plan = seen.get(descriptor);
+    if (plan != null) // recursive type
+      return plan;
+    plan = new MessagePlan();
+    seen.put(descriptor, plan);
+
+    List<FieldDescriptor> descriptors = descriptor.getFields();
+    plan.fields = new FieldPlan[descriptors.size()];
+    for (FieldDescriptor fd : descriptors) {
+      Schema.Field field = schema.getField(fd.getName());
+      FieldPlan f = new FieldPlan(field.pos(), fd);
+      Schema s = field.schema();
+      if (f.repeated)
+        s = s.getElementType();
+      if (s.getType() == Schema.Type.UNION) {
+        f.nullable = true;
+        s = s.getTypes().get(1);
+      }
+      switch (f.type) {
+      case MESSAGE:
+        LogicalType logicalType = s.getLogicalType();
+        if (s.getType() == Schema.Type.RECORD)
+          f.message = compile(fd.getMessageType(), s, seen);
+        else if (logicalType != null && "timestamp-millis".equals(logicalType.getName()))
+          f.timestampUnits = 1000;
+        else if (logicalType != null && "timestamp-micros".equals(logicalType.getName()))
+          f.timestampUnits = 1000000;
+        else
+          throw new AvroRuntimeException("Can't transcode " + fd.getFullName() + " as " + s);
+        break;
+      case ENUM:
+        List<EnumValueDescriptor> values = fd.getEnumType().getValues();
+        long[] pairs = new long[values.size()];
+        for (int i = 0; i < pairs.length; i++) {
+          EnumValueDescriptor value = values.get(i);
+          pairs[i] = ((long) value.getNumber() << 32) | s.getEnumOrdinal(value.getName());
+        }
+        Arrays.sort(pairs);
+        f.enumNumbers = new int[pairs.length];
+        f.enumOrdinals = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+          f.enumNumbers[i] = (int) (pairs[i] >> 32);
+          f.enumOrdinals[i] = (int) pairs[i];
+        }
+        if (!f.repeated)
+          f.defaultValue = s.getEnumOrdinal(((EnumValueDescriptor) fd.getDefaultValue()).getName());
+        break;
+      default:
+        if (!f.repeated)
+          setDefault(f, fd.getDefaultValue());
+      }
+      plan.fields[f.pos] = f;
+    }
+
+    int max = 0;
+    for (FieldDescriptor fd : descriptors)
+      if (fd.getNumber() < 256)
+        max = Math.max(max, fd.getNumber());
+    plan.byNumber = new FieldPlan[max + 1];
+    List<FieldDescriptor> large = new ArrayList<>();
+    for (FieldDescriptor fd : descriptors) {
+      if (fd.getNumber() < 256)
+        plan.byNumber[fd.getNumber()] = plan.fields[schema.getField(fd.getName()).pos()];
+      else
+        large.add(fd);
+    }
+    large.sort((a, b) -> Integer.compare(a.getNumber(), b.getNumber()));
+    plan.numbers = new int[large.size()];
+    plan.numbered = new FieldPlan[large.size()];
+    for (int i = 0; i < plan.numbers.length; i++) {
+      plan.numbers[i] = large.get(i).getNumber();
+      plan.numbered[i] = plan.fields[schema.getField(large.get(i).getName()).pos()];
+    }
+    return plan;
+  }
+
+  private static void setDefault(FieldPlan f, Object value) {
+    if (value instanceof Integer)
+      f.defaultValue = (Integer) value;
+    else if (value instanceof Long)
+      f.defaultValue = (Long) value;
+    else if (value instanceof Boolean)
+      f.defaultValue = ((Boolean) value) ? 1 : 0;
+    else if (value instanceof Float)
+      f.defaultValue = Float.floatToRawIntBits((Float) value);
+    else if (value instanceof Double)
+      f.defaultValue = Double.doubleToRawLongBits((Double) value);
+    else if (value instanceof String)
+      f.defaultBytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+    else if (value instanceof ByteString)
+      f.defaultBytes = ((ByteString) value).toByteArray();
+    else
+      throw new AvroRuntimeException("Unexpected default: " + value);
+  }
+
+  /**
+   * The values of a message's fields, in the order they are written. Fixed and
+   * varint values are held as longs, and length-delimited values as their offset
+   * in {@link #buf}, shifted 32 bits left, or'd with their length.
+   */
+  private static class Frame {
+    byte[] buf;
+    int[] counts = new int[0];
+    long[][] values = new long[0][];
+
+    void parse(MessagePlan plan, byte[] buf, int offset, int length) throws IOException {
+      int fields = plan.fields.length;
+      if (counts.length < fields) {
+        counts = new int[fields];
+        values = Arrays.copyOf(values, fields);
+        for (int i = 0; i < fields; i++)
+          if (values[i] == null)
+            values[i] = new long[1];
+      }
+      Arrays.fill(counts, 0, fields, 0);
+      this.buf = buf;
+
+      CodedInputStream in = CodedInputStream.newInstance(buf, offset, length);
+      for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+        FieldPlan f = plan.field(WireFormat.getTagFieldNumber(tag));
+        if (f == null) { // unknown field
+          in.skipField(tag);
+        } else if (WireFormat.getTagWireType(tag) == f.wireType) {
+          add(f, read(f, in, offset));
+        } else if (f.packable && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+          int limit = in.pushLimit(in.readRawVarint32());
+          while (in.getBytesUntilLimit() > 0)
+            add(f, read(f, in, offset));
+          in.popLimit(limit);
+        } else { // mismatched wire type, treated as unknown
+          in.skipField(tag);
+        }
+      }
+    }
+
+    private static long read(FieldPlan f, CodedInputStream in, int offset) throws IOException {
+      switch (f.type) {
+      case INT32:
+        return in.readInt32();
+      case UINT32:
+        return in.readUInt32();
+      case SINT32:
+        return in.readSInt32();
+      case FIXED32:
+        return in.readFixed32();
+      case SFIXED32:
+        return in.readSFixed32();
+      case INT64:
+        return in.readInt64();
+      case UINT64:
+        return in.readUInt64();
+      case SINT64:
+        return in.readSInt64();
+      case FIXED64:
+        return in.readFixed64();
+      case SFIXED64:
+        return in.readSFixed64();
+      case BOOL:
+        return in.readBool() ? 1 : 0;
+      case FLOAT:
+        return in.readRawLittleEndian32();
+      case DOUBLE:
+        return in.readRawLittleEndian64();
+      case ENUM:
+        return f.ordinal(in.readEnum());
+      case STRING:
+      case BYTES:
+      case MESSAGE:
+        int length = in.readRawVarint32();
+        int start = offset + in.getTotalBytesRead();
+        in.skipRawBytes(length);
+        return ((long) start << 32) | length;
+      default:
+        throw new AvroRuntimeException("Unexpected type: " + f.type);
+      }
+    }
+
+    private void add(FieldPlan f, long value) {
+      if (f.type == FieldDescriptor.Type.ENUM && value < 0)
+        return; // unknown enum value
+      int i = f.pos;
+      if (f.repeated || f.type == FieldDescriptor.Type.MESSAGE) {
+        if (counts[i] == values[i].length)
+          values[i] = Arrays.copyOf(values[i], counts[i] * 2);
+        values[i][counts[i]++] = value;
+      } else { // last one wins
+        values[i][0] = value;
+        counts[i] = 1;
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.protobuf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.WireFormat;
+
+import org.apache.avro.protobuf.noopt.Test.A;
+import org.apache.avro.protobuf.noopt.Test.Foo;
+
+public class TestProtobufTranscoder {
+
+  private static Foo foo() {
+    Foo.Builder builder = Foo.newBuilder().setInt32(-1).setInt64(-2).setUint32(-3).setUint64(-4).setSint32(-5)
+        .setSint64(6).setFixed32(7).setFixed64(8).setSfixed32(-9).setSfixed64(10).setFloat(1.5F).setDouble(-2.5)
+        .setBool(true).setString("foo").setBytes(ByteString.copyFromUtf8("bar")).setEnum(A.X).addIntArray(27)
+        .addIntArray(-1).addSyms(A.Y).addSyms(A.Z);
+    Foo inner = builder.build();
+    return builder.addFooArray(inner).addFooArray(Foo.newBuilder().setInt32(3)).setFoo(inner).build();
+  }
+
+  private static byte[] write(Foo foo) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+    new ProtobufDatumWriter<>(Foo.class).write(foo, out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] transcode(ProtobufTranscoder transcoder, byte[] message) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+    transcoder.transcode(message, out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  @Test
+  public void testMessage() throws Exception {
+    ProtobufTranscoder transcoder = new ProtobufTranscoder(Foo.getDescriptor());
+    assertEquals(ProtobufData.get().getSchema(Foo.class), transcoder.getSchema());
+    for (Foo foo : new Foo[] { foo(), Foo.newBuilder().setInt32(0).build() })
+      assertArrayEquals(write(foo), transcode(transcoder, foo.toByteArray()));
+  }
+
+  @Test
+  public void testMerged() throws Exception {
+    // concatenated messages parse as one, merged
+    Foo first = foo();
+    Foo second = Foo.newBuilder().setInt32(5).setString("second").addIntArray(3)
+        .setFoo(Foo.newBuilder().setInt32(6).setEnum(A.Y)).build();
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    first.writeTo(message);
+    second.writeTo(message);
+    Foo merged = Foo.parseFrom(message.toByteArray());
+    assertEquals(5, merged.getInt32());
+    assertEquals(first.getFoo().getString(), merged.getFoo().getString());
+
+    ProtobufTranscoder transcoder = new ProtobufTranscoder(Foo.getDescriptor());
+    assertArrayEquals(write(merged), transcode(transcoder, message.toByteArray()));
+  }
+
+  @Test
+  public void testPackedAndUnknown() throws Exception {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    CodedOutputStream out = CodedOutputStream.newInstance(message);
+    out.writeInt32(1, 4);
+    out.writeTag(17, WireFormat.WIRETYPE_LENGTH_DELIMITED); // packed intArray
+    out.writeUInt32NoTag(CodedOutputStream.computeInt32SizeNoTag(1) + CodedOutputStream.computeInt32SizeNoTag(-2));
+    out.writeInt32NoTag(1);
+    out.writeInt32NoTag(-2);
+    out.writeInt32(17, 3); // and unpacked
+    out.writeString(99, "unknown field");
+    out.writeEnum(16, 99); // unknown enum value
+    out.flush();
+    Foo foo = Foo.parseFrom(message.toByteArray());
+    assertEquals(3, foo.getIntArrayCount());
+
+    ProtobufTranscoder transcoder = new ProtobufTranscoder(Foo.getDescriptor());
+    assertArrayEquals(write(foo), transcode(transcoder, message.toByteArray()));
+  }
+
+  @Test
+  public void testDelimited() throws Exception {
+    Foo[] foos = { foo(), Foo.newBuilder().setInt32(1).build(), foo() };
+    ByteArrayOutputStream messages = new ByteArrayOutputStream();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (Foo foo : foos) {
+      foo.writeDelimitedTo(messages);
+      expected.write(write(foo));
+    }
+
+    ProtobufTranscoder transcoder = new ProtobufTranscoder(Foo.getDescriptor());
+    ByteArrayInputStream in = new ByteArrayInputStream(messages.toByteArray());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+    for (int i = 0; i < foos.length; i++)
+      assertTrue(transcoder.transcodeDelimited(in, out));
+    assertFalse(transcoder.transcodeDelimited(in, out));
+    out.flush();
+    assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+  }
+
+  @Test
+  public void testTimestampConversion() throws Exception {
+    ProtobufData data = new ProtobufData();
+    data.addLogicalTypeConversion(new ProtoConversions.TimestampMillisConversion());
+    ProtobufTranscoder transcoder = new ProtobufTranscoder(Foo.getDescriptor(), data);
+
+    Foo foo = Foo.newBuilder().setInt32(1).setTimestamp(Timestamp.newBuilder().setSeconds(3).setNanos(4000000)).build();
+    GenericRecord record = new GenericDatumReader<GenericRecord>(transcoder.getSchema()).read(null,
+        DecoderFactory.get().binaryDecoder(transcode(transcoder, foo.toByteArray()), null));
+    assertEquals(3004L, record.get("timestamp"));
+  }
+}
@@ -0,0 +1,527 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.thrift;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TEnum;
+import org.apache.thrift.TException;
+import org.apache.thrift.TFieldIdEnum;
+import org.apache.thrift.TUnion;
+import org.apache.thrift.meta_data.EnumMetaData;
+import org.apache.thrift.meta_data.FieldMetaData;
+import org.apache.thrift.meta_data.FieldValueMetaData;
+import org.apache.thrift.meta_data.ListMetaData;
+import org.apache.thrift.meta_data.MapMetaData;
+import org.apache.thrift.meta_data.SetMetaData;
+import org.apache.thrift.meta_data.StructMetaData;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TMap;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TSet;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TTransportException;
+
+/**
+ * Transcodes between serialized Thrift structs and Avro's binary encoding,
+ * without creating instances of the generated classes. The Avro data is that
+ * which {@link ThriftDatumWriter} writes for the schema that
+ * {@link ThriftData#getSchema(Class)} derives.
+ * <p/>
+ * {@link #toAvro(TProtocol, BinaryEncoder)} reads a struct field by field and
+ * encodes each field as it arrives, then writes the encoded fields in schema
+ * order. Unset fields are written as null, or for non-optional primitives as
+ * the value a new instance of the generated class holds, which is the default
+ * given in the IDL or zero. Unknown fields are skipped and unknown enum values
+ * read as null.
+ * <p/>
+ * {@link #toThrift(BinaryDecoder, TProtocol)} writes the non-null fields of an
+ * Avro record as a struct. Since Thrift prefixes containers with their size
+ * while Avro arrays and maps may span several blocks, container elements are
+ * first written to a buffer. This direction supports the binary and compact
+ * protocols.
+ * <p/>
+ * Instances reuse their internal buffers, and so are not thread-safe.
+ */
+public class ThriftTranscoder {
+  private final Schema schema;
+  private final StructPlan root;
+
+  private final List<Frame> frames = new ArrayList<>();
+  private final List<Scratch> scratches = new ArrayList<>();
+  private ByteBuffer bytes;
+
+  /** Construct for a Thrift-generated struct class. */
+  public ThriftTranscoder(Class<? extends TBase> c) {
+    this(c, ThriftData.get());
+  }
+
+  /** Construct for a Thrift-generated struct class and a data model. */
+  public ThriftTranscoder(Class<? extends TBase> c, ThriftData data) {
+    this.schema = data.getSchema(c);
+    this.root = compile(c, schema, new HashMap<>());
+  }
+
+  /** Return the schema of the Avro data. */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /** Read a struct from a Thrift protocol and write it as an Avro record. */
+  public void toAvro(TProtocol in, BinaryEncoder out) throws IOException, TException {
+    toAvro(root, in, out, 0);
+  }
+
+  /** Read an Avro record and write it as a struct to a Thrift protocol. */
+  public void toThrift(BinaryDecoder in, TProtocol out) throws IOException, TException {
+    toThrift(root, in, out, 0);
+  }
+
+  /** How to transcode a struct. */
+  private static class StructPlan {
+    TStruct struct;
+    FieldPlan[] fields; // in schema order
+    short[] ids; // sorted, with the matching fields
+    FieldPlan[] byId;
+
+    FieldPlan field(short id) {
+      int i = Arrays.binarySearch(ids, id);
+      return i < 0 ? null : byId[i];
+    }
+  }
+
+  /** How to transcode a field. */
+  private static class FieldPlan {
+    final int pos;
+    final TField field;
+    final ValuePlan value;
+    final Object initial; // of non-optional primitives, null for zero
+
+    FieldPlan(int pos, TField field, ValuePlan value, Object initial) {
+      this.pos = pos;
+      this.field = field;
+      this.value = value;
+      this.initial = initial;
+    }
+  }
+
+  /** How to transcode a value of a field, a container element or map value. */
+  private static class ValuePlan {
+    byte type; // as in the metadata, so ENUM rather than I32
+    byte wireType;
+    boolean nullable;
+    ValuePlan element; // of lists, sets and maps
+    StructPlan struct;
+    int[] enumValues; // by ordinal
+    int[] sortedValues; // with the matching ordinals
+    int[] sortedOrdinals;
+
+    int ordinal(int value) {
+      int i = Arrays.binarySearch(sortedValues, value);
+      return i < 0 ? -1 : sortedOrdinals[i];
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static StructPlan compile(Class<? extends TBase> c, Schema schema, Map<Class<?>, StructPlan> seen) {
+    StructPlan plan = seen.get(c);
+    if (plan != null)
+      return plan;
+    plan = new StructPlan();
+    seen.put(c, plan);
+
+    plan.struct = new TStruct(c.getSimpleName());
+    Map<? extends TFieldIdEnum, FieldMetaData> meta = FieldMetaData.getStructMetaDataMap(c);
+    plan.fields = new FieldPlan[meta.size()];
+    // unset fields of a new instance hold their IDL defaults; unions have none
+    TBase instance = TUnion.class.isAssignableFrom(c) ? null : newInstance(c);
+    for (Map.Entry<? extends TFieldIdEnum, FieldMetaData> e : meta.entrySet()) {
+      FieldMetaData f = e.getValue();
+      Schema.Field field = schema.getField(f.fieldName);
+      ValuePlan value = compile(f.valueMetaData, field.schema(), seen);
+      Object initial = instance != null && !value.nullable ? instance.getFieldValue(e.getKey()) : null;
+      plan.fields[field.pos()] = new FieldPlan(field.pos(),
+          new TField(f.fieldName, value.wireType, e.getKey().getThriftFieldId()), value, initial);
+    }
+
+    FieldPlan[] byId = plan.fields.clone();
+    Arrays.sort(byId, (a, b) -> Short.compare(a.field.id, b.field.id));
+    plan.byId = byId;
+    plan.ids = new short[byId.length];
+    for (int i = 0; i < byId.length; i++)
+      plan.ids[i] = byId[i].field.id;
+    return plan;
+  }
+
+  private static TBase newInstance(Class<? extends TBase> c) {
+    try {
+      return c.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new AvroRuntimeException("Cannot instantiate " + c.getName(), e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ValuePlan compile(FieldValueMetaData meta, Schema schema, Map<Class<?>, StructPlan> seen) {
+    ValuePlan plan = new ValuePlan();
+    plan.type = meta.type;
+    plan.wireType = meta.type == TType.ENUM ? TType.I32 : meta.type;
+    if (schema.getType() == Schema.Type.UNION) {
+      plan.nullable = true;
+      schema = schema.getTypes().get(1);
+    }
+    switch (meta.type) {
+    case TType.ENUM:
+      Object[] constants = ((EnumMetaData) meta).enumClass.getEnumConstants();
+      plan.enumValues = new int[constants.length];
+      long[] pairs = new long[constants.length];
+      for (int i = 0; i < constants.length; i++) {
+        plan.enumValues[i] = ((TEnum) constants[i]).getValue();
+        pairs[i] = ((long) plan.enumValues[i] << 32) | i;
+      }
+      Arrays.sort(pairs);
+      plan.sortedValues = new int[pairs.length];
+      plan.sortedOrdinals = new int[pairs.length];
+      for (int i = 0; i < pairs.length; i++) {
+        plan.sortedValues[i] = (int) (pairs[i] >> 32);
+        plan.sortedOrdinals[i] = (int) pairs[i];
+      }
+      break;
+    case TType.LIST:
+      plan.element = compile(((ListMetaData) meta).elemMetaData, schema.getElementType(), seen);
+      break;
+    case TType.SET:
+      plan.element = compile(((SetMetaData) meta).elemMetaData, schema.getElementType(), seen);
+      break;
+    case TType.MAP:
+      plan.element = compile(((MapMetaData) meta).valueMetaData, schema.getValueType(), seen);
+      break;
+    case TType.STRUCT:
+      plan.struct = compile(((StructMetaData) meta).structClass, schema, seen);
+      break;
+    default:
+    }
+    return plan;
+  }
+
+  /** Avro-encoded fields of a struct, in the order they were read. */
+  private static class Frame extends ByteArrayOutputStream {
+    final BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(this, null);
+    int[] offsets = new int[0];
+    int[] lengths = new int[0];
+
+    void reset(int fields) {
+      reset();
+      if (lengths.length < fields) {
+        offsets = new int[fields];
+        lengths = new int[fields];
+      }
+      Arrays.fill(lengths, 0, fields, -1);
+    }
+
+    byte[] bytes() {
+      return buf;
+    }
+  }
+
+  private void toAvro(StructPlan plan, TProtocol in, BinaryEncoder out, int depth) throws IOException, TException {
+    while (frames.size() <= depth)
+      frames.add(new Frame());
+    Frame frame = frames.get(depth);
+    frame.reset(plan.fields.length);
+
+    in.readStructBegin();
+    for (TField field = in.readFieldBegin(); field.type != TType.STOP; field = in.readFieldBegin()) {
+      FieldPlan f = plan.field(field.id);
+      if (f == null || f.value.wireType != field.type) { // unknown
+        TProtocolUtil.skip(in, field.type);
+      } else {
+        int start = frame.size();
+        toAvro(f.value, in, frame.encoder, depth);
+        frame.offsets[f.pos] = start; // the last one wins
+        frame.lengths[f.pos] = frame.size() - start;
+      }
+      in.readFieldEnd();
+    }
+    in.readStructEnd();
+
+    for (FieldPlan f : plan.fields) {
+      int length = frame.lengths[f.pos];
+      if (length >= 0) {
+        out.writeFixed(frame.bytes(), frame.offsets[f.pos], length);
+      } else if (f.value.nullable) {
+        out.writeIndex(0);
+      } else {
+        writeInitial(f, out);
+      }
+    }
+  }
+
+  private static void writeInitial(FieldPlan f, BinaryEncoder out) throws IOException {
+    Object initial = f.initial;
+    switch (f.value.type) {
+    case TType.BOOL:
+      out.writeBoolean(initial != null && (Boolean) initial);
+      break;
+    case TType.BYTE:
+    case TType.I16:
+    case TType.I32:
+      out.writeInt(initial == null ? 0 : ((Number) initial).intValue());
+      break;
+    case TType.I64:
+      out.writeLong(initial == null ? 0 : ((Number) initial).longValue());
+      break;
+    case TType.DOUBLE:
+      out.writeDouble(initial == null ? 0 : ((Number) initial).doubleValue());
+      break;
+    default:
+      throw new AvroRuntimeException("No default for type: " + f.value.type);
+    }
+  }
+
+  private void toAvro(ValuePlan plan, TProtocol in, BinaryEncoder out, int depth) throws IOException, TException {
+    if (plan.type == TType.ENUM) {
+      int ordinal = plan.ordinal(in.readI32());
+      if (ordinal < 0 && !plan.nullable)
+        throw new AvroRuntimeException("Unknown enum value");
+      if (plan.nullable)
+        out.writeIndex(ordinal < 0 ? 0 : 1);
+      if (ordinal >= 0)
+        out.writeEnum(ordinal);
+      return;
+    }
+    if (plan.nullable)
+      out.writeIndex(1);
+    switch (plan.type) {
+    case TType.BOOL:
+      out.writeBoolean(in.readBool());
+      break;
+    case TType.BYTE:
+      out.writeInt(in.readByte());
+      break;
+    case TType.I16:
+      out.writeInt(in.readI16());
+      break;
+    case TType.I32:
+      out.writeInt(in.readI32());
+      break;
+    case TType.I64:
+      out.writeLong(in.readI64());
+      break;
+    case TType.DOUBLE:
+      out.writeDouble(in.readDouble());
+      break;
+    case TType.STRING: // strings and binary share both encodings
+      out.writeBytes(in.readBinary());
+      break;
+    case TType.STRUCT:
+      toAvro(plan.struct, in, out, depth + 1);
+      break;
+    case TType.LIST:
+      TList list = in.readListBegin();
+      writeElements(plan.element, list.size, in, out, depth);
+      in.readListEnd();
+      break;
+    case TType.SET:
+      TSet set = in.readSetBegin();
+      writeElements(plan.element, set.size, in, out, depth);
+      in.readSetEnd();
+      break;
+    case TType.MAP:
+      TMap map = in.readMapBegin();
+      out.writeMapStart();
+      out.setItemCount(map.size);
+      for (int i = 0; i < map.size; i++) {
+        out.startItem();
+        out.writeBytes(in.readBinary());
+        toAvro(plan.element, in, out, depth);
+      }
+      out.writeMapEnd();
+      in.readMapEnd();
+      break;
+    default:
+      throw new AvroRuntimeException("Unexpected type: " + plan.type);
+    }
+  }
+
+  private void writeElements(ValuePlan element, int size, TProtocol in, BinaryEncoder out, int depth)
+      throws IOException, TException {
+    out.writeArrayStart();
+    out.setItemCount(size);
+    for (int i = 0; i < size; i++) {
+      out.startItem();
+      toAvro(element, in, out, depth);
+    }
+    out.writeArrayEnd();
+  }
+
+  /** A buffer for the elements of a container and a protocol writing to it. */
+  private static class Scratch extends TMemoryBuffer {
+    private byte[] buf = new byte[256];
+    private int count;
+    private TProtocol protocol;
+
+    Scratch() throws TTransportException {
+      super(0);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) {
+      if (count + len > buf.length)
+        buf = Arrays.copyOf(buf, Math.max(count + len, buf.length * 2));
+      System.arraycopy(bytes, off, buf, count, len);
+      count += len;
+    }
+
+    TProtocol protocol(TProtocol like) {
+      count = 0;
+      if (protocol == null || protocol.getClass() != like.getClass()) {
+        if (like instanceof TCompactProtocol)
+          protocol = new TCompactProtocol(this);
+        else if (like instanceof TBinaryProtocol)
+          protocol = new TBinaryProtocol(this);
+        else
+          throw new AvroRuntimeException("Unsupported protocol: " + like.getClass());
+      }
+      return protocol;
+    }
+
+    void copyTo(TProtocol out) throws TTransportException {
+      out.getTransport().write(buf, 0, count);
+    }
+  }
+
+  private void toThrift(StructPlan plan, BinaryDecoder in, TProtocol out, int depth) throws IOException, TException {
+    out.writeStructBegin(plan.struct);
+    for (FieldPlan f : plan.fields) {
+      if (f.value.nullable && in.readIndex() == 0) {
+        in.readNull();
+        continue; // unset
+      }
+      out.writeFieldBegin(f.field);
+      toThrift(f.value, in, out, depth);
+      out.writeFieldEnd();
+    }
+    out.writeFieldStop();
+    out.writeStructEnd();
+  }
+
+  private void toThrift(ValuePlan plan, BinaryDecoder in, TProtocol out, int depth) throws IOException, TException {
+    switch (plan.type) {
+    case TType.BOOL:
+      out.writeBool(in.readBoolean());
+      break;
+    case TType.BYTE:
+      out.writeByte((byte) in.readInt());
+      break;
+    case TType.I16:
+      out.writeI16((short) in.readInt());
+      break;
+    case TType.I32:
+      out.writeI32(in.readInt());
+      break;
+    case TType.I64:
+      out.writeI64(in.readLong());
+      break;
+    case TType.DOUBLE:
+      out.writeDouble(in.readDouble());
+      break;
+    case TType.ENUM:
+      out.writeI32(plan.enumValues[in.readEnum()]);
+      break;
+    case TType.STRING:
+      bytes = in.readBytes(bytes);
+      out.writeBinary(bytes);
+      break;
+    case TType.STRUCT:
+      toThrift(plan.struct, in, out, depth);
+      break;
+    case TType.LIST:
+    case TType.SET: {
+      Scratch scratch = scratch(depth);
+      TProtocol elements = scratch.protocol(out);
+      int size = 0;
+      for (long n = in.readArrayStart(); n > 0; n = in.arrayNext()) {
+        for (long i = 0; i < n; i++, size++)
+          toThriftElement(plan.element, in, elements, depth + 1);
+      }
+      if (plan.type == TType.LIST) {
+        out.writeListBegin(new TList(plan.element.wireType, size));
+        scratch.copyTo(out);
+        out.writeListEnd();
+      } else {
+        out.writeSetBegin(new TSet(plan.element.wireType, size));
+        scratch.copyTo(out);
+        out.writeSetEnd();
+      }
+      break;
+    }
+    case TType.MAP: {
+      Scratch scratch = scratch(depth);
+      TProtocol entries = scratch.protocol(out);
+      int size = 0;
+      for (long n = in.readMapStart(); n > 0; n = in.mapNext()) {
+        for (long i = 0; i < n; i++, size++) {
+          bytes = in.readBytes(bytes);
+          entries.writeBinary(bytes);
+          toThriftElement(plan.element, in, entries, depth + 1);
+        }
+      }
+      out.writeMapBegin(new TMap(TType.STRING, plan.element.wireType, size));
+      scratch.copyTo(out);
+      out.writeMapEnd();
+      break;
+    }
+    default:
+      throw new AvroRuntimeException("Unexpected type: " + plan.type);
+    }
+  }
+
+  private void toThriftElement(ValuePlan plan, BinaryDecoder in, TProtocol out, int depth)
+      throws IOException, TException {
+    if (plan.nullable && in.readIndex() == 0)
+      throw new AvroRuntimeException("Thrift containers cannot hold null");
+    toThrift(plan, in, out, depth);
+  }
+
+  private Scratch scratch(int depth) throws TTransportException {
+    while (scratches.size() <= depth)
+      scratches.add(new Scratch());
+    return scratches.get(depth);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.thrift;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.thrift.test.Defaults;
+import org.apache.avro.thrift.test.E;
+import org.apache.avro.thrift.test.FooOrBar;
+import org.apache.avro.thrift.test.Nested;
+import org.apache.avro.thrift.test.Test;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TTransport;
+
+public class TestThriftTranscoder {
+
+  private static Test full() {
+    Test test = new Test();
+    test.setBoolField(true);
+    test.setByteField((byte) -2);
+    test.setI16Field((short) 3);
+    test.setI16OptionalField((short) 14);
+    test.setI32Field(4);
+    test.setI64Field(5L);
+    test.setDoubleField(2.0);
+    test.setStringField("foo");
+    test.setBinaryField(ByteBuffer.wrap(new byte[] { 0, -1 }));
+    test.setMapField(Collections.singletonMap("x", 1));
+    test.setListField(Arrays.asList(7, -7));
+    test.setSetField(Collections.singleton(8));
+    test.setEnumField(E.Y);
+    test.setStructField(new Nested(9));
+    test.setFooOrBar(FooOrBar.bar("y"));
+    return test;
+  }
+
+  private static Test optionals() {
+    Test test = new Test();
+    test.setBoolField(false);
+    test.setByteField((byte) 2);
+    test.setByteOptionalField((byte) 4);
+    test.setI16Field((short) 3);
+    test.setI64Field(5L);
+    test.setDoubleField(-2.0);
+    return test;
+  }
+
+  private static byte[] avro(Test test) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+    new ThriftDatumWriter<>(Test.class).write(test, out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void check(Function<TTransport, TProtocol> protocol) throws Exception {
+    ThriftTranscoder transcoder = new ThriftTranscoder(Test.class);
+    for (Test test : new Test[] { full(), optionals() }) {
+      // thrift to avro
+      TMemoryBuffer thrift = new TMemoryBuffer(64);
+      test.write(protocol.apply(thrift));
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+      transcoder.toAvro(protocol.apply(thrift), out);
+      out.flush();
+      assertArrayEquals(avro(test), bytes.toByteArray());
+
+      // and back
+      TMemoryBuffer back = new TMemoryBuffer(64);
+      transcoder.toThrift(DecoderFactory.get().binaryDecoder(bytes.toByteArray(), null), protocol.apply(back));
+      Test read = new Test();
+      read.read(protocol.apply(back));
+      assertEquals(test, read);
+    }
+  }
+
+  @org.junit.Test
+  public void testBinary() throws Exception {
+    check(TBinaryProtocol::new);
+  }
+
+  @org.junit.Test
+  public void testCompact() throws Exception {
+    check(TCompactProtocol::new);
+  }
+
+  @org.junit.Test
+  public void testUnsetFieldWithDefault() throws Exception {
+    // a struct from a writer that left out the field
+    TMemoryBuffer thrift = new TMemoryBuffer(64);
+    TProtocol protocol = new TBinaryProtocol(thrift);
+    protocol.writeStructBegin(new TStruct("Defaults"));
+    protocol.writeFieldStop();
+    protocol.writeStructEnd();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder out = EncoderFactory.get().binaryEncoder(bytes, null);
+    new ThriftTranscoder(Defaults.class).toAvro(new TBinaryProtocol(thrift), out);
+    out.flush();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    BinaryEncoder expectedOut = EncoderFactory.get().binaryEncoder(expected, null);
+    new ThriftDatumWriter<>(Defaults.class).write(new Defaults(5), expectedOut);
+    expectedOut.flush();
+    assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+  }
+
+  @org.junit.Test
+  public void testBlockedArrays() throws Exception {
+    Test test = optionals();
+    Integer[] list = new Integer[1000];
+    Arrays.fill(list, 12345);
+    test.setListField(Arrays.asList(list));
+    // small blocks split the list into several
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder out = new EncoderFactory().configureBlockSize(64).blockingBinaryEncoder(bytes, null);
+    new ThriftDatumWriter<>(Test.class).write(test, out);
+    out.flush();
+
+    ThriftTranscoder transcoder = new ThriftTranscoder(Test.class);
+    TMemoryBuffer thrift = new TMemoryBuffer(64);
+    transcoder.toThrift(DecoderFactory.get().binaryDecoder(bytes.toByteArray(), null), new TCompactProtocol(thrift));
+    Test read = new Test();
+    read.read(new TCompactProtocol(thrift));
+    assertEquals(test, read);
+  }
+}
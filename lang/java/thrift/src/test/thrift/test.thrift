@@ -28,6 +28,10 @@ struct Nested {
   1: i32 x
 }
 
+struct Defaults {
+  1: i32 x = 5
+}
+
 union FooOrBar {
   1: string foo;
   2: string bar;
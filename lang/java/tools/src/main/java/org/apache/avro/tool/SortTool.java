@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.tool;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileSorter;
+
+/** Tool to sort an Avro data file. */
+public class SortTool implements Tool {
+  @Override
+  public int run(InputStream in, PrintStream out, PrintStream err, List<String> args) throws Exception {
+
+    OptionParser optParser = new OptionParser();
+    OptionSpec<String> codecOpt = Util.compressionCodecOptionWithDefault(optParser, DataFileConstants.NULL_CODEC);
+    OptionSpec<Integer> levelOpt = Util.compressionLevelOption(optParser);
+    OptionSpec<Long> memoryOpt = optParser.accepts("memory", "Memory used to sort runs, in bytes").withRequiredArg()
+        .ofType(Long.class).defaultsTo(DataFileSorter.DEFAULT_MEMORY);
+    OptionSpec<Integer> threadsOpt = optParser.accepts("threads", "Number of runs sorted at once").withRequiredArg()
+        .ofType(Integer.class).defaultsTo(1);
+    OptionSpec<Integer> mergeFactorOpt = optParser.accepts("merge-factor", "Number of runs merged at once")
+        .withRequiredArg().ofType(Integer.class).defaultsTo(DataFileSorter.DEFAULT_MERGE_FACTOR);
+    OptionSpec<String> tmpDirOpt = optParser.accepts("tmpdir", "Directory for temporary files").withRequiredArg()
+        .ofType(String.class);
+    OptionSet opts = optParser.parse(args.toArray(new String[0]));
+
+    List<String> nargs = (List<String>) opts.nonOptionArguments();
+    if (nargs.size() > 2) {
+      err.println("Expected at most an input file and output file.");
+      optParser.printHelpOn(err);
+      return 1;
+    }
+    InputStream input = in;
+    boolean inputNeedsClosing = false;
+    if (nargs.size() > 0 && !nargs.get(0).equals("-")) {
+      input = Util.openFromFS(nargs.get(0));
+      inputNeedsClosing = true;
+    }
+    OutputStream output = out;
+    boolean outputNeedsClosing = false;
+    if (nargs.size() > 1 && !nargs.get(1).equals("-")) {
+      output = Util.createFromFS(nargs.get(1));
+      outputNeedsClosing = true;
+    }
+
+    DataFileSorter sorter = new DataFileSorter().setMemory(memoryOpt.value(opts)).setThreads(threadsOpt.value(opts))
+        .setMergeFactor(mergeFactorOpt.value(opts));
+    // by default the input's codec is kept
+    if (opts.has(codecOpt)) {
+      sorter.setCodec(Util.codecFactory(opts, codecOpt, levelOpt, DataFileConstants.NULL_CODEC));
+    }
+    if (opts.has(tmpDirOpt)) {
+      sorter.setTempDir(new File(tmpDirOpt.value(opts)));
+    }
+    sorter.sort(input, output);
+    output.flush();
+
+    if (inputNeedsClosing) {
+      input.close();
+    }
+    if (outputNeedsClosing) {
+      output.close();
+    }
+    return 0;
+  }
+
+  @Override
+  public String getName() {
+    return "sort";
+  }
+
+  @Override
+  public String getShortDescription() {
+    return "Sorts a data file as specified by its schema.";
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.tool;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSortTool {
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private static final int COUNT = 10000;
+
+  private void checkSorted(File file, String codec) throws Exception {
+    try (DataFileReader<Long> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertEquals(codec, reader.getMetaString(DataFileConstants.CODEC));
+      assertEquals("myMetaValue", reader.getMetaString("myMetaKey"));
+      long count = 0;
+      long previous = Long.MIN_VALUE;
+      for (Long value : reader) {
+        assertTrue(previous <= value);
+        previous = value;
+        count++;
+      }
+      assertEquals(COUNT, count);
+    }
+  }
+
+  @Test
+  public void testSort() throws Exception {
+    File input = new File(DIR.getRoot(), "input.avro");
+    Schema schema = Schema.create(Type.LONG);
+    Random random = new Random(0);
+    try (DataFileWriter<Long> writer = new DataFileWriter<>(new GenericDatumWriter<Long>(schema))) {
+      writer.setCodec(CodecFactory.deflateCodec(1));
+      writer.setMeta("myMetaKey", "myMetaValue").create(schema, input);
+      for (int i = 0; i < COUNT; i++) {
+        writer.append(random.nextLong());
+      }
+    }
+
+    File tmp = DIR.newFolder("tmp");
+    File defaultOutput = new File(DIR.getRoot(), "default-output.avro");
+    File nullOutput = new File(DIR.getRoot(), "null-output.avro");
+
+    assertEquals(0, new SortTool().run(new FileInputStream(input), new PrintStream(defaultOutput), null,
+        asList("--memory=4096", "--threads=2", "--merge-factor=4", "--tmpdir=" + tmp)));
+    assertEquals(0, new SortTool().run(null, null, null,
+        asList("--codec=null", input.getPath(), nullOutput.getPath())));
+
+    checkSorted(defaultOutput, DataFileConstants.DEFLATE_CODEC);
+    checkSorted(nullOutput, DataFileConstants.NULL_CODEC);
+    assertEquals(0, tmp.list().length);
+  }
+}